@@ -0,0 +1,206 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene84.Lucene84Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of the approximate nearest neighbour search on the HNSW graph of a <code>dense_vector</code>
+ * field with the exhaustive search on the same vectors. The <code>matchingNeighbours</code> and
+ * <code>expectedNeighbours</code> secondary results of the <code>hnsw</code> benchmark count the returned documents
+ * that are part of the exact top k and the size of the exact top k, their ratio is the recall of the graph search.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class KnnVectorSearchBenchmark {
+
+    private static final String HNSW_FIELD = "hnsw_vector";
+    private static final String EXACT_FIELD = "exact_vector";
+    private static final int NUM_QUERIES = 100;
+
+    @Param({ "50000" })
+    public int numVectors;
+
+    @Param({ "128" })
+    public int dims;
+
+    @Param({ "cosine", "l2_norm" })
+    public String similarity;
+
+    @Param({ "10" })
+    public int k;
+
+    @Param({ "10", "100", "500" })
+    public int numCandidates;
+
+    private VectorSimilarity vectorSimilarity;
+    private Path path;
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private float[][] queries;
+    private Set<Integer>[] expectedNeighbours;
+    private int nextQuery;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RecallCounters {
+        public long matchingNeighbours;
+        public long expectedNeighbours;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            matchingNeighbours = 0;
+            expectedNeighbours = 0;
+        }
+    }
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        vectorSimilarity = VectorSimilarity.fromString(similarity);
+        final Random random = new Random(42);
+        path = Files.createTempDirectory("knn");
+        directory = FSDirectory.open(path);
+        final DocValuesFormat format = new HnswDocValuesFormat(vectorSimilarity, dims,
+            HnswDocValuesFormat.DEFAULT_M, HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION);
+        final IndexWriterConfig config = new IndexWriterConfig().setCodec(new Lucene84Codec() {
+            @Override
+            public DocValuesFormat getDocValuesFormatForField(String field) {
+                return HNSW_FIELD.equals(field) ? format : super.getDocValuesFormatForField(field);
+            }
+        });
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < numVectors; i++) {
+                final BytesRef vector = encode(randomVector(random));
+                final Document document = new Document();
+                document.add(new BinaryDocValuesField(HNSW_FIELD, vector));
+                document.add(new BinaryDocValuesField(EXACT_FIELD, vector));
+                writer.addDocument(document);
+            }
+            // a single segment so that the search only walks one graph
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+
+        queries = new float[NUM_QUERIES][];
+        expectedNeighbours = new Set[NUM_QUERIES];
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            queries[i] = randomVector(random);
+            expectedNeighbours[i] = new HashSet<>();
+            for (ScoreDoc scoreDoc : search(EXACT_FIELD, queries[i]).scoreDocs) {
+                expectedNeighbours[i].add(scoreDoc.doc);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public TopDocs hnsw(RecallCounters counters) throws IOException {
+        final int query = nextQuery();
+        final TopDocs topDocs = search(HNSW_FIELD, queries[query]);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            if (expectedNeighbours[query].contains(scoreDoc.doc)) {
+                counters.matchingNeighbours++;
+            }
+        }
+        counters.expectedNeighbours += expectedNeighbours[query].size();
+        return topDocs;
+    }
+
+    @Benchmark
+    public TopDocs bruteForce() throws IOException {
+        return search(EXACT_FIELD, queries[nextQuery()]);
+    }
+
+    private int nextQuery() {
+        nextQuery = (nextQuery + 1) % NUM_QUERIES;
+        return nextQuery;
+    }
+
+    private TopDocs search(String field, float[] queryVector) throws IOException {
+        return searcher.search(new KnnVectorQuery(field, queryVector, vectorSimilarity, k, numCandidates, null), k);
+    }
+
+    private float[] randomVector(Random random) {
+        final float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static BytesRef encode(float[] vector) {
+        final ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        for (float value : vector) {
+            buffer.putFloat(value);
+        }
+        return new BytesRef(buffer.array());
+    }
+}
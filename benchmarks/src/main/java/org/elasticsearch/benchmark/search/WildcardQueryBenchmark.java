@@ -0,0 +1,172 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.mapper.BinaryFieldMapper.CustomBinaryDocValuesField;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.xpack.wildcard.mapper.WildcardFieldMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares wildcard and regexp queries on a <code>keyword</code> field, which check the pattern against every term of the
+ * field, with the same queries on a <code>wildcard</code> field, which look up the n-grams of the pattern and check the
+ * pattern against the doc values of the candidate documents only.
+ *
+ * The corpus is made of synthetic command lines that are all unique. The default size keeps the setup short, the numbers
+ * are more representative of the grep-like use case on large indices with <code>-p numDocs=100000000</code>.
+ */
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class WildcardQueryBenchmark {
+
+    private static final String KEYWORD_FIELD = "keyword";
+    private static final String WILDCARD_FIELD = "wildcard";
+    private static final String[] EXECUTABLES = new String[] {
+        "/usr/bin/python3", "/bin/bash", "/usr/bin/curl", "C:\\Windows\\System32\\cmd.exe", "powershell.exe", "/usr/bin/java" };
+    private static final String[] ARGUMENTS = new String[] {
+        "-c", "-enc", "--output", "-jar", "/tmp/", "-NoProfile", "http://", "/c", "-Xmx", "--verbose" };
+    private static final FieldType NGRAM_FIELD_TYPE = new FieldType();
+
+    static {
+        NGRAM_FIELD_TYPE.setTokenized(false);
+        NGRAM_FIELD_TYPE.setOmitNorms(true);
+        NGRAM_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+        NGRAM_FIELD_TYPE.freeze();
+    }
+
+    @Param({ "1000000" })
+    public int numDocs;
+
+    @Param({ "*powershell*-enc*", "*/tmp/*.sh*", "/usr/bin/java*" })
+    public String wildcardPattern;
+
+    @Param({ ".*http://[a-z0-9]+\\.example.*" })
+    public String regexpPattern;
+
+    private Path path;
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private MappedFieldType wildcardFieldType;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        path = Files.createTempDirectory("wildcard");
+        directory = FSDirectory.open(path);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                final String value = randomCommandLine(random);
+                final Document document = new Document();
+                document.add(new StringField(KEYWORD_FIELD, value, Field.Store.NO));
+                for (String ngram : WildcardFieldMapper.indexNgrams(value)) {
+                    document.add(new Field(WILDCARD_FIELD, ngram, NGRAM_FIELD_TYPE));
+                }
+                document.add(new CustomBinaryDocValuesField(WILDCARD_FIELD, value.getBytes(StandardCharsets.UTF_8)));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+        wildcardFieldType = WildcardFieldMapper.Defaults.FIELD_TYPE.clone();
+        wildcardFieldType.setName(WILDCARD_FIELD);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public int keywordWildcard() throws IOException {
+        return searcher.count(new WildcardQuery(new Term(KEYWORD_FIELD, wildcardPattern)));
+    }
+
+    @Benchmark
+    public int wildcardWildcard() throws IOException {
+        return searcher.count(wildcardFieldType.wildcardQuery(wildcardPattern, null, null));
+    }
+
+    @Benchmark
+    public int keywordRegexp() throws IOException {
+        return searcher.count(new RegexpQuery(new Term(KEYWORD_FIELD, regexpPattern)));
+    }
+
+    @Benchmark
+    public int wildcardRegexp() throws IOException {
+        Query query = wildcardFieldType.regexpQuery(regexpPattern, RegExp.ALL, 10000, null, null);
+        return searcher.count(query);
+    }
+
+    private static String randomCommandLine(Random random) {
+        final StringBuilder builder = new StringBuilder(EXECUTABLES[random.nextInt(EXECUTABLES.length)]);
+        final int numArguments = 1 + random.nextInt(5);
+        for (int i = 0; i < numArguments; i++) {
+            builder.append(' ').append(ARGUMENTS[random.nextInt(ARGUMENTS.length)]);
+            // a random suffix makes every command line unique, as it would be with file names, ids or urls
+            builder.append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+            if (random.nextInt(4) == 0) {
+                builder.append(random.nextBoolean() ? ".sh" : ".example.com/");
+            }
+        }
+        return builder.toString();
+    }
+}
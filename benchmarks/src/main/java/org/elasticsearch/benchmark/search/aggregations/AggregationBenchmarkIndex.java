@@ -0,0 +1,300 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.HistogramValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.fetch.subphase.DocValueFieldsContext;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.PercentilesAggregationBuilder;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.FilteredSearchContext;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.profile.Profilers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An in-memory index with a <code>keyword</code>, a <code>long</code> and a <code>double</code> field, and the plumbing to
+ * run aggregators over it the way the aggregation phase of a shard does. The aggregation benchmarks share this index so that
+ * they measure the same documents.
+ */
+final class AggregationBenchmarkIndex implements Closeable {
+
+    static final String KEYWORD_FIELD = "keyword";
+    static final String LONG_FIELD = "long";
+    static final String DOUBLE_FIELD = "double";
+
+    // the longs are spread over this range, so that histograms with an interval of 100 have 1000 buckets
+    private static final int MAX_LONG_VALUE = 100_000;
+    // a few segments so that global ordinals need to be mapped to segment ordinals like on a real shard
+    private static final int NUM_SEGMENTS = 4;
+
+    private final Map<String, MappedFieldType> fieldTypes;
+    private final IndexSettings indexSettings;
+    private final CircuitBreakerService breakerService = new NoneCircuitBreakerService();
+    private final BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), breakerService, CircuitBreaker.REQUEST);
+    private final IndicesFieldDataCache fieldDataCache = new IndicesFieldDataCache(Settings.EMPTY, new IndexFieldDataCache.Listener() {});
+    private final Directory directory;
+    private final DirectoryReader reader;
+
+    /**
+     * Indexes <code>numDocs</code> documents whose <code>keyword</code> field has <code>cardinality</code> distinct values.
+     */
+    AggregationBenchmarkIndex(int numDocs, int cardinality, long seed) throws IOException {
+        KeywordFieldMapper.KeywordFieldType keywordFieldType = new KeywordFieldMapper.KeywordFieldType();
+        keywordFieldType.setName(KEYWORD_FIELD);
+        keywordFieldType.setHasDocValues(true);
+        NumberFieldMapper.NumberFieldType longFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        longFieldType.setName(LONG_FIELD);
+        longFieldType.setHasDocValues(true);
+        NumberFieldMapper.NumberFieldType doubleFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.DOUBLE);
+        doubleFieldType.setName(DOUBLE_FIELD);
+        doubleFieldType.setHasDocValues(true);
+        fieldTypes = Map.of(KEYWORD_FIELD, keywordFieldType, LONG_FIELD, longFieldType, DOUBLE_FIELD, doubleFieldType);
+
+        Settings settings = Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT).build();
+        indexSettings = new IndexSettings(
+            IndexMetaData.builder("benchmark").settings(settings).numberOfShards(1).numberOfReplicas(0).build(), Settings.EMPTY);
+
+        Random random = new Random(seed);
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                String term = "term-" + random.nextInt(cardinality);
+                document.add(new StringField(KEYWORD_FIELD, term, Field.Store.NO));
+                document.add(new SortedSetDocValuesField(KEYWORD_FIELD, new BytesRef(term)));
+                long longValue = random.nextInt(MAX_LONG_VALUE);
+                document.add(new LongPoint(LONG_FIELD, longValue));
+                document.add(new SortedNumericDocValuesField(LONG_FIELD, longValue));
+                double doubleValue = 100 + 15 * random.nextGaussian();
+                document.add(new SortedNumericDocValuesField(DOUBLE_FIELD, NumericUtils.doubleToSortableLong(doubleValue)));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(NUM_SEGMENTS);
+        }
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), new ShardId(indexSettings.getIndex(), 0));
+    }
+
+    /**
+     * Returns the aggregation of the given type: <code>terms</code>, <code>histogram</code>, <code>cardinality</code>,
+     * <code>percentiles</code> or <code>composite</code>.
+     */
+    static AggregationBuilder aggregation(String type) {
+        switch (type) {
+            case "terms":
+                return new TermsAggregationBuilder(type, null).field(KEYWORD_FIELD).size(100);
+            case "histogram":
+                return new HistogramAggregationBuilder(type).field(LONG_FIELD).interval(100);
+            case "cardinality":
+                return new CardinalityAggregationBuilder(type, null).field(KEYWORD_FIELD);
+            case "percentiles":
+                return new PercentilesAggregationBuilder(type).field(DOUBLE_FIELD);
+            case "composite":
+                List<CompositeValuesSourceBuilder<?>> sources = List.of(
+                    new TermsValuesSourceBuilder(KEYWORD_FIELD).field(KEYWORD_FIELD),
+                    new HistogramValuesSourceBuilder(LONG_FIELD).field(LONG_FIELD).interval(1000));
+                return new CompositeAggregationBuilder(type, sources).size(1000);
+            default:
+                throw new IllegalArgumentException("unknown aggregation [" + type + "]");
+        }
+    }
+
+    /**
+     * Collects all the documents of the index with an aggregator built from the given aggregation and returns the result of
+     * the shard, as the query and aggregation phases of a <code>match_all</code> search would.
+     */
+    InternalAggregation collect(AggregationBuilder aggregationBuilder) throws IOException {
+        QueryShardContext queryShardContext = createQueryShardContext();
+        try (BenchmarkSearchContext searchContext = new BenchmarkSearchContext(queryShardContext)) {
+            AggregatorFactories factories = new AggregatorFactories.Builder().addAggregator(aggregationBuilder)
+                .build(queryShardContext, null);
+            Aggregator aggregator = factories.createTopLevelAggregators(searchContext)[0];
+            aggregator.preCollection();
+            searchContext.searcher().search(searchContext.query(), aggregator);
+            aggregator.postCollection();
+            return aggregator.buildAggregation(0);
+        }
+    }
+
+    private QueryShardContext createQueryShardContext() {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        return new QueryShardContext(0, indexSettings, bigArrays, null, this::getForField, null, null, null, null, null, null,
+            searcher, System::currentTimeMillis, null, index -> true, () -> true) {
+
+            @Override
+            public MappedFieldType fieldMapper(String name) {
+                return fieldTypes.get(name);
+            }
+        };
+    }
+
+    private IndexFieldData<?> getForField(MappedFieldType fieldType, String indexName) {
+        IndexFieldDataCache cache = fieldDataCache.buildIndexFieldDataCache(new IndexFieldDataCache.Listener() {},
+            indexSettings.getIndex(), fieldType.name());
+        return fieldType.fielddataBuilder(indexName).build(indexSettings, fieldType, cache, breakerService, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(reader, directory, fieldDataCache);
+    }
+
+    /**
+     * A search context that only provides what aggregators over doc values need, everything else is delegated to a
+     * <code>null</code> context and fails.
+     */
+    private class BenchmarkSearchContext extends FilteredSearchContext {
+
+        private final QueryShardContext queryShardContext;
+        private final ContextIndexSearcher searcher;
+        private final SearchContextAggregations aggregations;
+
+        BenchmarkSearchContext(QueryShardContext queryShardContext) {
+            super(null);
+            this.queryShardContext = queryShardContext;
+            this.searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(), null,
+                IndexSearcher.getDefaultQueryCachingPolicy());
+            MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(Integer.MAX_VALUE,
+                breakerService.getBreaker(CircuitBreaker.REQUEST));
+            this.aggregations = new SearchContextAggregations(AggregatorFactories.EMPTY, bucketConsumer);
+        }
+
+        @Override
+        public SearchShardTarget shardTarget() {
+            return null;
+        }
+
+        @Override
+        public int numberOfShards() {
+            return 1;
+        }
+
+        @Override
+        public SearchContextAggregations aggregations() {
+            return aggregations;
+        }
+
+        @Override
+        public ContextIndexSearcher searcher() {
+            return searcher;
+        }
+
+        @Override
+        public BigArrays bigArrays() {
+            return bigArrays;
+        }
+
+        @Override
+        public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
+            return queryShardContext.getForField(fieldType);
+        }
+
+        @Override
+        public MappedFieldType smartNameFieldType(String name) {
+            return queryShardContext.fieldMapper(name);
+        }
+
+        @Override
+        public Query query() {
+            return new MatchAllDocsQuery();
+        }
+
+        @Override
+        public Query buildFilteredQuery(Query query) {
+            return query;
+        }
+
+        @Override
+        public Profilers getProfilers() {
+            return null;
+        }
+
+        @Override
+        public DocValueFieldsContext docValueFieldsContext() {
+            return null;
+        }
+
+        @Override
+        public SearchContext docValueFieldsContext(DocValueFieldsContext docValueFieldsContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryShardContext getQueryShardContext() {
+            return queryShardContext;
+        }
+
+        @Override
+        protected void doClose() {
+            // the releasables of the aggregators are closed by SearchContext#close
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the collection of all the documents of a shard by the aggregators that most searches rely on: the terms
+ * aggregation on global ordinals, the numeric histogram, the HyperLogLog++ cardinality, the TDigest percentiles and the
+ * composite aggregation. The time includes building the shard result, but not the reduction, see
+ * {@link InternalAggregationsReduceBenchmark}.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class AggregatorBenchmark {
+
+    @Param({ "1000000" })
+    public int numDocs;
+
+    @Param({ "100", "100000" })
+    public int cardinality;
+
+    @Param({ "terms", "histogram", "cardinality", "percentiles", "composite" })
+    public String aggregation;
+
+    private AggregationBenchmarkIndex index;
+    private AggregationBuilder aggregationBuilder;
+
+    @Setup
+    public void setup() throws IOException {
+        index = new AggregationBenchmarkIndex(numDocs, cardinality, 42);
+        aggregationBuilder = AggregationBenchmarkIndex.aggregation(aggregation);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Benchmark
+    public InternalAggregation collect() throws IOException {
+        return index.collect(aggregationBuilder);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reduction of the aggregations of many shards on the coordinating node, either the final reduction or a
+ * partial reduction like the ones of batched reduces.
+ *
+ * The shard results are computed on a few distinct in-memory indices and go through the transport serialization, larger
+ * numbers of shards reuse the results of the distinct indices. Each shard result is a separate copy though, like the
+ * deserialized shard results of the coordinating node.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class InternalAggregationsReduceBenchmark {
+
+    private static final int MAX_DISTINCT_SHARD_RESULTS = 10;
+
+    @Param({ "10", "100", "1000" })
+    public int numShards;
+
+    @Param({ "100000" })
+    public int numDocsPerShard;
+
+    @Param({ "100", "100000" })
+    public int cardinality;
+
+    @Param({ "terms", "histogram", "cardinality", "percentiles", "composite" })
+    public String aggregation;
+
+    @Param({ "true", "false" })
+    public boolean finalReduce;
+
+    private final CircuitBreakerService breakerService = new NoneCircuitBreakerService();
+    private final BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), breakerService, CircuitBreaker.REQUEST);
+    private final NamedWriteableRegistry namedWriteableRegistry =
+        new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, Collections.emptyList()).getNamedWriteables());
+    private List<InternalAggregations> shardResults;
+
+    @Setup
+    public void setup() throws IOException {
+        AggregationBuilder aggregationBuilder = AggregationBenchmarkIndex.aggregation(aggregation);
+        List<BytesReference> distinctShardResults = new ArrayList<>();
+        for (int i = 0; i < Math.min(numShards, MAX_DISTINCT_SHARD_RESULTS); i++) {
+            try (AggregationBenchmarkIndex index = new AggregationBenchmarkIndex(numDocsPerShard, cardinality, i)) {
+                InternalAggregation shardResult = index.collect(aggregationBuilder);
+                BytesStreamOutput out = new BytesStreamOutput();
+                new InternalAggregations(List.of(shardResult)).writeTo(out);
+                distinctShardResults.add(out.bytes());
+            }
+        }
+        shardResults = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            BytesReference bytes = distinctShardResults.get(i % distinctShardResults.size());
+            try (StreamInput in = new NamedWriteableAwareStreamInput(bytes.streamInput(), namedWriteableRegistry)) {
+                shardResults.add(new InternalAggregations(in));
+            }
+        }
+    }
+
+    @Benchmark
+    public InternalAggregations reduce() {
+        MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(Integer.MAX_VALUE,
+            breakerService.getBreaker(CircuitBreaker.REQUEST));
+        InternalAggregation.ReduceContext reduceContext =
+            new InternalAggregation.ReduceContext(bigArrays, null, bucketConsumer, finalReduce);
+        return InternalAggregations.topLevelReduce(shardResults, reduceContext);
+    }
+}
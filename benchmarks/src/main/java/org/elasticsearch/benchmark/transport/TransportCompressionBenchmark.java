@@ -0,0 +1,198 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.transport;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.transport.Compression;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the transport compression schemes on serialized {@link BulkShardRequest} and {@link SearchResponse} payloads.
+ * The <code>uncompressedBytes</code> and <code>compressedBytes</code> secondary results count the bytes that went in and out
+ * of the compressor, their ratio is the compression ratio of the scheme.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TransportCompressionBenchmark {
+
+    private static final String[] HOSTS = { "web-01", "web-02", "web-03", "api-01", "api-02" };
+    private static final String[] PATHS = { "/", "/login", "/search?q=elasticsearch", "/products/1234", "/cart", "/checkout" };
+    private static final String[] AGENTS = {
+        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0.3987.132 Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_3) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/13.0.5 Safari/605.1.15",
+        "curl/7.68.0"
+    };
+
+    @Param({ "deflate", "lz4" })
+    public String scheme;
+
+    @Param({ "bulk_shard_request", "search_response" })
+    public String payload;
+
+    @Param({ "1000" })
+    public int numDocs;
+
+    private Compressor compressor;
+    private BytesReference uncompressed;
+    private BytesReference compressed;
+    private final BytesStreamOutput output = new BytesStreamOutput();
+    private final byte[] readBuffer = new byte[4096];
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ByteCounters {
+        public long uncompressedBytes;
+        public long compressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uncompressedBytes = 0;
+            compressedBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        compressor = Compression.Scheme.fromString(scheme).compressor();
+        final Random random = new Random(42);
+        final Writeable message;
+        switch (payload) {
+            case "bulk_shard_request":
+                message = bulkShardRequest(random);
+                break;
+            case "search_response":
+                message = searchResponse(random);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown payload [" + payload + "]");
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            message.writeTo(out);
+            uncompressed = new BytesArray(BytesReference.toBytes(out.bytes()));
+        }
+        compressed = new BytesArray(BytesReference.toBytes(compress()));
+    }
+
+    @Benchmark
+    public BytesReference compress(ByteCounters counters) throws IOException {
+        final BytesReference bytes = compress();
+        counters.uncompressedBytes += uncompressed.length();
+        counters.compressedBytes += bytes.length();
+        return bytes;
+    }
+
+    @Benchmark
+    public long decompress(ByteCounters counters) throws IOException {
+        long total = 0;
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            int read;
+            while ((read = in.read(readBuffer, 0, readBuffer.length)) != -1) {
+                total += read;
+            }
+        }
+        counters.uncompressedBytes += total;
+        counters.compressedBytes += compressed.length();
+        return total;
+    }
+
+    private BytesReference compress() throws IOException {
+        output.reset();
+        // the same wrapping as CompressibleBytesOutputStream so that closing the compressed stream only flushes the output
+        try (StreamOutput out = compressor.streamOutput(Streams.flushOnCloseStream(output))) {
+            uncompressed.writeTo(out);
+        }
+        return output.bytes();
+    }
+
+    private BulkShardRequest bulkShardRequest(Random random) {
+        final ShardId shardId = new ShardId(new Index("logs", "_na_"), 0);
+        final BulkItemRequest[] items = new BulkItemRequest[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            IndexRequest request = new IndexRequest("logs").id(Integer.toString(i)).source(logDocument(random, i), XContentType.JSON);
+            items[i] = new BulkItemRequest(i, request);
+        }
+        return new BulkShardRequest(shardId, WriteRequest.RefreshPolicy.NONE, items);
+    }
+
+    private SearchResponse searchResponse(Random random) {
+        final SearchHit[] hits = new SearchHit[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            hits[i] = new SearchHit(i, Integer.toString(i), Collections.emptyMap());
+            hits[i].score(random.nextFloat());
+            hits[i].sourceRef(new BytesArray(logDocument(random, i)));
+        }
+        final SearchHits searchHits = new SearchHits(hits, new TotalHits(numDocs, TotalHits.Relation.EQUAL_TO), 1f);
+        final InternalSearchResponse internal = new InternalSearchResponse(searchHits, null, null, null, false, false, 1);
+        return new SearchResponse(internal, null, 1, 1, 0, 10, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    private static String logDocument(Random random, int id) {
+        final String host = HOSTS[random.nextInt(HOSTS.length)];
+        final String path = PATHS[random.nextInt(PATHS.length)];
+        final int status = random.nextInt(10) == 0 ? 500 : 200;
+        return String.format(Locale.ROOT,
+            "{\"@timestamp\":\"2020-03-%02dT%02d:%02d:%02d.%03dZ\",\"host\":{\"name\":\"%s\"},\"http\":{\"request\":{\"method\":\"GET\"},"
+                + "\"response\":{\"status_code\":%d,\"bytes\":%d}},\"url\":{\"original\":\"%s\"},\"user_agent\":{\"original\":\"%s\"},"
+                + "\"message\":\"%s GET %s %d request_id=%08x\"}",
+            1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000), host,
+            status, random.nextInt(100_000), path, AGENTS[random.nextInt(AGENTS.length)], host, path, status, id);
+    }
+}
@@ -776,12 +776,14 @@ public class RestHighLevelClientTests extends ESTestCase {
     public void testApiNamingConventions() throws Exception {
         //this list should be empty once the high-level client is feature complete
         String[] notYetSupportedApi = new String[]{
+            "close_point_in_time",
             "create",
             "get_script_context",
             "get_script_languages",
             "indices.exists_type",
             "indices.get_upgrade",
             "indices.put_alias",
+            "open_point_in_time",
             "render_search_template",
             "scripts_painless_execute"
         };
@@ -19,25 +19,45 @@
 
 package org.elasticsearch.http.netty4;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpRequest;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.HttpPipeliningAggregator;
+import org.elasticsearch.transport.netty4.Netty4Utils;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 
 /**
  * Implements HTTP pipelining ordering, ensuring that responses are completely served in the same order as their corresponding requests.
+ *
+ * The body of a {@link Netty4ChunkedHttpResponse} is serialized one chunk at a time whenever the channel is writable, so that a large
+ * response is never held in memory in full. The responses that are ready while a chunked response is being written are queued until
+ * its last chunk has been written.
  */
 public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
 
+    // the chunks of chunked responses are kept small so that large responses only hold a few pages at a time
+    private static final int MAX_CHUNK_SIZE_HINT = 4 * PageCacheRecycler.PAGE_SIZE_IN_BYTES;
+
     private final Logger logger;
-    private final HttpPipeliningAggregator<Netty4HttpResponse, ChannelPromise> aggregator;
+    private final HttpPipeliningAggregator<Netty4RestResponse, ChannelPromise> aggregator;
+    private final BigArrays bigArrays;
+    private final Queue<Tuple<Netty4RestResponse, ChannelPromise>> queuedWrites = new ArrayDeque<>();
+    private ChunkedWrite currentChunkedWrite;
 
     /**
      * Construct a new pipelining handler; this handler should be used downstream of HTTP decoding/aggregation.
@@ -45,10 +65,12 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
      * @param logger        for logging unexpected errors
      * @param maxEventsHeld the maximum number of channel events that will be retained prior to aborting the channel connection; this is
      *                      required as events cannot queue up indefinitely
+     * @param bigArrays     to allocate the pages that the chunks of chunked responses are serialized into
      */
-    public Netty4HttpPipeliningHandler(Logger logger, final int maxEventsHeld) {
+    public Netty4HttpPipeliningHandler(Logger logger, final int maxEventsHeld, final BigArrays bigArrays) {
         this.logger = logger;
         this.aggregator = new HttpPipeliningAggregator<>(maxEventsHeld);
+        this.bigArrays = bigArrays;
     }
 
     @Override
@@ -60,14 +82,12 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
-        assert msg instanceof Netty4HttpResponse : "Invalid message type: " + msg.getClass();
-        Netty4HttpResponse response = (Netty4HttpResponse) msg;
+        assert msg instanceof Netty4RestResponse : "Invalid message type: " + msg.getClass();
+        Netty4RestResponse response = (Netty4RestResponse) msg;
         boolean success = false;
         try {
-            List<Tuple<Netty4HttpResponse, ChannelPromise>> readyResponses = aggregator.write(response, promise);
-            for (Tuple<Netty4HttpResponse, ChannelPromise> readyResponse : readyResponses) {
-                ctx.write(readyResponse.v1(), readyResponse.v2());
-            }
+            List<Tuple<Netty4RestResponse, ChannelPromise>> readyResponses = aggregator.write(response, promise);
+            queuedWrites.addAll(readyResponses);
             success = true;
         } catch (IllegalStateException e) {
             ctx.channel().close();
@@ -76,15 +96,84 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
                 promise.setFailure(new ClosedChannelException());
             }
         }
+        writeQueuedResponses(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            writeChunks(ctx);
+            writeQueuedResponses(ctx);
+            ctx.flush();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // the pending chunks would otherwise wait forever for the channel to become writable
+        failQueuedWrites();
+        ctx.fireChannelInactive();
+    }
+
+    /**
+     * Writes the responses that are ready to be written, in order, until a chunked response can't be written in full because the
+     * channel is no longer writable.
+     */
+    private void writeQueuedResponses(ChannelHandlerContext ctx) {
+        while (currentChunkedWrite == null && queuedWrites.isEmpty() == false) {
+            Tuple<Netty4RestResponse, ChannelPromise> queuedWrite = queuedWrites.poll();
+            if (queuedWrite.v1() instanceof Netty4ChunkedHttpResponse) {
+                Netty4ChunkedHttpResponse chunkedResponse = (Netty4ChunkedHttpResponse) queuedWrite.v1();
+                // the headers are written first, the promise is completed once the last chunk has been written
+                ctx.write(chunkedResponse);
+                currentChunkedWrite = new ChunkedWrite(chunkedResponse, queuedWrite.v2());
+                writeChunks(ctx);
+            } else {
+                ctx.write(queuedWrite.v1(), queuedWrite.v2());
+            }
+        }
+    }
+
+    private void writeChunks(ChannelHandlerContext ctx) {
+        final Channel channel = ctx.channel();
+        while (currentChunkedWrite != null && channel.isWritable()) {
+            final ChunkedWrite chunkedWrite = currentChunkedWrite;
+            // serialize about as many bytes as the channel can take before it becomes unwritable
+            final int sizeHint = (int) Math.min(Math.max(channel.bytesBeforeUnwritable(), PageCacheRecycler.PAGE_SIZE_IN_BYTES),
+                MAX_CHUNK_SIZE_HINT);
+            final ReleasableBytesReference bytes;
+            try {
+                bytes = chunkedWrite.response.body().encodeChunk(sizeHint, bigArrays);
+            } catch (Exception e) {
+                // the headers have been sent already, closing the channel is the only way to tell the client that the response failed
+                logger.debug("failed to serialize chunked response", e);
+                currentChunkedWrite = null;
+                chunkedWrite.promise.tryFailure(e);
+                channel.close();
+                return;
+            }
+            final ChannelPromise promise;
+            if (chunkedWrite.response.body().isDone()) {
+                currentChunkedWrite = null;
+                ctx.write(new DefaultLastHttpContent(Netty4Utils.toByteBuf(bytes)), chunkedWrite.promise);
+                promise = chunkedWrite.promise;
+            } else {
+                promise = ctx.newPromise();
+                ctx.write(new DefaultHttpContent(Netty4Utils.toByteBuf(bytes)), promise);
+            }
+            promise.addListener(f -> bytes.close());
+        }
     }
 
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
-        List<Tuple<Netty4HttpResponse, ChannelPromise>> inflightResponses = aggregator.removeAllInflightResponses();
+        failQueuedWrites();
+        List<Tuple<Netty4RestResponse, ChannelPromise>> inflightResponses = aggregator.removeAllInflightResponses();
 
         if (inflightResponses.isEmpty() == false) {
             ClosedChannelException closedChannelException = new ClosedChannelException();
-            for (Tuple<Netty4HttpResponse, ChannelPromise> inflightResponse : inflightResponses) {
+            for (Tuple<Netty4RestResponse, ChannelPromise> inflightResponse : inflightResponses) {
                 try {
                     inflightResponse.v2().setFailure(closedChannelException);
                 } catch (RuntimeException e) {
@@ -94,4 +183,30 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
         }
         ctx.close(promise);
     }
+
+    private void failQueuedWrites() {
+        List<ChannelPromise> promises = new ArrayList<>();
+        if (currentChunkedWrite != null) {
+            promises.add(currentChunkedWrite.promise);
+            currentChunkedWrite = null;
+        }
+        for (Tuple<Netty4RestResponse, ChannelPromise> queuedWrite : queuedWrites) {
+            promises.add(queuedWrite.v2());
+        }
+        queuedWrites.clear();
+        ClosedChannelException closedChannelException = new ClosedChannelException();
+        for (ChannelPromise promise : promises) {
+            promise.tryFailure(closedChannelException);
+        }
+    }
+
+    private static final class ChunkedWrite {
+        private final Netty4ChunkedHttpResponse response;
+        private final ChannelPromise promise;
+
+        ChunkedWrite(Netty4ChunkedHttpResponse response, ChannelPromise promise) {
+            this.response = response;
+            this.promise = promise;
+        }
+    }
 }
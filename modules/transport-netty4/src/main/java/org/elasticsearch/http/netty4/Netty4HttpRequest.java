@@ -32,6 +32,7 @@ import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.http.HttpRequest;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.transport.netty4.Netty4Utils;
@@ -188,6 +189,11 @@ public class Netty4HttpRequest implements HttpRequest {
         return new Netty4HttpResponse(this, status, content);
     }
 
+    @Override
+    public Netty4ChunkedHttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        return new Netty4ChunkedHttpResponse(this, status, content);
+    }
+
     public FullHttpRequest nettyRequest() {
         return request;
     }
@@ -22,12 +22,10 @@ package org.elasticsearch.http.netty4;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.http.HttpPipelinedMessage;
-import org.elasticsearch.http.HttpResponse;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.transport.netty4.Netty4Utils;
 
-public class Netty4HttpResponse extends DefaultFullHttpResponse implements HttpResponse, HttpPipelinedMessage {
+public class Netty4HttpResponse extends DefaultFullHttpResponse implements Netty4RestResponse {
 
     private final int sequence;
     private final Netty4HttpRequest request;
@@ -53,6 +51,7 @@ public class Netty4HttpResponse extends DefaultFullHttpResponse implements HttpR
         return sequence;
     }
 
+    @Override
     public Netty4HttpRequest getRequest() {
         return request;
     }
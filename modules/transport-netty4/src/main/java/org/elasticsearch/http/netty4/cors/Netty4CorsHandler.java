@@ -25,6 +25,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
@@ -33,7 +34,7 @@ import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.http.CorsHandler;
-import org.elasticsearch.http.netty4.Netty4HttpResponse;
+import org.elasticsearch.http.netty4.Netty4RestResponse;
 
 import java.util.Date;
 import java.util.regex.Pattern;
@@ -91,10 +92,14 @@ public class Netty4CorsHandler extends ChannelDuplexHandler {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-        assert msg instanceof Netty4HttpResponse : "Invalid message type: " + msg.getClass();
-        Netty4HttpResponse response = (Netty4HttpResponse) msg;
-        setCorsResponseHeaders(response.getRequest().nettyRequest(), response, config);
-        ctx.write(response, promise);
+        // the chunks of a chunked response follow its headers and don't need cors headers
+        if (msg instanceof Netty4RestResponse) {
+            Netty4RestResponse response = (Netty4RestResponse) msg;
+            setCorsResponseHeaders(response.getRequest().nettyRequest(), (HttpResponse) response, config);
+        } else {
+            assert msg instanceof HttpContent : "Invalid message type: " + msg.getClass();
+        }
+        ctx.write(msg, promise);
     }
 
     public static void setCorsResponseHeaders(HttpRequest request, HttpResponse resp, CorsHandler.Config config) {
@@ -27,14 +27,19 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpPipelinedRequest;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.After;
@@ -90,7 +95,8 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
 
     public void testThatPipeliningWorksWithFastSerializedRequests() throws InterruptedException {
         final int numberOfRequests = randomIntBetween(2, 128);
-        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests),
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+            new Netty4HttpPipeliningHandler(logger, numberOfRequests, BigArrays.NON_RECYCLING_INSTANCE),
             new WorkEmulatorHandler());
 
         for (int i = 0; i < numberOfRequests; i++) {
@@ -117,7 +123,8 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
 
     public void testThatPipeliningWorksWhenSlowRequestsInDifferentOrder() throws InterruptedException {
         final int numberOfRequests = randomIntBetween(2, 128);
-        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests),
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+            new Netty4HttpPipeliningHandler(logger, numberOfRequests, BigArrays.NON_RECYCLING_INSTANCE),
             new WorkEmulatorHandler());
 
         for (int i = 0; i < numberOfRequests; i++) {
@@ -147,7 +154,8 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
 
     public void testThatPipeliningClosesConnectionWithTooManyEvents() throws InterruptedException {
         final int numberOfRequests = randomIntBetween(2, 128);
-        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests),
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+            new Netty4HttpPipeliningHandler(logger, numberOfRequests, BigArrays.NON_RECYCLING_INSTANCE),
             new WorkEmulatorHandler());
 
         for (int i = 0; i < 1 + numberOfRequests + 1; i++) {
@@ -176,7 +184,7 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
     public void testPipeliningRequestsAreReleased() throws InterruptedException {
         final int numberOfRequests = 10;
         final EmbeddedChannel embeddedChannel =
-            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests + 1));
+            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, numberOfRequests + 1, BigArrays.NON_RECYCLING_INSTANCE));
 
         for (int i = 0; i < numberOfRequests; i++) {
             embeddedChannel.writeInbound(createHttpRequest("/" + i));
@@ -208,6 +216,82 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
         }
     }
 
+    public void testChunkedResponse() {
+        final EmbeddedChannel embeddedChannel =
+            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 2, BigArrays.NON_RECYCLING_INSTANCE));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        embeddedChannel.writeInbound(createHttpRequest("/full"));
+        final HttpPipelinedRequest<FullHttpRequest> chunkedRequest = embeddedChannel.readInbound();
+        final HttpPipelinedRequest<FullHttpRequest> fullRequest = embeddedChannel.readInbound();
+
+        // large enough chunks for the channel to become unwritable in the middle of the response
+        final List<String> chunks = new ArrayList<>();
+        final int numChunks = randomIntBetween(1, 32);
+        for (int i = 0; i < numChunks; i++) {
+            chunks.add(randomAlphaOfLength(randomIntBetween(1, 32 * 1024)));
+        }
+        final ChannelPromise chunkedPromise = embeddedChannel.newPromise();
+        final ChannelPromise fullPromise = embeddedChannel.newPromise();
+        // the full response must wait for the chunked response that precedes it
+        embeddedChannel.writeAndFlush(new Netty4HttpRequest(fullRequest.getRequest(), fullRequest.getSequence())
+            .createResponse(RestStatus.OK, new BytesArray("full")), fullPromise);
+        embeddedChannel.writeAndFlush(new Netty4HttpRequest(chunkedRequest.getRequest(), chunkedRequest.getSequence())
+            .createResponse(RestStatus.OK, chunkedBody(chunks)), chunkedPromise);
+        embeddedChannel.runPendingTasks();
+        assertTrue(chunkedPromise.isSuccess());
+        assertTrue(fullPromise.isSuccess());
+
+        final Netty4ChunkedHttpResponse response = (Netty4ChunkedHttpResponse) embeddedChannel.outboundMessages().poll();
+        assertTrue(HttpUtil.isTransferEncodingChunked(response));
+        final StringBuilder content = new StringBuilder();
+        HttpContent chunk;
+        do {
+            chunk = (HttpContent) embeddedChannel.outboundMessages().poll();
+            content.append(chunk.content().toString(StandardCharsets.UTF_8));
+            chunk.release();
+        } while (chunk instanceof LastHttpContent == false);
+        assertThat(content.toString(), is(String.join("", chunks)));
+        assertReadHttpMessageHasContent(embeddedChannel, "full");
+    }
+
+    public void testChunkedResponseFailsOnClose() {
+        final EmbeddedChannel embeddedChannel =
+            new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 1, BigArrays.NON_RECYCLING_INSTANCE));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        final HttpPipelinedRequest<FullHttpRequest> request = embeddedChannel.readInbound();
+
+        // a response that is larger than the high water mark can't be written until the channel is flushed
+        final ChannelPromise promise = embeddedChannel.newPromise();
+        final List<String> chunks = List.of(randomAlphaOfLength(128 * 1024), randomAlphaOfLength(16));
+        embeddedChannel.write(new Netty4HttpRequest(request.getRequest(), request.getSequence())
+            .createResponse(RestStatus.OK, chunkedBody(chunks)), promise);
+        assertFalse(promise.isDone());
+        embeddedChannel.close().syncUninterruptibly();
+        assertTrue(promise.isDone());
+        assertTrue(promise.cause() instanceof ClosedChannelException);
+    }
+
+    private static ChunkedRestResponseBody chunkedBody(List<String> chunks) {
+        return new ChunkedRestResponseBody() {
+            private int index = 0;
+
+            @Override
+            public boolean isDone() {
+                return index == chunks.size();
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) {
+                final BytesArray bytes = new BytesArray(chunks.get(index++));
+                return new ReleasableBytesReference(bytes, () -> {});
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return "text/plain";
+            }
+        };
+    }
 
     private void assertReadHttpMessageHasContent(EmbeddedChannel embeddedChannel, String expectedContent) {
         FullHttpResponse response = (FullHttpResponse) embeddedChannel.outboundMessages().poll();
@@ -149,4 +149,20 @@ public class NodesStatsRequestBuilder
         return this;
     }
 
+    /**
+     * Should indexing pressure statistics be returned.
+     */
+    public NodesStatsRequestBuilder setIndexingPressure(boolean indexingPressure) {
+        request.indexingPressure(indexingPressure);
+        return this;
+    }
+
+    /**
+     * Should query shape statistics be returned.
+     */
+    public NodesStatsRequestBuilder setQueryShapes(boolean queryShapes) {
+        request.queryShapes(queryShapes);
+        return this;
+    }
+
 }
@@ -32,6 +32,9 @@ import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.shard.ShardId;
@@ -41,6 +44,7 @@ import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.transport.Transport;
 
 import java.util.ArrayDeque;
@@ -50,6 +54,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -96,6 +101,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     private final int maxConcurrentRequestsPerNode;
     private final Map<String, PendingExecutions> pendingExecutionsPerNode = new ConcurrentHashMap<>();
     private final boolean throttleConcurrentRequests;
+    private final List<Releasable> releasables = new CopyOnWriteArrayList<>();
 
     AbstractSearchAsyncAction(String name, Logger logger, SearchTransportService searchTransportService,
                                         BiFunction<String, String, Transport.Connection> nodeIdToConnection,
@@ -139,6 +145,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         this.aliasFilter = aliasFilter;
         this.indexRoutings = indexRoutings;
         this.results = resultConsumer;
+        this.releasables.add(resultConsumer);
         this.clusters = clusters;
     }
 
@@ -226,13 +233,30 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                 : null;
             Runnable r = () -> {
                 final Thread thread = Thread.currentThread();
+                if (shardIt.remaining() == shardIt.size() - 1 && shouldSkipShard(shardIt)) {
+                    // the first copy of the shard was about to be queried but the shard cannot contribute to the response anymore
+                    shardIt.resetAndSkip();
+                    try {
+                        skipShard(shardIt);
+                    } finally {
+                        executeNext(pendingExecutions, thread);
+                    }
+                    return;
+                }
+                final TimeValue hedgedRequestDelay = getHedgedRequestDelay();
+                final HedgedShardRequest hedgedRequest = hedgedRequestDelay != null && shardIt.remaining() > 0 ?
+                    new HedgedShardRequest(shardIndex, shardIt) : null;
                 try {
                     executePhaseOnShard(shardIt, shard,
                         new SearchActionListener<Result>(shardIt.newSearchShardTarget(shard.currentNodeId()), shardIndex) {
                             @Override
                             public void innerOnResponse(Result result) {
                                 try {
-                                    onShardResult(result, shardIt);
+                                    if (hedgedRequest == null) {
+                                        onShardResult(result, shardIt, 0);
+                                    } else {
+                                        hedgedRequest.onResponse(result);
+                                    }
                                 } finally {
                                     executeNext(pendingExecutions, thread);
                                 }
@@ -241,19 +265,30 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                             @Override
                             public void onFailure(Exception t) {
                                 try {
-                                    onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, t);
+                                    if (hedgedRequest == null) {
+                                        onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, t);
+                                    } else {
+                                        hedgedRequest.onFailure(shard, t);
+                                    }
                                 } finally {
                                     executeNext(pendingExecutions, thread);
                                 }
                             }
                         });
+                    if (hedgedRequest != null) {
+                        hedgedRequest.scheduleHedge(hedgedRequestDelay);
+                    }
                 } catch (final Exception e) {
                     try {
                         /*
                          * It is possible to run into connection exceptions here because we are getting the connection early and might
                          * run into nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
                          */
-                        fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
+                        if (hedgedRequest == null) {
+                            fork(() -> onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e));
+                        } else {
+                            fork(() -> hedgedRequest.onFailure(shard, e));
+                        }
                     } finally {
                         executeNext(pendingExecutions, thread);
                     }
@@ -267,6 +302,36 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * Returns <code>true</code> if the shard should be skipped right before its execution starts, because the results
+     * of the shards that already returned make it impossible for this shard to contribute to the response. This is
+     * only useful when the number of concurrent shard requests is limited, since all shards are executed upfront
+     * otherwise.
+     * @param shardIt the shards iterator
+     */
+    protected boolean shouldSkipShard(SearchShardIterator shardIt) {
+        return false;
+    }
+
+    /**
+     * Returns the delay after which the request of a shard that did not respond yet is also sent to the next copy of the shard,
+     * or <code>null</code> if the requests of this phase are not hedged. The first copy that responds wins and the response of
+     * the other copy is released.
+     */
+    @Nullable
+    protected TimeValue getHedgedRequestDelay() {
+        return null;
+    }
+
+    /**
+     * Schedules the given command to run on the scheduler thread after the given delay. This must be implemented by the phases
+     * that hedge their requests.
+     * @see #getHedgedRequestDelay()
+     */
+    protected Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+        throw new UnsupportedOperationException("phase [" + getName() + "] cannot schedule hedged requests");
+    }
+
     /**
      * Sends the request to the actual shard.
      * @param shardIt the shards iterator
@@ -463,8 +528,10 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
      * Executed once for every successful shard level request.
      * @param result the result returned form the shard
      * @param shardIt the shard iterator
+     * @param abandonedOps the number of other requests to copies of the shard that are still pending and whose responses are
+     *                     ignored
      */
-    private void onShardResult(Result result, SearchShardIterator shardIt) {
+    private void onShardResult(Result result, SearchShardIterator shardIt, int abandonedOps) {
         assert result.getShardIndex() != -1 : "shard index is not set";
         assert result.getSearchShardTarget() != null : "search shard target must not be null";
         successfulOps.incrementAndGet();
@@ -485,15 +552,19 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         // cause the successor to read a wrong value from successfulOps if second phase is very fast ie. count etc.
         // increment all the "future" shards to update the total ops since we some may work and some may not...
         // and when that happens, we break on total ops, so we must maintain them
-        successfulShardExecution(shardIt);
+        successfulShardExecution(shardIt, abandonedOps);
     }
 
     private void successfulShardExecution(SearchShardIterator shardsIt) {
+        successfulShardExecution(shardsIt, 0);
+    }
+
+    private void successfulShardExecution(SearchShardIterator shardsIt, int abandonedOps) {
         final int remainingOpsOnIterator;
         if (shardsIt.skip()) {
-            remainingOpsOnIterator = shardsIt.remaining();
+            remainingOpsOnIterator = shardsIt.remaining() + abandonedOps;
         } else {
-            remainingOpsOnIterator = shardsIt.remaining() + 1;
+            remainingOpsOnIterator = shardsIt.remaining() + abandonedOps + 1;
         }
         final int xTotalOps = totalOps.addAndGet(remainingOpsOnIterator);
         if (xTotalOps == expectedTotalOps) {
@@ -533,6 +604,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
 
     @Override
     public void sendSearchResponse(InternalSearchResponse internalSearchResponse, String scrollId) {
+        Releasables.close(releasables);
         ShardSearchFailure[] failures = buildShardFailures();
         Boolean allowPartialResults = request.allowPartialSearchResults();
         assert allowPartialResults != null : "SearchRequest missing setting for allowPartialSearchResults";
@@ -555,6 +627,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
      * @param exception the exception explaining or causing the phase failure
      */
     private void raisePhaseFailure(SearchPhaseExecutionException exception) {
+        Releasables.close(releasables);
         results.getSuccessfulResults().forEach((entry) -> {
             try {
                 SearchShardTarget searchShardTarget = entry.getSearchShardTarget();
@@ -571,7 +644,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     /**
      * Executed once all shard results have been received and processed
      * @see #onShardFailure(int, SearchShardTarget, Exception)
-     * @see #onShardResult(SearchPhaseResult, SearchShardIterator)
+     * @see #onShardResult(SearchPhaseResult, SearchShardIterator, int)
      */
     final void onPhaseDone() {  // as a tribute to @kimchy aka. finishHim()
         executeNextPhase(this, getNextPhase(results, this));
@@ -594,9 +667,15 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
 
     @Override
     public final void onFailure(Exception e) {
+        Releasables.close(releasables);
         listener.onFailure(e);
     }
 
+    @Override
+    public final void addReleasable(Releasable releasable) {
+        releasables.add(releasable);
+    }
+
     @Override
     public final ShardSearchRequest buildShardSearchRequest(SearchShardIterator shardIt) {
         AliasFilter filter = aliasFilter.get(shardIt.shardId().getIndex().getUUID());
@@ -639,6 +718,114 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * The requests to the copies of a shard whose request is hedged: if the first copy doesn't respond within the hedged request
+     * delay, the request is also sent to the next copy. The first copy that responds wins and the result of the other copy is
+     * released when it arrives, a failure only moves to the next copy of the shard once no other request is pending.
+     */
+    private final class HedgedShardRequest {
+        private final int shardIndex;
+        private final SearchShardIterator shardIt;
+        private Scheduler.Cancellable scheduledHedge;
+        private int pendingRequests = 1;
+        private boolean hedged = false;
+        private boolean completed = false;
+
+        HedgedShardRequest(int shardIndex, SearchShardIterator shardIt) {
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+        }
+
+        synchronized void scheduleHedge(TimeValue delay) {
+            if (completed == false) {
+                scheduledHedge = schedule(() -> fork(this::sendHedge), delay);
+            }
+        }
+
+        private synchronized void complete() {
+            completed = true;
+            if (scheduledHedge != null) {
+                scheduledHedge.cancel();
+            }
+        }
+
+        private void sendHedge() {
+            final ShardRouting shard;
+            synchronized (this) {
+                if (completed || hedged) {
+                    return;
+                }
+                shard = shardIt.nextOrNull();
+                if (shard == null) {
+                    return;
+                }
+                hedged = true;
+                pendingRequests++;
+            }
+            logger.trace("{}: sending hedged request to [{}]", shardIt.shardId(), shard.currentNodeId());
+            try {
+                executePhaseOnShard(shardIt, shard,
+                    new SearchActionListener<Result>(shardIt.newSearchShardTarget(shard.currentNodeId()), shardIndex) {
+                        @Override
+                        protected void innerOnResponse(Result result) {
+                            HedgedShardRequest.this.onResponse(result);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            HedgedShardRequest.this.onFailure(shard, e);
+                        }
+                    });
+            } catch (Exception e) {
+                onFailure(shard, e);
+            }
+        }
+
+        void onResponse(Result result) {
+            final boolean first;
+            final int otherPendingRequests;
+            synchronized (this) {
+                pendingRequests--;
+                first = completed == false;
+                otherPendingRequests = pendingRequests;
+                if (first) {
+                    complete();
+                }
+            }
+            if (first) {
+                // the requests that are still pending are done as far as this phase is concerned
+                onShardResult(result, shardIt, otherPendingRequests);
+            } else {
+                try {
+                    SearchShardTarget target = result.getSearchShardTarget();
+                    Transport.Connection connection = getConnection(target.getClusterAlias(), target.getNodeId());
+                    sendReleaseSearchContext(result.getRequestId(), connection, target.getOriginalIndices());
+                } catch (Exception e) {
+                    logger.trace("failed to release context of hedged request", e);
+                }
+            }
+        }
+
+        void onFailure(ShardRouting shard, Exception e) {
+            synchronized (this) {
+                pendingRequests--;
+                if (completed) {
+                    // another copy of the shard already responded
+                    return;
+                }
+                if (pendingRequests > 0) {
+                    // the failure is accounted before the other copy of the shard can respond and complete the shard
+                    AbstractSearchAsyncAction.this.onShardFailure(shardIndex, shardIt.newSearchShardTarget(shard.currentNodeId()), e);
+                    final int xTotalOps = totalOps.incrementAndGet();
+                    assert xTotalOps < expectedTotalOps : "total ops [" + xTotalOps + "] must be lower than [" + expectedTotalOps + "]";
+                    return;
+                }
+                complete();
+            }
+            AbstractSearchAsyncAction.this.onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e);
+        }
+    }
+
     private static final class PendingExecutions {
         private final int permits;
         private int permitsTaken = 0;
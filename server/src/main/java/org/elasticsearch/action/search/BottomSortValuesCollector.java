@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.MinAndMax;
+import org.elasticsearch.search.sort.SortOrder;
+
+/**
+ * Tracks the most competitive bottom value of the primary sort field among the top docs that the shards returned in
+ * the query phase. The shards that have a full page of hits guarantee that the merged top docs are at least as
+ * competitive as their bottom, so a shard whose best value is worse than this bottom cannot contribute any hit.
+ */
+final class BottomSortValuesCollector {
+    private final int topNSize;
+    private final boolean reverse;
+    private final int trackTotalHitsUpTo;
+
+    private long totalHits;
+    private Object bottomValue;
+
+    BottomSortValuesCollector(int topNSize, SortOrder order, int trackTotalHitsUpTo) {
+        assert topNSize > 0 : "topNSize must be greater than 0, got " + topNSize;
+        this.topNSize = topNSize;
+        this.reverse = order == SortOrder.DESC;
+        this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+    }
+
+    /**
+     * Returns the most competitive bottom value seen so far, or <code>null</code> if no shard returned a full page of hits.
+     */
+    @Nullable
+    synchronized Object getBottomValue() {
+        return bottomValue;
+    }
+
+    /**
+     * Consumes the top docs of a shard.
+     */
+    synchronized void consumeTopDocs(TopDocs topDocs) {
+        totalHits += topDocs.totalHits.value;
+        if (topDocs instanceof TopFieldDocs == false || topDocs.scoreDocs.length < topNSize) {
+            return;
+        }
+        Object value = ((FieldDoc) topDocs.scoreDocs[topDocs.scoreDocs.length - 1]).fields[0];
+        if (value == null || (bottomValue != null && value.getClass() != bottomValue.getClass())) {
+            // documents without value or values of different types (e.g. a long and a double field) are not comparable
+            return;
+        }
+        if (bottomValue == null || compare(value, bottomValue) < 0) {
+            bottomValue = value;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a shard that has the provided minimum and maximum values of the primary sort field
+     * cannot produce competitive hits, and if skipping it cannot change the total hits of the response.
+     */
+    synchronized boolean isNonCompetitive(@Nullable MinAndMax<?> minAndMax) {
+        if (minAndMax == null || bottomValue == null) {
+            return false;
+        }
+        if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_DISABLED && totalHits <= trackTotalHitsUpTo) {
+            // the hits of the shard are needed to count the total hits accurately
+            return false;
+        }
+        Object best = reverse ? minAndMax.getMax() : minAndMax.getMin();
+        if (best.getClass() != bottomValue.getClass()) {
+            return false;
+        }
+        // ties are competitive since they are broken by shard index
+        return compare(best, bottomValue) > 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compare(Object first, Object second) {
+        int cmp = ((Comparable) first).compareTo(second);
+        return reverse ? -cmp : cmp;
+    }
+}
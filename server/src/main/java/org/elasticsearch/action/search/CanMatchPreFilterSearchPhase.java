@@ -103,6 +103,7 @@ final class CanMatchPreFilterSearchPhase extends AbstractSearchAsyncAction<CanMa
         SearchSourceBuilder source = getRequest().source();
         int i = 0;
         for (SearchShardIterator iter : shardsIts) {
+            iter.setMinAndMax(results.minAndMaxes[i]);
             if (possibleMatches.get(i++)) {
                 iter.reset();
             } else {
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.internal.AliasFilter;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The decoded id of a point in time: for each shard, the node that holds the pinned reader and the id of the reader context on
+ * that node, and for each index, the alias filter that was resolved when the point in time was opened. The id is opaque to the
+ * clients, it is the url safe base64 encoding of the serialized shard and alias filter entries.
+ */
+public final class PointInTimeId {
+
+    private final Map<ShardId, ShardReader> shards;
+    private final Map<String, AliasFilter> aliasFilter;
+
+    PointInTimeId(Map<ShardId, ShardReader> shards, Map<String, AliasFilter> aliasFilter) {
+        this.shards = Collections.unmodifiableMap(shards);
+        this.aliasFilter = Collections.unmodifiableMap(aliasFilter);
+    }
+
+    /**
+     * The pinned reader of each shard of the point in time.
+     */
+    public Map<ShardId, ShardReader> shards() {
+        return shards;
+    }
+
+    /**
+     * The alias filter of each index of the point in time, keyed by index uuid.
+     */
+    public Map<String, AliasFilter> aliasFilter() {
+        return aliasFilter;
+    }
+
+    static String encode(Map<ShardId, ShardReader> shards, Map<String, AliasFilter> aliasFilter) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.CURRENT);
+            Version.writeVersion(Version.CURRENT, out);
+            out.writeVInt(shards.size());
+            for (Map.Entry<ShardId, ShardReader> entry : shards.entrySet()) {
+                entry.getKey().writeTo(out);
+                out.writeString(entry.getValue().nodeId);
+                out.writeLong(entry.getValue().readerId);
+            }
+            out.writeMap(aliasFilter, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+            return Base64.getUrlEncoder().encodeToString(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("failed to encode point in time id", e);
+        }
+    }
+
+    public static PointInTimeId decode(NamedWriteableRegistry namedWriteableRegistry, String id) {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(StreamInput.wrap(Base64.getUrlDecoder().decode(id)),
+            namedWriteableRegistry)) {
+            final Version version = Version.readVersion(in);
+            in.setVersion(version);
+            final int size = in.readVInt();
+            final Map<ShardId, ShardReader> shards = new LinkedHashMap<>(size);
+            for (int i = 0; i < size; i++) {
+                shards.put(new ShardId(in), new ShardReader(in.readString(), in.readLong()));
+            }
+            final Map<String, AliasFilter> aliasFilter = in.readMap(StreamInput::readString, AliasFilter::new);
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Not all bytes were read");
+            }
+            return new PointInTimeId(shards, aliasFilter);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse point in time id", e);
+        }
+    }
+
+    /**
+     * The reader context that was opened for a shard of the point in time.
+     */
+    public static final class ShardReader {
+        private final String nodeId;
+        private final long readerId;
+
+        public ShardReader(String nodeId, long readerId) {
+            this.nodeId = nodeId;
+            this.readerId = readerId;
+        }
+
+        /**
+         * The id of the node that holds the reader context.
+         */
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * The id of the reader context on its node.
+         */
+        public long getReaderId() {
+            return readerId;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.BoostingQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.DisMaxQueryBuilder;
+import org.elasticsearch.index.query.FuzzyQueryBuilder;
+import org.elasticsearch.index.query.NestedQueryBuilder;
+import org.elasticsearch.index.query.PrefixQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.elasticsearch.index.query.RegexpQueryBuilder;
+import org.elasticsearch.index.query.ScriptQueryBuilder;
+import org.elasticsearch.index.query.WildcardQueryBuilder;
+import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
+import org.elasticsearch.search.aggregations.bucket.adjacency.AdjacencyMatrixAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.AutoDateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.AbstractRangeBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits the search requests that are coordinated by the local node based on an estimate of their cost, so that the node
+ * rejects expensive searches early when it is already busy with other expensive searches instead of sending them to the
+ * shards and filling the search queues of the data nodes.
+ *
+ * The cost of a request is expressed in units of a simple query on a single shard. It is the number of shards of the
+ * request times the cost per shard, which grows with the number of expensive query clauses like wildcard and regexp
+ * queries, and with the number of buckets that the aggregations of the request are expected to create, capped by
+ * {@link MultiBucketConsumerService#MAX_BUCKET_SETTING}. The costs of the requests that are in flight are summed, and a
+ * request is rejected if it would bring this sum over {@link #BUDGET_SETTING}. Requests that only cost their shards are
+ * always admitted, as well as any request if no other request is in flight, so that a single request is never rejected
+ * on an idle node.
+ */
+public final class SearchAdmissionController {
+
+    /** Whether search requests are admitted based on their estimated cost. */
+    public static final Setting<Boolean> ENABLED_SETTING = Setting.boolSetting(
+        "search.admission_control.enabled", false, Property.Dynamic, Property.NodeScope);
+    /** The maximum estimated cost of the search requests that the node coordinates at the same time. */
+    public static final Setting<Long> BUDGET_SETTING = Setting.longSetting(
+        "search.admission_control.budget", 100_000L, 1L, Property.Dynamic, Property.NodeScope);
+
+    // the cost of each expensive query clause on a shard, relative to a simple query
+    static final long EXPENSIVE_QUERY_COST = 10;
+    // the number of aggregation buckets that cost as much as a simple query on a shard
+    static final long BUCKETS_PER_COST_UNIT = 100;
+    // the number of buckets of the histograms, that is unknown until the data is seen
+    static final long HISTOGRAM_BUCKETS_ESTIMATE = 100;
+
+    private final AtomicLong inFlightCost = new AtomicLong();
+    private volatile boolean enabled;
+    private volatile long budget;
+    private volatile int maxBuckets;
+
+    SearchAdmissionController(ClusterSettings clusterSettings) {
+        this.enabled = clusterSettings.get(ENABLED_SETTING);
+        this.budget = clusterSettings.get(BUDGET_SETTING);
+        this.maxBuckets = clusterSettings.get(MultiBucketConsumerService.MAX_BUCKET_SETTING);
+        clusterSettings.addSettingsUpdateConsumer(ENABLED_SETTING, enabled -> this.enabled = enabled);
+        clusterSettings.addSettingsUpdateConsumer(BUDGET_SETTING, budget -> this.budget = budget);
+        clusterSettings.addSettingsUpdateConsumer(MultiBucketConsumerService.MAX_BUCKET_SETTING, max -> this.maxBuckets = max);
+    }
+
+    /**
+     * Admits a request on the given number of shards, and returns a listener that releases its cost when the request
+     * completes.
+     *
+     * @throws EsRejectedExecutionException if the request is rejected
+     */
+    <Response> ActionListener<Response> admit(@Nullable SearchSourceBuilder source, int shardCount, ActionListener<Response> listener) {
+        if (enabled == false) {
+            return listener;
+        }
+        final long costPerShard = estimateCostPerShard(source, maxBuckets);
+        final long cost = costPerShard * shardCount;
+        final long limit = budget;
+        while (true) {
+            final long current = inFlightCost.get();
+            if (costPerShard > 1 && current > 0 && current + cost > limit) {
+                throw new EsRejectedExecutionException("rejecting search request with an estimated cost of [" + cost
+                    + "] since the search requests in flight have an estimated cost of [" + current + "] and the budget is ["
+                    + limit + "], see [" + BUDGET_SETTING.getKey() + "]");
+            }
+            if (inFlightCost.compareAndSet(current, current + cost)) {
+                break;
+            }
+        }
+        return ActionListener.runAfter(listener, () -> inFlightCost.addAndGet(-cost));
+    }
+
+    /**
+     * Returns the estimated cost of the search requests that are in flight.
+     */
+    long getInFlightCost() {
+        return inFlightCost.get();
+    }
+
+    /**
+     * Estimates the cost of executing the given source on a single shard.
+     */
+    static long estimateCostPerShard(@Nullable SearchSourceBuilder source, int maxBuckets) {
+        if (source == null) {
+            return 1;
+        }
+        long cost = 1;
+        if (source.query() != null) {
+            cost += EXPENSIVE_QUERY_COST * countExpensiveClauses(source.query());
+        }
+        if (source.postFilter() != null) {
+            cost += EXPENSIVE_QUERY_COST * countExpensiveClauses(source.postFilter());
+        }
+        if (source.aggregations() != null) {
+            final long buckets = Math.min(maxBuckets, estimateBuckets(source.aggregations().getAggregatorFactories(), 1, maxBuckets));
+            cost += (buckets + BUCKETS_PER_COST_UNIT - 1) / BUCKETS_PER_COST_UNIT;
+        }
+        return cost;
+    }
+
+    static int countExpensiveClauses(QueryBuilder query) {
+        if (query instanceof WildcardQueryBuilder || query instanceof RegexpQueryBuilder || query instanceof PrefixQueryBuilder
+                || query instanceof FuzzyQueryBuilder || query instanceof QueryStringQueryBuilder || query instanceof ScriptQueryBuilder) {
+            return 1;
+        } else if (query instanceof BoolQueryBuilder) {
+            final BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            return countExpensiveClauses(bool.must()) + countExpensiveClauses(bool.filter())
+                + countExpensiveClauses(bool.should()) + countExpensiveClauses(bool.mustNot());
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            return countExpensiveClauses(((ConstantScoreQueryBuilder) query).innerQuery());
+        } else if (query instanceof DisMaxQueryBuilder) {
+            return countExpensiveClauses(((DisMaxQueryBuilder) query).innerQueries());
+        } else if (query instanceof BoostingQueryBuilder) {
+            final BoostingQueryBuilder boosting = (BoostingQueryBuilder) query;
+            return countExpensiveClauses(boosting.positiveQuery()) + countExpensiveClauses(boosting.negativeQuery());
+        } else if (query instanceof FunctionScoreQueryBuilder) {
+            return countExpensiveClauses(((FunctionScoreQueryBuilder) query).query());
+        } else if (query instanceof NestedQueryBuilder) {
+            return countExpensiveClauses(((NestedQueryBuilder) query).query());
+        }
+        return 0;
+    }
+
+    private static int countExpensiveClauses(Collection<QueryBuilder> queries) {
+        int count = 0;
+        for (QueryBuilder query : queries) {
+            count += countExpensiveClauses(query);
+        }
+        return count;
+    }
+
+    /**
+     * Estimates the number of buckets that the given aggregations create under the given number of parent buckets.
+     */
+    static long estimateBuckets(Collection<AggregationBuilder> aggregations, long parentBuckets, int maxBuckets) {
+        long buckets = 0;
+        for (AggregationBuilder aggregation : aggregations) {
+            // the number of buckets of a request is limited, there is no point in estimating more
+            final long aggregationBuckets = Math.min(maxBuckets, parentBuckets * estimateBucketsPerParent(aggregation));
+            buckets += aggregationBuckets + estimateBuckets(aggregation.getSubAggregations(), aggregationBuckets, maxBuckets);
+            if (buckets >= maxBuckets) {
+                return maxBuckets;
+            }
+        }
+        return buckets;
+    }
+
+    private static long estimateBucketsPerParent(AggregationBuilder aggregation) {
+        if (aggregation instanceof TermsAggregationBuilder) {
+            return ((TermsAggregationBuilder) aggregation).size();
+        } else if (aggregation instanceof CompositeAggregationBuilder) {
+            return ((CompositeAggregationBuilder) aggregation).size();
+        } else if (aggregation instanceof AutoDateHistogramAggregationBuilder) {
+            return ((AutoDateHistogramAggregationBuilder) aggregation).getNumBuckets();
+        } else if (aggregation instanceof HistogramAggregationBuilder || aggregation instanceof DateHistogramAggregationBuilder) {
+            return HISTOGRAM_BUCKETS_ESTIMATE;
+        } else if (aggregation instanceof AbstractRangeBuilder) {
+            return ((AbstractRangeBuilder<?, ?>) aggregation).ranges().size();
+        } else if (aggregation instanceof FiltersAggregationBuilder) {
+            return ((FiltersAggregationBuilder) aggregation).filters().size();
+        } else if (aggregation instanceof AdjacencyMatrixAggregationBuilder) {
+            final long filters = ((AdjacencyMatrixAggregationBuilder) aggregation).filters().size();
+            return filters * (filters + 1) / 2;
+        }
+        // metrics and single bucket aggregations
+        return 1;
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -106,6 +107,11 @@ interface SearchPhaseContext extends Executor {
         }
     }
 
+    /**
+     * Registers a {@link Releasable} that is released when the search request completes, successfully or not.
+     */
+    void addReleasable(Releasable releasable);
+
     /**
      * Builds an request for the initial search phase.
      */
@@ -33,8 +33,11 @@ import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
 import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.collect.HppcMaps;
+import org.elasticsearch.common.io.stream.CountingStreamOutput;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -57,6 +60,8 @@ import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.Suggest.Suggestion;
 import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -73,13 +78,17 @@ public final class SearchPhaseController {
     private static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
 
     private final Function<Boolean, ReduceContext> reduceContextFunction;
+    private final CircuitBreakerService circuitBreakerService;
 
     /**
      * Constructor.
      * @param reduceContextFunction A function that builds a context for the reduce of an {@link InternalAggregation}
+     * @param circuitBreakerService The service whose request circuit breaker accounts for the aggregations that are buffered for
+     *                              incremental reduces
      */
-    public SearchPhaseController(Function<Boolean, ReduceContext> reduceContextFunction) {
+    public SearchPhaseController(Function<Boolean, ReduceContext> reduceContextFunction, CircuitBreakerService circuitBreakerService) {
         this.reduceContextFunction = reduceContextFunction;
+        this.circuitBreakerService = circuitBreakerService;
     }
 
     public AggregatedDfs aggregateDfs(Collection<DfsSearchResult> results) {
@@ -586,14 +595,27 @@ public final class SearchPhaseController {
      * that incrementally reduces aggregation results as shard results are consumed.
      * This implementation can be configured to batch up a certain amount of results and only reduce them
      * iff the buffer is exhausted.
+     *
+     * The buffered aggregations are accounted for in the request circuit breaker with their serialized size as an estimate of
+     * their size on heap. The results that were read from the wire know this size already, only the results of the local
+     * shards and the partially reduced aggregations are serialized to count their bytes. If the breaker is over its limit
+     * once a new result is accounted for, the result is still buffered, since it is already on heap, but the size of the
+     * batches is halved so that the following results are reduced more eagerly.
+     * The breaker's usage is compared to its limit rather than probed, so that reducing eagerly doesn't count as a breaker trip.
      */
     static final class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> {
         private final SearchShardTarget[] processedShards;
         private final InternalAggregations[] aggsBuffer;
+        private final long[] aggsBufferBytes;
         private final TopDocs[] topDocsBuffer;
         private final boolean hasAggs;
         private final boolean hasTopDocs;
         private final int bufferSize;
+        private final CircuitBreaker circuitBreaker;
+        // the number of results that are reduced at once, lowered from the buffer size when the request breaker trips
+        private int batchReduceSize;
+        private long bufferedBytes;
+        private boolean closed;
         private int index;
         private final SearchPhaseController controller;
         private final SearchProgressListener progressListener;
@@ -610,10 +632,12 @@ public final class SearchPhaseController {
          * @param expectedResultSize the expected number of query results. Corresponds to the number of shards queried
          * @param bufferSize the size of the reduce buffer. if the buffer size is smaller than the number of expected results
          *                   the buffer is used to incrementally reduce aggregation results before all shards responded.
+         * @param circuitBreaker the breaker that accounts for the buffered aggregations
          */
         private QueryPhaseResultConsumer(SearchProgressListener progressListener, SearchPhaseController controller,
                                          int expectedResultSize, int bufferSize, boolean hasTopDocs, boolean hasAggs,
-                                         int trackTotalHitsUpTo, int topNSize, boolean performFinalReduce) {
+                                         int trackTotalHitsUpTo, int topNSize, boolean performFinalReduce,
+                                         CircuitBreaker circuitBreaker) {
             super(expectedResultSize);
             if (expectedResultSize != 1 && bufferSize < 2) {
                 throw new IllegalArgumentException("buffer size must be >= 2 if there is more than one expected result");
@@ -629,10 +653,13 @@ public final class SearchPhaseController {
             this.processedShards = new SearchShardTarget[expectedResultSize];
             // no need to buffer anything if we have less expected results. in this case we don't consume any results ahead of time.
             this.aggsBuffer = new InternalAggregations[hasAggs ? bufferSize : 0];
+            this.aggsBufferBytes = new long[hasAggs ? bufferSize : 0];
             this.topDocsBuffer = new TopDocs[hasTopDocs ? bufferSize : 0];
             this.hasTopDocs = hasTopDocs;
             this.hasAggs = hasAggs;
             this.bufferSize = bufferSize;
+            this.batchReduceSize = bufferSize;
+            this.circuitBreaker = circuitBreaker;
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
             this.topNSize = topNSize;
             this.performFinalReduce = performFinalReduce;
@@ -647,16 +674,27 @@ public final class SearchPhaseController {
         }
 
         private synchronized void consumeInternal(QuerySearchResult querySearchResult) {
+            if (closed) {
+                // the search already completed or failed and released the buffered results, drop the ones that come late
+                processedShards[querySearchResult.getShardIndex()] = querySearchResult.getSearchShardTarget();
+                return;
+            }
             if (querySearchResult.isNull() == false) {
-                if (index == bufferSize) {
+                if (index >= batchReduceSize) {
                     if (hasAggs) {
                         ReduceContext reduceContext = controller.reduceContextFunction.apply(false);
-                        InternalAggregations reducedAggs = InternalAggregations.topLevelReduce(Arrays.asList(aggsBuffer), reduceContext);
+                        InternalAggregations reducedAggs =
+                            InternalAggregations.topLevelReduce(Arrays.asList(aggsBuffer).subList(0, index), reduceContext);
+                        // the reduced aggregations are smaller than the ones they replace, accounting for them can't trip
+                        long reducedBytes = accountWithoutBreaking(estimateRamBytesUsed(reducedAggs));
+                        releaseBytes(Arrays.stream(aggsBufferBytes, 0, index).sum());
                         Arrays.fill(aggsBuffer, null);
+                        Arrays.fill(aggsBufferBytes, 0);
                         aggsBuffer[0] = reducedAggs;
+                        aggsBufferBytes[0] = reducedBytes;
                     }
                     if (hasTopDocs) {
-                        TopDocs reducedTopDocs = mergeTopDocs(Arrays.asList(topDocsBuffer),
+                        TopDocs reducedTopDocs = mergeTopDocs(Arrays.asList(topDocsBuffer).subList(0, index),
                             // we have to merge here in the same way we collect on a shard
                             topNSize, 0);
                         Arrays.fill(topDocsBuffer, null);
@@ -671,7 +709,10 @@ public final class SearchPhaseController {
                 }
                 final int i = index++;
                 if (hasAggs) {
+                    // the results that were read from the wire already know the size of their aggregations
+                    long bytes = querySearchResult.serializedAggregationsSize();
                     aggsBuffer[i] = (InternalAggregations) querySearchResult.consumeAggs();
+                    aggsBufferBytes[i] = account(bytes >= 0 ? bytes : estimateRamBytesUsed(aggsBuffer[i]));
                 }
                 if (hasTopDocs) {
                     final TopDocsAndMaxScore topDocs = querySearchResult.consumeTopDocs(); // can't be null
@@ -683,6 +724,66 @@ public final class SearchPhaseController {
             processedShards[querySearchResult.getShardIndex()] = querySearchResult.getSearchShardTarget();
         }
 
+        /**
+         * Accounts for the given number of bytes in the circuit breaker and returns them. If the breaker is over its limit
+         * afterwards, the size of the batches is halved.
+         */
+        private long account(long bytes) {
+            long accounted = accountWithoutBreaking(bytes);
+            if (isOverLimit()) {
+                batchReduceSize = Math.max(2, batchReduceSize / 2);
+            }
+            return accounted;
+        }
+
+        private boolean isOverLimit() {
+            long limit = circuitBreaker.getLimit();
+            return limit > 0 && (long) (circuitBreaker.getUsed() * circuitBreaker.getOverhead()) > limit;
+        }
+
+        private long accountWithoutBreaking(long bytes) {
+            if (closed) {
+                return 0;
+            }
+            circuitBreaker.addWithoutBreaking(bytes);
+            bufferedBytes += bytes;
+            return bytes;
+        }
+
+        private void releaseBytes(long bytes) {
+            if (closed) {
+                return;
+            }
+            assert bytes <= bufferedBytes : "released [" + bytes + "] bytes out of [" + bufferedBytes + "] buffered bytes";
+            circuitBreaker.addWithoutBreaking(-bytes);
+            bufferedBytes -= bytes;
+        }
+
+        private static long estimateRamBytesUsed(InternalAggregations aggregations) {
+            if (aggregations == null) {
+                return 0;
+            }
+            try (CountingStreamOutput out = new CountingStreamOutput()) {
+                aggregations.writeTo(out);
+                return out.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Releases the bytes that are still accounted for in the circuit breaker, for instance if the search failed before
+         * the final reduce.
+         */
+        @Override
+        public synchronized void close() {
+            if (closed == false) {
+                releaseBytes(bufferedBytes);
+                Arrays.fill(aggsBufferBytes, 0);
+                closed = true;
+            }
+        }
+
         private synchronized List<InternalAggregations> getRemainingAggs() {
             return hasAggs ? Arrays.asList(aggsBuffer).subList(0, index) : null;
         }
@@ -693,8 +794,14 @@ public final class SearchPhaseController {
 
         @Override
         public ReducedQueryPhase reduce() {
-            ReducedQueryPhase reducePhase = controller.reducedQueryPhase(results.asList(),
-                getRemainingAggs(), getRemainingTopDocs(), topDocsStats, numReducePhases, false, performFinalReduce);
+            final ReducedQueryPhase reducePhase;
+            try {
+                reducePhase = controller.reducedQueryPhase(results.asList(),
+                    getRemainingAggs(), getRemainingTopDocs(), topDocsStats, numReducePhases, false, performFinalReduce);
+            } finally {
+                // the buffered aggregations have been reduced into the response, which isn't accounted for
+                close();
+            }
             progressListener.notifyReduce(progressListener.searchShards(results.asList()),
                 reducePhase.totalHits, reducePhase.aggregations);
             return reducePhase;
@@ -708,6 +815,13 @@ public final class SearchPhaseController {
         }
 
         int getNumReducePhases() { return numReducePhases; }
+
+        /**
+         * Returns the number of results that are reduced at once
+         */
+        synchronized int getBatchReduceSize() {
+            return batchReduceSize;
+        }
     }
 
     private int resolveTrackTotalHits(SearchRequest request) {
@@ -736,7 +850,7 @@ public final class SearchPhaseController {
                 int topNSize = getTopDocsSize(request);
                 // only use this if there are aggs and if there are more shards than we should reduce at once
                 return new QueryPhaseResultConsumer(listener, this, numShards, request.getBatchedReduceSize(), hasTopDocs, hasAggs,
-                    trackTotalHitsUpTo, topNSize, request.isFinalReduce());
+                    trackTotalHitsUpTo, topNSize, request.isFinalReduce(), circuitBreakerService.getBreaker(CircuitBreaker.REQUEST));
             }
         }
         return new ArraySearchPhaseResults<SearchPhaseResult>(numShards) {
@@ -23,9 +23,17 @@ import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortMode;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 
 import java.util.Map;
@@ -37,6 +45,9 @@ final class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<Se
 
     private final SearchPhaseController searchPhaseController;
     private final SearchProgressListener progressListener;
+    private final BottomSortValuesCollector bottomSortCollector;
+    private final ThreadPool threadPool;
+    private final TimeValue hedgedRequestDelay;
 
     SearchQueryThenFetchAsyncAction(final Logger logger, final SearchTransportService searchTransportService,
             final BiFunction<String, String, Transport.Connection> nodeIdToConnection, final Map<String, AliasFilter> aliasFilter,
@@ -44,23 +55,103 @@ final class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<Se
             final SearchPhaseController searchPhaseController, final Executor executor,
             final SearchRequest request, final ActionListener<SearchResponse> listener,
             final GroupShardsIterator<SearchShardIterator> shardsIts, final TransportSearchAction.SearchTimeProvider timeProvider,
-            long clusterStateVersion, SearchTask task, SearchResponse.Clusters clusters) {
+            long clusterStateVersion, SearchTask task, SearchResponse.Clusters clusters,
+            final ThreadPool threadPool, @Nullable final TimeValue hedgedRequestDelay) {
         super("query", logger, searchTransportService, nodeIdToConnection, aliasFilter, concreteIndexBoosts, indexRoutings,
                 executor, request, listener, shardsIts, timeProvider, clusterStateVersion, task,
                 searchPhaseController.newSearchPhaseResults(task.getProgressListener(), request, shardsIts.size()),
                 request.getMaxConcurrentShardRequests(), clusters);
         this.searchPhaseController = searchPhaseController;
         this.progressListener = task.getProgressListener();
+        this.bottomSortCollector = newBottomSortCollector(request, shardsIts);
+        this.threadPool = threadPool;
+        // the bottom sort values would account the top docs of both copies of a shard if its request was hedged
+        this.hedgedRequestDelay = bottomSortCollector == null ? hedgedRequestDelay : null;
         final SearchProgressListener progressListener = task.getProgressListener();
         final SearchSourceBuilder sourceBuilder = request.source();
         progressListener.notifyListShards(progressListener.searchShards(this.shardsIts),
             sourceBuilder == null || sourceBuilder.size() != 0);
     }
 
+    /**
+     * Returns a collector of the bottom sort values of the shard results if the shards that cannot produce competitive
+     * hits can be skipped, or <code>null</code> otherwise. Skipping requires the minimum and maximum values of the primary
+     * sort field that the can match phase computes, and a request that only needs the top hits of the shards.
+     */
+    static BottomSortValuesCollector newBottomSortCollector(SearchRequest request, GroupShardsIterator<SearchShardIterator> shardsIts) {
+        final SearchSourceBuilder source = request.source();
+        final FieldSortBuilder fieldSort = FieldSortBuilder.getPrimaryFieldSortOrNull(source);
+        if (fieldSort == null || request.scroll() != null
+                || source.aggregations() != null || source.suggest() != null || source.collapse() != null) {
+            return null;
+        }
+        if (fieldSort.missing() != null && "_last".equals(fieldSort.missing()) == false) {
+            // documents without value can be competitive but they are not accounted in the min and max values
+            return null;
+        }
+        if (fieldSort.sortMode() != null && fieldSort.sortMode() != SortMode.MIN && fieldSort.sortMode() != SortMode.MAX) {
+            // the sum or the average of the values of a document can be out of the min and max values
+            return null;
+        }
+        final int topNSize = SearchPhaseController.getTopDocsSize(request);
+        if (topNSize <= 0) {
+            return null;
+        }
+        boolean hasMinAndMax = false;
+        for (SearchShardIterator shardIt : shardsIts) {
+            if (shardIt.getMinAndMax() != null) {
+                hasMinAndMax = true;
+                break;
+            }
+        }
+        if (hasMinAndMax == false) {
+            return null;
+        }
+        final int trackTotalHitsUpTo = source.trackTotalHitsUpTo() == null ?
+            SearchContext.DEFAULT_TRACK_TOTAL_HITS_UP_TO : source.trackTotalHitsUpTo();
+        return new BottomSortValuesCollector(topNSize, fieldSort.order(), trackTotalHitsUpTo);
+    }
+
     protected void executePhaseOnShard(final SearchShardIterator shardIt, final ShardRouting shard,
                                        final SearchActionListener<SearchPhaseResult> listener) {
+        final SearchActionListener<SearchPhaseResult> queryListener;
+        if (bottomSortCollector == null) {
+            queryListener = listener;
+        } else {
+            queryListener = new SearchActionListener<>(shardIt.newSearchShardTarget(shard.currentNodeId()), listener.requestIndex) {
+                @Override
+                protected void innerOnResponse(SearchPhaseResult result) {
+                    // the top docs must be collected before the results consumer reduces them
+                    final QuerySearchResult queryResult = result.queryResult();
+                    if (queryResult != null && queryResult.isNull() == false && queryResult.hasConsumedTopDocs() == false) {
+                        bottomSortCollector.consumeTopDocs(queryResult.topDocs().topDocs);
+                    }
+                    listener.onResponse(result);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    listener.onFailure(e);
+                }
+            };
+        }
         getSearchTransport().sendExecuteQuery(getConnection(shardIt.getClusterAlias(), shard.currentNodeId()),
-            buildShardSearchRequest(shardIt), getTask(), listener);
+            buildShardSearchRequest(shardIt), getTask(), queryListener);
+    }
+
+    @Override
+    protected TimeValue getHedgedRequestDelay() {
+        return hedgedRequestDelay;
+    }
+
+    @Override
+    protected Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+        return threadPool.schedule(command, delay, ThreadPool.Names.SAME);
+    }
+
+    @Override
+    protected boolean shouldSkipShard(SearchShardIterator shardIt) {
+        return bottomSortCollector != null && bottomSortCollector.isNonCompetitive(shardIt.getMinAndMax());
     }
 
     @Override
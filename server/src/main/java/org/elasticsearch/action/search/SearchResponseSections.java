@@ -19,7 +19,9 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.SearchHits;
@@ -30,6 +32,7 @@ import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -104,6 +107,17 @@ public class SearchResponseSections implements ToXContentFragment {
     @Override
     public final XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         hits.toXContent(builder, params);
+        return sectionsToXContent(builder, params);
+    }
+
+    /**
+     * Returns the chunks of {@link #toXContent(XContentBuilder, Params)}, each hit is rendered as its own chunk.
+     */
+    public final Iterator<ToXContent> toXContentChunked() {
+        return Iterators.concat(hits.toXContentChunked(), Collections.<ToXContent>singletonList(this::sectionsToXContent).iterator());
+    }
+
+    private XContentBuilder sectionsToXContent(XContentBuilder builder, Params params) throws IOException {
         if (aggregations != null) {
             aggregations.toXContent(builder, params);
         }
@@ -26,6 +26,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.sort.MinAndMax;
 
 import java.util.List;
 import java.util.Objects;
@@ -41,6 +42,7 @@ public final class SearchShardIterator extends PlainShardIterator {
     private final OriginalIndices originalIndices;
     private final String clusterAlias;
     private boolean skip = false;
+    private MinAndMax<?> minAndMax;
 
     /**
      * Creates a {@link PlainShardIterator} instance that iterates over a subset of the given shards
@@ -96,6 +98,22 @@ public final class SearchShardIterator extends PlainShardIterator {
         return skip;
     }
 
+    /**
+     * Sets the minimum and maximum values of the primary sort field on this shard, as computed in the can match phase.
+     */
+    void setMinAndMax(@Nullable MinAndMax<?> minAndMax) {
+        this.minAndMax = minAndMax;
+    }
+
+    /**
+     * Returns the minimum and maximum values of the primary sort field on this shard, or <code>null</code> if they
+     * are unknown.
+     */
+    @Nullable
+    MinAndMax<?> getMinAndMax() {
+        return minAndMax;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
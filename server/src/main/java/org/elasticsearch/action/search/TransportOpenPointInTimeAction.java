@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.transport.Transport;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens a point in time by opening a reader context on one copy of each shard of the requested indices. If a shard copy fails the
+ * next copy is tried, if all the copies of a shard fail the readers that were opened on the other shards are freed. The alias
+ * filters of the requested indices are resolved once and recorded in the point in time id, so that the searches that use it are
+ * filtered like a search on the requested aliases.
+ */
+public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenPointInTimeRequest, OpenPointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final IndexNameExpressionResolver indexNameExpressionResolver;
+    private final SearchTransportService searchTransportService;
+    private final SearchService searchService;
+
+    @Inject
+    public TransportOpenPointInTimeAction(TransportService transportService, ClusterService clusterService, ActionFilters actionFilters,
+                                          IndexNameExpressionResolver indexNameExpressionResolver,
+                                          SearchTransportService searchTransportService, SearchService searchService) {
+        super(OpenPointInTimeAction.NAME, transportService, actionFilters, OpenPointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.indexNameExpressionResolver = indexNameExpressionResolver;
+        this.searchTransportService = searchTransportService;
+        this.searchService = searchService;
+    }
+
+    @Override
+    protected void doExecute(Task task, OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        final DiscoveryNodes nodes;
+        final GroupShardsIterator<ShardIterator> shardIterators;
+        final Map<String, AliasFilter> aliasFilter = new HashMap<>();
+        try {
+            final ClusterState clusterState = clusterService.state();
+            clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
+            final Index[] indices = indexNameExpressionResolver.concreteIndices(clusterState, request.indicesOptions(), request.indices());
+            final Set<String> indicesAndAliases = indexNameExpressionResolver.resolveExpressions(clusterState, request.indices());
+            final String[] concreteIndices = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, indices[i].getName());
+                concreteIndices[i] = indices[i].getName();
+                aliasFilter.put(indices[i].getUUID(), searchService.buildAliasFilter(clusterState, concreteIndices[i], indicesAndAliases));
+            }
+            final Map<String, Set<String>> routingMap =
+                indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(), request.indices());
+            shardIterators = clusterService.operationRouting().searchShards(clusterState, concreteIndices, routingMap,
+                request.preference());
+            nodes = clusterState.nodes();
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        if (shardIterators.size() == 0) {
+            listener.onResponse(new OpenPointInTimeResponse(PointInTimeId.encode(Collections.emptyMap(), Collections.emptyMap())));
+            return;
+        }
+        new AsyncOpenAction(task, request, shardIterators, nodes, aliasFilter, listener).start();
+    }
+
+    private final class AsyncOpenAction {
+        private final Task task;
+        private final OpenPointInTimeRequest request;
+        private final OriginalIndices originalIndices;
+        private final GroupShardsIterator<ShardIterator> shardIterators;
+        private final DiscoveryNodes nodes;
+        private final Map<String, AliasFilter> aliasFilter;
+        private final ActionListener<OpenPointInTimeResponse> listener;
+        private final AtomicArray<Tuple<ShardId, PointInTimeId.ShardReader>> results;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final CountDown countDown;
+
+        private AsyncOpenAction(Task task, OpenPointInTimeRequest request, GroupShardsIterator<ShardIterator> shardIterators,
+                                DiscoveryNodes nodes, Map<String, AliasFilter> aliasFilter,
+                                ActionListener<OpenPointInTimeResponse> listener) {
+            this.task = task;
+            this.request = request;
+            this.originalIndices = new OriginalIndices(request.indices(), request.indicesOptions());
+            this.shardIterators = shardIterators;
+            this.nodes = nodes;
+            this.aliasFilter = aliasFilter;
+            this.listener = listener;
+            this.results = new AtomicArray<>(shardIterators.size());
+            this.countDown = new CountDown(shardIterators.size());
+        }
+
+        void start() {
+            int shardIndex = 0;
+            for (ShardIterator shardIt : shardIterators) {
+                openOnNextCopy(shardIndex++, shardIt, null);
+            }
+        }
+
+        private void openOnNextCopy(int shardIndex, ShardIterator shardIt, Exception lastFailure) {
+            final ShardRouting shardRouting = shardIt.nextOrNull();
+            if (shardRouting == null) {
+                onShardFailure(lastFailure != null ? lastFailure : new NoShardAvailableActionException(shardIt.shardId()));
+                return;
+            }
+            final DiscoveryNode node = nodes.get(shardRouting.currentNodeId());
+            if (node == null) {
+                openOnNextCopy(shardIndex, shardIt,
+                    new NoShardAvailableActionException(shardIt.shardId(), "no node found for id: " + shardRouting.currentNodeId()));
+                return;
+            }
+            final SearchTransportService.OpenReaderContextRequest shardRequest =
+                new SearchTransportService.OpenReaderContextRequest(shardIt.shardId(), originalIndices, request.keepAlive());
+            try {
+                Transport.Connection connection = searchTransportService.getConnection(null, node);
+                searchTransportService.sendOpenReaderContext(connection, shardRequest, task,
+                    new ActionListener<SearchTransportService.OpenReaderContextResponse>() {
+                        @Override
+                        public void onResponse(SearchTransportService.OpenReaderContextResponse response) {
+                            results.set(shardIndex, new Tuple<>(shardIt.shardId(),
+                                new PointInTimeId.ShardReader(node.getId(), response.readerId())));
+                            onShardDone();
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            openOnNextCopy(shardIndex, shardIt, e);
+                        }
+                    });
+            } catch (Exception e) {
+                openOnNextCopy(shardIndex, shardIt, e);
+            }
+        }
+
+        private void onShardFailure(Exception e) {
+            if (failure.compareAndSet(null, e) == false) {
+                failure.get().addSuppressed(e);
+            }
+            onShardDone();
+        }
+
+        private void onShardDone() {
+            if (countDown.countDown() == false) {
+                return;
+            }
+            final Exception e = failure.get();
+            if (e != null) {
+                // a partial point in time would not be consistent, release the readers that were opened
+                for (Tuple<ShardId, PointInTimeId.ShardReader> result : results.asList()) {
+                    final DiscoveryNode node = nodes.get(result.v2().getNodeId());
+                    try {
+                        Transport.Connection connection = searchTransportService.getConnection(null, node);
+                        searchTransportService.sendFreeContext(connection, result.v2().getReaderId(), originalIndices);
+                    } catch (Exception inner) {
+                        logger.trace("failed to free reader context", inner);
+                    }
+                }
+                listener.onFailure(e);
+                return;
+            }
+            final Map<ShardId, PointInTimeId.ShardReader> shards = new LinkedHashMap<>();
+            for (Tuple<ShardId, PointInTimeId.ShardReader> result : results.asList()) {
+                shards.put(result.v1(), result.v2());
+            }
+            listener.onResponse(new OpenPointInTimeResponse(PointInTimeId.encode(shards, aliasFilter)));
+        }
+    }
+}
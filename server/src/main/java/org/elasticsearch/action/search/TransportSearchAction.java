@@ -35,16 +35,20 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -90,6 +94,19 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Long> SHARD_COUNT_LIMIT_SETTING = Setting.longSetting(
             "action.search.shard_count.limit", Long.MAX_VALUE, 1L, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Whether the query requests of shards that are slow to respond are also sent to another copy of the shard.
+     */
+    public static final Setting<Boolean> HEDGED_REQUESTS_ENABLED_SETTING = Setting.boolSetting(
+            "action.search.hedged_requests.enabled", false, Property.Dynamic, Property.NodeScope);
+    /** The percentile of the recent query response times after which the query request of a shard is hedged. */
+    public static final Setting<Double> HEDGED_REQUESTS_PERCENTILE_SETTING = Setting.doubleSetting(
+            "action.search.hedged_requests.percentile", 95d, 0d, 100d, Property.Dynamic, Property.NodeScope);
+    /** The minimum delay after which the query request of a shard is hedged. */
+    public static final Setting<TimeValue> HEDGED_REQUESTS_MIN_DELAY_SETTING = Setting.timeSetting(
+            "action.search.hedged_requests.min_delay", TimeValue.timeValueMillis(10), TimeValue.ZERO,
+            Property.Dynamic, Property.NodeScope);
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -97,12 +114,14 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final SearchPhaseController searchPhaseController;
     private final SearchService searchService;
     private final IndexNameExpressionResolver indexNameExpressionResolver;
+    private final SearchAdmissionController admissionController;
+    private final NamedWriteableRegistry namedWriteableRegistry;
 
     @Inject
     public TransportSearchAction(ThreadPool threadPool, TransportService transportService, SearchService searchService,
                                  SearchTransportService searchTransportService, SearchPhaseController searchPhaseController,
                                  ClusterService clusterService, ActionFilters actionFilters,
-                                 IndexNameExpressionResolver indexNameExpressionResolver) {
+                                 IndexNameExpressionResolver indexNameExpressionResolver, NamedWriteableRegistry namedWriteableRegistry) {
         super(SearchAction.NAME, transportService, actionFilters, (Writeable.Reader<SearchRequest>) SearchRequest::new);
         this.threadPool = threadPool;
         this.searchPhaseController = searchPhaseController;
@@ -112,6 +131,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.clusterService = clusterService;
         this.searchService = searchService;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
+        this.admissionController = new SearchAdmissionController(clusterService.getClusterSettings());
+        this.namedWriteableRegistry = namedWriteableRegistry;
     }
 
     private Map<String, AliasFilter> buildPerIndexAliasFilter(SearchRequest request, ClusterState clusterState,
@@ -465,23 +486,35 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                                SearchResponse.Clusters clusters) {
 
         clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
-        // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
-        // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
-        // of just for the _search api
-        final Index[] indices = resolveLocalIndices(localIndices, searchRequest.indicesOptions(), clusterState, timeProvider);
-        Map<String, AliasFilter> aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
-        Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
-            searchRequest.indices());
-        routingMap = routingMap == null ? Collections.emptyMap() : Collections.unmodifiableMap(routingMap);
-        String[] concreteIndices = new String[indices.length];
-        for (int i = 0; i < indices.length; i++) {
-            concreteIndices[i] = indices[i].getName();
-        }
-        Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
-        GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
+        final Map<String, AliasFilter> aliasFilter;
+        final Map<String, Set<String>> routingMap;
+        final GroupShardsIterator<SearchShardIterator> shardIterators;
+        if (searchRequest.source() != null && searchRequest.source().pointInTimeBuilder() != null) {
+            // the shards and the nodes that hold their pinned readers are part of the point in time id
+            final PointInTimeId pointInTimeId = PointInTimeId.decode(namedWriteableRegistry,
+                searchRequest.source().pointInTimeBuilder().getId());
+            aliasFilter = new HashMap<>();
+            routingMap = Collections.emptyMap();
+            shardIterators = buildPointInTimeShardIterators(clusterState, pointInTimeId, searchRequest.indicesOptions(), aliasFilter);
+        } else {
+            // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
+            // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
+            // of just for the _search api
+            final Index[] indices = resolveLocalIndices(localIndices, searchRequest.indicesOptions(), clusterState, timeProvider);
+            aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
+            Map<String, Set<String>> searchRouting = indexNameExpressionResolver.resolveSearchRouting(clusterState,
+                searchRequest.routing(), searchRequest.indices());
+            routingMap = searchRouting == null ? Collections.emptyMap() : Collections.unmodifiableMap(searchRouting);
+            String[] concreteIndices = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                concreteIndices[i] = indices[i].getName();
+            }
+            Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
+            GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
                 concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
-        GroupShardsIterator<SearchShardIterator> shardIterators = mergeShardsIterators(localShardsIterator, localIndices,
-            searchRequest.getLocalClusterAlias(), remoteShardIterators);
+            shardIterators = mergeShardsIterators(localShardsIterator, localIndices, searchRequest.getLocalClusterAlias(),
+                remoteShardIterators);
+        }
 
         failIfOverShardCountLimit(clusterService, shardIterators.size());
 
@@ -511,8 +544,24 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         BiFunction<String, String, Transport.Connection> connectionLookup = buildConnectionLookup(searchRequest.getLocalClusterAlias(),
             nodes::get, remoteConnections, searchTransportService::getConnection);
         boolean preFilterSearchShards = shouldPreFilterSearchShards(searchRequest, shardIterators);
-        searchAsyncAction(task, searchRequest, shardIterators, timeProvider, connectionLookup, clusterState.version(),
-            Collections.unmodifiableMap(aliasFilter), concreteIndexBoosts, routingMap, listener, preFilterSearchShards, clusters).start();
+        // throws if the node is too busy with other expensive searches, the cost is released once the search completes
+        final ActionListener<SearchResponse> admittedListener =
+            admissionController.admit(searchRequest.source(), shardIterators.size(), listener);
+        final AbstractSearchAsyncAction searchAsyncAction;
+        try {
+            searchAsyncAction = searchAsyncAction(task, searchRequest, shardIterators, timeProvider, connectionLookup,
+                clusterState.version(), Collections.unmodifiableMap(aliasFilter), concreteIndexBoosts, routingMap, admittedListener,
+                preFilterSearchShards, clusters);
+        } catch (Exception e) {
+            // releases the admitted cost, since the search won't complete the listener
+            admittedListener.onFailure(e);
+            return;
+        }
+        searchAsyncAction.start();
+    }
+
+    SearchAdmissionController getAdmissionController() {
+        return admissionController;
     }
 
     static BiFunction<String, String, Transport.Connection> buildConnectionLookup(String requestClusterAlias,
@@ -556,6 +605,33 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         return new GroupShardsIterator<>(shards);
     }
 
+    /**
+     * Builds the shard iterators of a search that is executed against a point in time. Each shard can only be searched on the node
+     * that holds its pinned reader, the shard fails if it is no longer allocated there. The shards are filtered with the alias
+     * filters that were resolved when the point in time was opened.
+     */
+    static GroupShardsIterator<SearchShardIterator> buildPointInTimeShardIterators(ClusterState clusterState,
+                                                                                   PointInTimeId pointInTimeId,
+                                                                                   IndicesOptions indicesOptions,
+                                                                                   Map<String, AliasFilter> aliasFilter) {
+        List<SearchShardIterator> shards = new ArrayList<>(pointInTimeId.shards().size());
+        for (Map.Entry<ShardId, PointInTimeId.ShardReader> entry : pointInTimeId.shards().entrySet()) {
+            final ShardId shardId = entry.getKey();
+            clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, shardId.getIndexName());
+            List<ShardRouting> targets = new ArrayList<>(1);
+            for (ShardRouting shardRouting : clusterState.routingTable().shardRoutingTable(shardId).activeShards()) {
+                if (entry.getValue().getNodeId().equals(shardRouting.currentNodeId())) {
+                    targets.add(shardRouting);
+                }
+            }
+            final String indexUUID = shardId.getIndex().getUUID();
+            aliasFilter.put(indexUUID, pointInTimeId.aliasFilter().getOrDefault(indexUUID, AliasFilter.EMPTY));
+            OriginalIndices originalIndices = new OriginalIndices(new String[] { shardId.getIndexName() }, indicesOptions);
+            shards.add(new SearchShardIterator(null, shardId, targets, originalIndices));
+        }
+        return new GroupShardsIterator<>(shards);
+    }
+
     private AbstractSearchAsyncAction searchAsyncAction(SearchTask task, SearchRequest searchRequest,
                                                         GroupShardsIterator<SearchShardIterator> shardIterators,
                                                         SearchTimeProvider timeProvider,
@@ -592,7 +668,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 case QUERY_THEN_FETCH:
                     searchAsyncAction = new SearchQueryThenFetchAsyncAction(logger, searchTransportService, connectionLookup,
                         aliasFilter, concreteIndexBoosts, indexRoutings, searchPhaseController, executor, searchRequest, listener,
-                        shardIterators, timeProvider, clusterStateVersion, task, clusters);
+                        shardIterators, timeProvider, clusterStateVersion, task, clusters, threadPool, hedgedRequestDelay());
                     break;
                 default:
                     throw new IllegalStateException("Unknown search type: [" + searchRequest.searchType() + "]");
@@ -601,6 +677,27 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         }
     }
 
+    /**
+     * Returns the delay after which the query request of a shard that did not respond yet is sent to another copy of the shard,
+     * or <code>null</code> if requests are not hedged. The delay is a percentile of the response times of the recent query
+     * requests so that only the requests that are slower than usual are hedged.
+     */
+    @Nullable
+    private TimeValue hedgedRequestDelay() {
+        final ResponseCollectorService responseCollectorService = searchService.getResponseCollectorService();
+        if (responseCollectorService == null || clusterService.getClusterSettings().get(HEDGED_REQUESTS_ENABLED_SETTING) == false) {
+            return null;
+        }
+        final long responseTimeNanos = responseCollectorService.getResponseTimePercentile(
+            clusterService.getClusterSettings().get(HEDGED_REQUESTS_PERCENTILE_SETTING));
+        if (responseTimeNanos < 0) {
+            // not enough responses yet to know what a slow response is
+            return null;
+        }
+        final TimeValue minDelay = clusterService.getClusterSettings().get(HEDGED_REQUESTS_MIN_DELAY_SETTING);
+        return TimeValue.timeValueNanos(Math.max(responseTimeNanos, minDelay.nanos()));
+    }
+
     private static void failIfOverShardCountLimit(ClusterService clusterService, int shardCount) {
         final long shardCountLimit = clusterService.getClusterSettings().get(SHARD_COUNT_LIMIT_SETTING);
         if (shardCount > shardCountLimit) {
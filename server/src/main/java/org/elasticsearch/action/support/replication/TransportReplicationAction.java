@@ -246,13 +246,39 @@ public abstract class TransportReplicationAction<
         return false;
     }
 
+    /**
+     * Checks whether this node can accept the given request as the coordinating node, for instance because enough memory is
+     * available to buffer it. Returns a {@link Releasable} that is closed once the request has completed.
+     */
+    protected Releasable checkOperationLimits(final Request request) {
+        return () -> {};
+    }
+
     protected void handleOperationRequest(final Request request, final TransportChannel channel, Task task) {
-        execute(task, request, new ChannelActionListener<>(channel, actionName, request));
+        Releasable releasable = checkOperationLimits(request);
+        ActionListener<Response> listener =
+            ActionListener.runBefore(new ChannelActionListener<>(channel, actionName, request), releasable::close);
+        execute(task, request, listener);
+    }
+
+    /**
+     * Checks whether this node can accept the given request on its primary shard. {@code rerouteWasLocal} is set if the request
+     * was routed to the primary by this very node, in which case it has already been accounted for as a coordinating operation.
+     * Returns a {@link Releasable} that is closed once the primary operation has completed.
+     */
+    protected Releasable checkPrimaryLimits(final Request request, boolean rerouteWasLocal) {
+        return () -> {};
     }
 
     protected void handlePrimaryRequest(final ConcreteShardRequest<Request> request, final TransportChannel channel, final Task task) {
-        new AsyncPrimaryAction(
-            request, new ChannelActionListener<>(channel, transportPrimaryAction, request), (ReplicationTask) task).run();
+        Releasable releasable = checkPrimaryLimits(request.getRequest(), request.sentFromLocalReroute());
+        ActionListener<Response> listener =
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportPrimaryAction, request), releasable::close);
+        try {
+            new AsyncPrimaryAction(request, listener, (ReplicationTask) task).run();
+        } catch (RuntimeException e) {
+            listener.onFailure(e);
+        }
     }
 
     class AsyncPrimaryAction extends AbstractRunnable {
@@ -465,10 +491,24 @@ public abstract class TransportReplicationAction<
         }
     }
 
+    /**
+     * Accounts for the given request on a replica shard. Returns a {@link Releasable} that is closed once the replica operation
+     * has completed.
+     */
+    protected Releasable checkReplicaLimits(final ReplicaRequest request) {
+        return () -> {};
+    }
+
     protected void handleReplicaRequest(final ConcreteReplicaRequest<ReplicaRequest> replicaRequest,
                                         final TransportChannel channel, final Task task) {
-        new AsyncReplicaAction(
-            replicaRequest, new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), (ReplicationTask) task).run();
+        Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
+        ActionListener<ReplicaResponse> listener =
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), releasable::close);
+        try {
+            new AsyncReplicaAction(replicaRequest, listener, (ReplicationTask) task).run();
+        } catch (RuntimeException e) {
+            listener.onFailure(e);
+        }
     }
 
     public static class RetryOnReplicaException extends ElasticsearchException {
@@ -692,7 +732,7 @@ public abstract class TransportReplicationAction<
                     transportPrimaryAction, request.shardId(), request, state.version(), primary.currentNodeId());
             }
             performAction(node, transportPrimaryAction, true,
-                new ConcreteShardRequest<>(request, primary.allocationId().getId(), indexMetaData.primaryTerm(primary.id())));
+                new ConcreteShardRequest<>(request, primary.allocationId().getId(), indexMetaData.primaryTerm(primary.id()), true));
         }
 
         private void performRemoteAction(ClusterState state, ShardRouting primary, DiscoveryNode node) {
@@ -1039,19 +1079,27 @@ public abstract class TransportReplicationAction<
         private final String targetAllocationID;
         private final long primaryTerm;
         private final R request;
+        // Indicates if this primary shard request originated by a reroute on this local node. Not serialized.
+        private final boolean sentFromLocalReroute;
 
         public ConcreteShardRequest(Writeable.Reader<R> requestReader, StreamInput in) throws IOException {
             targetAllocationID = in.readString();
             primaryTerm  = in.readVLong();
+            sentFromLocalReroute = false;
             request = requestReader.read(in);
         }
 
         public ConcreteShardRequest(R request, String targetAllocationID, long primaryTerm) {
+            this(request, targetAllocationID, primaryTerm, false);
+        }
+
+        public ConcreteShardRequest(R request, String targetAllocationID, long primaryTerm, boolean sentFromLocalReroute) {
             Objects.requireNonNull(request);
             Objects.requireNonNull(targetAllocationID);
             this.request = request;
             this.targetAllocationID = targetAllocationID;
             this.primaryTerm = primaryTerm;
+            this.sentFromLocalReroute = sentFromLocalReroute;
         }
 
         @Override
@@ -1080,11 +1128,19 @@ public abstract class TransportReplicationAction<
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
+            // If sentFromLocalReroute is marked true, then this request should just be looped back through
+            // the local transport. It should never be serialized to be sent over the wire. If it is sent over
+            // the wire, then it was NOT sent from a local reroute.
+            assert sentFromLocalReroute == false;
             out.writeString(targetAllocationID);
             out.writeVLong(primaryTerm);
             request.writeTo(out);
         }
 
+        public boolean sentFromLocalReroute() {
+            return sentFromLocalReroute;
+        }
+
         public R getRequest() {
             return request;
         }
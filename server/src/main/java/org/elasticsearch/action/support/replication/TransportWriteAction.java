@@ -32,7 +32,9 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.shard.IndexShard;
@@ -57,12 +59,54 @@ public abstract class TransportWriteAction<
             Response extends ReplicationResponse & WriteResponse
         > extends TransportReplicationAction<Request, ReplicaRequest, Response> {
 
+    private final boolean forceExecution;
+    private final IndexingPressure indexingPressure;
+
     protected TransportWriteAction(Settings settings, String actionName, TransportService transportService,
                                    ClusterService clusterService, IndicesService indicesService, ThreadPool threadPool,
                                    ShardStateAction shardStateAction, ActionFilters actionFilters, Writeable.Reader<Request> request,
-                                   Writeable.Reader<ReplicaRequest> replicaRequest, String executor, boolean forceExecutionOnPrimary) {
+                                   Writeable.Reader<ReplicaRequest> replicaRequest, String executor, boolean forceExecutionOnPrimary,
+                                   IndexingPressure indexingPressure) {
         super(settings, actionName, transportService, clusterService, indicesService, threadPool, shardStateAction, actionFilters,
               request, replicaRequest, executor, true, forceExecutionOnPrimary);
+        this.forceExecution = forceExecutionOnPrimary;
+        this.indexingPressure = indexingPressure;
+    }
+
+    @Override
+    protected Releasable checkOperationLimits(Request request) {
+        return indexingPressure.markCoordinatingOperationStarted(primaryOperationSize(request), forceExecution);
+    }
+
+    @Override
+    protected Releasable checkPrimaryLimits(Request request, boolean rerouteWasLocal) {
+        if (rerouteWasLocal) {
+            // the bytes of this request are already accounted for as a coordinating operation on this node
+            return indexingPressure.markPrimaryOperationLocalToCoordinatingNodeStarted(primaryOperationSize(request));
+        } else {
+            return indexingPressure.markPrimaryOperationStarted(primaryOperationSize(request), forceExecution);
+        }
+    }
+
+    @Override
+    protected Releasable checkReplicaLimits(ReplicaRequest request) {
+        return indexingPressure.markReplicaOperationStarted(replicaOperationSize(request));
+    }
+
+    /**
+     * The number of bytes that the given request holds on to while it is coordinated or executed on the primary,
+     * as tracked by {@link IndexingPressure}.
+     */
+    protected long primaryOperationSize(Request request) {
+        return 0;
+    }
+
+    /**
+     * The number of bytes that the given request holds on to while it is executed on a replica, as tracked by
+     * {@link IndexingPressure}.
+     */
+    protected long replicaOperationSize(ReplicaRequest request) {
+        return 0;
     }
 
     /** Syncs operation result to the translog or throws a shard not available failure */
@@ -0,0 +1,236 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 block format. The content is split in blocks of at most
+ * {@link #BLOCK_SIZE} bytes that are compressed independently. Each block is prefixed by its uncompressed and
+ * compressed lengths and the stream is terminated by an empty block. LZ4 compresses less than DEFLATE but is
+ * several times faster, which makes it a better fit for hot paths such as the transport layer.
+ */
+public class LZ4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams
+    // It needs to be different from other compressors and to not be specific
+    // enough so that no stream starting with these bytes could be detected as
+    // a XContent
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+    // LZ4 cannot reference bytes that are more than 64KB away so larger blocks would not improve the compression ratio
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new LZ4InputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new LZ4OutputStream(out));
+    }
+
+    /**
+     * Returns the maximum number of bytes that the compression of <code>length</code> bytes can produce.
+     */
+    private static int maxCompressedLength(int length) {
+        return length + (length / 255) + 16;
+    }
+
+    private static final class LZ4OutputStream extends OutputStream {
+
+        private final StreamOutput out;
+        private final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private int bufferLength;
+        private boolean closed;
+
+        LZ4OutputStream(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (bufferLength == buffer.length) {
+                flushBlock();
+            }
+            buffer[bufferLength++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (bufferLength == buffer.length) {
+                    flushBlock();
+                }
+                final int toCopy = Math.min(len, buffer.length - bufferLength);
+                System.arraycopy(b, off, buffer, bufferLength, toCopy);
+                bufferLength += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (bufferLength == 0) {
+                return;
+            }
+            final ByteArrayDataOutput compressedOut = new ByteArrayDataOutput(compressed);
+            LZ4.compress(buffer, 0, bufferLength, compressedOut, hashTable);
+            out.writeVInt(bufferLength);
+            out.writeVInt(compressedOut.getPosition());
+            out.writeBytes(compressed, 0, compressedOut.getPosition());
+            bufferLength = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flushBlock();
+                // an empty block marks the end of the stream
+                out.writeVInt(0);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static final class LZ4InputStream extends InputStream {
+
+        private final StreamInput in;
+        private byte[] compressed = new byte[0];
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private int bufferOffset;
+        private int bufferLength;
+        private boolean eos;
+
+        LZ4InputStream(StreamInput in) {
+            this.in = in;
+        }
+
+        /**
+         * Decompresses the next block in the buffer, returns <code>false</code> if the end of the stream is reached.
+         */
+        private boolean fillBuffer() throws IOException {
+            if (eos) {
+                return false;
+            }
+            final int uncompressedLength = in.readVInt();
+            if (uncompressedLength == 0) {
+                eos = true;
+                return false;
+            }
+            final int compressedLength = in.readVInt();
+            if (uncompressedLength > BLOCK_SIZE || compressedLength > maxCompressedLength(uncompressedLength)) {
+                throw new IllegalStateException("invalid LZ4 block: uncompressed length [" + uncompressedLength
+                    + "], compressed length [" + compressedLength + "]");
+            }
+            if (compressed.length < compressedLength) {
+                compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+            }
+            in.readBytes(compressed, 0, compressedLength);
+            LZ4.decompress(new ByteArrayDataInput(compressed, 0, compressedLength), uncompressedLength, buffer);
+            bufferOffset = 0;
+            bufferLength = uncompressedLength;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (bufferOffset == bufferLength && fillBuffer() == false) {
+                return -1;
+            }
+            return buffer[bufferOffset++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (bufferOffset == bufferLength && fillBuffer() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, bufferLength - bufferOffset);
+            System.arraycopy(buffer, bufferOffset, b, off, toCopy);
+            bufferOffset += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return bufferLength - bufferOffset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
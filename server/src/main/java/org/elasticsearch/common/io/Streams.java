@@ -235,6 +235,18 @@ public abstract class Streams {
         };
     }
 
+    /**
+     * Wraps an {@link InputStream} so that at most {@code limit} bytes can be read from it. Closing
+     * the returned stream closes the wrapped stream.
+     *
+     * @param in {@code InputStream} to wrap
+     * @param limit the maximum number of bytes that can be read
+     * @return wrapped {@code InputStream}
+     */
+    public static InputStream limitStream(InputStream in, long limit) {
+        return new LimitedInputStream(in, limit);
+    }
+
     /**
      * Wraps the given {@link BytesStream} in a {@link StreamOutput} that simply flushes when
      * close is called.
@@ -297,4 +309,72 @@ public abstract class Streams {
             return delegate.bytes();
         }
     }
+
+    /**
+     * A {@link FilterInputStream} that stops returning bytes once the given limit is reached.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private static final long NO_MARK = -1L;
+
+        private long currentLimit; // is always non-negative
+        private long limitOnLastMark;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            if (limit < 0L) {
+                throw new IllegalArgumentException("limit must be non-negative");
+            }
+            this.currentLimit = limit;
+            this.limitOnLastMark = NO_MARK;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result;
+            if (currentLimit == 0 || (result = in.read()) == -1) {
+                return -1;
+            } else {
+                currentLimit -= 1;
+                return result;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int result;
+            if (currentLimit == 0 || (result = in.read(b, off, Math.toIntExact(Math.min(len, currentLimit)))) == -1) {
+                return -1;
+            } else {
+                currentLimit -= result;
+                return result;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = in.skip(Math.min(n, currentLimit));
+            currentLimit -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.toIntExact(Math.min(in.available(), currentLimit));
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            in.mark(readlimit);
+            limitOnLastMark = currentLimit;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            in.reset();
+            if (limitOnLastMark != NO_MARK) {
+                currentLimit = limitOnLastMark;
+            }
+        }
+    }
 }
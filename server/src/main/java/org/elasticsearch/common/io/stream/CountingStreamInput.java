@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.io.stream;
+
+import java.io.IOException;
+
+/**
+ * A {@link StreamInput} that counts the bytes read from the stream that it wraps, to know the serialized size of an object
+ * while reading it.
+ */
+public final class CountingStreamInput extends FilterStreamInput {
+
+    private long size;
+
+    public CountingStreamInput(StreamInput delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        byte b = super.readByte();
+        ++size;
+        return b;
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+        super.readBytes(b, offset, len);
+        size += len;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            ++size;
+        }
+        return b;
+    }
+
+    /**
+     * Returns the number of bytes read from this stream.
+     */
+    public long size() {
+        return size;
+    }
+}
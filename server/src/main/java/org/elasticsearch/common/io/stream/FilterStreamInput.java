@@ -75,6 +75,11 @@ public abstract class FilterStreamInput extends StreamInput {
         delegate.setVersion(version);
     }
 
+    @Override
+    public NamedWriteableRegistry namedWriteableRegistry() {
+        return delegate.namedWriteableRegistry();
+    }
+
     @Override
     protected void ensureCanReadBytes(int length) throws EOFException {
         delegate.ensureCanReadBytes(length);
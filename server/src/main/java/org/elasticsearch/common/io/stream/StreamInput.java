@@ -1112,6 +1112,14 @@ public abstract class StreamInput extends InputStream {
         throw new UnsupportedOperationException("can't read named writeable from StreamInput");
     }
 
+    /**
+     * Returns the registry of the {@link NamedWriteable}s that this stream can read, or <code>null</code> if it can't read any.
+     */
+    @Nullable
+    public NamedWriteableRegistry namedWriteableRegistry() {
+        return null;
+    }
+
     /**
      * Reads an optional {@link NamedWriteable}.
      */
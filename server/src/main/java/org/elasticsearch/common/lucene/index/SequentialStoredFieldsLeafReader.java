@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.lucene.index;
+
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+
+import java.io.IOException;
+
+/**
+ * A {@link FilterLeafReader} that exposes a {@link StoredFieldsReader} optimized for sequential access. Lucene stored
+ * fields are compressed in blocks and optimized for random access, each document that is loaded decompresses its block
+ * again. The instance that is used for merges keeps the last decompressed block instead, so that loading documents
+ * that are close to each other in doc id order decompresses each block once.
+ */
+public abstract class SequentialStoredFieldsLeafReader extends FilterLeafReader {
+
+    /**
+     * <p>Construct a SequentialStoredFieldsLeafReader based on the specified base reader.
+     * <p>Note that base reader is closed if this FilterLeafReader is closed.</p>
+     *
+     * @param in specified base reader.
+     */
+    public SequentialStoredFieldsLeafReader(LeafReader in) {
+        super(in);
+    }
+
+    /**
+     * Implementations should return a {@link StoredFieldsReader} that wraps the provided <code>reader</code> and applies
+     * the same filtering as {@link #document(int, org.apache.lucene.index.StoredFieldVisitor)}, if any.
+     */
+    protected abstract StoredFieldsReader doGetSequentialStoredFieldsReader(StoredFieldsReader reader);
+
+    /**
+     * Returns a {@link StoredFieldsReader} optimized for sequential access (adjacent doc ids). The returned reader is
+     * not thread-safe and should only be used to load documents in increasing doc id order.
+     */
+    public StoredFieldsReader getSequentialStoredFieldsReader() throws IOException {
+        if (in instanceof CodecReader) {
+            CodecReader reader = (CodecReader) in;
+            return doGetSequentialStoredFieldsReader(reader.getFieldsReader().getMergeInstance());
+        } else if (in instanceof SequentialStoredFieldsLeafReader) {
+            SequentialStoredFieldsLeafReader reader = (SequentialStoredFieldsLeafReader) in;
+            return doGetSequentialStoredFieldsReader(reader.getSequentialStoredFieldsReader());
+        } else {
+            throw new IOException("requires a CodecReader or a SequentialStoredFieldsLeafReader, got " + in.getClass());
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if {@link #getSequentialStoredFieldsReader()} can be used on the provided reader, that
+     * is if it is a {@link SequentialStoredFieldsLeafReader} and all its wrappers are {@link SequentialStoredFieldsLeafReader}s
+     * up to the {@link CodecReader}.
+     */
+    public static boolean canUseSequentialStoredFieldsReader(LeafReader reader) {
+        if (reader instanceof SequentialStoredFieldsLeafReader == false) {
+            return false;
+        }
+        while (reader instanceof SequentialStoredFieldsLeafReader) {
+            reader = ((SequentialStoredFieldsLeafReader) reader).getDelegate();
+        }
+        return reader instanceof CodecReader;
+    }
+}
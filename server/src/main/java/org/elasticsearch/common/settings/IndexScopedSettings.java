@@ -145,6 +145,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.INDEX_TRANSLOG_RETENTION_SIZE_SETTING,
             IndexSettings.INDEX_SEARCH_IDLE_AFTER,
             IndexSettings.INDEX_SEARCH_THROTTLED,
+            IndexSettings.INDEX_CONCURRENT_SEGMENT_SEARCH_SETTING,
             IndexFieldDataService.INDEX_FIELDDATA_CACHE_KEY,
             FieldMapper.IGNORE_MALFORMED_SETTING,
             FieldMapper.COERCE_SETTING,
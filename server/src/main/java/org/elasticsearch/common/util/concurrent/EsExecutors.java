@@ -20,6 +20,7 @@
 package org.elasticsearch.common.util.concurrent;
 
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.SuppressForbidden;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -106,14 +107,26 @@ public class EsExecutors {
     public static EsThreadPoolExecutor newAutoQueueFixed(String name, int size, int initialQueueCapacity, int minQueueSize,
                                                          int maxQueueSize, int frameSize, TimeValue targetedResponseTime,
                                                          ThreadFactory threadFactory, ThreadContext contextHolder) {
+        return newAutoQueueFixed(name, size, initialQueueCapacity, minQueueSize, maxQueueSize, frameSize, targetedResponseTime, null,
+            threadFactory, contextHolder);
+    }
+
+    /**
+     * Like {@link #newAutoQueueFixed(String, int, int, int, int, int, TimeValue, ThreadFactory, ThreadContext)}, but dispatches the
+     * tasks with the given fair queue if it is not <code>null</code>. The capacity of the queue still applies to all the tasks.
+     */
+    public static EsThreadPoolExecutor newAutoQueueFixed(String name, int size, int initialQueueCapacity, int minQueueSize,
+                                                         int maxQueueSize, int frameSize, TimeValue targetedResponseTime,
+                                                         @Nullable FairBlockingQueue<Runnable> fairQueue,
+                                                         ThreadFactory threadFactory, ThreadContext contextHolder) {
         if (initialQueueCapacity <= 0) {
             throw new IllegalArgumentException("initial queue capacity for [" + name + "] executor must be positive, got: " +
                             initialQueueCapacity);
         }
-        ResizableBlockingQueue<Runnable> queue =
-                new ResizableBlockingQueue<>(ConcurrentCollections.<Runnable>newBlockingQueue(), initialQueueCapacity);
+        ResizableBlockingQueue<Runnable> queue = new ResizableBlockingQueue<>(
+            fairQueue == null ? ConcurrentCollections.<Runnable>newBlockingQueue() : fairQueue, initialQueueCapacity);
         return new QueueResizingEsThreadPoolExecutor(name, size, size, 0, TimeUnit.MILLISECONDS,
-                queue, minQueueSize, maxQueueSize, TimedRunnable::new, frameSize, targetedResponseTime, threadFactory,
+                queue, fairQueue, minQueueSize, maxQueueSize, TimedRunnable::new, frameSize, targetedResponseTime, threadFactory,
                 new EsAbortPolicy(), contextHolder);
     }
 
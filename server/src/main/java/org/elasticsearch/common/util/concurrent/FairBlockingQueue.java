@@ -0,0 +1,410 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.threadpool.ThreadPoolStats;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * An unbounded blocking queue that keeps a sub-queue per key, for instance per index or per tenant, and that dispatches
+ * the elements of the sub-queues with deficit round-robin. Each sub-queue is credited with a quantum that is proportional
+ * to its weight on each round, and is charged with the average execution time of its tasks for each dispatched task, so
+ * that a burst of expensive tasks under one key gets its share of the threads without delaying the tasks of the other keys
+ * behind it.
+ *
+ * The key of an element is resolved on the thread that offers it, which is the thread that submits the task to the executor
+ * that uses this queue: it is the key returned by the key supplier if any, or else the key that the task was submitted with,
+ * see {@link #execute(Executor, String, Runnable)}. The average execution time of the tasks of each key must be reported by
+ * the executor with {@link #onTaskExecuted(long)}.
+ *
+ * The capacity of the whole queue is meant to be checked by a {@link SizeBlockingQueue} that wraps this queue, this queue
+ * only rejects the elements of the sub-queues that reached their maximum size.
+ */
+public final class FairBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * The key of the elements that are offered without a key.
+     */
+    public static final String DEFAULT_KEY = "_default";
+
+    private static final double EWMA_ALPHA = 0.3;
+    // empty sub-queues are kept for their statistics, until there are too many of them
+    private static final int MAX_IDLE_SUB_QUEUES = 1024;
+
+    private static final ThreadLocal<String> SUBMISSION_KEY = new ThreadLocal<>();
+
+    private final Supplier<String> keySupplier;
+    private final Map<String, Integer> weights;
+    private final int maxQueueSizePerKey;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<String, SubQueue<E>> subQueues = new HashMap<>();
+    // the non-empty sub-queues, in round-robin order
+    private final ArrayDeque<SubQueue<E>> active = new ArrayDeque<>();
+    // the sub-queue of the last element that was taken by each thread
+    private final ThreadLocal<SubQueue<E>> lastTaken = new ThreadLocal<>();
+    private int size;
+
+    /**
+     * @param keySupplier        supplies the key of the elements that are offered by the current thread, or <code>null</code> to
+     *                           use the key that the task was submitted with
+     * @param weights            the weights of the keys, the keys that are missing have a weight of <code>1</code>
+     * @param maxQueueSizePerKey the maximum number of elements per key, or <code>-1</code> for no limit
+     */
+    public FairBlockingQueue(Supplier<String> keySupplier, Map<String, Integer> weights, int maxQueueSizePerKey) {
+        this.keySupplier = Objects.requireNonNull(keySupplier);
+        this.weights = Map.copyOf(weights);
+        this.maxQueueSizePerKey = maxQueueSizePerKey;
+    }
+
+    /**
+     * Executes the given command on the given executor under the given key. The key is only used if the executor queues the
+     * command in a {@link FairBlockingQueue}, and if its key supplier does not supply another key.
+     */
+    public static void execute(Executor executor, String key, Runnable command) {
+        final String previous = SUBMISSION_KEY.get();
+        SUBMISSION_KEY.set(key);
+        try {
+            executor.execute(command);
+        } finally {
+            if (previous == null) {
+                SUBMISSION_KEY.remove();
+            } else {
+                SUBMISSION_KEY.set(previous);
+            }
+        }
+    }
+
+    private String resolveKey() {
+        String key = keySupplier.get();
+        if (key == null) {
+            key = SUBMISSION_KEY.get();
+        }
+        return key == null ? DEFAULT_KEY : key;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return enqueue(e, false);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return enqueue(e, false);
+    }
+
+    /**
+     * Adds the element to its sub-queue even if the sub-queue reached its maximum size, which is used for the tasks whose
+     * execution is forced.
+     */
+    @Override
+    public void put(E e) {
+        enqueue(e, true);
+    }
+
+    private boolean enqueue(E e, boolean force) {
+        Objects.requireNonNull(e);
+        final String key = resolveKey();
+        lock.lock();
+        try {
+            SubQueue<E> subQueue = subQueues.get(key);
+            if (subQueue == null) {
+                if (subQueues.size() >= MAX_IDLE_SUB_QUEUES) {
+                    subQueues.values().removeIf(q -> q.elements.isEmpty());
+                }
+                // new keys are expected to be as expensive as the most expensive active key until their tasks are measured
+                subQueue = new SubQueue<>(key, weights.getOrDefault(key, 1), maxActiveCost());
+                subQueues.put(key, subQueue);
+            }
+            if (force == false && maxQueueSizePerKey >= 0 && subQueue.elements.size() >= maxQueueSizePerKey) {
+                subQueue.rejected++;
+                return false;
+            }
+            if (subQueue.elements.isEmpty()) {
+                subQueue.deficit = 0;
+                subQueue.newRound = true;
+                active.addLast(subQueue);
+            }
+            subQueue.elements.addLast(e);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double maxActiveCost() {
+        double maxCost = 1;
+        for (SubQueue<E> subQueue : active) {
+            maxCost = Math.max(maxCost, subQueue.cost);
+        }
+        return maxCost;
+    }
+
+    private E dequeue() {
+        assert lock.isHeldByCurrentThread();
+        assert size > 0 && active.isEmpty() == false;
+        while (true) {
+            final SubQueue<E> subQueue = active.peekFirst();
+            if (subQueue.newRound) {
+                // the quantum allows every active sub-queue to dispatch at least one task per round
+                subQueue.deficit += subQueue.weight * maxActiveCost();
+                subQueue.newRound = false;
+            }
+            if (subQueue.deficit >= subQueue.cost) {
+                final E e = subQueue.elements.pollFirst();
+                subQueue.deficit -= subQueue.cost;
+                size--;
+                if (subQueue.elements.isEmpty()) {
+                    active.pollFirst();
+                    subQueue.deficit = 0;
+                    subQueue.newRound = true;
+                }
+                lastTaken.set(subQueue);
+                return e;
+            }
+            subQueue.newRound = true;
+            active.addLast(active.pollFirst());
+        }
+    }
+
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports the execution time of the last task that the current thread took from this queue, which updates the average
+     * execution time of the tasks of its key. A negative execution time only counts the task as completed.
+     */
+    public void onTaskExecuted(long executionNanos) {
+        final SubQueue<E> subQueue = lastTaken.get();
+        if (subQueue == null) {
+            // the task was executed without going through the queue
+            return;
+        }
+        lastTaken.remove();
+        lock.lock();
+        try {
+            subQueue.completed++;
+            if (executionNanos >= 0) {
+                subQueue.cost = Math.max(1, EWMA_ALPHA * executionNanos + (1 - EWMA_ALPHA) * subQueue.cost);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the head of one of the sub-queues, which is not necessarily the next element to be dispatched.
+     */
+    @Override
+    public E peek() {
+        lock.lock();
+        try {
+            final SubQueue<E> subQueue = active.peekFirst();
+            return subQueue == null ? null : subQueue.elements.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (Iterator<SubQueue<E>> it = active.iterator(); it.hasNext(); ) {
+                final SubQueue<E> subQueue = it.next();
+                if (subQueue.elements.remove(o)) {
+                    size--;
+                    if (subQueue.elements.isEmpty()) {
+                        it.remove();
+                        subQueue.deficit = 0;
+                        subQueue.newRound = true;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && size > 0) {
+                c.add(dequeue());
+                drained++;
+            }
+            lastTaken.remove();
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements of this queue.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final List<E> snapshot = new ArrayList<>();
+        lock.lock();
+        try {
+            for (SubQueue<E> subQueue : active) {
+                snapshot.addAll(subQueue.elements);
+            }
+        } finally {
+            lock.unlock();
+        }
+        final Iterator<E> it = snapshot.iterator();
+        return new Iterator<>() {
+            E current;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                current = it.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                FairBlockingQueue.this.remove(current);
+            }
+        };
+    }
+
+    /**
+     * Returns the statistics of the sub-queues, sorted by key.
+     */
+    public List<ThreadPoolStats.KeyStats> stats() {
+        final List<ThreadPoolStats.KeyStats> stats = new ArrayList<>();
+        lock.lock();
+        try {
+            for (SubQueue<E> subQueue : subQueues.values()) {
+                stats.add(new ThreadPoolStats.KeyStats(subQueue.key, subQueue.weight, subQueue.elements.size(), subQueue.rejected,
+                    subQueue.completed, (long) subQueue.cost));
+            }
+        } finally {
+            lock.unlock();
+        }
+        stats.sort(Comparator.comparing(ThreadPoolStats.KeyStats::getKey));
+        return stats;
+    }
+
+    private static final class SubQueue<E> {
+        final String key;
+        final int weight;
+        final ArrayDeque<E> elements = new ArrayDeque<>();
+        // the average execution time of the tasks, in nanoseconds
+        double cost;
+        double deficit;
+        boolean newRound = true;
+        long rejected;
+        long completed;
+
+        SubQueue(String key, int weight, double cost) {
+            this.key = key;
+            this.weight = weight;
+            this.cost = cost;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.unit.TimeValue;
 
 import java.util.Locale;
@@ -52,6 +53,8 @@ public final class QueueResizingEsThreadPoolExecutor extends EsThreadPoolExecuto
     private final int maxQueueSize;
     private final long targetedResponseTimeNanos;
     private final ExponentiallyWeightedMovingAverage executionEWMA;
+    @Nullable
+    private final FairBlockingQueue<Runnable> fairQueue;
 
     private final AtomicLong totalTaskNanos = new AtomicLong(0);
     private final AtomicInteger taskCount = new AtomicInteger(0);
@@ -63,8 +66,22 @@ public final class QueueResizingEsThreadPoolExecutor extends EsThreadPoolExecuto
                                       Function<Runnable, WrappedRunnable> runnableWrapper, final int tasksPerFrame,
                                       TimeValue targetedResponseTime, ThreadFactory threadFactory, XRejectedExecutionHandler handler,
                                       ThreadContext contextHolder) {
+        this(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, null, minQueueSize, maxQueueSize, runnableWrapper,
+            tasksPerFrame, targetedResponseTime, threadFactory, handler, contextHolder);
+    }
+
+    /**
+     * @param fairQueue the queue that {@code workQueue} wraps if it is a {@link FairBlockingQueue}, which needs to be told about the
+     *                  execution time of the tasks
+     */
+    QueueResizingEsThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                      ResizableBlockingQueue<Runnable> workQueue, @Nullable FairBlockingQueue<Runnable> fairQueue,
+                                      int minQueueSize, int maxQueueSize, Function<Runnable, WrappedRunnable> runnableWrapper,
+                                      final int tasksPerFrame, TimeValue targetedResponseTime, ThreadFactory threadFactory,
+                                      XRejectedExecutionHandler handler, ThreadContext contextHolder) {
         super(name, corePoolSize, maximumPoolSize, keepAliveTime, unit,
                 workQueue, threadFactory, handler, contextHolder);
+        this.fairQueue = fairQueue;
         this.runnableWrapper = runnableWrapper;
         this.workQueue = workQueue;
         this.tasksPerFrame = tasksPerFrame;
@@ -138,6 +155,15 @@ public final class QueueResizingEsThreadPoolExecutor extends EsThreadPoolExecuto
         return workQueue.size();
     }
 
+    /**
+     * Returns the fair queue that dispatches the tasks of this executor, or <code>null</code> if the tasks are dispatched in
+     * the order they are submitted
+     */
+    @Nullable
+    public FairBlockingQueue<Runnable> getFairQueue() {
+        return fairQueue;
+    }
+
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
@@ -159,6 +185,9 @@ public final class QueueResizingEsThreadPoolExecutor extends EsThreadPoolExecuto
             // taskExecutionNanos may be -1 if the task threw an exception
             executionEWMA.addValue(taskExecutionNanos);
         }
+        if (fairQueue != null) {
+            fairQueue.onTaskExecuted(taskExecutionNanos);
+        }
 
         if (taskCount.incrementAndGet() == this.tasksPerFrame) {
             final long endTimeNs = System.nanoTime();
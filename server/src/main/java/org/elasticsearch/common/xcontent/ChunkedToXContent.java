@@ -0,0 +1,34 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.xcontent;
+
+import java.util.Iterator;
+
+/**
+ * Objects that can render themselves as json/yaml/etc one chunk at a time. This is meant for large REST responses, such as search
+ * responses with many hits, so that the rendered response can be sent as it is serialized instead of being buffered in memory first.
+ */
+public interface ChunkedToXContent {
+
+    /**
+     * Returns the chunks of the rendered object, in order. Each chunk renders a part of the object and rendering all the chunks to the
+     * same builder must produce the same output as {@link ToXContent#toXContent}.
+     */
+    Iterator<? extends ToXContent> toXContentChunked();
+}
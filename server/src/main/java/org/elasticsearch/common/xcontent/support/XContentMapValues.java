@@ -25,11 +25,15 @@ import org.apache.lucene.util.automaton.CharacterRunAutomaton;
 import org.apache.lucene.util.automaton.Operations;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -167,16 +171,55 @@ public class XContentMapValues {
      */
     public static Function<Map<String, ?>, Map<String, Object>> filter(String[] includes, String[] excludes) {
         CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
 
-        CharacterRunAutomaton include;
+        // NOTE: We cannot use Operations.minus because of the special case that
+        // we want all sub properties to match as soon as an object matches
+
+        return (map) -> filter(map,
+            include, 0,
+            exclude, 0,
+            matchAllAutomaton);
+    }
+
+    /**
+     * Returns a function that copies the object that the parser is positioned on (or that starts with the next token) to
+     * the builder, only keeping the properties that match the given include and exclude rules. The result is the same as
+     * {@link #filter(Map, String[], String[])} on the parsed object, except that the order of the properties is preserved.
+     * The properties that are filtered out are skipped without being read into objects, so the memory that the filtering
+     * needs depends on the size of the output rather than the size of the input.
+     */
+    public static CheckedBiConsumer<XContentParser, XContentBuilder, IOException> filterToXContent(String[] includes,
+                                                                                                   String[] excludes) {
+        CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
+
+        return (parser, builder) -> {
+            XContentParser.Token token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("expected an object but got [{}]", token);
+            }
+            builder.startObject();
+            filter(parser, new PendingContainer(builder, null, null, true),
+                include, 0,
+                exclude, 0,
+                matchAllAutomaton);
+            builder.endObject();
+        };
+    }
+
+    private static CharacterRunAutomaton includeAutomaton(String[] includes, CharacterRunAutomaton matchAllAutomaton) {
         if (includes == null || includes.length == 0) {
-            include = matchAllAutomaton;
-        } else {
-            Automaton includeA = Regex.simpleMatchToAutomaton(includes);
-            includeA = makeMatchDotsInFieldNames(includeA);
-            include = new CharacterRunAutomaton(includeA);
+            return matchAllAutomaton;
         }
+        Automaton includeA = Regex.simpleMatchToAutomaton(includes);
+        includeA = makeMatchDotsInFieldNames(includeA);
+        return new CharacterRunAutomaton(includeA);
+    }
 
+    private static CharacterRunAutomaton excludeAutomaton(String[] excludes) {
         Automaton excludeA;
         if (excludes == null || excludes.length == 0) {
             excludeA = Automata.makeEmpty();
@@ -184,15 +227,7 @@ public class XContentMapValues {
             excludeA = Regex.simpleMatchToAutomaton(excludes);
             excludeA = makeMatchDotsInFieldNames(excludeA);
         }
-        CharacterRunAutomaton exclude = new CharacterRunAutomaton(excludeA);
-
-        // NOTE: We cannot use Operations.minus because of the special case that
-        // we want all sub properties to match as soon as an object matches
-
-        return (map) -> filter(map,
-            include, 0,
-            exclude, 0,
-            matchAllAutomaton);
+        return new CharacterRunAutomaton(excludeA);
     }
 
     /** Make matches on objects also match dots in field names.
@@ -317,6 +352,181 @@ public class XContentMapValues {
         return filtered;
     }
 
+    /**
+     * An object or an array of the filtered output that is only started once it has content, like the filtered maps
+     * and lists that are only added to their parent if they are not empty.
+     */
+    private static final class PendingContainer {
+        private final XContentBuilder builder;
+        private final PendingContainer parent;
+        private final String name;
+        private final boolean object;
+        private boolean started;
+
+        PendingContainer(XContentBuilder builder, PendingContainer parent, String name, boolean object) {
+            this.builder = builder;
+            this.parent = parent;
+            this.name = name;
+            this.object = object;
+            // the root object is always started
+            this.started = parent == null;
+        }
+
+        PendingContainer newObject(String name) {
+            return new PendingContainer(builder, this, name, true);
+        }
+
+        PendingContainer newArray(String name) {
+            return new PendingContainer(builder, this, name, false);
+        }
+
+        /**
+         * Starts this container and its parents if they are not started yet, and returns the builder to add content.
+         */
+        XContentBuilder start() throws IOException {
+            if (started == false) {
+                parent.start();
+                if (name != null) {
+                    builder.field(name);
+                }
+                if (object) {
+                    builder.startObject();
+                } else {
+                    builder.startArray();
+                }
+                started = true;
+            }
+            return builder;
+        }
+
+        /**
+         * Ends this container if it was started, and returns whether it was.
+         */
+        boolean end() throws IOException {
+            if (started) {
+                if (object) {
+                    builder.endObject();
+                } else {
+                    builder.endArray();
+                }
+            }
+            return started;
+        }
+    }
+
+    /**
+     * Streaming equivalent of {@link #filter(Map, CharacterRunAutomaton, int, CharacterRunAutomaton, int, CharacterRunAutomaton)},
+     * the parser is positioned on the start of the object.
+     */
+    private static void filter(XContentParser parser, PendingContainer container,
+            CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+            CharacterRunAutomaton excludeAutomaton, int initialExcludeState,
+            CharacterRunAutomaton matchAllAutomaton) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            assert token == XContentParser.Token.FIELD_NAME : "expected a field name but got " + token;
+            String key = parser.currentName();
+            token = parser.nextToken();
+
+            int includeState = step(includeAutomaton, key, initialIncludeState);
+            if (includeState == -1) {
+                parser.skipChildren();
+                continue;
+            }
+
+            int excludeState = step(excludeAutomaton, key, initialExcludeState);
+            if (excludeState != -1 && excludeAutomaton.isAccept(excludeState)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            CharacterRunAutomaton subIncludeAutomaton = includeAutomaton;
+            int subIncludeState = includeState;
+            if (includeAutomaton.isAccept(includeState)) {
+                if (excludeState == -1 || excludeAutomaton.step(excludeState, '.') == -1) {
+                    // the exclude has no chances to match inner properties
+                    container.start().field(key).copyCurrentStructure(parser);
+                    continue;
+                } else {
+                    // the object matched, so consider that the include matches every inner property
+                    // we only care about excludes now
+                    subIncludeAutomaton = matchAllAutomaton;
+                    subIncludeState = 0;
+                }
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+
+                subIncludeState = subIncludeAutomaton.step(subIncludeState, '.');
+                if (subIncludeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (excludeState != -1) {
+                    excludeState = excludeAutomaton.step(excludeState, '.');
+                }
+
+                PendingContainer object = container.newObject(key);
+                if (includeAutomaton.isAccept(includeState)) {
+                    object.start();
+                }
+                filter(parser, object, subIncludeAutomaton, subIncludeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                object.end();
+
+            } else if (token == XContentParser.Token.START_ARRAY) {
+
+                PendingContainer array = container.newArray(key);
+                filterArray(parser, array, subIncludeAutomaton, subIncludeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                array.end();
+
+            } else {
+
+                // leaf property
+                if (includeAutomaton.isAccept(includeState)
+                        && (excludeState == -1 || excludeAutomaton.isAccept(excludeState) == false)) {
+                    container.start().field(key).copyCurrentStructure(parser);
+                }
+
+            }
+        }
+    }
+
+    /**
+     * Streaming equivalent of {@link #filter(Iterable, CharacterRunAutomaton, int, CharacterRunAutomaton, int, CharacterRunAutomaton)},
+     * the parser is positioned on the start of the array.
+     */
+    private static void filterArray(XContentParser parser, PendingContainer container,
+            CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+            CharacterRunAutomaton excludeAutomaton, int initialExcludeState,
+            CharacterRunAutomaton matchAllAutomaton) throws IOException {
+        boolean isInclude = includeAutomaton.isAccept(initialIncludeState);
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                int includeState = includeAutomaton.step(initialIncludeState, '.');
+                if (includeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int excludeState = initialExcludeState;
+                if (excludeState != -1) {
+                    excludeState = excludeAutomaton.step(excludeState, '.');
+                }
+                PendingContainer object = container.newObject(null);
+                filter(parser, object, includeAutomaton, includeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                object.end();
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                PendingContainer array = container.newArray(null);
+                filterArray(parser, array, includeAutomaton, initialIncludeState, excludeAutomaton, initialExcludeState,
+                    matchAllAutomaton);
+                array.end();
+            } else if (isInclude) {
+                // #22557: only accept this array value if the key we are on is accepted:
+                container.start().copyCurrentStructure(parser);
+            }
+        }
+    }
+
     public static boolean isObject(Object node) {
         return node instanceof Map;
     }
@@ -20,9 +20,12 @@
 package org.elasticsearch.http;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -68,6 +71,22 @@ public interface HttpRequest {
      */
     HttpResponse createResponse(RestStatus status, BytesReference content);
 
+    /**
+     * Create an http response from this request and the supplied status and chunked content. Implementations that support it serialize
+     * the content one chunk at a time as the channel becomes writable, by default the content is serialized at once.
+     */
+    default HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        final BytesReference bytes;
+        try {
+            bytes = ChunkedRestResponseBody.toBytesReference(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final HttpResponse response = createResponse(status, bytes);
+        response.addHeader(DefaultRestChannel.CONTENT_LENGTH, String.valueOf(bytes.length()));
+        return response;
+    }
+
     /**
      * Release any resources associated with this request. Implementations should be idempotent. The behavior of {@link #content()}
      * after this method has been invoked is undefined and implementation specific.
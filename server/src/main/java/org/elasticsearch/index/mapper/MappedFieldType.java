@@ -20,6 +20,7 @@
 package org.elasticsearch.index.mapper;
 
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
@@ -303,6 +304,13 @@ public abstract class MappedFieldType extends FieldType {
         return indexOptions() != IndexOptions.NONE;
     }
 
+    /** Returns the {@link DocValuesFormat} that should be used to write the doc values of this field,
+     *  or <code>null</code> if the default format of the codec should be used.
+     */
+    public DocValuesFormat docValuesFormat() {
+        return null;
+    }
+
     /** Returns true if the field is aggregatable.
      *
      */
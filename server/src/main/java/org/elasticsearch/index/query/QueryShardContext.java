@@ -287,6 +287,14 @@ public class QueryShardContext extends QueryRewriteContext {
         return lookup;
     }
 
+    /**
+     * Returns whether the {@link SearchLookup} of this context was created, for instance by scripts. The lookup shares
+     * its source lookup across all segments, so it can't be used by several threads at once.
+     */
+    public boolean hasSearchLookup() {
+        return lookup != null;
+    }
+
     public NestedScope nestedScope() {
         return nestedScope;
     }
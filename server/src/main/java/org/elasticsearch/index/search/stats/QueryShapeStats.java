@@ -0,0 +1,244 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.search.stats;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node level statistics about the query phases that were executed per query shape, as tracked by
+ * {@link QueryShapeStatsService}. The shapes are sorted by the total time that their query phases took, in descending order.
+ */
+public class QueryShapeStats implements Writeable, ToXContentFragment {
+
+    /**
+     * The upper bounds, in milliseconds, of the buckets of the latency histograms. The last bucket of the histograms counts
+     * the query phases that took longer than the last bound.
+     */
+    public static final long[] LATENCY_BUCKETS_IN_MILLIS = new long[] { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+    private final long count;
+    private final long timeInNanos;
+    private final long cpuTimeInNanos;
+    private final long otherCount;
+    private final List<Shape> shapes;
+
+    public QueryShapeStats(long count, long timeInNanos, long cpuTimeInNanos, long otherCount, List<Shape> shapes) {
+        this.count = count;
+        this.timeInNanos = timeInNanos;
+        this.cpuTimeInNanos = cpuTimeInNanos;
+        this.otherCount = otherCount;
+        this.shapes = shapes;
+    }
+
+    public QueryShapeStats(StreamInput in) throws IOException {
+        count = in.readVLong();
+        timeInNanos = in.readVLong();
+        cpuTimeInNanos = in.readVLong();
+        otherCount = in.readVLong();
+        shapes = in.readList(Shape::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(count);
+        out.writeVLong(timeInNanos);
+        out.writeVLong(cpuTimeInNanos);
+        out.writeVLong(otherCount);
+        out.writeList(shapes);
+    }
+
+    /**
+     * The number of query phases that were executed, for all shapes.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getTimeInNanos() {
+        return timeInNanos;
+    }
+
+    public long getCpuTimeInNanos() {
+        return cpuTimeInNanos;
+    }
+
+    /**
+     * The number of query phases whose shape was not tracked because the maximum number of shapes was reached.
+     */
+    public long getOtherCount() {
+        return otherCount;
+    }
+
+    public List<Shape> getShapes() {
+        return shapes;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("query_shapes");
+        builder.field(Fields.COUNT, count);
+        builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, new TimeValue(timeInNanos, TimeUnit.NANOSECONDS));
+        builder.humanReadableField(Fields.CPU_TIME_IN_MILLIS, Fields.CPU_TIME, new TimeValue(cpuTimeInNanos, TimeUnit.NANOSECONDS));
+        builder.field(Fields.OTHER_COUNT, otherCount);
+        builder.startArray(Fields.SHAPES);
+        for (Shape shape : shapes) {
+            shape.toXContent(builder, params);
+        }
+        builder.endArray();
+        return builder.endObject();
+    }
+
+    /**
+     * The statistics of a single query shape.
+     */
+    public static class Shape implements Writeable, ToXContentObject {
+
+        private final String fingerprint;
+        private final String shape;
+        private final long count;
+        private final long timeInNanos;
+        private final long cpuTimeInNanos;
+        private final long[] latencyHistogram;
+
+        public Shape(String fingerprint, String shape, long count, long timeInNanos, long cpuTimeInNanos, long[] latencyHistogram) {
+            assert latencyHistogram.length == LATENCY_BUCKETS_IN_MILLIS.length + 1;
+            this.fingerprint = fingerprint;
+            this.shape = shape;
+            this.count = count;
+            this.timeInNanos = timeInNanos;
+            this.cpuTimeInNanos = cpuTimeInNanos;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        public Shape(StreamInput in) throws IOException {
+            fingerprint = in.readString();
+            shape = in.readString();
+            count = in.readVLong();
+            timeInNanos = in.readVLong();
+            cpuTimeInNanos = in.readVLong();
+            latencyHistogram = in.readVLongArray();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(fingerprint);
+            out.writeString(shape);
+            out.writeVLong(count);
+            out.writeVLong(timeInNanos);
+            out.writeVLong(cpuTimeInNanos);
+            out.writeVLongArray(latencyHistogram);
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTimeInNanos() {
+            return timeInNanos;
+        }
+
+        public long getCpuTimeInNanos() {
+            return cpuTimeInNanos;
+        }
+
+        /**
+         * The number of query phases per latency bucket, see {@link #LATENCY_BUCKETS_IN_MILLIS}.
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(Fields.FINGERPRINT, fingerprint);
+            builder.field(Fields.SHAPE, shape);
+            builder.field(Fields.COUNT, count);
+            builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, new TimeValue(timeInNanos, TimeUnit.NANOSECONDS));
+            builder.humanReadableField(Fields.CPU_TIME_IN_MILLIS, Fields.CPU_TIME, new TimeValue(cpuTimeInNanos, TimeUnit.NANOSECONDS));
+            builder.startArray(Fields.LATENCY_HISTOGRAM);
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                builder.startObject();
+                if (i < LATENCY_BUCKETS_IN_MILLIS.length) {
+                    builder.field(Fields.LT_MILLIS, LATENCY_BUCKETS_IN_MILLIS[i]);
+                }
+                builder.field(Fields.COUNT, latencyHistogram[i]);
+                builder.endObject();
+            }
+            builder.endArray();
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Shape other = (Shape) o;
+            return count == other.count
+                && timeInNanos == other.timeInNanos
+                && cpuTimeInNanos == other.cpuTimeInNanos
+                && fingerprint.equals(other.fingerprint)
+                && shape.equals(other.shape)
+                && Arrays.equals(latencyHistogram, other.latencyHistogram);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, shape, count, timeInNanos, cpuTimeInNanos, Arrays.hashCode(latencyHistogram));
+        }
+    }
+
+    static final class Fields {
+        static final String COUNT = "count";
+        static final String TIME = "time";
+        static final String TIME_IN_MILLIS = "time_in_millis";
+        static final String CPU_TIME = "cpu_time";
+        static final String CPU_TIME_IN_MILLIS = "cpu_time_in_millis";
+        static final String OTHER_COUNT = "other_count";
+        static final String SHAPES = "shapes";
+        static final String FINGERPRINT = "fingerprint";
+        static final String SHAPE = "shape";
+        static final String LATENCY_HISTOGRAM = "latency_histogram";
+        static final String LT_MILLIS = "lt_millis";
+    }
+}
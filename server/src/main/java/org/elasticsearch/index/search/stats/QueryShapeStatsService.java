@@ -0,0 +1,170 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.search.stats;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the number, the latency and the CPU time of the query phases that are executed on this node per query shape,
+ * see {@link QueryShapes}. Unlike the search slow log, which logs individual slow queries, this gives the queries that
+ * cost the most overall, even if each of their executions is fast.
+ *
+ * The number of tracked shapes is bounded by {@link #QUERY_SHAPES_MAX_SHAPES_SETTING}, the query phases of the shapes
+ * that are seen once this limit is reached are only counted in the totals.
+ */
+public class QueryShapeStatsService {
+
+    public static final Setting<Boolean> QUERY_SHAPES_ENABLED_SETTING =
+        Setting.boolSetting("search.query_shapes.enabled", false, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Integer> QUERY_SHAPES_MAX_SHAPES_SETTING =
+        Setting.intSetting("search.query_shapes.max_shapes", 100, 1, Property.Dynamic, Property.NodeScope);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final ConcurrentMap<String, ShapeCounter> shapes = ConcurrentCollections.newConcurrentMap();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder timeInNanos = new LongAdder();
+    private final LongAdder cpuTimeInNanos = new LongAdder();
+    private final LongAdder otherCount = new LongAdder();
+
+    private volatile boolean enabled;
+    private volatile int maxShapes;
+
+    public QueryShapeStatsService(Settings settings, ClusterSettings clusterSettings) {
+        this.enabled = QUERY_SHAPES_ENABLED_SETTING.get(settings);
+        this.maxShapes = QUERY_SHAPES_MAX_SHAPES_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(QUERY_SHAPES_ENABLED_SETTING, this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(QUERY_SHAPES_MAX_SHAPES_SETTING, this::setMaxShapes);
+    }
+
+    private void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private void setMaxShapes(int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the shape of the given search source if the tracking of query shapes is enabled, <code>null</code> otherwise.
+     */
+    @Nullable
+    public String shape(@Nullable SearchSourceBuilder source) {
+        return enabled ? QueryShapes.shape(source) : null;
+    }
+
+    /**
+     * Records a query phase of the given shape.
+     *
+     * @param shape the shape of the query, as returned by {@link #shape(SearchSourceBuilder)}
+     * @param tookInNanos the time that the query phase took
+     * @param cpuTimeInNanos the CPU time that the query phase used, or <code>-1</code> if it could not be measured
+     */
+    public void onQueryPhase(String shape, long tookInNanos, long cpuTimeInNanos) {
+        final long cpuTime = Math.max(0L, cpuTimeInNanos);
+        count.increment();
+        timeInNanos.add(tookInNanos);
+        this.cpuTimeInNanos.add(cpuTime);
+        ShapeCounter counter = shapes.get(shape);
+        if (counter == null) {
+            // concurrent query phases of new shapes may exceed the limit slightly, which is fine
+            if (shapes.size() >= maxShapes) {
+                otherCount.increment();
+                return;
+            }
+            counter = shapes.computeIfAbsent(shape, ShapeCounter::new);
+        }
+        counter.onQueryPhase(tookInNanos, cpuTime);
+    }
+
+    public QueryShapeStats stats() {
+        List<QueryShapeStats.Shape> stats = new ArrayList<>(shapes.size());
+        for (ShapeCounter counter : shapes.values()) {
+            stats.add(counter.stats());
+        }
+        stats.sort(Comparator.comparingLong(QueryShapeStats.Shape::getTimeInNanos).reversed());
+        return new QueryShapeStats(count.sum(), timeInNanos.sum(), cpuTimeInNanos.sum(), otherCount.sum(), stats);
+    }
+
+    /**
+     * Returns the CPU time that the current thread used so far in nanoseconds, or <code>-1</code> if the JVM does not
+     * measure it.
+     */
+    public static long currentThreadCpuTime() {
+        if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() == false || THREAD_MX_BEAN.isThreadCpuTimeEnabled() == false) {
+            return -1;
+        }
+        return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+
+    private static class ShapeCounter {
+        private final String shape;
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder timeInNanos = new LongAdder();
+        private final LongAdder cpuTimeInNanos = new LongAdder();
+        private final AtomicLongArray latencyHistogram = new AtomicLongArray(QueryShapeStats.LATENCY_BUCKETS_IN_MILLIS.length + 1);
+
+        ShapeCounter(String shape) {
+            this.shape = shape;
+            this.fingerprint = QueryShapes.fingerprint(shape);
+        }
+
+        void onQueryPhase(long tookInNanos, long cpuTime) {
+            count.increment();
+            timeInNanos.add(tookInNanos);
+            cpuTimeInNanos.add(cpuTime);
+            final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(tookInNanos);
+            int bucket = 0;
+            while (bucket < QueryShapeStats.LATENCY_BUCKETS_IN_MILLIS.length
+                    && tookInMillis >= QueryShapeStats.LATENCY_BUCKETS_IN_MILLIS[bucket]) {
+                bucket++;
+            }
+            latencyHistogram.incrementAndGet(bucket);
+        }
+
+        QueryShapeStats.Shape stats() {
+            long[] histogram = new long[latencyHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = latencyHistogram.get(i);
+            }
+            return new QueryShapeStats.Shape(fingerprint, shape, count.sum(), timeInNanos.sum(), cpuTimeInNanos.sum(), histogram);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.search.stats;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Normalizes search requests into their shape: the structure of the query and of the aggregations with the literal values
+ * stripped, so that the requests that only differ by their search terms, dates or sizes share the same shape.
+ */
+public final class QueryShapes {
+
+    /**
+     * The keys whose values are field names rather than literals, and that are kept in the shape.
+     */
+    private static final Set<String> FIELD_KEYS = Set.of("field", "fields", "path", "default_field");
+
+    static final String PLACEHOLDER = "?";
+
+    private QueryShapes() {}
+
+    /**
+     * Returns the shape of the given search source. Object keys, which include the field names of most queries and the
+     * names of the aggregations, are kept, while all scalar values are replaced by a placeholder. The consecutive array
+     * elements that share the same shape are collapsed, so that a <code>terms</code> query on three values has the same shape
+     * as one on a hundred values.
+     */
+    public static String shape(@Nullable SearchSourceBuilder source) {
+        if (source == null) {
+            return "{}";
+        }
+        final Map<String, Object> map;
+        try {
+            map = XContentHelper.convertToMap(XContentHelper.toXContent(source, XContentType.JSON, false), true, XContentType.JSON).v2();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringBuilder builder = new StringBuilder();
+        appendShape(builder, map, false);
+        return builder.toString();
+    }
+
+    /**
+     * Returns a fingerprint of the given shape, which is short enough to be used as an identifier.
+     */
+    public static String fingerprint(String shape) {
+        byte[] digest = MessageDigests.sha256().digest(shape.getBytes(StandardCharsets.UTF_8));
+        return MessageDigests.toHexString(digest).substring(0, 16);
+    }
+
+    private static void appendShape(StringBuilder builder, Object value, boolean keepScalars) {
+        if (value instanceof Map) {
+            builder.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (first == false) {
+                    builder.append(',');
+                }
+                first = false;
+                String key = entry.getKey().toString();
+                appendString(builder, key);
+                builder.append(':');
+                appendShape(builder, entry.getValue(), FIELD_KEYS.contains(key));
+            }
+            builder.append('}');
+        } else if (value instanceof List) {
+            builder.append('[');
+            String previous = null;
+            for (Object element : (List<?>) value) {
+                StringBuilder elementBuilder = new StringBuilder();
+                appendShape(elementBuilder, element, keepScalars);
+                String elementShape = elementBuilder.toString();
+                if (elementShape.equals(previous) == false) {
+                    if (previous != null) {
+                        builder.append(',');
+                    }
+                    builder.append(elementShape);
+                    previous = elementShape;
+                }
+            }
+            builder.append(']');
+        } else if (keepScalars && value != null) {
+            appendString(builder, value.toString());
+        } else {
+            appendString(builder, PLACEHOLDER);
+        }
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+        builder.append('"');
+    }
+}
@@ -61,6 +61,7 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.isSearchableSnapshotStore;
 
 /**
  * This package private utility class encapsulates the logic to recover an index shard from either an existing index on
@@ -459,7 +460,11 @@ final class StoreRecovery {
         final ActionListener<Void> restoreListener = ActionListener.wrap(
             v -> {
                 final Store store = indexShard.store();
-                bootstrap(indexShard, store);
+                if (isSearchableSnapshotStore(indexShard.indexSettings().getSettings())) {
+                    associateWithNewEmptyTranslog(indexShard, store);
+                } else {
+                    bootstrap(indexShard, store);
+                }
                 assert indexShard.shardRouting.primary() : "only primary shards can recover from store";
                 writeEmptyRetentionLeasesFile(indexShard);
                 indexShard.openEngineAndRecoverFromTranslog();
@@ -490,6 +495,11 @@ final class StoreRecovery {
                 indexIdListener.onResponse(indexId);
             }
             assert indexShard.getEngineOrNull() == null;
+            if (isSearchableSnapshotStore(indexShard.indexSettings().getSettings())) {
+                // the files of the shard are read from the repository on demand, there is nothing to copy
+                restoreListener.onResponse(null);
+                return;
+            }
             indexIdListener.whenComplete(idx -> repository.restoreShard(indexShard.store(), restoreSource.snapshot().getSnapshotId(),
                 idx, snapshotShardId, indexShard.recoveryState(), restoreListener), restoreListener::onFailure);
         } catch (Exception e) {
@@ -497,6 +507,18 @@ final class StoreRecovery {
         }
     }
 
+    /**
+     * Creates an empty translog associated with the last commit of the store without modifying the store,
+     * which is read-only for shards whose files are read from a snapshot.
+     */
+    private void associateWithNewEmptyTranslog(final IndexShard indexShard, final Store store) throws IOException {
+        final SegmentInfos segmentInfos = store.readLastCommittedSegmentsInfo();
+        final long localCheckpoint = Long.parseLong(segmentInfos.userData.get(SequenceNumbers.LOCAL_CHECKPOINT_KEY));
+        final String translogUUID = segmentInfos.userData.get(Translog.TRANSLOG_UUID_KEY);
+        Translog.createEmptyTranslog(indexShard.shardPath().resolveTranslog(), localCheckpoint, shardId,
+            indexShard.getPendingPrimaryTerm(), translogUUID);
+    }
+
     private void bootstrap(final IndexShard indexShard, final Store store) throws IOException {
         store.bootstrapNewHistory();
         final SegmentInfos segmentInfos = store.readLastCommittedSegmentsInfo();
@@ -1823,6 +1823,22 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
 
     static String createEmptyTranslog(Path location, long initialGlobalCheckpoint, ShardId shardId,
                                       ChannelFactory channelFactory, long primaryTerm) throws IOException {
+        return createEmptyTranslog(location, initialGlobalCheckpoint, shardId, channelFactory, primaryTerm, UUIDs.randomBase64UUID());
+    }
+
+    /**
+     * Creates a new empty translog within the specified {@code location} that is associated with the provided
+     * {@code translogUUID}. This is used by read-only shards whose last commit already references a translog
+     * that does not exist locally.
+     */
+    public static void createEmptyTranslog(final Path location, final long initialGlobalCheckpoint, final ShardId shardId,
+                                           final long primaryTerm, final String translogUUID) throws IOException {
+        final ChannelFactory channelFactory = FileChannel::open;
+        createEmptyTranslog(location, initialGlobalCheckpoint, shardId, channelFactory, primaryTerm, translogUUID);
+    }
+
+    private static String createEmptyTranslog(Path location, long initialGlobalCheckpoint, ShardId shardId,
+                                              ChannelFactory channelFactory, long primaryTerm, String translogUUID) throws IOException {
         IOUtils.rm(location);
         Files.createDirectories(location);
         final Checkpoint checkpoint =
@@ -1830,7 +1846,6 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         final Path checkpointFile = location.resolve(CHECKPOINT_FILE_NAME);
         Checkpoint.write(channelFactory, checkpointFile, checkpoint, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
         IOUtils.fsync(checkpointFile, false);
-        final String translogUUID = UUIDs.randomBase64UUID();
         TranslogWriter writer = TranslogWriter.create(shardId, translogUUID, 1,
             location.resolve(getFilename(1)), channelFactory,
             new ByteSizeValue(10), 1, initialGlobalCheckpoint,
@@ -1212,6 +1212,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return analysisRegistry;
     }
 
+    public NamedWriteableRegistry getNamedWriteableRegistry() {
+        return namedWriteableRegistry;
+    }
+
     /**
      * FieldDataCacheCleaner is a scheduled Runnable used to clean a Guava cache
      * periodically. In this case it is the field data cache, because a cache that
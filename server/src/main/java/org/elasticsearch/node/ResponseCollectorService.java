@@ -30,6 +30,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -44,9 +45,19 @@ import java.util.concurrent.ConcurrentMap;
 public final class ResponseCollectorService implements ClusterStateListener {
 
     private static final double ALPHA = 0.3;
+    // the number of recent response times that percentiles are computed on, and the minimum to compute them
+    private static final int MAX_RESPONSE_TIME_SAMPLES = 1024;
+    private static final int MIN_RESPONSE_TIME_SAMPLES = 100;
+    // the number of new response times after which the sorted response times are rebuilt
+    private static final int RESORT_INTERVAL = 64;
 
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
 
+    private final long[] responseTimeSamples = new long[MAX_RESPONSE_TIME_SAMPLES];
+    private long numResponseTimes = 0;
+    private long[] sortedResponseTimes = null;
+    private long sortedNumResponseTimes = 0;
+
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
     }
@@ -77,6 +88,32 @@ public final class ResponseCollectorService implements ClusterStateListener {
                 return ns;
             }
         });
+        addResponseTime(responseTimeNanos);
+    }
+
+    private synchronized void addResponseTime(long responseTimeNanos) {
+        responseTimeSamples[(int) (numResponseTimes % MAX_RESPONSE_TIME_SAMPLES)] = responseTimeNanos;
+        numResponseTimes++;
+    }
+
+    /**
+     * Returns the given percentile of the response times of the most recent requests, regardless of the node that executed them,
+     * or <code>-1</code> if not enough responses were collected yet.
+     *
+     * @param percentile the percentile, between 0 and 100
+     */
+    public synchronized long getResponseTimePercentile(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "invalid percentile: " + percentile;
+        if (numResponseTimes < MIN_RESPONSE_TIME_SAMPLES) {
+            return -1;
+        }
+        if (sortedResponseTimes == null || numResponseTimes - sortedNumResponseTimes >= RESORT_INTERVAL) {
+            sortedResponseTimes = Arrays.copyOf(responseTimeSamples, (int) Math.min(numResponseTimes, MAX_RESPONSE_TIME_SAMPLES));
+            Arrays.sort(sortedResponseTimes);
+            sortedNumResponseTimes = numResponseTimes;
+        }
+        final int index = (int) Math.ceil(percentile / 100 * sortedResponseTimes.length) - 1;
+        return sortedResponseTimes[Math.max(0, Math.min(index, sortedResponseTimes.length - 1))];
     }
 
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
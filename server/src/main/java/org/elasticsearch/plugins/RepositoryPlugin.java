@@ -25,6 +25,7 @@ import java.util.Map;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.Environment;
+import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
 
 /**
@@ -58,4 +59,12 @@ public interface RepositoryPlugin {
                                                                     ClusterService clusterService) {
         return Collections.emptyMap();
     }
+
+    /**
+     * Called once the {@link RepositoriesService} of the node is created. Plugins that need to access
+     * repositories outside of the components they create (e.g. to read index files from a snapshot)
+     * can keep a reference to it.
+     */
+    default void onRepositoriesService(RepositoriesService repositoriesService) {
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A {@link RestResponse} whose body is serialized in chunks while it is sent, see {@link ChunkedRestResponseBody}. Channels that can't
+ * send chunked responses fall back to {@link #content()}, which serializes the whole body at once.
+ */
+public class ChunkedRestResponse extends RestResponse {
+
+    private final RestStatus status;
+    private final ChunkedRestResponseBody body;
+    private BytesReference content;
+
+    public ChunkedRestResponse(RestStatus status, ChunkedRestResponseBody body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    @Override
+    public String contentType() {
+        return body.getResponseContentTypeString();
+    }
+
+    @Override
+    public boolean isChunked() {
+        return content == null;
+    }
+
+    @Override
+    public ChunkedRestResponseBody chunkedContent() {
+        assert content == null : "the body has already been serialized at once";
+        return body;
+    }
+
+    @Override
+    public BytesReference content() {
+        if (content == null) {
+            try {
+                content = ChunkedRestResponseBody.toBytesReference(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+}
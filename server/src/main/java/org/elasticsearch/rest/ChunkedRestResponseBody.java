@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * The body of a REST response that is serialized one chunk at a time while it is sent, so that a large response never needs to be
+ * held in memory in full. The http layer asks for the next chunk whenever the channel can accept more bytes.
+ */
+public interface ChunkedRestResponseBody {
+
+    /**
+     * @return true once the whole body has been serialized
+     */
+    boolean isDone();
+
+    /**
+     * Serializes the next chunk of the body into pages that are obtained from the given {@link BigArrays}. The chunk stops growing once
+     * it reaches the size hint, so it may be a little larger. The caller must release the returned bytes once they have been sent.
+     *
+     * @param sizeHint  the number of bytes the caller would like the chunk to contain
+     * @param bigArrays to allocate the pages of the chunk
+     * @return the serialized chunk
+     */
+    ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException;
+
+    /**
+     * @return the value of the content-type header of the response
+     */
+    String getResponseContentTypeString();
+
+    /**
+     * Serializes the remaining chunks of the given body at once, for channels that can't send chunked responses.
+     */
+    static BytesReference toBytesReference(ChunkedRestResponseBody body) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            while (body.isDone() == false) {
+                try (ReleasableBytesReference chunk = body.encodeChunk(Integer.MAX_VALUE, BigArrays.NON_RECYCLING_INSTANCE)) {
+                    chunk.writeTo(out);
+                }
+            }
+            return out.bytes();
+        }
+    }
+
+    /**
+     * Creates a body that serializes the given object with a builder of the given channel. The object is serialized with one
+     * {@link XContentBuilder} that writes each chunk to a fresh stream, so the output is the same as if the whole object was rendered at
+     * once.
+     */
+    static ChunkedRestResponseBody fromXContent(ChunkedToXContent chunkedToXContent, ToXContent.Params params,
+                                                RestChannel channel) throws IOException {
+        return new ChunkedRestResponseBody() {
+
+            private final OutputStream target = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    currentOutput.writeByte((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    currentOutput.writeBytes(b, off, len);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+
+            private final XContentBuilder builder = channel.newBuilder(channel.request().getXContentType(), null, true, target);
+
+            private final Iterator<? extends ToXContent> chunks = chunkedToXContent.toXContentChunked();
+
+            private ReleasableBytesStreamOutput currentOutput;
+
+            private boolean done = false;
+
+            @Override
+            public boolean isDone() {
+                return done;
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException {
+                assert done == false : "the whole body has already been serialized";
+                final ReleasableBytesStreamOutput chunkOutput = new ReleasableBytesStreamOutput(bigArrays);
+                boolean success = false;
+                try {
+                    currentOutput = chunkOutput;
+                    // the builder buffers a few kB before writing to the stream, so the size is only checked approximately
+                    while (chunks.hasNext() && chunkOutput.size() < sizeHint) {
+                        chunks.next().toXContent(builder, params);
+                    }
+                    if (chunks.hasNext() == false) {
+                        builder.close();
+                        done = true;
+                    } else {
+                        builder.flush();
+                    }
+                    success = true;
+                    return chunkOutput.bytes();
+                } finally {
+                    currentOutput = null;
+                    if (success == false) {
+                        chunkOutput.close();
+                    }
+                }
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return builder.contentType().mediaType();
+            }
+        };
+    }
+}
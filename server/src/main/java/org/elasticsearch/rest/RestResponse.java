@@ -44,6 +44,21 @@ public abstract class RestResponse {
      */
     public abstract BytesReference content();
 
+    /**
+     * Whether the content of the response is serialized in chunks while it is sent, in which case the channel should send
+     * {@link #chunkedContent()} rather than {@link #content()}.
+     */
+    public boolean isChunked() {
+        return false;
+    }
+
+    /**
+     * The content of a chunked response.
+     */
+    public ChunkedRestResponseBody chunkedContent() {
+        throw new UnsupportedOperationException("[" + getClass().getSimpleName() + "] is not a chunked response");
+    }
+
     /**
      * The rest status code.
      */
@@ -67,7 +67,9 @@ public class RestNodesStatsAction extends BaseRestHandler {
             entry("script", r -> r.script(true)),
             entry("discovery", r -> r.discovery(true)),
             entry("ingest", r -> r.ingest(true)),
-            entry("adaptive_selection", r -> r.adaptiveSelection(true)));
+            entry("adaptive_selection", r -> r.adaptiveSelection(true)),
+            entry("indexing_pressure", r -> r.indexingPressure(true)),
+            entry("query_shapes", r -> r.queryShapes(true)));
 
     static final Map<String, Consumer<CommonStatsFlags>> FLAGS;
 
@@ -23,10 +23,12 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -35,6 +37,7 @@ import org.elasticsearch.rest.action.search.RestSearchAction;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -186,6 +189,24 @@ public final class SearchHits implements Writeable, ToXContentFragment, Iterable
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        startXContent(builder, params);
+        for (SearchHit hit : hits) {
+            hit.toXContent(builder, params);
+        }
+        return endXContent(builder);
+    }
+
+    /**
+     * Returns the chunks of {@link #toXContent(XContentBuilder, Params)}, each hit is rendered as its own chunk.
+     */
+    public Iterator<ToXContent> toXContentChunked() {
+        return Iterators.concat(
+            Collections.<ToXContent>singletonList(this::startXContent).iterator(),
+            Arrays.asList(hits).iterator(),
+            Collections.<ToXContent>singletonList((builder, params) -> endXContent(builder)).iterator());
+    }
+
+    private XContentBuilder startXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.HITS);
         boolean totalHitAsInt = params.paramAsBoolean(RestSearchAction.TOTAL_HITS_AS_INT_PARAM, false);
         if (totalHitAsInt) {
@@ -204,9 +225,10 @@ public final class SearchHits implements Writeable, ToXContentFragment, Iterable
         }
         builder.field(Fields.HITS);
         builder.startArray();
-        for (SearchHit hit : hits) {
-            hit.toXContent(builder, params);
-        }
+        return builder;
+    }
+
+    private static XContentBuilder endXContent(XContentBuilder builder) throws IOException {
         builder.endArray();
         builder.endObject();
         return builder;
@@ -28,6 +28,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.PointInTimeId;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.ClusterState;
@@ -44,6 +45,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
+import org.elasticsearch.common.util.concurrent.FairBlockingQueue;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
@@ -56,9 +58,11 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.Rewriteable;
+import org.elasticsearch.index.search.stats.QueryShapeStatsService;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
@@ -70,6 +74,7 @@ import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseContext;
 import org.elasticsearch.search.dfs.DfsPhase;
@@ -84,6 +89,7 @@ import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext.ScriptField;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
@@ -195,8 +201,12 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    private final ConcurrentMapLong<ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
     private final MultiBucketConsumerService multiBucketConsumerService;
 
+    private final QueryShapeStatsService queryShapeStatsService;
+
     private final AtomicInteger openScrollContexts = new AtomicInteger();
 
     public SearchService(ClusterService clusterService, IndicesService indicesService,
@@ -213,6 +223,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.fetchPhase = fetchPhase;
         this.multiBucketConsumerService = new MultiBucketConsumerService(clusterService, settings,
             circuitBreakerService.getBreaker(CircuitBreaker.REQUEST));
+        this.queryShapeStatsService = new QueryShapeStatsService(settings, clusterService.getClusterSettings());
 
         TimeValue keepAliveInterval = KEEPALIVE_INTERVAL_SETTING.get(settings);
         setKeepAlives(DEFAULT_KEEPALIVE_SETTING.get(settings), MAX_KEEPALIVE_SETTING.get(settings));
@@ -301,6 +312,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         for (final SearchContext context : activeContexts.values()) {
             freeContext(context.id());
         }
+        for (final ReaderContext readerContext : activeReaders.values()) {
+            freeContext(readerContext.id());
+        }
     }
 
     @Override
@@ -367,6 +381,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public void executeQueryPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
         assert request.canReturnNullResponseIfMatchNoDocs() == false || request.numberOfShards() > 1
             : "empty responses require more than one shard";
+        // the shape is taken before the rewrite of the request, which may inline the values of the lookups
+        final String queryShape = queryShapeStatsService.shape(request.source());
         rewriteShardRequest(request, ActionListener.wrap(
             context -> {
                 try {
@@ -381,12 +397,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                         // to execute the query
                         context.wrapSearcher().execute(() -> {
                             final SearchPhaseResult result;
+                            final long startTime = queryShape != null ? System.nanoTime() : 0L;
+                            final long startCpuTime = queryShape != null ? QueryShapeStatsService.currentThreadCpuTime() : 0L;
                             try {
                                 result = executeQueryPhase(context, task);
                             } catch (Exception exc) {
                                 listener.onFailure(exc);
                                 return;
                             }
+                            if (queryShape != null) {
+                                final long cpuTime = startCpuTime == -1 ? -1 : QueryShapeStatsService.currentThreadCpuTime() - startCpuTime;
+                                queryShapeStatsService.onQueryPhase(queryShape, System.nanoTime() - startTime, cpuTime);
+                            }
                             listener.onResponse(result);
                         });
                     }
@@ -536,7 +558,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private Executor getExecutor(IndexShard indexShard) {
         assert indexShard != null;
-        return threadPool.executor(indexShard.indexSettings().isSearchThrottled() ? Names.SEARCH_THROTTLED : Names.SEARCH);
+        final Executor executor =
+            threadPool.executor(indexShard.indexSettings().isSearchThrottled() ? Names.SEARCH_THROTTLED : Names.SEARCH);
+        // the tasks are queued per index if the thread pool dispatches them with a fair queue
+        final String index = indexShard.shardId().getIndexName();
+        return command -> FairBlockingQueue.execute(executor, index, command);
     }
 
     public void executeFetchPhase(InternalScrollSearchRequest request, SearchShardTask task,
@@ -725,17 +751,42 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 freeContext(ctx.id());
             }
         }
+        for (ReaderContext readerContext : activeReaders.values()) {
+            if (index.equals(readerContext.shardId().getIndex())) {
+                freeContext(readerContext.id());
+            }
+        }
     }
 
+    /**
+     * Frees the search context or the reader context of a point in time with the provided id on behalf of the provided request.
+     * The reader context is validated first, so that only the requests that are allowed to search it can free it.
+     */
+    public boolean freeContext(long id, TransportRequest request) {
+        final ReaderContext readerContext = activeReaders.get(id);
+        if (readerContext != null) {
+            readerContext.indexShard().getSearchOperationListener().validateReaderContext(readerContext, request);
+        }
+        return freeContext(id);
+    }
 
+    /**
+     * Frees the search context or the reader context of a point in time with the provided id.
+     */
     public boolean freeContext(long id) {
         try (SearchContext context = removeContext(id)) {
             if (context != null) {
                 onFreeContext(context);
                 return true;
             }
-            return false;
         }
+        final ReaderContext readerContext = activeReaders.remove(id);
+        if (readerContext != null) {
+            // the pinned searcher is only released once the searches that still use it are done
+            readerContext.close();
+            return true;
+        }
+        return false;
     }
 
     private void onFreeContext(SearchContext context) {
@@ -757,13 +808,81 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     }
 
     private void contextScrollKeepAlive(SearchContext context, long keepAlive) {
+        checkKeepAliveLimit("scroll", keepAlive);
+        context.keepAlive(keepAlive);
+    }
+
+    private void checkKeepAliveLimit(String type, long keepAlive) {
         if (keepAlive > maxKeepAlive) {
             throw new IllegalArgumentException(
-                "Keep alive for scroll (" + TimeValue.timeValueMillis(keepAlive) + ") is too large. " +
+                "Keep alive for " + type + " (" + TimeValue.timeValueMillis(keepAlive) + ") is too large. " +
                     "It must be less than (" + TimeValue.timeValueMillis(maxKeepAlive) + "). " +
                     "This limit can be set by changing the [" + MAX_KEEPALIVE_SETTING.getKey() + "] cluster level setting.");
         }
-        context.keepAlive(keepAlive);
+    }
+
+    /**
+     * Opens a reader context that pins the current searcher of the provided shard for the given keep alive and returns its id.
+     * Search requests that reference the reader context through a point in time are executed against the pinned searcher, without
+     * retaining any of the per-request state that scroll contexts keep between pages.
+     */
+    public void openReaderContext(ShardId shardId, TimeValue keepAlive, ActionListener<Long> listener) {
+        final IndexShard shard;
+        try {
+            checkKeepAliveLimit("point in time", keepAlive.millis());
+            shard = indicesService.indexServiceSafe(shardId.getIndex()).getShard(shardId.id());
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        shard.awaitShardSearchActive(ignored -> {
+            final ReaderContext readerContext;
+            Engine.Searcher searcher = null;
+            try {
+                searcher = shard.acquireSearcherNoWrap("point_in_time");
+                readerContext = new ReaderContext(idGenerator.incrementAndGet(), shard, searcher, keepAlive.millis(),
+                    threadPool::relativeTimeInMillis);
+                shard.getSearchOperationListener().onNewReaderContext(readerContext);
+                final ReaderContext previous = activeReaders.put(readerContext.id(), readerContext);
+                assert previous == null;
+            } catch (Exception e) {
+                IOUtils.closeWhileHandlingException(searcher);
+                listener.onFailure(e);
+                return;
+            }
+            listener.onResponse(readerContext.id());
+        });
+    }
+
+    /**
+     * Returns the reader context of the point in time that the provided request references, or <code>null</code> if the request
+     * should use the current searcher of the shard. The keep alive of the reader context is extended if the request asks for it.
+     */
+    private ReaderContext findReaderContext(ShardSearchRequest request) {
+        final PointInTimeBuilder pointInTimeBuilder = request.source() == null ? null : request.source().pointInTimeBuilder();
+        if (pointInTimeBuilder == null) {
+            return null;
+        }
+        final PointInTimeId pointInTimeId = PointInTimeId.decode(indicesService.getNamedWriteableRegistry(), pointInTimeBuilder.getId());
+        final PointInTimeId.ShardReader shardReader = pointInTimeId.shards().get(request.shardId());
+        if (shardReader == null) {
+            throw new IllegalArgumentException("point in time has no reader for shard " + request.shardId());
+        }
+        final ReaderContext readerContext = activeReaders.get(shardReader.getReaderId());
+        if (readerContext == null || readerContext.shardId().equals(request.shardId()) == false) {
+            throw new SearchContextMissingException(shardReader.getReaderId());
+        }
+        readerContext.indexShard().getSearchOperationListener().validateReaderContext(readerContext, request);
+        if (pointInTimeBuilder.getKeepAlive() != null) {
+            checkKeepAliveLimit("point in time", pointInTimeBuilder.getKeepAlive().millis());
+            readerContext.keepAlive(pointInTimeBuilder.getKeepAlive().millis());
+        }
+        return readerContext;
+    }
+
+    private Engine.Searcher acquireSearcherNoWrap(ShardSearchRequest request, IndexShard shard, String source) {
+        final ReaderContext readerContext = findReaderContext(request);
+        return readerContext == null ? shard.acquireSearcherNoWrap(source) : readerContext.acquireSearcher(source);
     }
 
     private void contextProcessing(SearchContext context) {
@@ -949,7 +1068,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
 
         if (source.slice() != null) {
-            if (context.scrollContext() == null) {
+            if (context.scrollContext() == null && source.pointInTimeBuilder() == null) {
                 throw new SearchException(shardTarget, "`slice` cannot be used outside of a scroll context");
             }
             context.sliceBuilder(source.slice());
@@ -1046,10 +1165,21 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return this.activeContexts.size();
     }
 
+    /**
+     * Returns the number of reader contexts of points in time that are open on this node
+     */
+    public int getActiveReaders() {
+        return this.activeReaders.size();
+    }
+
     public ResponseCollectorService getResponseCollectorService() {
         return this.responseCollectorService;
     }
 
+    public QueryShapeStatsService getQueryShapeStatsService() {
+        return this.queryShapeStatsService;
+    }
+
     class Reaper implements Runnable {
         @Override
         public void run() {
@@ -1067,6 +1197,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     freeContext(context.id());
                 }
             }
+            for (ReaderContext readerContext : activeReaders.values()) {
+                if (readerContext.isInUse()) {
+                    continue;
+                }
+                final long lastAccessTime = readerContext.lastAccessTime();
+                if (time - lastAccessTime > readerContext.keepAlive()) {
+                    logger.debug("freeing reader context [{}], time [{}], lastAccessTime [{}], keepAlive [{}]", readerContext.id(), time,
+                        lastAccessTime, readerContext.keepAlive());
+                    freeContext(readerContext.id());
+                }
+            }
         }
     }
 
@@ -1085,7 +1226,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         // we don't want to use the reader wrapper since it could run costly operations
         // and we can afford false positives.
-        try (Engine.Searcher searcher = indexShard.acquireSearcherNoWrap("can_match")) {
+        try (Engine.Searcher searcher = acquireSearcherNoWrap(request, indexShard, "can_match")) {
             QueryShardContext context = indexService.newQueryShardContext(request.shardId().id(), searcher,
                 request::nowInMillis, request.getClusterAlias());
             Rewriteable.rewrite(request.getRewriteable(), context, false);
@@ -1148,7 +1289,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     SearchRewriteContext acquireSearcherAndRewrite(ShardSearchRequest request, IndexShard shard) throws IOException {
         // acquire the searcher for rewrite with no wrapping in order to avoid costly
         // operations. We'll wrap the searcher at a later stage (when executing the query).
-        Engine.Searcher searcher = shard.acquireSearcherNoWrap("search");
+        Engine.Searcher searcher = acquireSearcherNoWrap(request, shard, "search");
         boolean success = false;
         try {
             IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
@@ -75,6 +75,26 @@ public class AggregationPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Creates the collector of the aggregations for an additional slice of the index when the query phase collects the
+     * slices concurrently. The slice gets its own top level aggregators, except for the global ones, that are built and
+     * reduced with the aggregators of the first slice in {@link #execute(SearchContext)}.
+     */
+    public static Collector createSliceCollector(SearchContext context) throws IOException {
+        assert context.getProfilers() == null : "profiled queries are collected sequentially";
+        Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators(context);
+        List<Aggregator> collectors = new ArrayList<>();
+        for (Aggregator aggregator : aggregators) {
+            if (aggregator instanceof GlobalAggregator == false) {
+                collectors.add(aggregator);
+            }
+        }
+        context.aggregations().addSliceAggregators(collectors.toArray(new Aggregator[0]));
+        BucketCollector collector = MultiBucketCollector.wrap(collectors);
+        collector.preCollection();
+        return collector;
+    }
+
     @Override
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
@@ -122,16 +142,7 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
-        List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
-        context.aggregations().resetBucketMultiConsumer();
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
-            try {
-                aggregator.postCollection();
-                aggregations.add(aggregator.buildAggregation(0));
-            } catch (IOException e) {
-                throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
-            }
-        }
+        List<InternalAggregation> aggregations = buildAggregations(context, aggregators);
         List<PipelineAggregator> pipelineAggregators = context.aggregations().factories().createPipelineAggregators();
         List<SiblingPipelineAggregator> siblingPipelineAggregators = new ArrayList<>(pipelineAggregators.size());
         for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
@@ -143,11 +154,39 @@ public class AggregationPhase implements SearchPhase {
                     + "allowed at the top level");
             }
         }
-        context.queryResult().aggregations(new InternalAggregations(aggregations, siblingPipelineAggregators));
+        InternalAggregations internalAggregations = new InternalAggregations(aggregations, siblingPipelineAggregators);
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (sliceAggregators.isEmpty() == false) {
+            // the query was collected concurrently, the shard result is the partial reduction of the results of all slices
+            List<InternalAggregations> slices = new ArrayList<>(sliceAggregators.size() + 1);
+            slices.add(internalAggregations);
+            for (Aggregator[] sliceAggregator : sliceAggregators) {
+                slices.add(new InternalAggregations(buildAggregations(context, sliceAggregator)));
+            }
+            context.aggregations().resetBucketMultiConsumer();
+            InternalAggregation.ReduceContext reduceContext = new InternalAggregation.ReduceContext(context.bigArrays(), null,
+                context.aggregations().multiBucketConsumer(), false);
+            internalAggregations = InternalAggregations.reduce(slices, reduceContext);
+        }
+        context.queryResult().aggregations(internalAggregations);
 
         // disable aggregations so that they don't run on next pages in case of scrolling
         context.aggregations(null);
         context.queryCollectors().remove(AggregationPhase.class);
     }
 
+    private static List<InternalAggregation> buildAggregations(SearchContext context, Aggregator[] aggregators) {
+        List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        context.aggregations().resetBucketMultiConsumer();
+        for (Aggregator aggregator : aggregators) {
+            try {
+                aggregator.postCollection();
+                aggregations.add(aggregator.buildAggregation(0));
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+            }
+        }
+        return aggregations;
+    }
+
 }
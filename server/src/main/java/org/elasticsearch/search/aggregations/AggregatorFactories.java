@@ -210,6 +210,19 @@ public class AggregatorFactories {
         return aggregators;
     }
 
+    /**
+     * Returns whether the aggregators of these factories can collect slices of a shard concurrently, each slice with its
+     * own aggregators, and compute the result of the shard with a partial reduce of the results of the slices.
+     */
+    public boolean supportsConcurrentCollection() {
+        for (AggregatorFactory factory : factories) {
+            if (factory.supportsConcurrentCollection() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the number of sub-aggregator factories not including pipeline
      *         aggregator factories
@@ -229,6 +229,15 @@ public abstract class AggregatorFactory {
         return parent;
     }
 
+    /**
+     * Returns whether the aggregators created by this factory can collect slices of a shard concurrently. Aggregations
+     * whose shard level result can't be computed from the partial reduction of the results of the slices, such as
+     * aggregations that sample the top documents of the shard, must return <code>false</code>.
+     */
+    public boolean supportsConcurrentCollection() {
+        return factories.supportsConcurrentCollection();
+    }
+
     /**
      * Utility method. Given an {@link AggregatorFactory} that creates
      * {@link Aggregator}s that only know how to collect bucket {@code 0}, this
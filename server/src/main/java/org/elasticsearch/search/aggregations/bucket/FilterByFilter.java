@@ -0,0 +1,249 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FutureArrays;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * Counts the documents of the buckets of an aggregator whose buckets can be expressed as filters, like the filters,
+ * adjacency_matrix or range aggregations, by running each filter as its own query on each segment instead of testing every
+ * collected document against every filter. The filters are intersected with the query of the search, which lets them use the
+ * query cache, and simple filters are counted without visiting their documents at all, from the number of documents of the
+ * segment, the document frequency of a term or the BKD tree of a points field.
+ *
+ * This only applies to top level aggregators without sub-aggregations, since the documents of the buckets are never collected,
+ * and to segments that are not split between several slices of a concurrent search.
+ */
+public final class FilterByFilter {
+
+    private final SearchContext context;
+    private final Query[] filters;
+    private Weight[] weights;
+
+    /**
+     * @param filters the filter of each bucket, in bucket ordinal order
+     */
+    public FilterByFilter(SearchContext context, Query[] filters) {
+        this.context = context;
+        this.filters = filters;
+    }
+
+    /**
+     * Returns whether an aggregator with the given parent and sub-aggregations can count its buckets filter by filter.
+     */
+    public static boolean canCount(SearchContext context, Aggregator parent, AggregatorFactories factories) {
+        return parent == null
+            && factories.countAggregators() == 0
+            && context.query() != null
+            && context.minimumScore() == null
+            && context.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER;
+    }
+
+    /**
+     * Adds the number of documents of the segment that match the query of the search and each filter to the document count of
+     * the bucket of the filter. Returns <code>false</code> without counting anything if the documents of the segment must be
+     * collected instead, because the segment is split between several slices that are collected concurrently.
+     */
+    public boolean count(LeafReaderContext ctx, BucketsAggregator aggregator) throws IOException {
+        if (context.searcher().isSplitBetweenSlices(ctx)) {
+            // the aggregators of the other slices of the segment would count it too
+            return false;
+        }
+        if (weights == null) {
+            // created lazily like the weights of the filters aggregation, so that they are only created if a segment is searched
+            weights = createWeights(context, filters);
+        }
+        for (int i = 0; i < weights.length; i++) {
+            final int count = count(weights[i], ctx);
+            if (count > 0) {
+                aggregator.incrementBucketDocCount(i, count);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the weights of the given filters intersected with the query of the search.
+     */
+    public static Weight[] createWeights(SearchContext context, Query[] filters) throws IOException {
+        final ContextIndexSearcher searcher = context.searcher();
+        final Query topLevelQuery = context.query();
+        final boolean matchAll = unwrap(topLevelQuery) instanceof MatchAllDocsQuery;
+        final Weight[] weights = new Weight[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            Query query = filters[i];
+            if (matchAll == false) {
+                query = new BooleanQuery.Builder()
+                    .add(topLevelQuery, BooleanClause.Occur.FILTER)
+                    .add(filters[i], BooleanClause.Occur.FILTER)
+                    .build();
+            }
+            weights[i] = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the number of live documents of the segment that match the given weight.
+     */
+    public static int count(Weight weight, LeafReaderContext ctx) throws IOException {
+        final LeafReader reader = ctx.reader();
+        final Query query = unwrap(weight.getQuery());
+        if (query instanceof MatchAllDocsQuery) {
+            return reader.numDocs();
+        }
+        if (query instanceof MatchNoDocsQuery) {
+            return 0;
+        }
+        if (reader.hasDeletions() == false) {
+            if (query instanceof TermQuery) {
+                return reader.docFreq(((TermQuery) query).getTerm());
+            }
+            if (query instanceof PointRangeQuery) {
+                final int count = countPoints(reader, (PointRangeQuery) query);
+                if (count >= 0) {
+                    return count;
+                }
+            }
+        }
+        final Scorer scorer = weight.scorer(ctx);
+        if (scorer == null) {
+            return 0;
+        }
+        final Bits liveDocs = reader.getLiveDocs();
+        final DocIdSetIterator iterator = scorer.iterator();
+        int count = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the documents of a segment without deletions that match the given range with the BKD tree of its field, or returns
+     * -1 if they can't be counted this way. All the documents with a value are counted at once if the segment only contains
+     * values that are inside of the range, and the documents are counted while visiting the tree without building their doc id
+     * set if the field has a single value per document.
+     */
+    public static int countPoints(LeafReader reader, PointRangeQuery query) throws IOException {
+        final PointValues values = reader.getPointValues(query.getField());
+        if (values == null) {
+            return 0;
+        }
+        final int numDims = query.getNumDims();
+        final int bytesPerDim = query.getBytesPerDim();
+        if (values.getNumIndexDimensions() != numDims || values.getBytesPerDimension() != bytesPerDim) {
+            return -1;
+        }
+        final byte[] lowerPoint = query.getLowerPoint();
+        final byte[] upperPoint = query.getUpperPoint();
+        switch (relate(values.getMinPackedValue(), values.getMaxPackedValue(), lowerPoint, upperPoint, numDims, bytesPerDim)) {
+            case CELL_OUTSIDE_QUERY:
+                return 0;
+            case CELL_INSIDE_QUERY:
+                return values.getDocCount();
+            default:
+                if (values.size() != values.getDocCount()) {
+                    // documents with many values would be counted once per value
+                    return -1;
+                }
+                final int[] count = new int[1];
+                values.intersect(new PointValues.IntersectVisitor() {
+                    @Override
+                    public void visit(int docID) {
+                        count[0]++;
+                    }
+
+                    @Override
+                    public void visit(int docID, byte[] packedValue) {
+                        if (relate(packedValue, packedValue, lowerPoint, upperPoint, numDims, bytesPerDim)
+                                == PointValues.Relation.CELL_INSIDE_QUERY) {
+                            count[0]++;
+                        }
+                    }
+
+                    @Override
+                    public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+                        return relate(minPackedValue, maxPackedValue, lowerPoint, upperPoint, numDims, bytesPerDim);
+                    }
+                });
+                return count[0];
+        }
+    }
+
+    private static PointValues.Relation relate(byte[] minPackedValue, byte[] maxPackedValue, byte[] lowerPoint, byte[] upperPoint,
+                                               int numDims, int bytesPerDim) {
+        boolean inside = true;
+        for (int dim = 0; dim < numDims; dim++) {
+            final int from = dim * bytesPerDim;
+            final int to = from + bytesPerDim;
+            if (FutureArrays.compareUnsigned(minPackedValue, from, to, upperPoint, from, to) > 0
+                    || FutureArrays.compareUnsigned(maxPackedValue, from, to, lowerPoint, from, to) < 0) {
+                return PointValues.Relation.CELL_OUTSIDE_QUERY;
+            }
+            inside &= FutureArrays.compareUnsigned(minPackedValue, from, to, lowerPoint, from, to) >= 0
+                && FutureArrays.compareUnsigned(maxPackedValue, from, to, upperPoint, from, to) <= 0;
+        }
+        return inside ? PointValues.Relation.CELL_INSIDE_QUERY : PointValues.Relation.CELL_CROSSES_QUERY;
+    }
+
+    /**
+     * Returns the query that decides which documents the given query matches, without the wrappers that only change scores.
+     */
+    public static Query unwrap(Query query) {
+        while (true) {
+            if (query instanceof ConstantScoreQuery) {
+                query = ((ConstantScoreQuery) query).getQuery();
+            } else if (query instanceof BoostQuery) {
+                query = ((BoostQuery) query).getQuery();
+            } else if (query instanceof IndexOrDocValuesQuery) {
+                query = ((IndexOrDocValuesQuery) query).getIndexQuery();
+            } else {
+                return query;
+            }
+        }
+    }
+}
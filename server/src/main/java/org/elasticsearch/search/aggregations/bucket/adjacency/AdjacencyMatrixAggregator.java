@@ -20,8 +20,10 @@
 package org.elasticsearch.search.aggregations.bucket.adjacency;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +40,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -127,11 +130,23 @@ public class AdjacencyMatrixAggregator extends BucketsAggregator {
     private final int totalNumKeys;
     private final int totalNumIntersections;
     private final String separator;
+    private final FilterByFilter filterByFilter;
 
     public AdjacencyMatrixAggregator(String name, AggregatorFactories factories, String separator, String[] keys,
             Weight[] filters, SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
+        this(name, factories, separator, keys, filters, null, context, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * @param filterByFilter counts the buckets of the filters and of their intersections one filter at a time instead of
+     *                       collecting the documents, or <code>null</code> if the documents must be collected
+     */
+    public AdjacencyMatrixAggregator(String name, AggregatorFactories factories, String separator, String[] keys,
+            Weight[] filters, @Nullable FilterByFilter filterByFilter, SearchContext context, Aggregator parent,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, factories, context, parent, pipelineAggregators, metaData);
+        this.filterByFilter = filterByFilter;
         this.separator = separator;
         this.keys = keys;
         this.filters = filters;
@@ -141,6 +156,10 @@ public class AdjacencyMatrixAggregator extends BucketsAggregator {
 
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
+        if (filterByFilter != null && filterByFilter.count(ctx, this)) {
+            // the buckets of this segment are already counted
+            throw new CollectionTerminatedException();
+        }
         // no need to provide deleted docs to the filter
         final Bits[] bits = new Bits[filters.length];
         for (int i = 0; i < filters.length; ++i) {
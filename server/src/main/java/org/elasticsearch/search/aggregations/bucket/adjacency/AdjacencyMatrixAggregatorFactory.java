@@ -19,6 +19,8 @@
 
 package org.elasticsearch.search.aggregations.bucket.adjacency;
 
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
@@ -27,6 +29,7 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.bucket.adjacency.AdjacencyMatrixAggregator.KeyedFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
@@ -38,6 +41,7 @@ import java.util.Map;
 public class AdjacencyMatrixAggregatorFactory extends AggregatorFactory {
 
     private final String[] keys;
+    private final Query[] filters;
     private final Weight[] weights;
     private final String separator;
 
@@ -47,12 +51,14 @@ public class AdjacencyMatrixAggregatorFactory extends AggregatorFactory {
         super(name, queryShardContext, parent, subFactories, metaData);
         IndexSearcher contextSearcher = queryShardContext.searcher();
         this.separator = separator;
+        this.filters = new Query[filters.size()];
         weights = new Weight[filters.size()];
         keys = new String[filters.size()];
         for (int i = 0; i < filters.size(); ++i) {
             KeyedFilter keyedFilter = filters.get(i);
             this.keys[i] = keyedFilter.key();
             Query filter = keyedFilter.filter().toQuery(queryShardContext);
+            this.filters[i] = filter;
             this.weights[i] = contextSearcher.createWeight(contextSearcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
         }
     }
@@ -63,7 +69,23 @@ public class AdjacencyMatrixAggregatorFactory extends AggregatorFactory {
                                         boolean collectsFromSingleBucket,
                                         List<PipelineAggregator> pipelineAggregators,
                                         Map<String, Object> metaData) throws IOException {
-        return new AdjacencyMatrixAggregator(name, factories, separator, keys, weights, searchContext, parent,
+        FilterByFilter filterByFilter = null;
+        if (FilterByFilter.canCount(searchContext, parent, factories)) {
+            // the filters followed by their intersections, in the order of the buckets of the aggregator
+            Query[] bucketFilters = new Query[filters.length + (filters.length * (filters.length - 1)) / 2];
+            System.arraycopy(filters, 0, bucketFilters, 0, filters.length);
+            int pos = filters.length;
+            for (int i = 0; i < filters.length; i++) {
+                for (int j = i + 1; j < filters.length; j++) {
+                    bucketFilters[pos++] = new BooleanQuery.Builder()
+                        .add(filters[i], BooleanClause.Occur.FILTER)
+                        .add(filters[j], BooleanClause.Occur.FILTER)
+                        .build();
+                }
+            }
+            filterByFilter = new FilterByFilter(searchContext, bucketFilters);
+        }
+        return new AdjacencyMatrixAggregator(name, factories, separator, keys, weights, filterByFilter, searchContext, parent,
                 pipelineAggregators, metaData);
     }
 
@@ -20,8 +20,10 @@
 package org.elasticsearch.search.aggregations.bucket.filter;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -37,6 +39,7 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -121,11 +124,23 @@ public class FiltersAggregator extends BucketsAggregator {
     private final boolean showOtherBucket;
     private final String otherBucketKey;
     private final int totalNumKeys;
+    private final FilterByFilter filterByFilter;
 
     public FiltersAggregator(String name, AggregatorFactories factories, String[] keys, Supplier<Weight[]> filters, boolean keyed,
             String otherBucketKey, SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
+        this(name, factories, keys, filters, null, keyed, otherBucketKey, context, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * @param filterByFilter counts the buckets, including the other bucket, one filter at a time instead of collecting the
+     *                       documents, or <code>null</code> if the documents must be collected
+     */
+    public FiltersAggregator(String name, AggregatorFactories factories, String[] keys, Supplier<Weight[]> filters,
+            @Nullable FilterByFilter filterByFilter, boolean keyed, String otherBucketKey, SearchContext context, Aggregator parent,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, factories, context, parent, pipelineAggregators, metaData);
+        this.filterByFilter = filterByFilter;
         this.keyed = keyed;
         this.keys = keys;
         this.filters = filters;
@@ -141,6 +156,10 @@ public class FiltersAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        if (filterByFilter != null && filterByFilter.count(ctx, this)) {
+            // the buckets of this segment are already counted
+            throw new CollectionTerminatedException();
+        }
         // no need to provide deleted docs to the filter
         Weight[] filters = this.filters.get();
         final Bits[] bits = new Bits[filters.length];
@@ -19,7 +19,10 @@
 
 package org.elasticsearch.search.aggregations.bucket.filter;
 
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Weight;
@@ -28,11 +31,13 @@ import org.elasticsearch.search.aggregations.AggregationInitializationException;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.KeyedFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -91,9 +96,25 @@ public class FiltersAggregatorFactory extends AggregatorFactory {
                                         boolean collectsFromSingleBucket,
                                         List<PipelineAggregator> pipelineAggregators,
                                         Map<String, Object> metaData) throws IOException {
-        return new FiltersAggregator(name, factories, keys, () -> getWeights(searchContext), keyed,
+        FilterByFilter filterByFilter = null;
+        // the other bucket needs a clause per filter
+        if (FilterByFilter.canCount(searchContext, parent, factories)
+                && (otherBucket == false || filters.length < BooleanQuery.getMaxClauseCount())) {
+            Query[] bucketFilters = filters;
+            if (otherBucket) {
+                // the other bucket matches the documents that match none of the filters
+                BooleanQuery.Builder otherFilter = new BooleanQuery.Builder();
+                otherFilter.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
+                for (Query filter : filters) {
+                    otherFilter.add(filter, BooleanClause.Occur.MUST_NOT);
+                }
+                bucketFilters = Arrays.copyOf(filters, filters.length + 1);
+                bucketFilters[filters.length] = otherFilter.build();
+            }
+            filterByFilter = new FilterByFilter(searchContext, bucketFilters);
+        }
+        return new FiltersAggregator(name, factories, keys, () -> getWeights(searchContext), filterByFilter, keyed,
             otherBucket ? otherBucketKey : null, searchContext, parent, pipelineAggregators, metaData);
     }
 
-
 }
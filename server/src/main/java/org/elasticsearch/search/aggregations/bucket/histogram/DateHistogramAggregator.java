@@ -18,14 +18,18 @@
  */
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.PointRangeQuery;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.lease.Releasables;
-import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
@@ -35,6 +39,8 @@ import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
+import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -47,12 +53,20 @@ import java.util.Map;
 
 /**
  * An aggregator for date values. Every date is rounded down using a configured
- * {@link Rounding}.
+ * {@link Rounding}. The buckets are keyed by the ordinal of the bucket of the
+ * parent aggregation that owns them, so that a single instance collects under
+ * all the buckets of its parent.
  *
  * @see Rounding
  */
 class DateHistogramAggregator extends BucketsAggregator {
 
+    /**
+     * The maximum number of buckets of a segment that are counted from the BKD tree, one range per bucket, before falling back
+     * to collecting the documents of the segment.
+     */
+    static final int MAX_POINT_RANGE_BUCKETS = 1024;
+
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
@@ -63,13 +77,20 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final long minDocCount;
     private final ExtendedBounds extendedBounds;
 
-    private final LongHash bucketOrds;
+    private final LongKeyedBucketOrds bucketOrds;
+
+    /**
+     * A range on the indexed date field that matches the same documents as the query of the search, used to count the buckets
+     * from the BKD tree of the field instead of collecting the documents, or <code>null</code> if the documents must be collected
+     */
+    private final PointRangeQuery pointRangeQuery;
 
     DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding shardRounding,
             BucketOrder order, boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
-            DocValueFormat formatter, SearchContext aggregationContext,
-            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            DocValueFormat formatter, @Nullable PointRangeQuery pointRangeQuery, SearchContext aggregationContext,
+            Aggregator parent, boolean collectsFromSingleBucket,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
 
         super(name, factories, aggregationContext, parent, pipelineAggregators, metaData);
         this.rounding = rounding;
@@ -80,8 +101,9 @@ class DateHistogramAggregator extends BucketsAggregator {
         this.extendedBounds = extendedBounds;
         this.valuesSource = valuesSource;
         this.formatter = formatter;
+        this.pointRangeQuery = pointRangeQuery;
 
-        bucketOrds = new LongHash(1, aggregationContext.bigArrays());
+        bucketOrds = LongKeyedBucketOrds.build(aggregationContext.bigArrays(), collectsFromSingleBucket);
     }
 
     @Override
@@ -98,11 +120,14 @@ class DateHistogramAggregator extends BucketsAggregator {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (pointRangeQuery != null && countFromPoints(ctx)) {
+            // the buckets of this segment are already counted
+            throw new CollectionTerminatedException();
+        }
         final SortedNumericDocValues values = valuesSource.longValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
-            public void collect(int doc, long bucket) throws IOException {
-                assert bucket == 0;
+            public void collect(int doc, long owningBucketOrd) throws IOException {
                 if (values.advanceExact(doc)) {
                     final int valuesCount = values.docValueCount();
 
@@ -116,7 +141,7 @@ class DateHistogramAggregator extends BucketsAggregator {
                         if (rounded == previousRounded) {
                             continue;
                         }
-                        long bucketOrd = bucketOrds.add(rounded);
+                        long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
                         if (bucketOrd < 0) { // already seen
                             bucketOrd = -1 - bucketOrd;
                             collectExistingBucket(sub, doc, bucketOrd);
@@ -130,14 +155,81 @@ class DateHistogramAggregator extends BucketsAggregator {
         };
     }
 
+    /**
+     * Counts the buckets of a segment by translating each bucket to a range of the indexed date field and counting it from the
+     * BKD tree. A segment whose values all round to the same bucket is counted from the number of documents with a value.
+     * Returns <code>false</code> without counting anything if the documents of the segment must be collected instead.
+     */
+    private boolean countFromPoints(LeafReaderContext ctx) throws IOException {
+        final LeafReader reader = ctx.reader();
+        if (reader.hasDeletions() || context.searcher().isSplitBetweenSlices(ctx)) {
+            // the aggregators of the other slices of a split segment would count it too
+            return false;
+        }
+        final PointValues points = reader.getPointValues(pointRangeQuery.getField());
+        if (points == null) {
+            // no document of the segment has a value, collecting its documents is cheap
+            return false;
+        }
+        final long min = Math.max(LongPoint.decodeDimension(points.getMinPackedValue(), 0),
+            LongPoint.decodeDimension(pointRangeQuery.getLowerPoint(), 0));
+        final long max = Math.min(LongPoint.decodeDimension(points.getMaxPackedValue(), 0),
+            LongPoint.decodeDimension(pointRangeQuery.getUpperPoint(), 0));
+        if (min > max) {
+            // no value of the segment is in the range of the query
+            return true;
+        }
+        final long[] keys = new long[MAX_POINT_RANGE_BUCKETS];
+        final int[] counts = new int[MAX_POINT_RANGE_BUCKETS];
+        int numBuckets = 0;
+        long key = shardRounding.round(min);
+        while (true) {
+            if (numBuckets == MAX_POINT_RANGE_BUCKETS) {
+                return false;
+            }
+            final long next = shardRounding.nextRoundingValue(key);
+            if (next <= key || shardRounding.round(next - 1) != key) {
+                // the values between two rounded values must round to the lower one to be counted as a range
+                return false;
+            }
+            final long from = Math.max(key, min);
+            final long to = next > max ? max : next - 1;
+            final int count = FilterByFilter.countPoints(reader, (PointRangeQuery) LongPoint.newRangeQuery(pointRangeQuery.getField(),
+                from, to));
+            if (count < 0) {
+                return false;
+            }
+            keys[numBuckets] = key;
+            counts[numBuckets] = count;
+            numBuckets++;
+            if (next > max) {
+                break;
+            }
+            key = next;
+        }
+        for (int i = 0; i < numBuckets; i++) {
+            if (counts[i] > 0) {
+                long bucketOrd = bucketOrds.add(0, keys[i]);
+                if (bucketOrd < 0) {
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, counts[i]);
+            }
+        }
+        return true;
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
-        assert owningBucketOrdinal == 0;
-        consumeBucketsAndMaybeBreak((int) bucketOrds.size());
+        final int bucketCount = (int) bucketOrds.bucketsInOrd(owningBucketOrdinal);
+        consumeBucketsAndMaybeBreak(bucketCount);
 
-        List<InternalDateHistogram.Bucket> buckets = new ArrayList<>((int) bucketOrds.size());
-        for (long i = 0; i < bucketOrds.size(); i++) {
-            buckets.add(new InternalDateHistogram.Bucket(bucketOrds.get(i), bucketDocCount(i), keyed, formatter, bucketAggregations(i)));
+        List<InternalDateHistogram.Bucket> buckets = new ArrayList<>(bucketCount);
+        LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(owningBucketOrdinal);
+        while (ordsEnum.next()) {
+            final long ord = ordsEnum.ord();
+            buckets.add(new InternalDateHistogram.Bucket(ordsEnum.value(), bucketDocCount(ord), keyed, formatter,
+                bucketAggregations(ord)));
         }
 
         // the contract of the histogram aggregation is that shards must return buckets ordered by key in ascending order
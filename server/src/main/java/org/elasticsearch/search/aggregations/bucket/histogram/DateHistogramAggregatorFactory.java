@@ -19,13 +19,21 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
 import org.elasticsearch.common.Rounding;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.RangeType;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
@@ -80,12 +88,15 @@ public final class DateHistogramAggregatorFactory
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
+        if (valuesSource instanceof ValuesSource.Numeric) {
+            // date histograms key their buckets by owning bucket ordinal and don't need to be wrapped
+            return createAggregator((ValuesSource.Numeric) valuesSource, searchContext, parent, collectsFromSingleBucket,
+                pipelineAggregators, metaData);
+        }
         if (collectsFromSingleBucket == false) {
             return asMultiBucketAggregator(this, searchContext, parent);
         }
-        if (valuesSource instanceof ValuesSource.Numeric) {
-            return createAggregator((ValuesSource.Numeric) valuesSource, searchContext, parent, pipelineAggregators, metaData);
-        } else if (valuesSource instanceof ValuesSource.Range) {
+        if (valuesSource instanceof ValuesSource.Range) {
             ValuesSource.Range rangeValueSource = (ValuesSource.Range) valuesSource;
             if (rangeValueSource.rangeType() != RangeType.DATE) {
                 throw new IllegalArgumentException("Expected date range type but found range type [" + rangeValueSource.rangeType().name
@@ -100,10 +111,47 @@ public final class DateHistogramAggregatorFactory
     }
 
     private Aggregator createAggregator(ValuesSource.Numeric valuesSource, SearchContext searchContext,
-                                        Aggregator parent, List<PipelineAggregator> pipelineAggregators,
-            Map<String, Object> metaData) throws IOException {
+                                        Aggregator parent, boolean collectsFromSingleBucket,
+                                        List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        final PointRangeQuery pointRangeQuery = valuesSource == null ? null : pointRangeQueryOrNull(searchContext, parent);
         return new DateHistogramAggregator(name, factories, rounding, shardRounding, order, keyed, minDocCount, extendedBounds,
-                valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
+                valuesSource, config.format(), pointRangeQuery, searchContext, parent, collectsFromSingleBucket,
+                pipelineAggregators, metaData);
+    }
+
+    /**
+     * Returns a range query on the indexed date field of the aggregation that matches the same documents as the query of the
+     * search, if the buckets can be counted from the BKD tree of the field instead of collecting the documents, or
+     * <code>null</code> otherwise. This only applies to top level date histograms without sub-aggregations on searches that match
+     * all documents or a range of the same field.
+     */
+    private PointRangeQuery pointRangeQueryOrNull(SearchContext searchContext, Aggregator parent) {
+        if (FilterByFilter.canCount(searchContext, parent, factories) == false) {
+            return null;
+        }
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        final MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType == null
+                || fieldType.getClass() != DateFieldMapper.DateFieldType.class
+                || ((DateFieldMapper.DateFieldType) fieldType).resolution() != DateFieldMapper.Resolution.MILLISECONDS
+                || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        final Query query = FilterByFilter.unwrap(searchContext.query());
+        if (query instanceof MatchAllDocsQuery) {
+            return (PointRangeQuery) LongPoint.newRangeQuery(fieldType.name(), Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        if (query instanceof PointRangeQuery) {
+            final PointRangeQuery rangeQuery = (PointRangeQuery) query;
+            if (rangeQuery.getField().equals(fieldType.name())
+                    && rangeQuery.getNumDims() == 1
+                    && rangeQuery.getBytesPerDim() == Long.BYTES) {
+                return rangeQuery;
+            }
+        }
+        return null;
     }
 
     private Aggregator createRangeAggregator(ValuesSource.Range valuesSource,
@@ -120,6 +168,7 @@ public final class DateHistogramAggregatorFactory
                                             Aggregator parent,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return createAggregator(null, searchContext, parent, pipelineAggregators, metaData);
+        // unmapped aggregators are not wrapped, so they may collect from many buckets if they have a parent
+        return createAggregator(null, searchContext, parent, parent == null, pipelineAggregators, metaData);
     }
 }
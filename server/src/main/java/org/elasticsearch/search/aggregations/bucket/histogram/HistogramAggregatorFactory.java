@@ -89,13 +89,16 @@ public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFact
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
+        if (valuesSource instanceof ValuesSource.Numeric) {
+            // numeric histograms key their buckets by owning bucket ordinal and don't need to be wrapped
+            return new NumericHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, minBound, maxBound,
+                (ValuesSource.Numeric) valuesSource, config.format(), searchContext, parent, collectsFromSingleBucket,
+                pipelineAggregators, metaData);
+        }
         if (collectsFromSingleBucket == false) {
             return asMultiBucketAggregator(this, searchContext, parent);
         }
-        if (valuesSource instanceof ValuesSource.Numeric) {
-            return new NumericHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, minBound, maxBound,
-                (ValuesSource.Numeric) valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
-        } else if (valuesSource instanceof ValuesSource.Range) {
+        if (valuesSource instanceof ValuesSource.Range) {
             ValuesSource.Range rangeValueSource = (ValuesSource.Range) valuesSource;
             if (rangeValueSource.rangeType().isNumeric() == false) {
                 throw new IllegalArgumentException("Expected numeric range type but found non-numeric range ["
@@ -116,7 +119,8 @@ public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFact
                                             Aggregator parent,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
+        // unmapped aggregators are not wrapped, so they may collect from many buckets if they have a parent
         return new NumericHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, minBound, maxBound,
-            null, config.format(), searchContext, parent, pipelineAggregators, metaData);
+            null, config.format(), searchContext, parent, parent == null, pipelineAggregators, metaData);
     }
 }
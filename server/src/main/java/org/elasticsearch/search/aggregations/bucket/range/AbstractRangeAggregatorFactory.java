@@ -19,10 +19,17 @@
 
 package org.elasticsearch.search.aggregations.bucket.range;
 
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator.Range;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator.Unmapped;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
@@ -72,8 +79,61 @@ public class AbstractRangeAggregatorFactory<R extends Range> extends ValuesSourc
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return new RangeAggregator(name, factories, valuesSource, config.format(), rangeFactory, ranges, keyed, searchContext, parent,
-                pipelineAggregators, metaData);
+        FilterByFilter filterByFilter = null;
+        if (FilterByFilter.canCount(searchContext, parent, factories)) {
+            Query[] filters = rangeFilters();
+            if (filters != null) {
+                filterByFilter = new FilterByFilter(searchContext, filters);
+            }
+        }
+        return new RangeAggregator(name, factories, valuesSource, config.format(), rangeFactory, ranges, keyed, filterByFilter,
+                searchContext, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * Returns a range query per range on the indexed field of the aggregation that matches exactly the documents that the
+     * range would collect, or <code>null</code> if the ranges can't be expressed as queries.
+     */
+    private Query[] rangeFilters() {
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        final MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType == null || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        final boolean isDate;
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            final IndexNumericFieldData.NumericType numericType = ((NumberFieldMapper.NumberFieldType) fieldType).numericType();
+            if (numericType.isFloatingPoint() && numericType != IndexNumericFieldData.NumericType.DOUBLE) {
+                // values are compared to the ranges as doubles, which the rounding of float bounds doesn't preserve
+                return null;
+            }
+            isDate = false;
+        } else if (fieldType.getClass() == DateFieldMapper.DateFieldType.class
+                && ((DateFieldMapper.DateFieldType) fieldType).resolution() == DateFieldMapper.Resolution.MILLISECONDS) {
+            isDate = true;
+        } else {
+            return null;
+        }
+        final Query[] filters = new Query[ranges.length];
+        try {
+            for (int i = 0; i < ranges.length; i++) {
+                final Double from = Double.isInfinite(ranges[i].from) ? null : ranges[i].from;
+                final Double to = Double.isInfinite(ranges[i].to) ? null : ranges[i].to;
+                if (isDate) {
+                    // the values of dates are their milliseconds since the epoch, indexed as long points
+                    filters[i] = NumberFieldMapper.NumberType.LONG.rangeQuery(fieldType.name(), from, to, true, false,
+                        fieldType.hasDocValues());
+                } else {
+                    filters[i] = ((NumberFieldMapper.NumberFieldType) fieldType).rangeQuery(from, to, true, false, queryShardContext);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // a bound is out of the range of the type of the field
+            return null;
+        }
+        return filters;
     }
 
 
@@ -53,6 +53,12 @@ public class DiversifiedAggregatorFactory extends ValuesSourceAggregatorFactory<
         this.executionHint = executionHint;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the sample holds the top documents of the whole shard
+        return false;
+    }
+
     @Override
     protected Aggregator doCreateInternal(ValuesSource valuesSource,
                                             SearchContext searchContext,
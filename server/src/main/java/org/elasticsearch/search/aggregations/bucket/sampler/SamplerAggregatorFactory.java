@@ -40,6 +40,12 @@ public class SamplerAggregatorFactory extends AggregatorFactory {
         this.shardSize = shardSize;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the sample holds the top documents of the whole shard
+        return false;
+    }
+
     @Override
     public Aggregator createInternal(SearchContext searchContext,
                                         Aggregator parent,
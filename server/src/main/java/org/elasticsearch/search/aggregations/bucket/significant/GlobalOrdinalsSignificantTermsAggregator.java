@@ -30,6 +30,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.significant.heuristics.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.bucket.terms.GlobalOrdinalsStringTermsAggregator;
 import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
+import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
@@ -102,17 +103,16 @@ public class GlobalOrdinalsSignificantTermsAggregator extends GlobalOrdinalsStri
         BucketSignificancePriorityQueue<SignificantStringTerms.Bucket> ordered = new BucketSignificancePriorityQueue<>(size);
         SignificantStringTerms.Bucket spare = null;
         final boolean needsFullScan = bucketOrds == null || bucketCountThresholds.getMinDocCount() == 0;
-        final long maxId = needsFullScan ? valueCount : bucketOrds.size();
-        for (long ord = 0; ord < maxId; ord++) {
+        final LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = needsFullScan ? null : bucketOrds.ordsEnum(owningBucketOrdinal);
+        for (long ord = 0; needsFullScan ? ord < valueCount : ordsEnum.next(); ord++) {
             final long globalOrd;
             final long bucketOrd;
             if (needsFullScan) {
-                bucketOrd = bucketOrds == null ? ord : bucketOrds.find(ord);
+                bucketOrd = bucketOrds == null ? ord : bucketOrds.find(owningBucketOrdinal, ord);
                 globalOrd = ord;
             } else {
-                assert bucketOrds != null;
-                bucketOrd = ord;
-                globalOrd = bucketOrds.get(ord);
+                bucketOrd = ordsEnum.ord();
+                globalOrd = ordsEnum.value();
             }
             if (includeExclude != null && !acceptedGlobalOrdinals.get(globalOrd)) {
                 continue;
@@ -161,6 +161,12 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return getBackgroundFrequency(value);
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the significance heuristics and the background frequencies apply to the shard, not to its slices
+        return false;
+    }
+
     @Override
     protected Aggregator createUnmapped(SearchContext searchContext,
                                             Aggregator parent,
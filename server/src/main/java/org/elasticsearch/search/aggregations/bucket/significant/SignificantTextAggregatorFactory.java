@@ -152,6 +152,12 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory
     }
 
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the significance heuristics and the background frequencies apply to the shard, not to its slices
+        return false;
+    }
+
     @Override
     public void close() {
         try {
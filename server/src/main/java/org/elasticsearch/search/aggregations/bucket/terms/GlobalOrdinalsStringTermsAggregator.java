@@ -24,13 +24,16 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongBitSet;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.IntArray;
-import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.fielddata.AbstractSortedSetDocValues;
 import org.elasticsearch.search.DocValueFormat;
@@ -71,7 +74,13 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
     protected final long valueCount;
     protected final GlobalOrdLookupFunction lookupGlobalOrd;
 
-    protected final LongHash bucketOrds;
+    protected final LongKeyedBucketOrds bucketOrds;
+
+    /**
+     * The indexed field whose postings count the terms of the segments without deleted documents instead of collecting the
+     * documents, or <code>null</code> if the documents must be collected
+     */
+    private final String postingsField;
 
     public interface GlobalOrdLookupFunction {
         BytesRef apply(long ord) throws IOException;
@@ -90,8 +99,38 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                                                boolean showTermDocCountError,
                                                List<PipelineAggregator> pipelineAggregators,
                                                Map<String, Object> metaData) throws IOException {
+        this(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, context, parent, remapGlobalOrds,
+            collectionMode, showTermDocCountError, true, null, pipelineAggregators, metaData);
+    }
+
+    /**
+     * @param collectsFromSingleBucket whether the aggregator only collects from the owning bucket ordinal {@code 0}, otherwise
+     *                                 the global ordinals are remapped to buckets keyed by owning bucket ordinal, which
+     *                                 requires sub-aggregations to be collected depth first
+     * @param postingsField            the indexed field whose postings can count the terms of the segments without deleted
+     *                                 documents, if the aggregator is at the top level, has no sub-aggregations and all the
+     *                                 documents are collected, or <code>null</code>
+     */
+    public GlobalOrdinalsStringTermsAggregator(String name, AggregatorFactories factories,
+                                               ValuesSource.Bytes.WithOrdinals valuesSource,
+                                               BucketOrder order,
+                                               DocValueFormat format,
+                                               BucketCountThresholds bucketCountThresholds,
+                                               IncludeExclude.OrdinalsFilter includeExclude,
+                                               SearchContext context,
+                                               Aggregator parent,
+                                               boolean remapGlobalOrds,
+                                               SubAggCollectionMode collectionMode,
+                                               boolean showTermDocCountError,
+                                               boolean collectsFromSingleBucket,
+                                               @Nullable String postingsField,
+                                               List<PipelineAggregator> pipelineAggregators,
+                                               Map<String, Object> metaData) throws IOException {
         super(name, factories, context, parent, order, format, bucketCountThresholds, collectionMode, showTermDocCountError,
             pipelineAggregators, metaData);
+        // global ordinals can only be used as bucket ordinals for a single owning bucket, and deferred collections can only be
+        // replayed once, for all the owning buckets at the same time
+        assert collectsFromSingleBucket || (remapGlobalOrds && collectionMode == SubAggCollectionMode.DEPTH_FIRST);
         this.valuesSource = valuesSource;
         this.includeExclude = includeExclude;
         final IndexReader reader = context.searcher().getIndexReader();
@@ -100,18 +139,21 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         this.valueCount = values.getValueCount();
         this.lookupGlobalOrd = values::lookupOrd;
         this.acceptedGlobalOrdinals = includeExclude != null ? includeExclude.acceptedGlobalOrdinals(values) : null;
-        this.bucketOrds = remapGlobalOrds ? new LongHash(1, context.bigArrays()) : null;
+        this.bucketOrds = remapGlobalOrds ? LongKeyedBucketOrds.build(context.bigArrays(), collectsFromSingleBucket) : null;
+        assert postingsField == null || collectsFromSingleBucket;
+        this.postingsField = postingsField;
     }
 
     boolean remapGlobalOrds() {
         return bucketOrds != null;
     }
 
-    private void collectGlobalOrd(int doc, long globalOrd, LeafBucketCollector sub) throws IOException {
+    private void collectGlobalOrd(int doc, long owningBucketOrd, long globalOrd, LeafBucketCollector sub) throws IOException {
         if (bucketOrds == null) {
+            assert owningBucketOrd == 0;
             collectExistingBucket(sub, doc, globalOrd);
         } else {
-            long bucketOrd = bucketOrds.add(globalOrd);
+            long bucketOrd = bucketOrds.add(owningBucketOrd, globalOrd);
             if (bucketOrd < 0) {
                 bucketOrd = -1 - bucketOrd;
                 collectExistingBucket(sub, doc, bucketOrd);
@@ -126,8 +168,54 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             valuesSource.globalOrdinalsValues(ctx) : new FilteredOrdinals(valuesSource.globalOrdinalsValues(ctx), acceptedGlobalOrdinals);
     }
 
+    /**
+     * Counts the terms of a segment from the document frequencies of the postings of the field instead of collecting the
+     * documents of the segment, which gives the same counts when all its documents are collected and none of them is deleted.
+     * The terms of the postings are those of the doc values of the field in the same order, so the n-th term of the postings is
+     * mapped to its global ordinal like the segment ordinal n. Returns <code>false</code> without counting anything if the
+     * documents of the segment must be collected instead.
+     */
+    protected final boolean countFromPostings(LeafReaderContext ctx) throws IOException {
+        if (postingsField == null || ctx.reader().hasDeletions() || context.searcher().isSplitBetweenSlices(ctx)) {
+            // the aggregators of the other slices of a split segment would count it too
+            return false;
+        }
+        final SortedSetDocValues segmentOrds = valuesSource.ordinalsValues(ctx);
+        final Terms terms = ctx.reader().terms(postingsField);
+        if (terms == null) {
+            return segmentOrds.getValueCount() == 0;
+        }
+        if (terms.size() != segmentOrds.getValueCount()) {
+            // the postings and the doc values don't have the same terms
+            return false;
+        }
+        final LongUnaryOperator mapping = valuesSource.globalOrdinalsMapping(ctx);
+        final TermsEnum termsEnum = terms.iterator();
+        long segmentOrd = 0;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next(), segmentOrd++) {
+            assert term.equals(segmentOrds.lookupOrd(segmentOrd));
+            final long globalOrd = mapping.applyAsLong(segmentOrd);
+            if (acceptedGlobalOrdinals != null && acceptedGlobalOrdinals.get(globalOrd) == false) {
+                continue;
+            }
+            long bucketOrd = globalOrd;
+            if (bucketOrds != null) {
+                bucketOrd = bucketOrds.add(0, globalOrd);
+                if (bucketOrd < 0) {
+                    bucketOrd = -1 - bucketOrd;
+                }
+            }
+            incrementBucketDocCount(bucketOrd, termsEnum.docFreq());
+        }
+        return true;
+    }
+
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
+        if (countFromPostings(ctx)) {
+            // the terms of this segment are already counted
+            throw new CollectionTerminatedException();
+        }
         final SortedSetDocValues globalOrds = getGlobalOrds(ctx);
         if (bucketOrds == null) {
             grow(globalOrds.getValueCount());
@@ -137,10 +225,9 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             return new LeafBucketCollectorBase(sub, globalOrds) {
                 @Override
                 public void collect(int doc, long bucket) throws IOException {
-                    assert bucket == 0;
                     if (singleValues.advanceExact(doc)) {
                         final int ord = singleValues.ordValue();
-                        collectGlobalOrd(doc, ord, sub);
+                        collectGlobalOrd(doc, bucket, ord, sub);
                     }
                 }
             };
@@ -148,10 +235,9 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             return new LeafBucketCollectorBase(sub, globalOrds) {
                 @Override
                 public void collect(int doc, long bucket) throws IOException {
-                    assert bucket == 0;
                     if (globalOrds.advanceExact(doc)) {
                         for (long globalOrd = globalOrds.nextOrd(); globalOrd != NO_MORE_ORDS; globalOrd = globalOrds.nextOrd()) {
-                            collectGlobalOrd(doc, globalOrd, sub);
+                            collectGlobalOrd(doc, bucket, globalOrd, sub);
                         }
                     }
                 }
@@ -178,24 +264,25 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         if (bucketCountThresholds.getMinDocCount() == 0) {
             // if minDocCount == 0 then we can end up with more buckets then maxBucketOrd() returns
             size = (int) Math.min(valueCount, bucketCountThresholds.getShardSize());
-        } else {
+        } else if (bucketOrds == null) {
             size = (int) Math.min(maxBucketOrd(), bucketCountThresholds.getShardSize());
+        } else {
+            size = (int) Math.min(bucketOrds.bucketsInOrd(owningBucketOrdinal), bucketCountThresholds.getShardSize());
         }
         long otherDocCount = 0;
         BucketPriorityQueue<OrdBucket> ordered = new BucketPriorityQueue<>(size, order.comparator(this));
         OrdBucket spare = new OrdBucket(-1, 0, null, showTermDocCountError, 0);
         final boolean needsFullScan = bucketOrds == null || bucketCountThresholds.getMinDocCount() == 0;
-        final long maxId = needsFullScan ? valueCount : bucketOrds.size();
-        for (long ord = 0; ord < maxId; ord++) {
+        final LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = needsFullScan ? null : bucketOrds.ordsEnum(owningBucketOrdinal);
+        for (long ord = 0; needsFullScan ? ord < valueCount : ordsEnum.next(); ord++) {
             final long globalOrd;
             final long bucketOrd;
             if (needsFullScan) {
-                bucketOrd = bucketOrds == null ? ord : bucketOrds.find(ord);
+                bucketOrd = bucketOrds == null ? ord : bucketOrds.find(owningBucketOrdinal, ord);
                 globalOrd = ord;
             } else {
-                assert bucketOrds != null;
-                bucketOrd = ord;
-                globalOrd = bucketOrds.get(ord);
+                bucketOrd = ordsEnum.ord();
+                globalOrd = ordsEnum.value();
             }
             if (includeExclude != null && !acceptedGlobalOrdinals.get(globalOrd)) {
                 continue;
@@ -312,10 +399,11 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                        boolean forceDenseMode,
                        SubAggCollectionMode collectionMode,
                        boolean showTermDocCountError,
+                       @Nullable String postingsField,
                        List<PipelineAggregator> pipelineAggregators,
                        Map<String, Object> metaData) throws IOException {
-            super(name, factories, valuesSource, order, format, bucketCountThresholds, null,
-                context, parent, forceDenseMode, collectionMode, showTermDocCountError, pipelineAggregators, metaData);
+            super(name, factories, valuesSource, order, format, bucketCountThresholds, null, context, parent, forceDenseMode,
+                collectionMode, showTermDocCountError, true, postingsField, pipelineAggregators, metaData);
             assert factories == null || factories.countAggregators() == 0;
             this.segmentDocCounts = context.bigArrays().newIntArray(1, true);
         }
@@ -325,6 +413,11 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                                                     final LeafBucketCollector sub) throws IOException {
             if (mapping != null) {
                 mapSegmentCountsToGlobalCounts(mapping);
+                mapping = null;
+            }
+            if (countFromPostings(ctx)) {
+                // the terms of this segment are already counted
+                throw new CollectionTerminatedException();
             }
             final SortedSetDocValues segmentOrds = valuesSource.ordinalsValues(ctx);
             segmentDocCounts = context.bigArrays().grow(segmentDocCounts, 1 + segmentOrds.getValueCount());
@@ -380,7 +473,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                 }
                 final long ord = i - 1; // remember we do +1 when counting
                 final long globalOrd = mapping.applyAsLong(ord);
-                long bucketOrd = bucketOrds == null ? globalOrd : bucketOrds.find(globalOrd);
+                long bucketOrd = bucketOrds == null ? globalOrd : bucketOrds.find(0, globalOrd);
                 incrementBucketDocCount(bucketOrd, inc);
             }
         }
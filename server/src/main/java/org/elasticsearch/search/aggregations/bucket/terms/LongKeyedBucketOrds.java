@@ -0,0 +1,262 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.common.util.LongLongHash;
+
+/**
+ * Maps the {@code long} keys of the buckets of an aggregator, like terms or rounded dates, to bucket ordinals, under the
+ * ordinal of the bucket of the parent aggregator that owns them. This lets an aggregator collect from many owning buckets
+ * with a single hash, instead of being wrapped in one aggregator instance per owning bucket.
+ */
+public abstract class LongKeyedBucketOrds implements Releasable {
+
+    /**
+     * Builds the bucket ordinals of an aggregator, which only need a single level of hashing if the aggregator only collects
+     * from a single owning bucket.
+     */
+    public static LongKeyedBucketOrds build(BigArrays bigArrays, boolean collectsFromSingleBucket) {
+        return collectsFromSingleBucket ? new FromSingle(bigArrays) : new FromMany(bigArrays);
+    }
+
+    private LongKeyedBucketOrds() {}
+
+    /**
+     * Adds the given value under the given owning bucket ordinal. Returns its newly allocated bucket ordinal if it wasn't
+     * there yet, or <code>-1-ord</code> if it was already there.
+     */
+    public abstract long add(long owningBucketOrd, long value);
+
+    /**
+     * Returns the bucket ordinal of the given value under the given owning bucket ordinal, or -1 if it isn't there.
+     */
+    public abstract long find(long owningBucketOrd, long value);
+
+    /**
+     * Returns the number of buckets under the given owning bucket ordinal.
+     */
+    public abstract long bucketsInOrd(long owningBucketOrd);
+
+    /**
+     * Returns the number of buckets under all the owning bucket ordinals, which is also the upper bound of the bucket
+     * ordinals.
+     */
+    public abstract long size();
+
+    /**
+     * Returns an iterator over the buckets under the given owning bucket ordinal.
+     */
+    public abstract BucketOrdsEnum ordsEnum(long owningBucketOrd);
+
+    /**
+     * An iterator over the buckets of an owning bucket ordinal.
+     */
+    public interface BucketOrdsEnum {
+        /**
+         * Advances to the next bucket, returns <code>false</code> if there are no more buckets.
+         */
+        boolean next();
+
+        /**
+         * The ordinal of the current bucket.
+         */
+        long ord();
+
+        /**
+         * The value of the current bucket.
+         */
+        long value();
+    }
+
+    /**
+     * The bucket ordinals of an aggregator that only collects from the owning bucket ordinal {@code 0}.
+     */
+    private static class FromSingle extends LongKeyedBucketOrds {
+        private final LongHash ords;
+
+        FromSingle(BigArrays bigArrays) {
+            ords = new LongHash(1, bigArrays);
+        }
+
+        @Override
+        public long add(long owningBucketOrd, long value) {
+            assert owningBucketOrd == 0;
+            return ords.add(value);
+        }
+
+        @Override
+        public long find(long owningBucketOrd, long value) {
+            assert owningBucketOrd == 0;
+            return ords.find(value);
+        }
+
+        @Override
+        public long bucketsInOrd(long owningBucketOrd) {
+            assert owningBucketOrd == 0;
+            return ords.size();
+        }
+
+        @Override
+        public long size() {
+            return ords.size();
+        }
+
+        @Override
+        public BucketOrdsEnum ordsEnum(long owningBucketOrd) {
+            assert owningBucketOrd == 0;
+            return new BucketOrdsEnum() {
+                private long ord = -1;
+
+                @Override
+                public boolean next() {
+                    ord++;
+                    return ord < ords.size();
+                }
+
+                @Override
+                public long ord() {
+                    return ord;
+                }
+
+                @Override
+                public long value() {
+                    return ords.get(ord);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            ords.close();
+        }
+    }
+
+    /**
+     * The bucket ordinals of an aggregator that collects from any owning bucket ordinal, keyed by the pairs of owning bucket
+     * ordinal and value. The bucket ordinals of each owning bucket ordinal are also linked together in the order they were
+     * added, so that counting and iterating the buckets of an owning bucket ordinal doesn't have to scan all the buckets.
+     */
+    private static class FromMany extends LongKeyedBucketOrds {
+        private final BigArrays bigArrays;
+        private final LongLongHash ords;
+        /**
+         * The number of buckets of each owning bucket ordinal.
+         */
+        private LongArray counts;
+        /**
+         * The first and the last bucket ordinals of each owning bucket ordinal, plus one so that {@code 0} means none.
+         */
+        private LongArray firstOrds, lastOrds;
+        /**
+         * The next bucket ordinal of the same owning bucket ordinal after each bucket ordinal, plus one so that {@code 0}
+         * means none.
+         */
+        private LongArray nextOrds;
+
+        FromMany(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            boolean success = false;
+            try {
+                ords = new LongLongHash(1, bigArrays);
+                counts = bigArrays.newLongArray(1);
+                firstOrds = bigArrays.newLongArray(1);
+                lastOrds = bigArrays.newLongArray(1);
+                nextOrds = bigArrays.newLongArray(1);
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public long add(long owningBucketOrd, long value) {
+            final long ord = ords.add(owningBucketOrd, value);
+            if (ord < 0) {
+                return ord;
+            }
+            counts = bigArrays.grow(counts, owningBucketOrd + 1);
+            firstOrds = bigArrays.grow(firstOrds, owningBucketOrd + 1);
+            lastOrds = bigArrays.grow(lastOrds, owningBucketOrd + 1);
+            nextOrds = bigArrays.grow(nextOrds, ord + 1);
+            if (counts.increment(owningBucketOrd, 1) == 1) {
+                firstOrds.set(owningBucketOrd, ord + 1);
+            } else {
+                nextOrds.set(lastOrds.get(owningBucketOrd) - 1, ord + 1);
+            }
+            lastOrds.set(owningBucketOrd, ord + 1);
+            return ord;
+        }
+
+        @Override
+        public long find(long owningBucketOrd, long value) {
+            return ords.find(owningBucketOrd, value);
+        }
+
+        @Override
+        public long bucketsInOrd(long owningBucketOrd) {
+            return owningBucketOrd < counts.size() ? counts.get(owningBucketOrd) : 0;
+        }
+
+        @Override
+        public long size() {
+            return ords.size();
+        }
+
+        @Override
+        public BucketOrdsEnum ordsEnum(long owningBucketOrd) {
+            return new BucketOrdsEnum() {
+                private long ord = -1;
+                private long nextOrd = owningBucketOrd < firstOrds.size() ? firstOrds.get(owningBucketOrd) : 0;
+
+                @Override
+                public boolean next() {
+                    if (nextOrd == 0) {
+                        return false;
+                    }
+                    ord = nextOrd - 1;
+                    nextOrd = nextOrds.get(ord);
+                    return true;
+                }
+
+                @Override
+                public long ord() {
+                    return ord;
+                }
+
+                @Override
+                public long value() {
+                    return ords.getKey2(ord);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(ords, counts, firstOrds, lastOrds, nextOrds);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.lucene.index.SortedSetDocValues.NO_MORE_ORDS;
+
+/**
+ * Variant of {@link GlobalOrdinalsStringTermsAggregator} that counts the segment ordinals of each segment and merges the counts
+ * of the terms of the segment by their bytes once the segment is collected, instead of looking up global ordinals. This avoids
+ * building the global ordinals of the field, which is expensive on high cardinality fields and must be done again after every
+ * refresh, at the cost of hashing the bytes of the terms that match in each segment, on every search. This is the
+ * <code>segment_ordinals</code> execution mode, for aggregations that collect from a single bucket without sub-aggregations.
+ */
+class SegmentOrdinalsStringTermsAggregator extends StringTermsAggregator {
+
+    private final ValuesSource.Bytes.WithOrdinals valuesSource;
+    private final IncludeExclude.StringFilter includeExclude;
+    private final String postingsField;
+
+    private IntArray segmentDocCounts;
+    /**
+     * The ordinals of the last collected segment, whose counts are not merged yet
+     */
+    private SortedSetDocValues segmentOrds;
+
+    /**
+     * @param postingsField the indexed field whose postings can count the terms of the segments without deleted documents, if all
+     *                      the documents are collected, or <code>null</code>
+     */
+    SegmentOrdinalsStringTermsAggregator(String name,
+                                         AggregatorFactories factories,
+                                         ValuesSource.Bytes.WithOrdinals valuesSource,
+                                         BucketOrder order,
+                                         DocValueFormat format,
+                                         BucketCountThresholds bucketCountThresholds,
+                                         IncludeExclude.StringFilter includeExclude,
+                                         SearchContext context,
+                                         Aggregator parent,
+                                         SubAggCollectionMode collectionMode,
+                                         boolean showTermDocCountError,
+                                         @Nullable String postingsField,
+                                         List<PipelineAggregator> pipelineAggregators,
+                                         Map<String, Object> metaData) throws IOException {
+        super(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, context, parent, collectionMode,
+            showTermDocCountError, pipelineAggregators, metaData);
+        // the bucket ordinals of the terms are only known once their segment is collected
+        assert factories == null || factories.countAggregators() == 0;
+        this.valuesSource = valuesSource;
+        this.includeExclude = includeExclude;
+        this.postingsField = postingsField;
+        this.segmentDocCounts = context.bigArrays().newIntArray(1, true);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
+        mergeSegmentCounts();
+        final SortedSetDocValues segmentOrds = valuesSource.ordinalsValues(ctx);
+        segmentDocCounts = context.bigArrays().grow(segmentDocCounts, segmentOrds.getValueCount());
+        this.segmentOrds = segmentOrds;
+        if (countFromPostings(ctx, segmentOrds)) {
+            mergeSegmentCounts();
+            // the terms of this segment are already counted
+            throw new CollectionTerminatedException();
+        }
+        assert sub == LeafBucketCollector.NO_OP_COLLECTOR;
+        final SortedDocValues singleValues = DocValues.unwrapSingleton(segmentOrds);
+        if (singleValues != null) {
+            return new LeafBucketCollectorBase(sub, segmentOrds) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (singleValues.advanceExact(doc)) {
+                        segmentDocCounts.increment(singleValues.ordValue(), 1);
+                    }
+                }
+            };
+        } else {
+            return new LeafBucketCollectorBase(sub, segmentOrds) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (segmentOrds.advanceExact(doc)) {
+                        for (long segmentOrd = segmentOrds.nextOrd(); segmentOrd != NO_MORE_ORDS; segmentOrd = segmentOrds.nextOrd()) {
+                            segmentDocCounts.increment(segmentOrd, 1);
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Sets the counts of the segment ordinals of a segment from the document frequencies of the postings of the field, which
+     * gives the same counts as collecting all the documents of the segment if none of them is deleted. Returns
+     * <code>false</code> without counting anything if the documents of the segment must be collected instead.
+     */
+    private boolean countFromPostings(LeafReaderContext ctx, SortedSetDocValues segmentOrds) throws IOException {
+        if (postingsField == null || ctx.reader().hasDeletions() || context.searcher().isSplitBetweenSlices(ctx)) {
+            // the aggregators of the other slices of a split segment would count it too
+            return false;
+        }
+        final Terms terms = ctx.reader().terms(postingsField);
+        if (terms == null) {
+            return segmentOrds.getValueCount() == 0;
+        }
+        if (terms.size() != segmentOrds.getValueCount()) {
+            // the postings and the doc values don't have the same terms
+            return false;
+        }
+        final TermsEnum termsEnum = terms.iterator();
+        long segmentOrd = 0;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next(), segmentOrd++) {
+            assert term.equals(segmentOrds.lookupOrd(segmentOrd));
+            segmentDocCounts.set(segmentOrd, termsEnum.docFreq());
+        }
+        return true;
+    }
+
+    @Override
+    protected void doPostCollection() throws IOException {
+        mergeSegmentCounts();
+    }
+
+    /**
+     * Adds the counts of the terms of the last collected segment to the buckets of their bytes, and resets them for the next
+     * segment. Only the terms that match at least one document of the segment are looked up and hashed.
+     */
+    private void mergeSegmentCounts() throws IOException {
+        if (segmentOrds == null) {
+            return;
+        }
+        for (long segmentOrd = 0; segmentOrd < segmentOrds.getValueCount(); segmentOrd++) {
+            // We use set(...) here, because the counts are reused over the segments
+            final int inc = segmentDocCounts.set(segmentOrd, 0);
+            if (inc == 0) {
+                continue;
+            }
+            final BytesRef term = segmentOrds.lookupOrd(segmentOrd);
+            if (includeExclude != null && includeExclude.accept(term) == false) {
+                continue;
+            }
+            long bucketOrd = bucketOrds.add(term);
+            if (bucketOrd < 0) { // already seen
+                bucketOrd = -1 - bucketOrd;
+            }
+            incrementBucketDocCount(bucketOrd, inc);
+        }
+        segmentOrds = null;
+    }
+
+    @Override
+    public void doClose() {
+        super.doClose();
+        Releasables.close(segmentDocCounts);
+    }
+}
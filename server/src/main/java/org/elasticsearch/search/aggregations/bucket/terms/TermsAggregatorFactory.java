@@ -20,9 +20,14 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.logging.DeprecationLogger;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
@@ -36,6 +41,7 @@ import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.InternalOrder.CompoundOrder;
 import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketUtils;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregator.BucketCountThresholds;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
@@ -112,6 +118,26 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         }
     }
 
+    /**
+     * Returns the indexed keyword field of the aggregation if its terms can be counted from the document frequencies of its
+     * postings, because the aggregation is at the top level without sub-aggregations and the search matches all documents, or
+     * <code>null</code> otherwise.
+     */
+    private String postingsFieldOrNull(SearchContext searchContext, Aggregator parent) {
+        if (FilterByFilter.canCount(searchContext, parent, factories) == false
+                || FilterByFilter.unwrap(searchContext.query()) instanceof MatchAllDocsQuery == false) {
+            return null;
+        }
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        final MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType instanceof KeywordFieldMapper.KeywordFieldType == false || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        return fieldType.name();
+    }
+
     @Override
     protected Aggregator doCreateInternal(ValuesSource valuesSource,
                                             SearchContext searchContext,
@@ -119,9 +145,6 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        if (collectsFromSingleBucket == false) {
-            return asMultiBucketAggregator(this, searchContext, parent);
-        }
         BucketCountThresholds bucketCountThresholds = new BucketCountThresholds(this.bucketCountThresholds);
         if (InternalOrder.isKeyOrder(order) == false
                 && bucketCountThresholds.getShardSize() == TermsAggregationBuilder.DEFAULT_BUCKET_COUNT_THRESHOLDS.getShardSize()) {
@@ -140,17 +163,26 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
             if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false) {
                 execution = ExecutionMode.MAP;
             }
-            final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS ? getMaxOrd(valuesSource, searchContext.searcher()) : -1;
+            final boolean globalOrdinalsHint = execution == ExecutionMode.GLOBAL_ORDINALS;
             if (execution == null) {
                 execution = ExecutionMode.GLOBAL_ORDINALS;
             }
+            if (collectsFromSingleBucket == false && execution == ExecutionMode.MAP) {
+                // the terms of the map execution mode are not keyed by owning bucket ordinal
+                return asMultiBucketAggregator(this, searchContext, parent);
+            }
             SubAggCollectionMode cm = collectMode;
             if (cm == null) {
                 cm = SubAggCollectionMode.DEPTH_FIRST;
                 if (factories != AggregatorFactories.EMPTY) {
+                    final long maxOrd = globalOrdinalsHint ? getMaxOrd(valuesSource, searchContext.searcher()) : -1;
                     cm = subAggCollectionMode(bucketCountThresholds.getShardSize(), maxOrd);
                 }
             }
+            if (collectsFromSingleBucket == false && cm == SubAggCollectionMode.BREADTH_FIRST) {
+                // deferred collections can only be replayed once, so each owning bucket needs its own aggregator
+                return asMultiBucketAggregator(this, searchContext, parent);
+            }
 
             DocValueFormat format = config.format();
             if ((includeExclude != null) && (includeExclude.isRegexBased()) && format != DocValueFormat.RAW) {
@@ -159,8 +191,9 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                         + "include/exclude clauses");
             }
 
-            return execution.create(name, factories, valuesSource, order, format,
-                bucketCountThresholds, includeExclude, searchContext, parent, cm, showTermDocCountError, pipelineAggregators, metaData);
+            final String postingsField = execution != ExecutionMode.MAP ? postingsFieldOrNull(searchContext, parent) : null;
+            return execution.create(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, searchContext,
+                parent, cm, showTermDocCountError, collectsFromSingleBucket, postingsField, pipelineAggregators, metaData);
         }
 
         if ((includeExclude != null) && (includeExclude.isRegexBased())) {
@@ -179,20 +212,24 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                     cm = SubAggCollectionMode.DEPTH_FIRST;
                 }
             }
+            if (collectsFromSingleBucket == false && cm == SubAggCollectionMode.BREADTH_FIRST) {
+                // deferred collections can only be replayed once, so each owning bucket needs its own aggregator
+                return asMultiBucketAggregator(this, searchContext, parent);
+            }
             if (((ValuesSource.Numeric) valuesSource).isFloatingPoint()) {
                 if (includeExclude != null) {
                     longFilter = includeExclude.convertToDoubleFilter();
                 }
                 return new DoubleTermsAggregator(name, factories, (ValuesSource.Numeric) valuesSource, config.format(), order,
-                        bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter,
+                        bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter, collectsFromSingleBucket,
                         pipelineAggregators, metaData);
             }
             if (includeExclude != null) {
                 longFilter = includeExclude.convertToLongFilter(config.format());
             }
             return new LongTermsAggregator(name, factories, (ValuesSource.Numeric) valuesSource, config.format(), order,
-                    bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter, pipelineAggregators,
-                    metaData);
+                    bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter, collectsFromSingleBucket,
+                    pipelineAggregators, metaData);
         }
 
         throw new AggregationExecutionException("terms aggregation cannot be applied to field [" + config.fieldContext().field()
@@ -242,8 +279,11 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                               Aggregator parent,
                               SubAggCollectionMode subAggCollectMode,
                               boolean showTermDocCountError,
+                              boolean collectsFromSingleBucket,
+                              @Nullable String postingsField,
                               List<PipelineAggregator> pipelineAggregators,
                               Map<String, Object> metaData) throws IOException {
+                assert collectsFromSingleBucket;
                 final IncludeExclude.StringFilter filter = includeExclude == null ? null : includeExclude.convertToStringFilter(format);
                 return new StringTermsAggregator(name, factories, valuesSource, order, format, bucketCountThresholds, filter,
                         context, parent, subAggCollectMode, showTermDocCountError, pipelineAggregators, metaData);
@@ -262,6 +302,8 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                               SearchContext context, Aggregator parent,
                               SubAggCollectionMode subAggCollectMode,
                               boolean showTermDocCountError,
+                              boolean collectsFromSingleBucket,
+                              @Nullable String postingsField,
                               List<PipelineAggregator> pipelineAggregators,
                               Map<String, Object> metaData) throws IOException {
 
@@ -274,6 +316,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
 
                 if (factories == AggregatorFactories.EMPTY &&
                         includeExclude == null &&
+                        collectsFromSingleBucket &&
                         Aggregator.descendsFromBucketAggregator(parent) == false &&
                         ordinalsValuesSource.supportsGlobalOrdinalsMapping() &&
                         // we use the static COLLECT_SEGMENT_ORDS to allow tests to force specific optimizations
@@ -281,6 +324,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                     /**
                      * We can use the low cardinality execution mode iff this aggregator:
                      *  - has no sub-aggregator AND
+                     *  - collects from a single bucket AND
                      *  - is not a child of a bucket aggregator AND
                      *  - has a values source that can map from segment to global ordinals
                      *  - At least we reduce the number of global ordinals look-ups by half (ration <= 0.5) AND
@@ -289,12 +333,15 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                      */
                     return new GlobalOrdinalsStringTermsAggregator.LowCardinality(name, factories,
                             ordinalsValuesSource, order, format, bucketCountThresholds, context, parent, false,
-                            subAggCollectMode, showTermDocCountError, pipelineAggregators, metaData);
+                            subAggCollectMode, showTermDocCountError, postingsField, pipelineAggregators, metaData);
 
                 }
                 final IncludeExclude.OrdinalsFilter filter = includeExclude == null ? null : includeExclude.convertToOrdinalsFilter(format);
                 boolean remapGlobalOrds;
-                if (REMAP_GLOBAL_ORDS != null) {
+                if (collectsFromSingleBucket == false) {
+                    // global ordinals are remapped to buckets keyed by owning bucket ordinal
+                    remapGlobalOrds = true;
+                } else if (REMAP_GLOBAL_ORDS != null) {
                     // We use REMAP_GLOBAL_ORDS to allow tests to force specific optimizations
                     remapGlobalOrds = REMAP_GLOBAL_ORDS.booleanValue();
                 } else {
@@ -315,7 +362,37 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 }
                 return new GlobalOrdinalsStringTermsAggregator(name, factories, ordinalsValuesSource, order,
                         format, bucketCountThresholds, filter, context, parent, remapGlobalOrds, subAggCollectMode, showTermDocCountError,
+                        collectsFromSingleBucket, postingsField, pipelineAggregators, metaData);
+            }
+        },
+        SEGMENT_ORDINALS(new ParseField("segment_ordinals")) {
+
+            @Override
+            Aggregator create(String name,
+                              AggregatorFactories factories,
+                              ValuesSource valuesSource,
+                              BucketOrder order,
+                              DocValueFormat format,
+                              TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                              IncludeExclude includeExclude,
+                              SearchContext context, Aggregator parent,
+                              SubAggCollectionMode subAggCollectMode,
+                              boolean showTermDocCountError,
+                              boolean collectsFromSingleBucket,
+                              @Nullable String postingsField,
+                              List<PipelineAggregator> pipelineAggregators,
+                              Map<String, Object> metaData) throws IOException {
+                if (factories.countAggregators() > 0 || collectsFromSingleBucket == false) {
+                    // the bucket ordinals of the terms are only known once their segment is collected
+                    return GLOBAL_ORDINALS.create(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude,
+                        context, parent, subAggCollectMode, showTermDocCountError, collectsFromSingleBucket, postingsField,
                         pipelineAggregators, metaData);
+                }
+                assert valuesSource instanceof ValuesSource.Bytes.WithOrdinals;
+                final IncludeExclude.StringFilter filter = includeExclude == null ? null : includeExclude.convertToStringFilter(format);
+                return new SegmentOrdinalsStringTermsAggregator(name, factories, (ValuesSource.Bytes.WithOrdinals) valuesSource, order,
+                    format, bucketCountThresholds, filter, context, parent, subAggCollectMode, showTermDocCountError, postingsField,
+                    pipelineAggregators, metaData);
             }
         };
 
@@ -325,8 +402,11 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                     return GLOBAL_ORDINALS;
                 case "map":
                     return MAP;
+                case "segment_ordinals":
+                    return SEGMENT_ORDINALS;
                 default:
-                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]");
+                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of "
+                        + "[map, global_ordinals, segment_ordinals]");
             }
         }
 
@@ -347,6 +427,8 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                                    Aggregator parent,
                                    SubAggCollectionMode subAggCollectMode,
                                    boolean showTermDocCountError,
+                                   boolean collectsFromSingleBucket,
+                                   @Nullable String postingsField,
                                    List<PipelineAggregator> pipelineAggregators,
                                    Map<String, Object> metaData) throws IOException;
 
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.builder;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.ObjectParser;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * References a point in time that was opened with the open point in time API. A search request that uses a point in time
+ * is executed against the readers that were pinned when the point in time was opened, optionally extending their keep alive.
+ */
+public final class PointInTimeBuilder implements Writeable, ToXContentObject {
+
+    private static final ParseField ID_FIELD = new ParseField("id");
+    private static final ParseField KEEP_ALIVE_FIELD = new ParseField("keep_alive");
+    private static final ConstructingObjectParser<PointInTimeBuilder, Void> PARSER = new ConstructingObjectParser<>("pit",
+        args -> new PointInTimeBuilder((String) args[0], (TimeValue) args[1]));
+
+    static {
+        PARSER.declareString(constructorArg(), ID_FIELD);
+        PARSER.declareField(optionalConstructorArg(),
+            (p, c) -> TimeValue.parseTimeValue(p.text(), KEEP_ALIVE_FIELD.getPreferredName()),
+            KEEP_ALIVE_FIELD, ObjectParser.ValueType.STRING);
+    }
+
+    private final String id;
+    @Nullable
+    private final TimeValue keepAlive;
+
+    /**
+     * @param id        the id of the point in time
+     * @param keepAlive the new keep alive of the point in time, or <code>null</code> to keep the current one
+     */
+    public PointInTimeBuilder(String id, @Nullable TimeValue keepAlive) {
+        if (Strings.isEmpty(id)) {
+            throw new IllegalArgumentException("point in time id must not be null or empty");
+        }
+        this.id = id;
+        this.keepAlive = keepAlive;
+    }
+
+    public PointInTimeBuilder(StreamInput in) throws IOException {
+        this.id = in.readString();
+        this.keepAlive = in.readOptionalTimeValue();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(id);
+        out.writeOptionalTimeValue(keepAlive);
+    }
+
+    /**
+     * The encoded id of the point in time.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The keep alive that the point in time should be extended with, or <code>null</code> if the current keep alive should be used.
+     */
+    @Nullable
+    public TimeValue getKeepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(ID_FIELD.getPreferredName(), id);
+        if (keepAlive != null) {
+            builder.field(KEEP_ALIVE_FIELD.getPreferredName(), keepAlive.getStringRep());
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public static PointInTimeBuilder fromXContent(XContentParser parser) throws IOException {
+        return PARSER.parse(parser, null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PointInTimeBuilder that = (PointInTimeBuilder) o;
+        return Objects.equals(id, that.id) && Objects.equals(keepAlive, that.keepAlive);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, keepAlive);
+    }
+}
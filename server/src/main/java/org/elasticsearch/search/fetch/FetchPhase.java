@@ -21,6 +21,7 @@ package org.elasticsearch.search.fetch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -31,9 +32,11 @@ import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BitSet;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -58,6 +61,7 @@ import org.elasticsearch.search.lookup.SourceLookup;
 import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -73,6 +77,8 @@ import java.util.Set;
  */
 public class FetchPhase implements SearchPhase {
     private static final Logger LOGGER = LogManager.getLogger(FetchPhase.class);
+    // the minimum number of adjacent documents to load in a segment to use the sequential stored fields reader
+    static final int MIN_SEQUENTIAL_DOCS = 10;
 
     private final FetchSubPhase[] fetchSubPhases;
 
@@ -140,15 +146,31 @@ public class FetchPhase implements SearchPhase {
         }
 
         try {
+            // load the documents in doc id order, which is the order of the stored fields on disk, and put the hits back
+            // in the order of the doc ids to load
+            DocIdToIndex[] docs = new DocIdToIndex[context.docIdsToLoadSize()];
+            for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+                docs[index] = new DocIdToIndex(context.docIdsToLoad()[context.docIdsToLoadFrom() + index], index);
+            }
+            Arrays.sort(docs);
+
             SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
             FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-            for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+            List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+            int currentReaderIndex = -1;
+            LeafReaderContext subReaderContext = null;
+            CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldsReader = null;
+            for (int index = 0; index < docs.length; index++) {
                 if (context.isCancelled()) {
                     throw new TaskCancelledException("cancelled");
                 }
-                int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-                int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-                LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+                int docId = docs[index].docId;
+                int readerIndex = ReaderUtil.subIndex(docId, leaves);
+                if (readerIndex != currentReaderIndex) {
+                    currentReaderIndex = readerIndex;
+                    subReaderContext = leaves.get(readerIndex);
+                    storedFieldsReader = storedFieldsReader(subReaderContext, docs, index);
+                }
                 int subDocId = docId - subReaderContext.docBase;
 
                 final SearchHit searchHit;
@@ -158,10 +180,10 @@ public class FetchPhase implements SearchPhase {
                         storedToRequestedFields, subReaderContext);
                 } else {
                     searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId,
-                        storedToRequestedFields, subReaderContext);
+                        storedToRequestedFields, subReaderContext, storedFieldsReader);
                 }
 
-                hits[index] = searchHit;
+                hits[docs[index].index] = searchHit;
                 hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
                 for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
                     fetchSubPhase.hitExecute(context, hitContext);
@@ -185,6 +207,36 @@ public class FetchPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Returns the function that loads the stored fields of the documents of the given segment. Stored fields are optimized
+     * for random access except for merges, so we use the reader of the merges that reuses the block of the previous
+     * document instead of decompressing it again when the documents to load are adjacent.
+     */
+    private static CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldsReader(LeafReaderContext subReaderContext,
+                                                                                           DocIdToIndex[] docs,
+                                                                                           int fromIndex) throws IOException {
+        LeafReader reader = subReaderContext.reader();
+        if (SequentialStoredFieldsLeafReader.canUseSequentialStoredFieldsReader(reader)
+                && hasSequentialDocs(subReaderContext, docs, fromIndex)) {
+            return ((SequentialStoredFieldsLeafReader) reader).getSequentialStoredFieldsReader()::visitDocument;
+        }
+        return reader::document;
+    }
+
+    /**
+     * Returns <code>true</code> if the documents to load in the given segment, starting at <code>fromIndex</code>, are
+     * adjacent and numerous enough to benefit from sequential access.
+     */
+    private static boolean hasSequentialDocs(LeafReaderContext subReaderContext, DocIdToIndex[] docs, int fromIndex) {
+        int endDoc = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+        int toIndex = fromIndex;
+        while (toIndex < docs.length && docs[toIndex].docId < endDoc) {
+            toIndex++;
+        }
+        int numDocs = toIndex - fromIndex;
+        return numDocs >= MIN_SEQUENTIAL_DOCS && docs[toIndex - 1].docId - docs[fromIndex].docId + 1 == numDocs;
+    }
+
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             BitSet bits = context.bitsetFilterCache()
@@ -202,13 +254,14 @@ public class FetchPhase implements SearchPhase {
                                       int docId,
                                       int subDocId,
                                       Map<String, Set<String>> storedToRequestedFields,
-                                      LeafReaderContext subReaderContext) {
+                                      LeafReaderContext subReaderContext,
+                                      CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldsReader) {
         if (fieldsVisitor == null) {
             return new SearchHit(docId, null, null);
         }
 
         Map<String, DocumentField> searchFields = getSearchFields(context, fieldsVisitor, subDocId,
-            storedToRequestedFields, subReaderContext);
+            storedToRequestedFields, storedFieldsReader);
 
         SearchHit searchHit = new SearchHit(docId, fieldsVisitor.id(), searchFields);
         // Set _source if requested.
@@ -224,8 +277,8 @@ public class FetchPhase implements SearchPhase {
                                                        FieldsVisitor fieldsVisitor,
                                                        int subDocId,
                                                        Map<String, Set<String>> storedToRequestedFields,
-                                                       LeafReaderContext subReaderContext) {
-        loadStoredFields(context.shardTarget(), subReaderContext, fieldsVisitor, subDocId);
+                                                       CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldsReader) {
+        loadStoredFields(context.shardTarget(), storedFieldsReader, fieldsVisitor, subDocId);
         fieldsVisitor.postProcess(context.mapperService());
 
         if (fieldsVisitor.fields().isEmpty()) {
@@ -263,7 +316,7 @@ public class FetchPhase implements SearchPhase {
         final boolean needSource = context.sourceRequested() || context.highlight() != null;
         if (needSource || (context instanceof InnerHitsContext.InnerHitSubContext == false)) {
             FieldsVisitor rootFieldsVisitor = new FieldsVisitor(needSource);
-            loadStoredFields(context.shardTarget(), subReaderContext, rootFieldsVisitor, rootSubDocId);
+            loadStoredFields(context.shardTarget(), subReaderContext.reader()::document, rootFieldsVisitor, rootSubDocId);
             rootFieldsVisitor.postProcess(context.mapperService());
             id = rootFieldsVisitor.id();
             source = rootFieldsVisitor.source();
@@ -277,7 +330,7 @@ public class FetchPhase implements SearchPhase {
         if (context.hasStoredFields() && !context.storedFieldsContext().fieldNames().isEmpty()) {
             FieldsVisitor nestedFieldsVisitor = new CustomFieldsVisitor(storedToRequestedFields.keySet(), false);
             searchFields = getSearchFields(context, nestedFieldsVisitor, nestedSubDocId,
-                storedToRequestedFields, subReaderContext);
+                storedToRequestedFields, subReaderContext.reader()::document);
         }
 
         DocumentMapper documentMapper = context.mapperService().documentMapper();
@@ -403,12 +456,29 @@ public class FetchPhase implements SearchPhase {
         return nestedIdentity;
     }
 
-    private void loadStoredFields(SearchShardTarget shardTarget, LeafReaderContext readerContext, FieldsVisitor fieldVisitor, int docId) {
+    private void loadStoredFields(SearchShardTarget shardTarget,
+                                  CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldsReader,
+                                  FieldsVisitor fieldVisitor, int docId) {
         fieldVisitor.reset();
         try {
-            readerContext.reader().document(docId, fieldVisitor);
+            storedFieldsReader.accept(docId, fieldVisitor);
         } catch (IOException e) {
             throw new FetchPhaseExecutionException(shardTarget, "Failed to fetch doc id [" + docId + "]", e);
         }
     }
+
+    static class DocIdToIndex implements Comparable<DocIdToIndex> {
+        final int docId;
+        final int index;
+
+        DocIdToIndex(int docId, int index) {
+            this.docId = docId;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(DocIdToIndex o) {
+            return Integer.compare(docId, o.docId);
+        }
+    }
 }
@@ -22,7 +22,11 @@ package org.elasticsearch.search.fetch.subphase;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.fetch.FetchSubPhase;
 import org.elasticsearch.search.internal.SearchContext;
@@ -58,6 +62,13 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
             return;
         }
 
+        // If this is a parent document and the source was not parsed yet, then filter the source without parsing it into a map.
+        // Highlighting needs the map of the source anyway.
+        if (nestedHit == false && source.source() == null && source.internalSourceRef() != null && context.highlight() == null) {
+            hitContext.hit().sourceRef(filterSource(source.internalSourceRef(), fetchSourceContext));
+            return;
+        }
+
         // Otherwise, filter the source and add it to the hit.
         Object value = source.filter(fetchSourceContext);
         if (nestedHit) {
@@ -85,6 +96,18 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
         }
     }
 
+    private static BytesReference filterSource(BytesReference sourceRef, FetchSourceContext fetchSourceContext) {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, sourceRef)) {
+            BytesStreamOutput streamOutput = new BytesStreamOutput(Math.min(1024, sourceRef.length()));
+            XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+            fetchSourceContext.getXContentFilter().accept(parser, builder);
+            return BytesReference.bytes(builder);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Error filtering source", e);
+        }
+    }
+
     private static boolean containsFilters(FetchSourceContext context) {
         return context.includes().length != 0 || context.excludes().length != 0;
     }
@@ -49,6 +49,9 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.dfs.AggregatedDfs;
@@ -62,8 +65,15 @@ import org.elasticsearch.search.query.QuerySearchResult;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -75,15 +85,43 @@ public class ContextIndexSearcher extends IndexSearcher {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * The minimum number of documents per slice of the index when searching concurrently, smaller indices are
+     * searched sequentially since the coordination of the slices would cost more than what it saves.
+     */
+    private static final int MIN_DOCS_PER_SLICE = 50_000;
+
+    private final Executor executor;
+    private List<List<LeafPartition>> slices;
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private Runnable checkCancelled;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy) {
+        this(reader, similarity, queryCache, queryCachingPolicy, null);
+    }
+
+    /**
+     * Creates a searcher that collects slices of the index concurrently on the provided <code>executor</code> when it
+     * searches with a {@link CollectorManager}, see {@link #search(Query, CollectorManager)}. The searcher is
+     * sequential if the <code>executor</code> is <code>null</code>.
+     */
+    public ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
+                                @Nullable Executor executor) {
         super(reader);
         setSimilarity(similarity);
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the executor that collects the slices of the index concurrently, or <code>null</code> if this searcher
+     * is sequential.
+     */
+    @Override
+    public Executor getExecutor() {
+        return executor;
     }
 
     public void setProfiler(QueryProfiler profiler) {
@@ -145,6 +183,194 @@ public class ContextIndexSearcher extends IndexSearcher {
         }
     }
 
+    /**
+     * Returns whether a search with a {@link CollectorManager} would collect more than one slice of the index
+     * concurrently.
+     */
+    public boolean hasConcurrentSlices() {
+        return executor != null && profiler == null && getConcurrentSlices().size() > 1;
+    }
+
+    /**
+     * Returns whether the documents of the provided leaf are split between several slices of the index when this searcher
+     * collects concurrently. The collector of each of these slices only sees a range of the documents of the leaf, so it must
+     * not count the documents of the whole leaf at once, like aggregations do when they count a segment without collecting it.
+     */
+    public boolean isSplitBetweenSlices(LeafReaderContext ctx) {
+        if (hasConcurrentSlices() == false) {
+            return false;
+        }
+        for (List<LeafPartition> slice : getConcurrentSlices()) {
+            for (LeafPartition partition : slice) {
+                if (partition.leaf.ord == ctx.ord && (partition.minDoc > 0 || partition.maxDoc < ctx.reader().maxDoc())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches the index with a collector per slice of the index, the slices are collected concurrently if this
+     * searcher has an executor and the index is large enough, sequentially otherwise. The collectors are created
+     * on the calling thread and are reduced once all slices have been collected. The slices are ordered by doc id,
+     * so are the collectors passed to {@link CollectorManager#reduce}.
+     */
+    @Override
+    public <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager) throws IOException {
+        if (hasConcurrentSlices() == false) {
+            final C collector = collectorManager.newCollector();
+            search(query, collector);
+            return collectorManager.reduce(Collections.singletonList(collector));
+        }
+        final List<List<LeafPartition>> slices = getConcurrentSlices();
+        final List<C> collectors = new ArrayList<>(slices.size());
+        ScoreMode scoreMode = null;
+        for (int i = 0; i < slices.size(); i++) {
+            final C collector = collectorManager.newCollector();
+            if (scoreMode == null) {
+                scoreMode = collector.scoreMode();
+            } else if (scoreMode != collector.scoreMode()) {
+                throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
+            }
+            collectors.add(collector);
+        }
+        final Weight weight = createWeight(rewrite(query), scoreMode, 1);
+        searchSlices(slices, weight, collectors);
+        return collectorManager.reduce(collectors);
+    }
+
+    /**
+     * Collects the first slice on the calling thread and forks the others to the executor. The calling thread
+     * then collects the slices that didn't start yet and waits for the others, so that no collector is still in
+     * use when this method returns or throws.
+     */
+    private void searchSlices(List<List<LeafPartition>> slices, Weight weight, List<? extends Collector> collectors) throws IOException {
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        for (int i = 1; i < slices.size(); i++) {
+            final List<LeafPartition> slice = slices.get(i);
+            final Collector collector = collectors.get(i);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                // don't bother collecting the slices that didn't start yet if another slice failed
+                if (failed.get() == false) {
+                    searchSlice(slice, weight, collector, failed);
+                }
+                return null;
+            });
+            tasks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the calling thread collects the slice below
+            }
+        }
+        Exception failure = null;
+        try {
+            searchSlice(slices.get(0), weight, collectors.get(0), failed);
+        } catch (Exception e) {
+            failure = e;
+        }
+        for (FutureTask<Void> task : tasks) {
+            // runs the slice on the calling thread unless it already started on the executor
+            task.run();
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                failure = ExceptionsHelper.useOrSuppress(failure, (Exception) cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = ExceptionsHelper.useOrSuppress(failure, new ThreadInterruptedException(e));
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private void searchSlice(List<LeafPartition> slice, Weight weight, Collector collector, AtomicBoolean failed) throws IOException {
+        try {
+            for (LeafPartition partition : slice) {
+                searchLeaf(partition.leaf, partition.minDoc, partition.maxDoc, weight, collector);
+            }
+        } catch (Exception e) {
+            failed.set(true);
+            throw e;
+        }
+    }
+
+    private List<List<LeafPartition>> getConcurrentSlices() {
+        if (slices == null) {
+            final int maxSlices = executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getMaximumPoolSize() : 1;
+            slices = computeSlices(getIndexReader().leaves(), maxSlices, minDocsPerSlice());
+        }
+        return slices;
+    }
+
+    /**
+     * Returns the minimum number of documents per slice of the index when searching concurrently.
+     */
+    protected int minDocsPerSlice() {
+        return MIN_DOCS_PER_SLICE;
+    }
+
+    /**
+     * Splits the provided <code>leaves</code> in at most <code>maxSlices</code> slices of consecutive documents that hold
+     * about the same number of documents, at least <code>minDocsPerSlice</code>. A slice can hold a range of the documents
+     * of a leaf, so that a shard with few large segments can still be searched concurrently.
+     */
+    static List<List<LeafPartition>> computeSlices(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+        long numDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            numDocs += leaf.reader().maxDoc();
+        }
+        final long numSlices = Math.max(1, Math.min(maxSlices, numDocs / minDocsPerSlice));
+        final long docsPerSlice = (numDocs + numSlices - 1) / numSlices;
+        final List<List<LeafPartition>> slices = new ArrayList<>();
+        List<LeafPartition> slice = new ArrayList<>();
+        long sliceDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            final int maxDoc = leaf.reader().maxDoc();
+            int minDoc = 0;
+            while (minDoc < maxDoc) {
+                final int partitionDocs = (int) Math.min(maxDoc - minDoc, docsPerSlice - sliceDocs);
+                slice.add(new LeafPartition(leaf, minDoc, minDoc + partitionDocs));
+                minDoc += partitionDocs;
+                sliceDocs += partitionDocs;
+                if (sliceDocs == docsPerSlice) {
+                    slices.add(slice);
+                    slice = new ArrayList<>();
+                    sliceDocs = 0;
+                }
+            }
+        }
+        if (slice.isEmpty() == false) {
+            slices.add(slice);
+        }
+        return slices;
+    }
+
+    /**
+     * A range of the documents of a leaf that is part of a slice of the index.
+     */
+    static final class LeafPartition {
+        final LeafReaderContext leaf;
+        final int minDoc;
+        final int maxDoc;
+
+        LeafPartition(LeafReaderContext leaf, int minDoc, int maxDoc) {
+            this.leaf = leaf;
+            this.minDoc = minDoc;
+            this.maxDoc = maxDoc;
+        }
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     public void search(List<LeafReaderContext> leaves, Weight weight, CollectorManager manager,
             QuerySearchResult result, DocValueFormat[] formats, TotalHits totalHits) throws IOException {
@@ -180,6 +406,14 @@ public class ContextIndexSearcher extends IndexSearcher {
      * the provided <code>ctx</code>.
      */
     private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector) throws IOException {
+        searchLeaf(ctx, 0, DocIdSetIterator.NO_MORE_DOCS, weight, collector);
+    }
+
+    /**
+     * Same as {@link #searchLeaf(LeafReaderContext, Weight, Collector)} but only collects the matching documents
+     * between <code>minDoc</code>, inclusive, and <code>maxDoc</code>, exclusive.
+     */
+    private void searchLeaf(LeafReaderContext ctx, int minDoc, int maxDoc, Weight weight, Collector collector) throws IOException {
         checkCancelled();
         weight = wrapWeight(weight);
         final LeafCollector leafCollector;
@@ -196,7 +430,7 @@ public class ContextIndexSearcher extends IndexSearcher {
             BulkScorer bulkScorer = weight.bulkScorer(ctx);
             if (bulkScorer != null) {
                 try {
-                    bulkScorer.score(leafCollector, liveDocs);
+                    bulkScorer.score(leafCollector, liveDocs, minDoc, maxDoc);
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
                     // continue with the following leaf
@@ -207,7 +441,7 @@ public class ContextIndexSearcher extends IndexSearcher {
             Scorer scorer = weight.scorer(ctx);
             if (scorer != null) {
                 try {
-                    intersectScorerAndBitSet(scorer, liveDocsBitSet, leafCollector,
+                    intersectScorerAndBitSet(scorer, liveDocsBitSet, leafCollector, minDoc, maxDoc,
                         checkCancelled == null ? () -> { } : checkCancelled);
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
@@ -271,6 +505,11 @@ public class ContextIndexSearcher extends IndexSearcher {
 
     static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs,
                                          LeafCollector collector, Runnable checkCancelled) throws IOException {
+        intersectScorerAndBitSet(scorer, acceptDocs, collector, 0, DocIdSetIterator.NO_MORE_DOCS, checkCancelled);
+    }
+
+    static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs, LeafCollector collector,
+                                         int minDoc, int maxDoc, Runnable checkCancelled) throws IOException {
         collector.setScorer(scorer);
         // ConjunctionDISI uses the DocIdSetIterator#cost() to order the iterators, so if roleBits has the lowest cardinality it should
         // be used first:
@@ -278,7 +517,7 @@ public class ContextIndexSearcher extends IndexSearcher {
             acceptDocs.approximateCardinality()), scorer.iterator()));
         int seen = 0;
         checkCancelled.run();
-        for (int docId = iterator.nextDoc(); docId < DocIdSetIterator.NO_MORE_DOCS; docId = iterator.nextDoc()) {
+        for (int docId = iterator.advance(minDoc); docId < maxDoc; docId = iterator.nextDoc()) {
             if (++seen % CHECK_CANCELLED_SCORER_INTERVAL == 0) {
                 checkCancelled.run();
             }
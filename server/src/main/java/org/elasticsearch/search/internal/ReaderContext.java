@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchContextMissingException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds a point in time view of a shard: the {@link Engine.Searcher} that was acquired when the reader context was opened and
+ * the keep alive that controls how long it is retained. Unlike a {@link SearchContext} it does not hold any state of a
+ * specific request so searches that are executed against the same reader context can use different queries, sorts or
+ * aggregations. The searcher is released once the reader context is freed and all the searches that use it are done.
+ */
+public final class ReaderContext extends AbstractRefCounted implements Releasable {
+
+    private final long id;
+    private final IndexShard indexShard;
+    private final Engine.Searcher searcher;
+    private final LongSupplier relativeTimeInMillis;
+    private volatile long keepAlive;
+    private volatile long lastAccessTime;
+    private final Map<String, Object> context = new ConcurrentHashMap<>();
+
+    public ReaderContext(long id, IndexShard indexShard, Engine.Searcher searcher, long keepAlive, LongSupplier relativeTimeInMillis) {
+        super("reader_context");
+        this.id = id;
+        this.indexShard = indexShard;
+        this.searcher = searcher;
+        this.relativeTimeInMillis = relativeTimeInMillis;
+        this.keepAlive = keepAlive;
+        this.lastAccessTime = relativeTimeInMillis.getAsLong();
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public IndexShard indexShard() {
+        return indexShard;
+    }
+
+    public ShardId shardId() {
+        return indexShard.shardId();
+    }
+
+    /**
+     * Returns a new {@link Engine.Searcher} on the pinned reader that holds a reference on this reader context until it is closed.
+     * The keep alive of the reader context restarts when the searcher is closed.
+     *
+     * @throws SearchContextMissingException if the reader context was freed concurrently
+     */
+    public Engine.Searcher acquireSearcher(String source) {
+        if (tryIncRef() == false) {
+            throw new SearchContextMissingException(id);
+        }
+        lastAccessTime = relativeTimeInMillis.getAsLong();
+        return new Engine.Searcher(source, searcher.getIndexReader(), searcher.getSimilarity(), searcher.getQueryCache(),
+            searcher.getQueryCachingPolicy(), () -> {
+                lastAccessTime = relativeTimeInMillis.getAsLong();
+                decRef();
+            });
+    }
+
+    /**
+     * Returns <code>true</code> if a searcher that was acquired from this reader context is still in use.
+     */
+    public boolean isInUse() {
+        return refCount() > 1;
+    }
+
+    public long keepAlive() {
+        return keepAlive;
+    }
+
+    public long lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Sets the keep alive of this reader context, starting from now.
+     */
+    public void keepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+        this.lastAccessTime = relativeTimeInMillis.getAsLong();
+    }
+
+    /**
+     * Returns the object or <code>null</code> if the given key does not have a
+     * value in the context
+     */
+    @SuppressWarnings("unchecked") // (T)object
+    public <T> T getFromContext(String key) {
+        return (T) context.get(key);
+    }
+
+    /**
+     * Puts the object into the context
+     */
+    public void putInContext(String key, Object value) {
+        context.put(key, value);
+    }
+
+    @Override
+    public void close() {
+        decRef();
+    }
+
+    @Override
+    protected void closeInternal() {
+        searcher.close();
+    }
+}
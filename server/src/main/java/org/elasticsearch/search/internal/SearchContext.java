@@ -349,9 +349,10 @@ public abstract class SearchContext extends AbstractRefCounted implements Releas
 
     /**
      * Schedule the release of a resource. The time when {@link Releasable#close()} will be called on this object
-     * is function of the provided {@link Lifetime}.
+     * is function of the provided {@link Lifetime}. Resources can be scheduled from several threads at the same time,
+     * for instance by the aggregators that are created lazily while the slices of a shard are collected concurrently.
      */
-    public void addReleasable(Releasable releasable, Lifetime lifetime) {
+    public synchronized void addReleasable(Releasable releasable, Lifetime lifetime) {
         if (clearables == null) {
             clearables = new EnumMap<>(Lifetime.class);
         }
@@ -364,8 +365,11 @@ public abstract class SearchContext extends AbstractRefCounted implements Releas
     }
 
     public void clearReleasables(Lifetime lifetime) {
-        if (clearables != null) {
-            List<List<Releasable>>releasables = new ArrayList<>();
+        List<List<Releasable>> releasables = new ArrayList<>();
+        synchronized (this) {
+            if (clearables == null) {
+                return;
+            }
             for (Lifetime lc : Lifetime.values()) {
                 if (lc.compareTo(lifetime) > 0) {
                     break;
@@ -375,8 +379,8 @@ public abstract class SearchContext extends AbstractRefCounted implements Releas
                     releasables.add(remove);
                 }
             }
-            Releasables.close(Iterables.flatten(releasables));
         }
+        Releasables.close(Iterables.flatten(releasables));
     }
 
     /**
@@ -49,10 +49,12 @@ import org.elasticsearch.action.search.SearchShardTask;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.QueueResizingEsThreadPoolExecutor;
 import org.elasticsearch.index.IndexSortConfig;
+import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.DateFieldMapper.DateFieldType;
 import org.elasticsearch.search.DocValueFormat;
@@ -74,6 +76,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -153,6 +156,7 @@ public class QueryPhase implements SearchPhase {
     static boolean executeInternal(SearchContext searchContext) throws QueryPhaseExecutionException {
         final ContextIndexSearcher searcher = searchContext.searcher();
         SortAndFormats sortAndFormatsForRewrittenNumericSort = null;
+        FieldDoc searchAfterForRewrittenNumericSort = null;
         final IndexReader reader = searcher.getIndexReader();
         QuerySearchResult queryResult = searchContext.queryResult();
         queryResult.searchTimedOut(false);
@@ -213,9 +217,11 @@ public class QueryPhase implements SearchPhase {
                 // this collector can filter documents during the collection
                 hasFilterCollector = true;
             }
+            QueryCollectorContext queryCollectorsContext = null;
             if (searchContext.queryCollectors().isEmpty() == false) {
                 // plug in additional collectors, like aggregations
-                collectors.add(createMultiCollectorContext(searchContext.queryCollectors().values()));
+                queryCollectorsContext = createMultiCollectorContext(searchContext.queryCollectors().values());
+                collectors.add(queryCollectorsContext);
             }
             if (searchContext.minimumScore() != null) {
                 // apply the minimum score after multi collector so we filter aggs as well
@@ -224,6 +230,7 @@ public class QueryPhase implements SearchPhase {
                 hasFilterCollector = true;
             }
 
+            final Query originalQuery = query;
             CheckedConsumer<List<LeafReaderContext>, IOException> leafSorter = l -> {};
             // try to rewrite numeric or date sort to the optimized distanceFeatureQuery
             if ((searchContext.sort() != null) && SYS_PROP_REWRITE_SORT) {
@@ -241,6 +248,11 @@ public class QueryPhase implements SearchPhase {
                     System.arraycopy(oldFormats, 0, newFormats, 1, oldFormats.length);
                     sortAndFormatsForRewrittenNumericSort = searchContext.sort(); // stash SortAndFormats to restore it later
                     searchContext.sort(new SortAndFormats(new Sort(newSortFields), newFormats));
+                    if (searchContext.searchAfter() != null) {
+                        // the search after values must follow the modified sorts too
+                        searchAfterForRewrittenNumericSort = searchContext.searchAfter(); // stash searchAfter to restore it later
+                        searchContext.searchAfter(rewriteSearchAfter(reader, oldSortFields[0], searchAfterForRewrittenNumericSort));
+                    }
                     leafSorter = createLeafSorter(oldSortFields[0]);
                 }
             }
@@ -289,14 +301,18 @@ public class QueryPhase implements SearchPhase {
             boolean shouldRescore;
             // if we are optimizing sort and there are no other collectors
             if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
-                shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
+                shouldRescore = searchWithCollectorManager(searchContext, searcher, query, originalQuery, leafSorter, timeoutSet);
             } else {
-                shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, queryCollectorsContext,
+                    hasFilterCollector, timeoutSet);
             }
 
             // if we rewrote numeric long or date sort, restore fieldDocs based on the original sort
             if (sortAndFormatsForRewrittenNumericSort != null) {
                 searchContext.sort(sortAndFormatsForRewrittenNumericSort); // restore SortAndFormats
+                if (searchAfterForRewrittenNumericSort != null) {
+                    searchContext.searchAfter(searchAfterForRewrittenNumericSort); // restore searchAfter
+                }
                 restoreTopFieldDocs(queryResult, sortAndFormatsForRewrittenNumericSort);
             }
 
@@ -313,7 +329,8 @@ public class QueryPhase implements SearchPhase {
     }
 
     private static boolean searchWithCollector(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
-            LinkedList<QueryCollectorContext> collectors, boolean hasFilterCollector, boolean timeoutSet) throws IOException {
+            LinkedList<QueryCollectorContext> collectors, @Nullable QueryCollectorContext queryCollectorsContext,
+            boolean hasFilterCollector, boolean timeoutSet) throws IOException {
         // create the top docs collector last when the other collectors are known
         final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, hasFilterCollector);
         // add the top docs collector, the first collector context in the chain
@@ -329,7 +346,11 @@ public class QueryPhase implements SearchPhase {
         }
         QuerySearchResult queryResult = searchContext.queryResult();
         try {
-            searcher.search(query, queryCollector);
+            if (canCollectConcurrently(searchContext, topDocsFactory)) {
+                searcher.search(query, createSliceCollectorManager(searchContext, queryCollector, collectors, queryCollectorsContext));
+            } else {
+                searcher.search(query, queryCollector);
+            }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
         } catch (TimeExceededException e) {
@@ -351,15 +372,74 @@ public class QueryPhase implements SearchPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    /**
+     * Returns true if the slices of the index can be collected concurrently. The collection is sequential if the
+     * index is not large enough to be sliced, if the query is profiled, scrolled, collapsed or terminated after a number
+     * of documents, if some aggregations need to see the whole shard, or if scripts may read the shared search lookup.
+     */
+    static boolean canCollectConcurrently(SearchContext searchContext, TopDocsCollectorContext topDocsFactory) {
+        if (searchContext.searcher().hasConcurrentSlices() == false
+                || searchContext.getProfilers() != null
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || topDocsFactory.supportsConcurrentCollection() == false) {
+            return false;
+        }
+        for (Class<?> key : searchContext.queryCollectors().keySet()) {
+            if (key != AggregationPhase.class) {
+                return false;
+            }
+        }
+        if (searchContext.aggregations() != null && searchContext.aggregations().factories().supportsConcurrentCollection() == false) {
+            return false;
+        }
+        final QueryShardContext queryShardContext = searchContext.getQueryShardContext();
+        return queryShardContext == null || queryShardContext.hasSearchLookup() == false;
+    }
+
+    /**
+     * Creates a manager whose first collector is the provided <code>queryCollector</code> and that chains new collectors for
+     * the additional slices of the index. The collector contexts merge the collectors of all slices when they post-process
+     * the result, so the manager has nothing to reduce.
+     */
+    private static CollectorManager<Collector, Void> createSliceCollectorManager(SearchContext searchContext, Collector queryCollector,
+            List<QueryCollectorContext> collectors, @Nullable QueryCollectorContext queryCollectorsContext) {
+        return new CollectorManager<Collector, Void>() {
+            private boolean firstSlice = true;
+
+            @Override
+            public Collector newCollector() throws IOException {
+                if (firstSlice) {
+                    firstSlice = false;
+                    return queryCollector;
+                }
+                // the top docs collector context is the first one in the chain
+                Collector collector = ((TopDocsCollectorContext) collectors.get(0)).createSliceCollector();
+                for (QueryCollectorContext ctx : collectors.subList(1, collectors.size())) {
+                    if (ctx == queryCollectorsContext) {
+                        // the aggregators hold the state of the collection so each slice needs its own
+                        ctx = createMultiCollectorContext(Collections.singletonList(AggregationPhase.createSliceCollector(searchContext)));
+                    }
+                    collector = ctx.create(collector);
+                }
+                return collector;
+            }
+
+            @Override
+            public Void reduce(Collection<Collector> collectors) {
+                return null;
+            }
+        };
+    }
+
 
     /*
      * We use collectorManager during sort optimization, where
      * we have already checked that there are no other collectors, no filters,
-     * no search after, no scroll, no collapse, no track scores.
+     * no scroll, no collapse, no track scores.
      * Absence of all other collectors and parameters allows us to use TopFieldCollector directly.
      */
     private static boolean searchWithCollectorManager(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
-            CheckedConsumer<List<LeafReaderContext>, IOException> leafSorter, boolean timeoutSet) throws IOException {
+            Query originalQuery, CheckedConsumer<List<LeafReaderContext>, IOException> leafSorter, boolean timeoutSet) throws IOException {
         final IndexReader reader = searchContext.searcher().getIndexReader();
         final int numHits = Math.min(searchContext.from() + searchContext.size(),  Math.max(1, reader.numDocs()));
         final SortAndFormats sortAndFormats = searchContext.sort();
@@ -370,7 +450,8 @@ public class QueryPhase implements SearchPhase {
             totalHitsThreshold = 1;
             totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
         } else {
-            int hitCount = shortcutTotalHitCount(reader, query);
+            // the rewritten query can't be counted without collecting it, unlike some original queries
+            int hitCount = shortcutTotalHitCount(reader, originalQuery);
             if (hitCount == -1) {
                 totalHitsThreshold = searchContext.trackTotalHitsUpTo();
                 totalHits = null; // will be computed via the collector
@@ -381,7 +462,7 @@ public class QueryPhase implements SearchPhase {
         }
 
         CollectorManager<TopFieldCollector, TopFieldDocs> sharedManager = TopFieldCollector.createSharedManager(
-            sortAndFormats.sort, numHits, null, totalHitsThreshold);
+            sortAndFormats.sort, numHits, searchContext.searchAfter(), totalHitsThreshold);
 
         List<LeafReaderContext> leaves = new ArrayList<>(searcher.getIndexReader().leaves());
         leafSorter.accept(leaves);
@@ -403,7 +484,6 @@ public class QueryPhase implements SearchPhase {
 
     private static Query tryRewriteLongSort(SearchContext searchContext, IndexReader reader,
                                             Query query, boolean hasFilterCollector) throws IOException {
-        if (searchContext.searchAfter() != null) return null; //TODO: handle sort optimization with search after
         if (searchContext.scrollContext() != null) return null;
         if (searchContext.collapse() != null) return null;
         if (searchContext.trackScores()) return null;
@@ -461,6 +541,17 @@ public class QueryPhase implements SearchPhase {
             if (shortcutTotalHitCount(reader, query) == -1) return null;
         }
 
+        FieldDoc searchAfter = searchContext.searchAfter();
+        if (searchAfter != null) {
+            // documents that sort before the search after value are filtered out, so they can't be counted by the collector
+            if (searchContext.trackTotalHitsUpTo() != SearchContext.TRACK_TOTAL_HITS_DISABLED
+                    && (hasFilterCollector || shortcutTotalHitCount(reader, query) == -1)) {
+                return null;
+            }
+            // documents without value sort last, they can't be filtered with points if we are already there
+            if (searchAfter.fields[0] == null || ((Number) searchAfter.fields[0]).longValue() == missingValue) return null;
+        }
+
         byte[] minValueBytes = PointValues.getMinPackedValue(reader, fieldName);
         byte[] maxValueBytes = PointValues.getMaxPackedValue(reader, fieldName);
         if ((maxValueBytes == null) || (minValueBytes == null)) return null;
@@ -479,11 +570,70 @@ public class QueryPhase implements SearchPhase {
             }
             rewrittenQuery = LongPoint.newDistanceFeatureQuery(sortField.getField(), 1, origin, pivotDistance);
         }
-        rewrittenQuery = new BooleanQuery.Builder()
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
             .add(query, BooleanClause.Occur.FILTER) // filter for original query
-            .add(rewrittenQuery, BooleanClause.Occur.SHOULD) //should for rewrittenQuery
+            .add(rewrittenQuery, BooleanClause.Occur.SHOULD); //should for rewrittenQuery
+        if (searchAfter != null) {
+            // skip the documents of the previous pages using the points of the field
+            long searchAfterValue = ((Number) searchAfter.fields[0]).longValue();
+            builder.add(createSearchAfterQuery(reader, sortField, searchAfterValue), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a query that matches the documents whose value for the provided <code>sortField</code> is equal to
+     * <code>searchAfterValue</code> or sorts after it, including the documents without value that sort last.
+     */
+    private static Query createSearchAfterQuery(IndexReader reader, SortField sortField, long searchAfterValue) throws IOException {
+        final String fieldName = sortField.getField();
+        final Query rangeQuery = sortField.getReverse() ?
+            LongPoint.newRangeQuery(fieldName, Long.MIN_VALUE, searchAfterValue) :
+            LongPoint.newRangeQuery(fieldName, searchAfterValue, Long.MAX_VALUE);
+        if (PointValues.getDocCount(reader, fieldName) == reader.maxDoc()) {
+            return rangeQuery;
+        }
+        final Query missingQuery = new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+            .add(new DocValuesFieldExistsQuery(fieldName), BooleanClause.Occur.MUST_NOT)
+            .build();
+        return new BooleanQuery.Builder()
+            .add(rangeQuery, BooleanClause.Occur.SHOULD)
+            .add(missingQuery, BooleanClause.Occur.SHOULD)
             .build();
-        return rewrittenQuery;
+    }
+
+    /**
+     * Returns the search after doc of a sort rewritten by {@link #tryRewriteLongSort}: the score that the rewritten
+     * query gives to the search after value of the provided <code>sortField</code> precedes the original values.
+     * The search after value comes from the hits of all the shards, so it is clamped to the range of the values of this
+     * shard first. Otherwise a value out of the range would score lower than the closest documents of the shard, and these
+     * documents would be skipped although they sort after the value. The original value breaks the tie.
+     */
+    static FieldDoc rewriteSearchAfter(IndexReader reader, SortField sortField, FieldDoc searchAfter) throws IOException {
+        final String fieldName = sortField.getField();
+        final long minValue = LongPoint.decodeDimension(PointValues.getMinPackedValue(reader, fieldName), 0);
+        final long maxValue = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, fieldName), 0);
+        final long value = Math.min(Math.max(((Number) searchAfter.fields[0]).longValue(), minValue), maxValue);
+        final float score;
+        if (minValue == maxValue) {
+            // the constant score of the DocValuesFieldExistsQuery
+            score = 1f;
+        } else {
+            // mirrors the scoring of the distance feature query
+            final long origin = sortField.getReverse() ? maxValue : minValue;
+            final long pivotDistance = Math.max(1, (maxValue - minValue) >>> 1);
+            long distance = Math.max(value, origin) - Math.min(value, origin);
+            if (distance < 0) {
+                // overflow, treat as max distance
+                distance = Long.MAX_VALUE;
+            }
+            score = (float) (pivotDistance / (pivotDistance + (double) distance));
+        }
+        final Object[] fields = new Object[searchAfter.fields.length + 1];
+        fields[0] = score;
+        System.arraycopy(searchAfter.fields, 0, fields, 1, searchAfter.fields.length);
+        return new FieldDoc(searchAfter.doc, searchAfter.score, fields);
     }
 
     /**
@@ -22,6 +22,8 @@ package org.elasticsearch.search.query;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.CountingStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
@@ -55,6 +57,7 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private DocValueFormat[] sortValueFormats;
     private InternalAggregations aggregations;
     private boolean hasAggs;
+    private long serializedAggregationsSize = -1;
     private Suggest suggest;
     private boolean searchTimedOut;
     private Boolean terminatedEarly = null;
@@ -207,6 +210,15 @@ public final class QuerySearchResult extends SearchPhaseResult {
     public void aggregations(InternalAggregations aggregations) {
         this.aggregations = aggregations;
         hasAggs = aggregations != null;
+        serializedAggregationsSize = -1;
+    }
+
+    /**
+     * Returns the number of bytes of the aggregations of this result if it was read from the wire, or <code>-1</code> if
+     * it wasn't or has no aggregations.
+     */
+    public long serializedAggregationsSize() {
+        return serializedAggregationsSize;
     }
 
     public InternalAggregations aggregations() {
@@ -313,7 +325,14 @@ public final class QuerySearchResult extends SearchPhaseResult {
         }
         setTopDocs(readTopDocs(in));
         if (hasAggs = in.readBoolean()) {
-            aggregations = new InternalAggregations(in);
+            if (in.namedWriteableRegistry() != null) {
+                // counts the bytes of the aggregations, that is much cheaper than serializing them again to know their size
+                CountingStreamInput countingIn = new CountingStreamInput(in);
+                aggregations = new InternalAggregations(new NamedWriteableAwareStreamInput(countingIn, in.namedWriteableRegistry()));
+                serializedAggregationsSize = countingIn.size();
+            } else {
+                aggregations = new InternalAggregations(in);
+            }
         }
         if (in.getVersion().before(Version.V_7_2_0)) {
             List<SiblingPipelineAggregator> pipelineAggregators = in.readNamedWriteableList(PipelineAggregator.class).stream()
@@ -67,6 +67,8 @@ import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -98,9 +100,30 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         return false;
     }
 
+    /**
+     * Returns true if this context can collect the slices of the index concurrently, each slice with its own
+     * collector, see {@link #createSliceCollector()}.
+     */
+    boolean supportsConcurrentCollection() {
+        return false;
+    }
+
+    /**
+     * Creates the top docs collector of an additional slice of the index, the collector returned by
+     * {@link #create(Collector)} collects the first slice. The collectors of all slices are merged
+     * in {@link #postProcess(QuerySearchResult)}.
+     */
+    Collector createSliceCollector() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can't collect slices concurrently");
+    }
+
     static class EmptyTopDocsCollectorContext extends TopDocsCollectorContext {
+        private final int trackTotalHitsUpTo;
+        // the total hits if they are not counted by the collectors
+        private final @Nullable TotalHits totalHits;
+        private final List<TotalHitCountCollector> hitCountCollectors = new ArrayList<>();
+        private final List<EarlyTerminatingCollector> earlyTerminatingCollectors = new ArrayList<>();
         private final Collector collector;
-        private final Supplier<TotalHits> hitCountSupplier;
 
         /**
          * Ctr
@@ -112,30 +135,28 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         private EmptyTopDocsCollectorContext(IndexReader reader, Query query,
                                              int trackTotalHitsUpTo, boolean hasFilterCollector) throws IOException {
             super(REASON_SEARCH_COUNT, 0);
+            this.trackTotalHitsUpTo = trackTotalHitsUpTo;
             if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
-                this.collector = new EarlyTerminatingCollector(new TotalHitCountCollector(), 0, false);
                 // for bwc hit count is set to 0, it will be converted to -1 by the coordinating node
-                this.hitCountSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+                this.totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
             } else {
-                TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 int hitCount =  hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
-                if (hitCount == -1) {
-                    if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
-                        this.collector = hitCountCollector;
-                        this.hitCountSupplier = () -> new TotalHits(hitCountCollector.getTotalHits(), TotalHits.Relation.EQUAL_TO);
-                    } else {
-                        EarlyTerminatingCollector col =
-                            new EarlyTerminatingCollector(hitCountCollector, trackTotalHitsUpTo, false);
-                        this.collector = col;
-                        this.hitCountSupplier = () -> new TotalHits(hitCountCollector.getTotalHits(),
-                            col.hasEarlyTerminated() ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : TotalHits.Relation.EQUAL_TO);
-                    }
-                } else {
-                    this.collector = new EarlyTerminatingCollector(hitCountCollector, 0, false);
-                    this.hitCountSupplier = () -> new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
-                }
+                this.totalHits = hitCount == -1 ? null : new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
             }
+            this.collector = newCollector();
+        }
+
+        private Collector newCollector() {
+            TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
+            hitCountCollectors.add(hitCountCollector);
+            if (totalHits == null && trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+                return hitCountCollector;
+            }
+            EarlyTerminatingCollector col =
+                new EarlyTerminatingCollector(hitCountCollector, totalHits == null ? trackTotalHitsUpTo : 0, false);
+            earlyTerminatingCollectors.add(col);
+            return col;
         }
 
         @Override
@@ -144,9 +165,30 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        @Override
+        boolean supportsConcurrentCollection() {
+            return true;
+        }
+
+        @Override
+        Collector createSliceCollector() {
+            return newCollector();
+        }
+
         @Override
         void postProcess(QuerySearchResult result) {
-            final TotalHits totalHitCount = hitCountSupplier.get();
+            final TotalHits totalHitCount;
+            if (totalHits != null) {
+                totalHitCount = totalHits;
+            } else {
+                long hitCount = 0;
+                for (TotalHitCountCollector hitCountCollector : hitCountCollectors) {
+                    hitCount += hitCountCollector.getTotalHits();
+                }
+                boolean earlyTerminated = earlyTerminatingCollectors.stream().anyMatch(EarlyTerminatingCollector::hasEarlyTerminated);
+                totalHitCount = new TotalHits(hitCount,
+                    earlyTerminated ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : TotalHits.Relation.EQUAL_TO);
+            }
             result.topDocs(new TopDocsAndMaxScore(new TopDocs(totalHitCount, Lucene.EMPTY_SCORE_DOCS), Float.NaN), null);
         }
     }
@@ -208,6 +250,12 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         }
 
         protected final @Nullable SortAndFormats sortAndFormats;
+        private final @Nullable ScoreDoc searchAfter;
+        private final int hitCountThreshold;
+        private final boolean trackMaxScore;
+        // the top docs and max score collectors of the slices of the index, ordered like the slices
+        private final List<TopDocsCollector<?>> topDocsCollectors = new ArrayList<>();
+        private final List<MaxScoreCollector> maxScoreCollectors = new ArrayList<>();
         private final Collector collector;
         private final Supplier<TotalHits> totalHitsSupplier;
         private final Supplier<TopDocs> topDocsSupplier;
@@ -234,36 +282,32 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                                               boolean hasFilterCollector) throws IOException {
             super(REASON_SEARCH_TOP_HITS, numHits);
             this.sortAndFormats = sortAndFormats;
-
-            final TopDocsCollector<?> topDocsCollector;
+            this.searchAfter = searchAfter;
+            this.trackMaxScore = trackMaxScore;
+            topDocsSupplier = new CachedSupplier<>(this::mergeTopDocs);
 
             if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0]))
                     && hasInfMaxScore(query)) {
                 // disable max score optimization since we have a mandatory clause
                 // that doesn't track the maximum score
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, Integer.MAX_VALUE);
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                hitCountThreshold = Integer.MAX_VALUE;
                 totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
             } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
                 // don't compute hit counts via the collector
-                topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
-                topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                hitCountThreshold = 1;
                 totalHitsSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
             } else {
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 final int hitCount = hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
                 if (hitCount == -1) {
-                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, trackTotalHitsUpTo);
-                    topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                    hitCountThreshold = trackTotalHitsUpTo;
                     totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
                 } else {
                     // don't compute hit counts via the collector
-                    topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
-                    topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
+                    hitCountThreshold = 1;
                     totalHitsSupplier = () -> new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
                 }
             }
-            MaxScoreCollector maxScoreCollector = null;
             if (sortAndFormats == null) {
                 maxScoreSupplier = () -> {
                     TopDocs topDocs = topDocsSupplier.get();
@@ -274,14 +318,57 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                     }
                 };
             } else if (trackMaxScore) {
-                maxScoreCollector = new MaxScoreCollector();
-                maxScoreSupplier = maxScoreCollector::getMaxScore;
+                maxScoreSupplier = () -> {
+                    float maxScore = Float.NaN;
+                    for (MaxScoreCollector maxScoreCollector : maxScoreCollectors) {
+                        float score = maxScoreCollector.getMaxScore();
+                        if (Float.isNaN(maxScore) || score > maxScore) {
+                            maxScore = score;
+                        }
+                    }
+                    return maxScore;
+                };
             } else {
                 maxScoreSupplier = () -> Float.NaN;
             }
 
-            this.collector = MultiCollector.wrap(topDocsCollector, maxScoreCollector);
+            this.collector = newCollector();
+        }
+
+        private Collector newCollector() {
+            TopDocsCollector<?> topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, hitCountThreshold);
+            topDocsCollectors.add(topDocsCollector);
+            MaxScoreCollector maxScoreCollector = null;
+            if (sortAndFormats != null && trackMaxScore) {
+                maxScoreCollector = new MaxScoreCollector();
+                maxScoreCollectors.add(maxScoreCollector);
+            }
+            return MultiCollector.wrap(topDocsCollector, maxScoreCollector);
+        }
 
+        private TopDocs mergeTopDocs() {
+            if (topDocsCollectors.size() == 1) {
+                return topDocsCollectors.get(0).topDocs();
+            }
+            final TopDocs merged;
+            if (sortAndFormats == null) {
+                TopDocs[] topDocs = new TopDocs[topDocsCollectors.size()];
+                for (int i = 0; i < topDocs.length; i++) {
+                    topDocs[i] = topDocsCollectors.get(i).topDocs();
+                }
+                merged = TopDocs.merge(0, numHits, topDocs, true);
+            } else {
+                TopFieldDocs[] topDocs = new TopFieldDocs[topDocsCollectors.size()];
+                for (int i = 0; i < topDocs.length; i++) {
+                    topDocs[i] = (TopFieldDocs) topDocsCollectors.get(i).topDocs();
+                }
+                merged = TopDocs.merge(sortAndFormats.sort, 0, numHits, topDocs, true);
+            }
+            // the slices break ties on their index like the doc ids do, the shard index is set later by the coordinating node
+            for (ScoreDoc scoreDoc : merged.scoreDocs) {
+                scoreDoc.shardIndex = -1;
+            }
+            return merged;
         }
 
         @Override
@@ -290,6 +377,16 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
+        @Override
+        boolean supportsConcurrentCollection() {
+            return true;
+        }
+
+        @Override
+        Collector createSliceCollector() {
+            return newCollector();
+        }
+
         TopDocsAndMaxScore newTopDocs() {
             TopDocs in = topDocsSupplier.get();
             float maxScore = maxScoreSupplier.get();
@@ -329,6 +426,12 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             this.numberOfShards = numberOfShards;
         }
 
+        @Override
+        boolean supportsConcurrentCollection() {
+            // the next pages of the scroll rely on the last emitted doc of the sequential collection
+            return false;
+        }
+
         @Override
         void postProcess(QuerySearchResult result) throws IOException {
             final TopDocsAndMaxScore topDocs = newTopDocs();
@@ -0,0 +1,45 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.snapshots;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexModule;
+
+/**
+ * Settings and helpers shared between the server and the searchable snapshots plugin, which mounts
+ * snapshotted shards as read-only indices whose files are read lazily from the repository.
+ */
+public final class SearchableSnapshotsSettings {
+
+    /**
+     * The value of {@link IndexModule#INDEX_STORE_TYPE_SETTING} for indices that are backed by a snapshot.
+     */
+    public static final String SEARCHABLE_SNAPSHOT_STORE_TYPE = "snapshot";
+
+    private SearchableSnapshotsSettings() {}
+
+    /**
+     * Returns {@code true} if the index with the given settings reads its files directly from a snapshot. Such
+     * indices must not copy the snapshot files locally when restored and can't write to their Lucene directory.
+     */
+    public static boolean isSearchableSnapshotStore(Settings indexSettings) {
+        return SEARCHABLE_SNAPSHOT_STORE_TYPE.equals(IndexModule.INDEX_STORE_TYPE_SETTING.get(indexSettings));
+    }
+}
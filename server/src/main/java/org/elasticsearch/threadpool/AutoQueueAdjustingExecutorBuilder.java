@@ -19,21 +19,25 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.SizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.FairBlockingQueue;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.node.Node;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
 
 /**
  * A builder for executors that automatically adjust the queue length as needed, depending on
@@ -47,6 +51,10 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
     private final Setting<Integer> maxQueueSizeSetting;
     private final Setting<TimeValue> targetedResponseTimeSetting;
     private final Setting<Integer> frameSizeSetting;
+    private final Setting<Boolean> fairQueueEnabledSetting;
+    private final Setting<String> fairQueueHeaderSetting;
+    private final Setting<Integer> fairQueueMaxQueueSizePerKeySetting;
+    private final Setting<List<Tuple<String, Integer>>> fairQueueWeightsSetting;
 
     AutoQueueAdjustingExecutorBuilder(final Settings settings, final String name, final int size,
                                       final int initialQueueSize, final int minQueueSize,
@@ -127,12 +135,29 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
                 },
                 Setting.Property.NodeScope);
         this.frameSizeSetting = Setting.intSetting(frameSizeKey, frameSize, 100, Setting.Property.NodeScope);
+        this.fairQueueEnabledSetting = Setting.boolSetting(settingsKey(prefix, "fair_queue.enabled"), false, Setting.Property.NodeScope);
+        this.fairQueueHeaderSetting = Setting.simpleString(settingsKey(prefix, "fair_queue.header"), Setting.Property.NodeScope);
+        this.fairQueueMaxQueueSizePerKeySetting =
+            Setting.intSetting(settingsKey(prefix, "fair_queue.max_queue_size_per_key"), -1, -1, Setting.Property.NodeScope);
+        final String weightsKey = settingsKey(prefix, "fair_queue.weights");
+        this.fairQueueWeightsSetting =
+            Setting.listSetting(weightsKey, List.of(), s -> parseWeight(s, weightsKey), Setting.Property.NodeScope);
+    }
+
+    private static Tuple<String, Integer> parseWeight(String value, String settingKey) {
+        final int separator = value.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Failed to parse value [" + value + "] for setting [" + settingKey
+                + "], expected [<key>:<weight>]");
+        }
+        return Tuple.tuple(value.substring(0, separator), Setting.parseInt(value.substring(separator + 1), 1, settingKey));
     }
 
     @Override
     public List<Setting<?>> getRegisteredSettings() {
         return Arrays.asList(sizeSetting, queueSizeSetting, minQueueSizeSetting,
-                maxQueueSizeSetting, frameSizeSetting, targetedResponseTimeSetting);
+                maxQueueSizeSetting, frameSizeSetting, targetedResponseTimeSetting, fairQueueEnabledSetting, fairQueueHeaderSetting,
+                fairQueueMaxQueueSizePerKeySetting, fairQueueWeightsSetting);
     }
 
     @Override
@@ -144,7 +169,15 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         final int maxQueueSize = maxQueueSizeSetting.get(settings);
         final int frameSize = frameSizeSetting.get(settings);
         final TimeValue targetedResponseTime = targetedResponseTimeSetting.get(settings);
-        return new AutoExecutorSettings(nodeName, size, initialQueueSize, minQueueSize, maxQueueSize, frameSize, targetedResponseTime);
+        final boolean fairQueue = fairQueueEnabledSetting.get(settings);
+        final String fairQueueHeader = fairQueueHeaderSetting.get(settings);
+        final int maxQueueSizePerKey = fairQueueMaxQueueSizePerKeySetting.get(settings);
+        final Map<String, Integer> weights = new HashMap<>();
+        for (Tuple<String, Integer> weight : fairQueueWeightsSetting.get(settings)) {
+            weights.put(weight.v1(), weight.v2());
+        }
+        return new AutoExecutorSettings(nodeName, size, initialQueueSize, minQueueSize, maxQueueSize, frameSize, targetedResponseTime,
+            fairQueue, fairQueueHeader, maxQueueSizePerKey, weights);
     }
 
     @Override
@@ -156,6 +189,15 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         int maxQueueSize = settings.maxQueueSize;
         int frameSize = settings.frameSize;
         TimeValue targetedResponseTime = settings.targetedResponseTime;
+        final FairBlockingQueue<Runnable> fairQueue;
+        if (settings.fairQueue) {
+            // without a header the tasks are queued under the key they are submitted with, for instance their index
+            final String header = settings.fairQueueHeader;
+            final Supplier<String> keySupplier = header.isEmpty() ? () -> null : () -> threadContext.getHeader(header);
+            fairQueue = new FairBlockingQueue<>(keySupplier, settings.fairQueueWeights, settings.maxQueueSizePerKey);
+        } else {
+            fairQueue = null;
+        }
         final ThreadFactory threadFactory = EsExecutors.daemonThreadFactory(EsExecutors.threadName(settings.nodeName, name()));
         final ExecutorService executor =
                 EsExecutors.newAutoQueueFixed(
@@ -166,6 +208,7 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
                         maxQueueSize,
                         frameSize,
                         targetedResponseTime,
+                        fairQueue,
                         threadFactory,
                         threadContext);
         // TODO: in a subsequent change we hope to extend ThreadPool.Info to be more specific for the thread pool type
@@ -193,10 +236,15 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         final int maxQueueSize;
         final int frameSize;
         final TimeValue targetedResponseTime;
+        final boolean fairQueue;
+        final String fairQueueHeader;
+        final int maxQueueSizePerKey;
+        final Map<String, Integer> fairQueueWeights;
 
         AutoExecutorSettings(final String nodeName, final int size, final int initialQueueSize,
                              final int minQueueSize, final int maxQueueSize, final int frameSize,
-                             final TimeValue targetedResponseTime) {
+                             final TimeValue targetedResponseTime, final boolean fairQueue, final String fairQueueHeader,
+                             final int maxQueueSizePerKey, final Map<String, Integer> fairQueueWeights) {
             super(nodeName);
             this.size = size;
             this.initialQueueSize = initialQueueSize;
@@ -204,6 +252,10 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
             this.maxQueueSize = maxQueueSize;
             this.frameSize = frameSize;
             this.targetedResponseTime = targetedResponseTime;
+            this.fairQueue = fairQueue;
+            this.fairQueueHeader = fairQueueHeader;
+            this.maxQueueSizePerKey = maxQueueSizePerKey;
+            this.fairQueueWeights = fairQueueWeights;
         }
 
     }
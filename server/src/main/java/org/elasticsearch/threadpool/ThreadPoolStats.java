@@ -19,9 +19,11 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -30,6 +32,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<ThreadPoolStats.Stats> {
 
@@ -42,8 +45,14 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         private final long rejected;
         private final int largest;
         private final long completed;
+        private final List<KeyStats> keys;
 
         public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed) {
+            this(name, threads, queue, active, rejected, largest, completed, Collections.emptyList());
+        }
+
+        public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed,
+                     List<KeyStats> keys) {
             this.name = name;
             this.threads = threads;
             this.queue = queue;
@@ -51,6 +60,7 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             this.rejected = rejected;
             this.largest = largest;
             this.completed = completed;
+            this.keys = keys;
         }
 
         public Stats(StreamInput in) throws IOException {
@@ -61,6 +71,11 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             rejected = in.readLong();
             largest = in.readInt();
             completed = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                keys = in.readList(KeyStats::new);
+            } else {
+                keys = Collections.emptyList();
+            }
         }
 
         @Override
@@ -72,6 +87,9 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             out.writeLong(rejected);
             out.writeInt(largest);
             out.writeLong(completed);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeList(keys);
+            }
         }
 
         public String getName() {
@@ -102,6 +120,13 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             return this.completed;
         }
 
+        /**
+         * The statistics of the keys of the fair queue of the thread pool, empty if its tasks are not dispatched with a fair queue.
+         */
+        public List<KeyStats> getKeys() {
+            return keys;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject(name);
@@ -123,6 +148,13 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             if (completed != -1) {
                 builder.field(Fields.COMPLETED, completed);
             }
+            if (keys.isEmpty() == false) {
+                builder.startObject(Fields.FAIR_QUEUE);
+                for (KeyStats key : keys) {
+                    key.toXContent(builder, params);
+                }
+                builder.endObject();
+            }
             builder.endObject();
             return builder;
         }
@@ -145,6 +177,95 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         }
     }
 
+    /**
+     * The statistics of the tasks of a key of a thread pool whose tasks are dispatched with a fair queue.
+     */
+    public static class KeyStats implements Writeable, ToXContentFragment {
+
+        private final String key;
+        private final int weight;
+        private final int queue;
+        private final long rejected;
+        private final long completed;
+        private final long taskTimeNanos;
+
+        public KeyStats(String key, int weight, int queue, long rejected, long completed, long taskTimeNanos) {
+            this.key = key;
+            this.weight = weight;
+            this.queue = queue;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.taskTimeNanos = taskTimeNanos;
+        }
+
+        public KeyStats(StreamInput in) throws IOException {
+            key = in.readString();
+            weight = in.readVInt();
+            queue = in.readVInt();
+            rejected = in.readVLong();
+            completed = in.readVLong();
+            taskTimeNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(key);
+            out.writeVInt(weight);
+            out.writeVInt(queue);
+            out.writeVLong(rejected);
+            out.writeVLong(completed);
+            out.writeVLong(taskTimeNanos);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * The number of tasks of the key that are queued.
+         */
+        public int getQueue() {
+            return queue;
+        }
+
+        /**
+         * The number of tasks of the key that were rejected because the key reached its maximum number of queued tasks.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * The number of tasks of the key that were executed after going through the queue.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * The exponentially weighted moving average of the execution time of the tasks of the key.
+         */
+        public long getTaskTimeNanos() {
+            return taskTimeNanos;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(key);
+            builder.field(Fields.WEIGHT, weight);
+            builder.field(Fields.QUEUE, queue);
+            builder.field(Fields.REJECTED, rejected);
+            builder.field(Fields.COMPLETED, completed);
+            builder.humanReadableField(Fields.TASK_TIME_IN_NANOS, Fields.TASK_TIME, new TimeValue(taskTimeNanos, TimeUnit.NANOSECONDS));
+            builder.endObject();
+            return builder;
+        }
+    }
+
     private List<Stats> stats;
 
     public ThreadPoolStats(List<Stats> stats) {
@@ -174,6 +295,10 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         static final String REJECTED = "rejected";
         static final String LARGEST = "largest";
         static final String COMPLETED = "completed";
+        static final String FAIR_QUEUE = "fair_queue";
+        static final String WEIGHT = "weight";
+        static final String TASK_TIME = "task_time";
+        static final String TASK_TIME_IN_NANOS = "task_time_in_nanos";
     }
 
     @Override
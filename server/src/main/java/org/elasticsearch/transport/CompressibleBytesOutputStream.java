@@ -20,8 +20,9 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -31,7 +32,7 @@ import java.util.zip.DeflaterOutputStream;
 
 /**
  * This class exists to provide a stream with optional compression. This is useful as using compression
- * requires that the underlying {@link DeflaterOutputStream} be closed to write EOS bytes. However, the
+ * requires that the underlying compressed stream (e.g. a {@link DeflaterOutputStream}) be closed to write EOS bytes. However, the
  * {@link BytesStream} should not be closed yet, as we have not used the bytes. This class handles these
  * intricacies.
  *
@@ -48,11 +49,15 @@ final class CompressibleBytesOutputStream extends StreamOutput {
     private final BytesStream bytesStreamOutput;
     private final boolean shouldCompress;
 
-    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+    /**
+     * @param bytesStreamOutput the stream to write the (possibly compressed) bytes to
+     * @param compressor the compressor to use, or <code>null</code> if the bytes should not be compressed
+     */
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, @Nullable Compressor compressor) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
-        this.shouldCompress = shouldCompress;
+        this.shouldCompress = compressor != null;
         if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            this.stream = compressor.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
         } else {
             this.stream = bytesStreamOutput;
         }
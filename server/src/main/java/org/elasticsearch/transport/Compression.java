@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.LZ4Compressor;
+
+import java.util.Locale;
+
+public final class Compression {
+
+    private Compression() {}
+
+    /**
+     * The compression algorithms that can be used to compress transport messages.
+     */
+    public enum Scheme {
+        DEFLATE(CompressorFactory.COMPRESSOR, Version.V_EMPTY),
+        LZ4(new LZ4Compressor(), Version.V_8_0_0);
+
+        private final Compressor compressor;
+        private final Version minimumVersion;
+
+        Scheme(Compressor compressor, Version minimumVersion) {
+            this.compressor = compressor;
+            this.minimumVersion = minimumVersion;
+        }
+
+        public Compressor compressor() {
+            return compressor;
+        }
+
+        /**
+         * Returns the scheme to use to compress a message sent with the given wire version. Nodes that don't know
+         * about this scheme fall back to {@link #DEFLATE}.
+         */
+        Scheme forVersion(Version version) {
+            return version.onOrAfter(minimumVersion) ? this : DEFLATE;
+        }
+
+        public static Scheme fromString(String value) {
+            try {
+                return Scheme.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown compression scheme [" + value + "], must be one of [deflate, lz4]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -20,7 +20,6 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -104,13 +103,14 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
         }
 
         static StreamInput decompressingStream(byte status, Version remoteVersion, StreamInput streamInput) throws IOException {
-            if (TransportStatus.isCompress(status) && streamInput.available() > 0) {
+            final Compression.Scheme compressionScheme = TransportStatus.compressionScheme(status);
+            if (compressionScheme != null && streamInput.available() > 0) {
                 try {
-                    StreamInput decompressor = CompressorFactory.COMPRESSOR.streamInput(streamInput);
+                    StreamInput decompressor = compressionScheme.compressor().streamInput(streamInput);
                     decompressor.setVersion(remoteVersion);
                     return decompressor;
                 } catch (IllegalArgumentException e) {
-                    throw new IllegalStateException("stream marked as compressed, but is missing deflate header");
+                    throw new IllegalStateException("stream marked as compressed, but is missing " + compressionScheme + " header");
                 }
             } else {
                 return streamInput;
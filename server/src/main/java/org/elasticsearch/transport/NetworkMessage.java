@@ -54,6 +54,13 @@ public abstract class NetworkMessage {
         return TransportStatus.isCompress(status);
     }
 
+    /**
+     * Returns the scheme used to compress this message or <code>null</code> if the message is not compressed.
+     */
+    Compression.Scheme getCompressionScheme() {
+        return TransportStatus.compressionScheme(status);
+    }
+
     ThreadContext.StoredContext getStoredContext() {
         return storedContext;
     }
@@ -19,10 +19,12 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -54,7 +56,9 @@ abstract class OutboundMessage extends NetworkMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        final Compression.Scheme compressionScheme = TransportStatus.compressionScheme(status);
+        final Compressor compressor = compressionScheme == null ? null : compressionScheme.compressor();
+        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, compressor)) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
@@ -103,8 +107,8 @@ abstract class OutboundMessage extends NetworkMessage {
         private final String action;
 
         Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
-                boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+                boolean isHandshake, @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme, isHandshake, message, version), requestId, message);
             this.action = action;
         }
 
@@ -118,11 +122,11 @@ abstract class OutboundMessage extends NetworkMessage {
             stream.writeString(action);
         }
 
-        private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
+        private static byte setStatus(Compression.Scheme compressionScheme, boolean isHandshake, Writeable message, Version version) {
             byte status = 0;
             status = TransportStatus.setRequest(status);
-            if (compress && OutboundMessage.canCompress(message)) {
-                status = TransportStatus.setCompress(status);
+            if (compressionScheme != null && OutboundMessage.canCompress(message)) {
+                status = TransportStatus.setCompress(status, compressionScheme.forVersion(version));
             }
             if (isHandshake) {
                 status = TransportStatus.setHandshake(status);
@@ -134,18 +138,19 @@ abstract class OutboundMessage extends NetworkMessage {
 
     static class Response extends OutboundMessage {
 
-        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake,
+                 @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme, isHandshake, message, version), requestId, message);
         }
 
-        private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
+        private static byte setStatus(Compression.Scheme compressionScheme, boolean isHandshake, Writeable message, Version version) {
             byte status = 0;
             status = TransportStatus.setResponse(status);
             if (message instanceof RemoteTransportException) {
                 status = TransportStatus.setError(status);
             }
-            if (compress) {
-                status = TransportStatus.setCompress(status);
+            if (compressionScheme != null) {
+                status = TransportStatus.setCompress(status, compressionScheme.forVersion(version));
             }
             if (isHandshake) {
                 status = TransportStatus.setHandshake(status);
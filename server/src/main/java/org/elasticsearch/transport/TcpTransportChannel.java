@@ -36,10 +36,10 @@ public final class TcpTransportChannel implements TransportChannel {
     private final Version version;
     private final CircuitBreakerService breakerService;
     private final long reservedBytes;
-    private final boolean compressResponse;
+    private final Compression.Scheme compressionScheme;
 
     TcpTransportChannel(OutboundHandler outboundHandler, TcpChannel channel, String action, long requestId, Version version,
-                        CircuitBreakerService breakerService, long reservedBytes, boolean compressResponse) {
+                        CircuitBreakerService breakerService, long reservedBytes, Compression.Scheme compressionScheme) {
         this.version = version;
         this.channel = channel;
         this.outboundHandler = outboundHandler;
@@ -47,7 +47,7 @@ public final class TcpTransportChannel implements TransportChannel {
         this.requestId = requestId;
         this.breakerService = breakerService;
         this.reservedBytes = reservedBytes;
-        this.compressResponse = compressResponse;
+        this.compressionScheme = compressionScheme;
     }
 
     @Override
@@ -58,7 +58,7 @@ public final class TcpTransportChannel implements TransportChannel {
     @Override
     public void sendResponse(TransportResponse response) throws IOException {
         try {
-            outboundHandler.sendResponse(version, channel, requestId, action, response, compressResponse, false);
+            outboundHandler.sendResponse(version, channel, requestId, action, response, compressionScheme, false);
         } finally {
             release(false);
         }
@@ -25,6 +25,7 @@ public final class TransportStatus {
     private static final byte STATUS_ERROR = 1 << 1;
     private static final byte STATUS_COMPRESS = 1 << 2;
     private static final byte STATUS_HANDSHAKE = 1 << 3;
+    private static final byte STATUS_COMPRESS_LZ4 = 1 << 4;
 
     public static boolean isRequest(byte value) {
         return (value & STATUS_REQRES) == 0;
@@ -58,6 +59,24 @@ public final class TransportStatus {
         return value;
     }
 
+    /**
+     * Returns the {@link Compression.Scheme} of the message or <code>null</code> if the message is not compressed.
+     */
+    static Compression.Scheme compressionScheme(byte value) { // pkg private since it's only used internally
+        if (isCompress(value) == false) {
+            return null;
+        }
+        return (value & STATUS_COMPRESS_LZ4) != 0 ? Compression.Scheme.LZ4 : Compression.Scheme.DEFLATE;
+    }
+
+    static byte setCompress(byte value, Compression.Scheme scheme) { // pkg private since it's only used internally
+        value = setCompress(value);
+        if (scheme == Compression.Scheme.LZ4) {
+            value |= STATUS_COMPRESS_LZ4;
+        }
+        return value;
+    }
+
     static boolean isHandshake(byte value) { // pkg private since it's only used internally
         return (value & STATUS_HANDSHAKE) != 0;
     }
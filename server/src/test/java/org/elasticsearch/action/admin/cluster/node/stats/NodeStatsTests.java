@@ -26,6 +26,8 @@ import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.search.stats.QueryShapeStats;
+import org.elasticsearch.index.stats.IndexingPressureStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -311,6 +313,33 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
                     });
                 }
+                IndexingPressureStats indexingPressureStats = nodeStats.getIndexingPressureStats();
+                IndexingPressureStats deserializedIndexingPressureStats = deserializedNodeStats.getIndexingPressureStats();
+                if (indexingPressureStats == null) {
+                    assertNull(deserializedIndexingPressureStats);
+                } else {
+                    assertEquals(indexingPressureStats.getTotalCoordinatingBytes(),
+                        deserializedIndexingPressureStats.getTotalCoordinatingBytes());
+                    assertEquals(indexingPressureStats.getTotalPrimaryBytes(), deserializedIndexingPressureStats.getTotalPrimaryBytes());
+                    assertEquals(indexingPressureStats.getTotalReplicaBytes(), deserializedIndexingPressureStats.getTotalReplicaBytes());
+                    assertEquals(indexingPressureStats.getCurrentCoordinatingBytes(),
+                        deserializedIndexingPressureStats.getCurrentCoordinatingBytes());
+                    assertEquals(indexingPressureStats.getCoordinatingRejections(),
+                        deserializedIndexingPressureStats.getCoordinatingRejections());
+                    assertEquals(indexingPressureStats.getPrimaryRejections(), deserializedIndexingPressureStats.getPrimaryRejections());
+                    assertEquals(indexingPressureStats.getMemoryLimit(), deserializedIndexingPressureStats.getMemoryLimit());
+                }
+                QueryShapeStats queryShapeStats = nodeStats.getQueryShapeStats();
+                QueryShapeStats deserializedQueryShapeStats = deserializedNodeStats.getQueryShapeStats();
+                if (queryShapeStats == null) {
+                    assertNull(deserializedQueryShapeStats);
+                } else {
+                    assertEquals(queryShapeStats.getCount(), deserializedQueryShapeStats.getCount());
+                    assertEquals(queryShapeStats.getTimeInNanos(), deserializedQueryShapeStats.getTimeInNanos());
+                    assertEquals(queryShapeStats.getCpuTimeInNanos(), deserializedQueryShapeStats.getCpuTimeInNanos());
+                    assertEquals(queryShapeStats.getOtherCount(), deserializedQueryShapeStats.getOtherCount());
+                    assertEquals(queryShapeStats.getShapes(), deserializedQueryShapeStats.getShapes());
+                }
             }
         }
     }
@@ -485,10 +514,31 @@ public class NodeStatsTests extends ESTestCase {
             }
             adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
         }
+        IndexingPressureStats indexingPressureStats = null;
+        if (frequently()) {
+            indexingPressureStats = new IndexingPressureStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+        }
+        QueryShapeStats queryShapeStats = null;
+        if (frequently()) {
+            int numShapes = randomIntBetween(0, 10);
+            List<QueryShapeStats.Shape> shapes = new ArrayList<>(numShapes);
+            for (int i = 0; i < numShapes; i++) {
+                long[] latencyHistogram = new long[QueryShapeStats.LATENCY_BUCKETS_IN_MILLIS.length + 1];
+                for (int j = 0; j < latencyHistogram.length; j++) {
+                    latencyHistogram[j] = randomNonNegativeLong();
+                }
+                shapes.add(new QueryShapeStats.Shape(randomAlphaOfLength(16), randomAlphaOfLengthBetween(2, 100),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), latencyHistogram));
+            }
+            queryShapeStats = new QueryShapeStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), shapes);
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats);
+                ingestStats, adaptiveSelectionStats, indexingPressureStats, queryShapeStats);
     }
 
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.MinAndMax;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ESTestCase;
+
+public class BottomSortValuesCollectorTests extends ESTestCase {
+
+    public void testDescendingOrder() {
+        BottomSortValuesCollector collector = new BottomSortValuesCollector(3, SortOrder.DESC, SearchContext.TRACK_TOTAL_HITS_DISABLED);
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(0L, 1L)));
+
+        // not a full page of hits
+        collector.consumeTopDocs(newTopDocs(100, 50L, 40L));
+        assertNull(collector.getBottomValue());
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(0L, 1L)));
+
+        collector.consumeTopDocs(newTopDocs(100, 50L, 40L, 30L));
+        assertEquals(30L, collector.getBottomValue());
+        collector.consumeTopDocs(newTopDocs(100, 90L, 80L, 70L));
+        assertEquals(70L, collector.getBottomValue());
+        collector.consumeTopDocs(newTopDocs(100, 20L, 10L, 5L));
+        assertEquals(70L, collector.getBottomValue());
+
+        assertTrue(collector.isNonCompetitive(MinAndMax.newMinMax(0L, 69L)));
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(0L, 70L)));
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(60L, 100L)));
+        assertFalse(collector.isNonCompetitive(null));
+        // values of a different type are not comparable
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(0d, 1d)));
+    }
+
+    public void testAscendingOrder() {
+        BottomSortValuesCollector collector = new BottomSortValuesCollector(2, SortOrder.ASC, SearchContext.TRACK_TOTAL_HITS_DISABLED);
+        collector.consumeTopDocs(newTopDocs(100, 1d, 10d));
+        collector.consumeTopDocs(newTopDocs(100, 2d, 5d));
+        // documents without value are ignored
+        collector.consumeTopDocs(newTopDocs(100, 0d, null));
+        assertEquals(5d, collector.getBottomValue());
+
+        assertTrue(collector.isNonCompetitive(MinAndMax.newMinMax(5.5d, 100d)));
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(5d, 100d)));
+        assertFalse(collector.isNonCompetitive(MinAndMax.newMinMax(0d, 1d)));
+    }
+
+    public void testTrackTotalHits() {
+        BottomSortValuesCollector collector = new BottomSortValuesCollector(1, SortOrder.DESC, 100);
+        collector.consumeTopDocs(newTopDocs(60, 50L));
+        MinAndMax<Long> minAndMax = MinAndMax.newMinMax(0L, 10L);
+        assertFalse(collector.isNonCompetitive(minAndMax));
+        collector.consumeTopDocs(newTopDocs(40, 20L));
+        assertFalse(collector.isNonCompetitive(minAndMax));
+        collector.consumeTopDocs(newTopDocs(1, 20L));
+        assertTrue(collector.isNonCompetitive(minAndMax));
+
+        collector = new BottomSortValuesCollector(1, SortOrder.DESC, SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+        collector.consumeTopDocs(newTopDocs(1000, 50L));
+        assertFalse(collector.isNonCompetitive(minAndMax));
+    }
+
+    private static TopFieldDocs newTopDocs(long totalHits, Object... values) {
+        ScoreDoc[] scoreDocs = new ScoreDoc[values.length];
+        for (int i = 0; i < values.length; i++) {
+            scoreDocs[i] = new FieldDoc(i, Float.NaN, new Object[] { values[i] });
+        }
+        SortField[] sortFields = new SortField[] { new SortField("field", SortField.Type.LONG) };
+        return new TopFieldDocs(new TotalHits(totalHits, TotalHits.Relation.EQUAL_TO), scoreDocs, sortFields);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class ClosePointInTimeRequestTests extends ESTestCase {
+
+    public void testSerialization() throws IOException {
+        ClosePointInTimeRequest request = new ClosePointInTimeRequest(randomAlphaOfLengthBetween(1, 100));
+        ClosePointInTimeRequest deserialized = copyWriteable(request, new NamedWriteableRegistry(Collections.emptyList()),
+            ClosePointInTimeRequest::new);
+        assertEquals(request.getId(), deserialized.getId());
+    }
+
+    public void testFromXContent() throws IOException {
+        final String id = randomAlphaOfLengthBetween(1, 100);
+        try (XContentParser parser = createParser(XContentFactory.jsonBuilder().startObject().field("id", id).endObject())) {
+            assertEquals(id, ClosePointInTimeRequest.fromXContent(parser).getId());
+        }
+        try (XContentParser parser = createParser(XContentFactory.jsonBuilder()
+                .startObject()
+                .field("id", id)
+                .field("unknown", "value")
+                .endObject())) {
+            Exception e = expectThrows(IllegalArgumentException.class, () -> ClosePointInTimeRequest.fromXContent(parser));
+            assertThat(e.getMessage(), containsString("[close_point_in_time] unknown field [unknown]"));
+        }
+    }
+
+    public void testValidate() {
+        ActionRequestValidationException validationErrors = new ClosePointInTimeRequest(randomBoolean() ? null : "").validate();
+        assertNotNull(validationErrors);
+        assertEquals(1, validationErrors.validationErrors().size());
+        assertEquals("point in time id is not specified", validationErrors.validationErrors().get(0));
+        assertNull(new ClosePointInTimeRequest("id").validate());
+    }
+}
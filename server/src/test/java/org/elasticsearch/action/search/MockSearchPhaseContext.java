@@ -22,6 +22,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -49,6 +50,7 @@ public final class MockSearchPhaseContext implements SearchPhaseContext {
     final Set<Long> releasedSearchContexts = new HashSet<>();
     final SearchRequest searchRequest = new SearchRequest();
     final AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+    final List<Releasable> releasables = Collections.synchronizedList(new ArrayList<>());
 
     public MockSearchPhaseContext(int numShards) {
         this.numShards = numShards;
@@ -109,6 +111,11 @@ public final class MockSearchPhaseContext implements SearchPhaseContext {
         return searchTransport;
     }
 
+    @Override
+    public void addReleasable(Releasable releasable) {
+        releasables.add(releasable);
+    }
+
     @Override
     public ShardSearchRequest buildShardSearchRequest(SearchShardIterator shardIt) {
         Assert.fail("should not be called");
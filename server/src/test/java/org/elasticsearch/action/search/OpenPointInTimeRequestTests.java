@@ -0,0 +1,62 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class OpenPointInTimeRequestTests extends ESTestCase {
+
+    public void testSerialization() throws IOException {
+        OpenPointInTimeRequest request = new OpenPointInTimeRequest(generateRandomStringArray(5, 10, false, true))
+            .keepAlive(TimeValue.timeValueSeconds(randomIntBetween(1, 3600)))
+            .indicesOptions(IndicesOptions.fromOptions(randomBoolean(), randomBoolean(), randomBoolean(), randomBoolean()));
+        if (randomBoolean()) {
+            request.routing(randomAlphaOfLengthBetween(3, 10));
+        }
+        if (randomBoolean()) {
+            request.preference(randomAlphaOfLengthBetween(3, 10));
+        }
+        OpenPointInTimeRequest deserialized = copyWriteable(request, new NamedWriteableRegistry(Collections.emptyList()),
+            OpenPointInTimeRequest::new);
+        assertArrayEquals(request.indices(), deserialized.indices());
+        assertEquals(request.indicesOptions(), deserialized.indicesOptions());
+        assertEquals(request.keepAlive(), deserialized.keepAlive());
+        assertEquals(request.routing(), deserialized.routing());
+        assertEquals(request.preference(), deserialized.preference());
+    }
+
+    public void testValidate() {
+        OpenPointInTimeRequest request = new OpenPointInTimeRequest("index");
+        ActionRequestValidationException validationErrors = request.validate();
+        assertNotNull(validationErrors);
+        assertEquals(1, validationErrors.validationErrors().size());
+        assertEquals("[keep_alive] is not specified", validationErrors.validationErrors().get(0));
+
+        request.keepAlive(TimeValue.timeValueMinutes(1));
+        assertNull(request.validate());
+    }
+}
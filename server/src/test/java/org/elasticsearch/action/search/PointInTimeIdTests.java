@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class PointInTimeIdTests extends ESTestCase {
+
+    private final NamedWriteableRegistry namedWriteableRegistry =
+        new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, Collections.emptyList()).getNamedWriteables());
+
+    public void testEncodeDecode() {
+        final Map<ShardId, PointInTimeId.ShardReader> shards = new LinkedHashMap<>();
+        final Map<String, AliasFilter> aliasFilter = new HashMap<>();
+        final int numIndices = randomIntBetween(0, 5);
+        for (int i = 0; i < numIndices; i++) {
+            final String indexName = randomAlphaOfLengthBetween(5, 10) + i;
+            final String indexUUID = randomAlphaOfLength(20);
+            final int numShards = randomIntBetween(1, 5);
+            for (int shard = 0; shard < numShards; shard++) {
+                shards.put(new ShardId(indexName, indexUUID, shard),
+                    new PointInTimeId.ShardReader(randomAlphaOfLengthBetween(5, 10), randomNonNegativeLong()));
+            }
+            final AliasFilter filter;
+            if (randomBoolean()) {
+                filter = AliasFilter.EMPTY;
+            } else {
+                filter = new AliasFilter(new TermQueryBuilder(randomAlphaOfLength(5), randomAlphaOfLength(5)), "alias" + i);
+            }
+            aliasFilter.put(indexUUID, filter);
+        }
+
+        final String id = PointInTimeId.encode(shards, aliasFilter);
+        final PointInTimeId pointInTimeId = PointInTimeId.decode(namedWriteableRegistry, id);
+        assertThat(pointInTimeId.shards().keySet(), equalTo(shards.keySet()));
+        for (Map.Entry<ShardId, PointInTimeId.ShardReader> entry : shards.entrySet()) {
+            final PointInTimeId.ShardReader shardReader = pointInTimeId.shards().get(entry.getKey());
+            assertThat(shardReader.getNodeId(), equalTo(entry.getValue().getNodeId()));
+            assertThat(shardReader.getReaderId(), equalTo(entry.getValue().getReaderId()));
+        }
+        assertThat(pointInTimeId.aliasFilter(), equalTo(aliasFilter));
+    }
+
+    public void testDecodeInvalidId() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> PointInTimeId.decode(namedWriteableRegistry, "not a point in time id"));
+        assertThat(e.getMessage(), equalTo("Cannot parse point in time id"));
+
+        // trailing bytes are rejected
+        final String id = PointInTimeId.encode(Collections.emptyMap(), Collections.emptyMap());
+        e = expectThrows(IllegalArgumentException.class, () -> PointInTimeId.decode(namedWriteableRegistry, id + "AAAA"));
+        assertThat(e.getMessage(), equalTo("Cannot parse point in time id"));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class SearchAdmissionControllerTests extends ESTestCase {
+
+    public void testEstimateCostPerShard() {
+        assertThat(SearchAdmissionController.estimateCostPerShard(null, 10000), equalTo(1L));
+        assertThat(SearchAdmissionController.estimateCostPerShard(new SearchSourceBuilder(), 10000), equalTo(1L));
+        assertThat(SearchAdmissionController.estimateCostPerShard(
+            new SearchSourceBuilder().query(QueryBuilders.termQuery("field", "value")), 10000), equalTo(1L));
+
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+            .must(QueryBuilders.wildcardQuery("field", "val*"))
+            .filter(QueryBuilders.constantScoreQuery(QueryBuilders.regexpQuery("field", "v.*")))
+            .should(QueryBuilders.termQuery("field", "value")));
+        assertThat(SearchAdmissionController.estimateCostPerShard(source, 10000),
+            equalTo(1 + 2 * SearchAdmissionController.EXPENSIVE_QUERY_COST));
+
+        // 100 date histogram buckets, each with 10 terms buckets and a metric
+        source = new SearchSourceBuilder().aggregation(AggregationBuilders.dateHistogram("histo").field("date")
+            .calendarInterval(DateHistogramInterval.HOUR)
+            .subAggregation(AggregationBuilders.terms("terms").field("keyword").size(10)
+                .subAggregation(AggregationBuilders.max("max").field("number"))));
+        assertThat(SearchAdmissionController.estimateCostPerShard(source, 10000), equalTo(1 + (100 + 1000 + 1000) / 100L));
+        // capped by the maximum number of buckets
+        assertThat(SearchAdmissionController.estimateCostPerShard(source, 500), equalTo(1 + 500 / 100L));
+    }
+
+    public void testAdmit() {
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.BUDGET_SETTING.getKey(), 100)
+            .build(), ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final SearchAdmissionController controller = new SearchAdmissionController(clusterSettings);
+        final SearchSourceBuilder expensive = new SearchSourceBuilder().query(QueryBuilders.wildcardQuery("field", "*value"));
+
+        // a request over the budget is admitted on an idle node
+        final ActionListener<Void> first = controller.admit(expensive, 20, ActionListener.wrap(() -> {}));
+        assertThat(controller.getInFlightCost(), equalTo(220L));
+        expectThrows(EsRejectedExecutionException.class, () -> controller.admit(expensive, 1, ActionListener.wrap(() -> {})));
+        // cheap requests are always admitted
+        final ActionListener<Void> cheap = controller.admit(new SearchSourceBuilder(), 5, ActionListener.wrap(() -> {}));
+        assertThat(controller.getInFlightCost(), equalTo(225L));
+
+        first.onResponse(null);
+        cheap.onFailure(new Exception());
+        assertThat(controller.getInFlightCost(), equalTo(0L));
+        final ActionListener<Void> second = controller.admit(expensive, 5, ActionListener.wrap(() -> {}));
+        assertThat(controller.getInFlightCost(), equalTo(55L));
+        second.onResponse(null);
+
+        clusterSettings.applySettings(Settings.builder().put(SearchAdmissionController.ENABLED_SETTING.getKey(), false).build());
+        final ActionListener<Void> listener = ActionListener.wrap(() -> {});
+        assertSame(listener, controller.admit(expensive, 20, listener));
+        assertThat(controller.getInFlightCost(), equalTo(0L));
+    }
+}
@@ -28,12 +28,14 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -468,6 +470,125 @@ public class SearchAsyncActionTests extends ESTestCase {
         assertThat(numFailReplicas.get(), greaterThanOrEqualTo(1));
     }
 
+    public void testHedgedRequests() throws InterruptedException {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        int numShards = randomIntBetween(1, 10);
+        request.setMaxConcurrentShardRequests(numShards);
+        ActionListener<SearchResponse> responseListener = ActionListener.wrap(response -> {},
+            (e) -> { throw new AssertionError("unexpected", e);});
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards, true, primaryNode, replicaNode);
+        Set<Long> freedContexts = newConcurrentSet();
+        SearchTransportService transportService = new SearchTransportService(null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, long contextId, OriginalIndices originalIndices) {
+                assertTrue(freedContexts.add(contextId));
+            }
+        };
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        lookup.put(primaryNode.getId(), new MockConnection(primaryNode));
+        lookup.put(replicaNode.getId(), new MockConnection(replicaNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        // the requests to the first copies of the shards only respond once the search phase is done
+        Map<ShardId, Runnable> slowResponses = new ConcurrentHashMap<>();
+        Set<Long> hedgedContexts = newConcurrentSet();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<SearchPhaseResults<TestSearchPhaseResult>> phaseResults = new AtomicReference<>();
+        AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction =
+            new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+                "test",
+                logger,
+                transportService,
+                (cluster, node) -> {
+                    assert cluster == null : "cluster was not null: " + cluster;
+                    return lookup.get(node); },
+                aliasFilters,
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                executor,
+                request,
+                responseListener,
+                shardsIter,
+                new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+                0,
+                null,
+                new ArraySearchPhaseResults<>(shardsIter.size()),
+                request.getMaxConcurrentShardRequests(),
+                SearchResponse.Clusters.EMPTY) {
+
+                @Override
+                protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
+                                                   SearchActionListener<TestSearchPhaseResult> listener) {
+                    Transport.Connection connection = getConnection(null, shard.currentNodeId());
+                    TestSearchPhaseResult testSearchPhaseResult = new TestSearchPhaseResult(contextIdGenerator.incrementAndGet(),
+                        connection.getNode());
+                    if (slowResponses.containsKey(shard.shardId())) {
+                        hedgedContexts.add(testSearchPhaseResult.getRequestId());
+                        new Thread(() -> listener.onResponse(testSearchPhaseResult)).start();
+                    } else {
+                        slowResponses.put(shard.shardId(), () -> listener.onResponse(testSearchPhaseResult));
+                    }
+                }
+
+                @Override
+                protected TimeValue getHedgedRequestDelay() {
+                    return TimeValue.timeValueMillis(randomIntBetween(0, 10));
+                }
+
+                @Override
+                protected Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+                    new Thread(command).start();
+                    return new Scheduler.Cancellable() {
+                        @Override
+                        public boolean cancel() {
+                            return false;
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return false;
+                        }
+                    };
+                }
+
+                @Override
+                protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                    return new SearchPhase("test") {
+                        @Override
+                        public void run() {
+                            phaseResults.set(results);
+                            latch.countDown();
+                        }
+                    };
+                }
+            };
+        asyncAction.start();
+        latch.await();
+        assertEquals(numShards, hedgedContexts.size());
+        for (int i = 0; i < numShards; i++) {
+            assertTrue(hedgedContexts.contains(phaseResults.get().getAtomicArray().get(i).getRequestId()));
+        }
+        SearchResponse searchResponse = asyncAction.buildSearchResponse(null, null, asyncAction.buildShardFailures());
+        assertEquals(numShards, searchResponse.getSuccessfulShards());
+        assertEquals(0, searchResponse.getFailedShards());
+
+        // the responses of the first copies are released
+        assertEquals(numShards, slowResponses.size());
+        for (Runnable slowResponse : slowResponses.values()) {
+            slowResponse.run();
+        }
+        assertEquals(numShards, freedContexts.size());
+        assertTrue(Collections.disjoint(hedgedContexts, freedContexts));
+        executor.shutdown();
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(String index, OriginalIndices originalIndices, int numShards,
                                                      boolean doReplicas, DiscoveryNode primaryNode, DiscoveryNode replicaNode) {
         ArrayList<SearchShardIterator> list = new ArrayList<>();
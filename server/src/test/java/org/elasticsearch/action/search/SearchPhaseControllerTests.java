@@ -31,13 +31,23 @@ import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -74,6 +84,7 @@ import java.util.stream.Stream;
 
 import static org.elasticsearch.action.search.SearchProgressListener.NOOP;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
@@ -91,7 +102,7 @@ public class SearchPhaseControllerTests extends ESTestCase {
             (finalReduce) -> {
                 reductions.add(finalReduce);
                 return new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, finalReduce);
-            });
+            }, new NoneCircuitBreakerService());
     }
 
     public void testSortDocs() {
@@ -436,6 +447,136 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs.collapseValues);
     }
 
+    public void testConsumerAccountsForBufferedAggs() {
+        CircuitBreakerService breakerService = newBreakerService(new ByteSizeValue(100, ByteSizeUnit.MB));
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.REQUEST);
+        SearchPhaseController controller = new SearchPhaseController(
+            (b) -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, b), breakerService);
+        int expectedNumResults = randomIntBetween(3, 100);
+        int bufferSize = randomIntBetween(2, expectedNumResults - 1);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")));
+        request.setBatchedReduceSize(bufferSize);
+        ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        assertThat(consumer, instanceOf(SearchPhaseController.QueryPhaseResultConsumer.class));
+        for (int i = 0; i < expectedNumResults; i++) {
+            consumer.consumeResult(maxQueryResult(i, i));
+            assertThat(breaker.getUsed(), greaterThan(0L));
+        }
+        assertEquals(bufferSize, ((SearchPhaseController.QueryPhaseResultConsumer) consumer).getBatchReduceSize());
+        if (randomBoolean()) {
+            SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+            InternalMax max = (InternalMax) reduce.aggregations.asList().get(0);
+            assertEquals(expectedNumResults - 1, max.getValue(), 0.0D);
+            assertEquals(0L, breaker.getUsed());
+        }
+        // the search request releases the results once it completed, whether they were reduced or not
+        consumer.close();
+        assertEquals(0L, breaker.getUsed());
+    }
+
+    public void testConsumerAccountsForSerializedSizeOfResultsFromTheWire() throws Exception {
+        CircuitBreakerService breakerService = newBreakerService(new ByteSizeValue(100, ByteSizeUnit.MB));
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.REQUEST);
+        SearchPhaseController controller = new SearchPhaseController(
+            (b) -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, b), breakerService);
+        int expectedNumResults = randomIntBetween(3, 100);
+        int bufferSize = randomIntBetween(2, expectedNumResults - 1);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")));
+        request.setBatchedReduceSize(bufferSize);
+        ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        NamedWriteableRegistry namedWriteableRegistry =
+            new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, Collections.emptyList()).getNamedWriteables());
+        QuerySearchResult localResult = maxQueryResult(0, 0);
+        QuerySearchResult result = copyWriteable(localResult, namedWriteableRegistry, QuerySearchResult::new);
+        result.setShardIndex(0);
+        result.setSearchShardTarget(localResult.getSearchShardTarget());
+        long serializedSize = result.serializedAggregationsSize();
+        assertThat(serializedSize, greaterThan(0L));
+        consumer.consumeResult(result);
+        assertEquals(serializedSize, breaker.getUsed());
+        consumer.close();
+        assertEquals(0L, breaker.getUsed());
+    }
+
+    public void testConsumerDropsResultsAfterClose() {
+        CircuitBreakerService breakerService = newBreakerService(new ByteSizeValue(100, ByteSizeUnit.MB));
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.REQUEST);
+        SearchPhaseController controller = new SearchPhaseController(
+            (b) -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, b), breakerService);
+        int expectedNumResults = randomIntBetween(4, 100);
+        int bufferSize = randomIntBetween(2, expectedNumResults - 2);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")));
+        request.setBatchedReduceSize(bufferSize);
+        SearchPhaseController.QueryPhaseResultConsumer consumer =
+            (SearchPhaseController.QueryPhaseResultConsumer) controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        // fill the buffer so that the next result would be reduced with the buffered ones
+        for (int i = 0; i < bufferSize; i++) {
+            consumer.consumeResult(maxQueryResult(i, i));
+        }
+        assertEquals(bufferSize, consumer.getNumBuffered());
+        assertThat(breaker.getUsed(), greaterThan(0L));
+        // the search fails and releases the buffered results while some shards haven't responded yet
+        consumer.close();
+        assertEquals(0L, breaker.getUsed());
+        for (int i = bufferSize; i < expectedNumResults; i++) {
+            consumer.consumeResult(maxQueryResult(i, i));
+            assertEquals(0L, breaker.getUsed());
+        }
+        assertEquals(0, consumer.getNumReducePhases());
+        consumer.close();
+        assertEquals(0L, breaker.getUsed());
+    }
+
+    public void testConsumerReducesEagerlyWhenBreakerIsOverLimit() {
+        CircuitBreakerService breakerService = newBreakerService(new ByteSizeValue(1, ByteSizeUnit.BYTES));
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.REQUEST);
+        SearchPhaseController controller = new SearchPhaseController(
+            (b) -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, b), breakerService);
+        int expectedNumResults = randomIntBetween(10, 100);
+        int bufferSize = randomIntBetween(2, 8);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")));
+        request.setBatchedReduceSize(bufferSize);
+        SearchPhaseController.QueryPhaseResultConsumer consumer =
+            (SearchPhaseController.QueryPhaseResultConsumer) controller.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            consumer.consumeResult(maxQueryResult(i, i));
+            // the breaker is over its limit once the results are accounted for, so the batches shrink to the minimum
+            assertThat(consumer.getBatchReduceSize(), lessThanOrEqualTo(Math.max(2, bufferSize >> (i + 1))));
+            assertThat(consumer.getNumBuffered(), lessThanOrEqualTo(bufferSize));
+        }
+        assertEquals(2, consumer.getBatchReduceSize());
+        assertThat(consumer.getNumReducePhases(), greaterThanOrEqualTo((expectedNumResults - bufferSize) / 2));
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        InternalMax max = (InternalMax) reduce.aggregations.asList().get(0);
+        assertEquals(expectedNumResults - 1, max.getValue(), 0.0D);
+        assertEquals(0L, breaker.getUsed());
+        // reducing eagerly isn't a failure, so the breaker doesn't count it as a trip
+        assertEquals(0L, breaker.getTrippedCount());
+    }
+
+    private static QuerySearchResult maxQueryResult(int shardIndex, double value) {
+        QuerySearchResult result = new QuerySearchResult(shardIndex, new SearchShardTarget("node", new ShardId("a", "b", shardIndex),
+            null, OriginalIndices.NONE));
+        result.topDocs(new TopDocsAndMaxScore(new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), Float.NaN),
+            new DocValueFormat[0]);
+        result.aggregations(new InternalAggregations(Collections.singletonList(new InternalMax("test", value, DocValueFormat.RAW,
+            Collections.emptyList(), Collections.emptyMap()))));
+        result.setShardIndex(shardIndex);
+        return result;
+    }
+
+    private static CircuitBreakerService newBreakerService(ByteSizeValue requestBreakerLimit) {
+        Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), requestBreakerLimit)
+            .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+            .build();
+        return new HierarchyCircuitBreakerService(settings, new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+    }
+
     public void testConsumerConcurrently() throws InterruptedException {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
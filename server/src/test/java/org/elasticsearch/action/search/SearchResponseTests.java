@@ -28,6 +28,8 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -51,6 +53,7 @@ import org.junit.Before;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
@@ -275,6 +278,25 @@ public class SearchResponseTests extends ESTestCase {
         }
     }
 
+    public void testToXContentChunked() throws IOException {
+        SearchResponse response = createTestItem(false);
+        XContentType xContentType = randomFrom(XContentType.values());
+        ToXContent.Params params = randomBoolean() ? ToXContent.EMPTY_PARAMS
+            : new ToXContent.MapParams(singletonMap(RestSearchAction.TOTAL_HITS_AS_INT_PARAM, "true"));
+        BytesReference expected = XContentHelper.toXContent(response, xContentType, params, false);
+
+        XContentBuilder builder = XContentFactory.contentBuilder(xContentType);
+        Iterator<? extends ToXContent> chunks = response.toXContentChunked();
+        int numChunks = 0;
+        while (chunks.hasNext()) {
+            chunks.next().toXContent(builder, params);
+            numChunks++;
+        }
+        // the hits are rendered one at a time
+        assertEquals(response.getHits().getHits().length + 5, numChunks);
+        assertEquals(expected, BytesReference.bytes(builder));
+    }
+
     public void testSerialization() throws IOException {
         SearchResponse searchResponse = createTestItem(false);
         SearchResponse deserialized = copyWriteable(searchResponse, namedWriteableRegistry, SearchResponse::new, Version.CURRENT);
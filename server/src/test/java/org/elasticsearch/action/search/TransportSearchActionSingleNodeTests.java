@@ -24,7 +24,10 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.WildcardQueryBuilder;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregations;
@@ -174,4 +177,21 @@ public class TransportSearchActionSingleNodeTests extends ESSingleNodeTestCase {
             assertEquals(2, longTerms.getBuckets().size());
         }
     }
+
+    public void testAdmittedCostIsReleasedWhenSearchFails() {
+        createIndex("test");
+        client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)).get();
+        try {
+            SearchAdmissionController admissionController = getInstanceFromNode(TransportSearchAction.class).getAdmissionController();
+            // the shards of the search are resolved, but the boosted index doesn't exist
+            SearchRequest searchRequest = new SearchRequest("test");
+            searchRequest.source(new SearchSourceBuilder().query(new WildcardQueryBuilder("field", "val*")).indexBoost("missing", 2f));
+            expectThrows(IndexNotFoundException.class, () -> client().search(searchRequest).actionGet());
+            assertEquals(0L, admissionController.getInFlightCost());
+        } finally {
+            client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchAdmissionController.ENABLED_SETTING.getKey())).get();
+        }
+    }
 }
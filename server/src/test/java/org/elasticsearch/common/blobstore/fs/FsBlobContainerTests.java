@@ -18,8 +18,17 @@
  */
 package org.elasticsearch.common.blobstore.fs;
 
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
@@ -37,4 +46,22 @@ public class FsBlobContainerTests extends ESTestCase {
         final String tempBlobName = FsBlobContainer.tempBlobName(randomAlphaOfLengthBetween(1, 20));
         assertThat(FsBlobContainer.isTempBlobName(tempBlobName), is(true));
     }
+
+    public void testReadBlobRangeCorrectlySkipBytes() throws IOException {
+        final String blobName = randomAlphaOfLengthBetween(1, 20);
+        final byte[] blobData = randomByteArrayOfLength(randomIntBetween(1, frequently() ? 512 : 1 << 20)); // rarely up to 1mb
+
+        final Path path = createTempDir();
+        final FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, path, false);
+        final FsBlobContainer container = new FsBlobContainer(blobStore, BlobPath.cleanPath(), path);
+        container.writeBlob(blobName, new BytesArray(blobData).streamInput(), blobData.length, true);
+
+        final int position = randomIntBetween(0, blobData.length - 1);
+        final int length = randomIntBetween(1, blobData.length - position);
+        try (InputStream stream = container.readBlob(blobName, position, length)) {
+            final BytesReference bytes = Streams.readFully(stream);
+            assertThat(bytes.length(), is(length));
+            assertThat(bytes, is(new BytesArray(blobData, position, length)));
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Runs the streaming compression tests against {@link LZ4Compressor}
+ */
+public class LZ4CompressTests extends DeflateCompressTests {
+
+    @Override
+    protected Compressor newCompressor() {
+        return new LZ4Compressor();
+    }
+
+    public void testFlushWritesCompleteBlocks() throws IOException {
+        final Compressor compressor = newCompressor();
+        final byte[] first = randomByteArrayOfLength(randomIntBetween(1, LZ4Compressor.BLOCK_SIZE * 2));
+        final byte[] second = randomByteArrayOfLength(randomIntBetween(0, LZ4Compressor.BLOCK_SIZE));
+        final BytesStreamOutput bytesOut = new BytesStreamOutput();
+        try (StreamOutput out = compressor.streamOutput(bytesOut)) {
+            out.writeBytes(first);
+            out.flush();
+            out.writeBytes(second);
+        }
+        final BytesReference compressed = bytesOut.bytes();
+        assertTrue(compressor.isCompressed(compressed));
+        assertFalse(new DeflateCompressor().isCompressed(compressed));
+
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            final byte[] actual = new byte[first.length + second.length];
+            in.readBytes(actual, 0, actual.length);
+            assertEquals(-1, in.read());
+            assertArrayEquals(first, Arrays.copyOfRange(actual, 0, first.length));
+            assertArrayEquals(second, Arrays.copyOfRange(actual, first.length, actual.length));
+        }
+    }
+
+    public void testRejectsMissingHeader() throws IOException {
+        final BytesStreamOutput bytesOut = new BytesStreamOutput();
+        try (StreamOutput out = new DeflateCompressor().streamOutput(bytesOut)) {
+            out.writeBytes(randomByteArrayOfLength(randomIntBetween(1, 100)));
+        }
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> newCompressor().streamInput(bytesOut.bytes().streamInput()));
+        assertEquals("Input stream is not compressed with LZ4!", e.getMessage());
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.common.io;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
 
@@ -79,4 +80,13 @@ public class StreamsTests extends ESTestCase {
         assertEquals(-1, input.read());
         input.close();
     }
+
+    public void testLimitInputStream() throws IOException {
+        final byte[] bytes = randomAlphaOfLengthBetween(1, 100).getBytes(StandardCharsets.UTF_8);
+        final int limit = randomIntBetween(0, bytes.length);
+        final BytesArray input = new BytesArray(bytes);
+        final BytesReference output = Streams.readFully(Streams.limitStream(input.streamInput(), limit));
+        assertEquals(limit, output.length());
+        assertEquals(output, input.slice(0, limit));
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.index;
+
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.instanceOf;
+
+public class SequentialStoredFieldsLeafReaderTests extends ESTestCase {
+
+    public void testCanUseSequentialStoredFieldsReader() throws Exception {
+        try (Directory dir = newDirectory();
+             IndexWriter iw = new IndexWriter(dir, new IndexWriterConfig(null))) {
+            final int numDocs = randomIntBetween(1, 100);
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new StoredField("id", Integer.toString(i)));
+                iw.addDocument(doc);
+            }
+            iw.forceMerge(1);
+
+            try (DirectoryReader reader = DirectoryReader.open(iw)) {
+                // a segment reader that isn't wrapped can't be cast to a SequentialStoredFieldsLeafReader
+                LeafReader segmentReader = reader.leaves().get(0).reader();
+                assertThat(segmentReader, instanceOf(CodecReader.class));
+                assertFalse(SequentialStoredFieldsLeafReader.canUseSequentialStoredFieldsReader(segmentReader));
+                // nor can any other wrapper
+                LeafReader filterReader = new FilterLeafReader(segmentReader) {
+                    @Override
+                    public CacheHelper getCoreCacheHelper() {
+                        return in.getCoreCacheHelper();
+                    }
+
+                    @Override
+                    public CacheHelper getReaderCacheHelper() {
+                        return in.getReaderCacheHelper();
+                    }
+                };
+                assertFalse(SequentialStoredFieldsLeafReader.canUseSequentialStoredFieldsReader(filterReader));
+            }
+
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), new ShardId("index", "_na_", 0))) {
+                LeafReader leafReader = reader.leaves().get(0).reader();
+                assertTrue(SequentialStoredFieldsLeafReader.canUseSequentialStoredFieldsReader(leafReader));
+                StoredFieldsReader storedFieldsReader = ((SequentialStoredFieldsLeafReader) leafReader).getSequentialStoredFieldsReader();
+                for (int i = 0; i < numDocs; i++) {
+                    DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor();
+                    storedFieldsReader.visitDocument(i, visitor);
+                    assertEquals(Integer.toString(i), visitor.getDocument().get("id"));
+                    assertEquals(leafReader.document(i).get("id"), visitor.getDocument().get("id"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LongLongHashTests extends ESTestCase {
+
+    private BigArrays randombigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
+    private LongLongHash randomHash() {
+        // Test high load factors to make sure that collision resolution works fine
+        final float maxLoadFactor = 0.6f + randomFloat() * 0.39f;
+        return new LongLongHash(randomIntBetween(0, 100), maxLoadFactor, randombigArrays());
+    }
+
+    public void testDuel() {
+        final List<long[]> values = new ArrayList<>();
+        final int numValues = randomIntBetween(1, 10000);
+        for (int i = 0; i < numValues; ++i) {
+            // few distinct first keys, like the owning bucket ordinals of an aggregation
+            values.add(new long[] { randomIntBetween(0, 10), randomLong() });
+        }
+        final Map<List<Long>, Long> valueToId = new HashMap<>();
+        final List<long[]> idToValue = new ArrayList<>();
+        try (LongLongHash hash = randomHash()) {
+            final int iters = randomInt(100000);
+            for (int i = 0; i < iters; ++i) {
+                final long[] value = randomFrom(values);
+                final List<Long> key = List.of(value[0], value[1]);
+                final Long id = valueToId.get(key);
+                if (id != null) {
+                    assertEquals(-1 - id, hash.add(value[0], value[1]));
+                } else {
+                    assertEquals(valueToId.size(), hash.add(value[0], value[1]));
+                    idToValue.add(value);
+                    valueToId.put(key, (long) valueToId.size());
+                }
+            }
+
+            assertEquals(valueToId.size(), hash.size());
+            for (Map.Entry<List<Long>, Long> entry : valueToId.entrySet()) {
+                assertEquals(entry.getValue().longValue(), hash.find(entry.getKey().get(0), entry.getKey().get(1)));
+            }
+            for (int i = 0; i < hash.size(); i++) {
+                assertEquals(idToValue.get(i)[0], hash.getKey1(i));
+                assertEquals(idToValue.get(i)[1], hash.getKey2(i));
+            }
+        }
+    }
+
+    public void testKeysAreNotSymmetric() {
+        try (LongLongHash hash = randomHash()) {
+            assertEquals(0, hash.add(1, 2));
+            assertEquals(1, hash.add(2, 1));
+            assertEquals(-1, hash.add(1, 2));
+            assertEquals(-1, hash.find(3, 3));
+            assertEquals(1, hash.find(2, 1));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.ThreadPoolStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class FairBlockingQueueTests extends ESTestCase {
+
+    public void testRoundRobinBetweenKeys() {
+        final AtomicReference<String> key = new AtomicReference<>();
+        final FairBlockingQueue<String> queue = new FairBlockingQueue<>(key::get, Map.of(), -1);
+        key.set("a");
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer("a" + i));
+        }
+        key.set("b");
+        for (int i = 0; i < 2; i++) {
+            assertTrue(queue.offer("b" + i));
+        }
+        assertThat(queue.size(), equalTo(7));
+
+        final List<String> taken = new ArrayList<>();
+        String e;
+        while ((e = queue.poll()) != null) {
+            taken.add(e);
+        }
+        assertThat(taken, equalTo(List.of("a0", "b0", "a1", "b1", "a2", "a3", "a4")));
+        assertThat(queue.size(), equalTo(0));
+    }
+
+    public void testWeights() {
+        final AtomicReference<String> key = new AtomicReference<>();
+        final FairBlockingQueue<String> queue = new FairBlockingQueue<>(key::get, Map.of("a", 2), -1);
+        for (int i = 0; i < 4; i++) {
+            key.set("a");
+            queue.offer("a" + i);
+            key.set("b");
+            queue.offer("b" + i);
+        }
+
+        final List<String> taken = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            taken.add(queue.poll());
+        }
+        assertThat(taken, equalTo(List.of("a0", "a1", "b0", "a2", "a3", "b1")));
+    }
+
+    public void testExpensiveKeyIsDispatchedLessOften() {
+        final AtomicReference<String> key = new AtomicReference<>();
+        final FairBlockingQueue<String> queue = new FairBlockingQueue<>(key::get, Map.of(), -1);
+        // measure the execution time of the tasks of both keys
+        key.set("cheap");
+        queue.offer("cheap");
+        key.set("expensive");
+        queue.offer("expensive");
+        for (int i = 0; i < 2; i++) {
+            final String e = queue.poll();
+            queue.onTaskExecuted(e.equals("cheap") ? 1_000 : 100_000);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            key.set("expensive");
+            queue.offer("expensive");
+            key.set("cheap");
+            queue.offer("cheap");
+        }
+        int cheap = 0;
+        for (int i = 0; i < 10; i++) {
+            if (queue.poll().equals("cheap")) {
+                cheap++;
+            }
+        }
+        assertThat(cheap, equalTo(9));
+    }
+
+    public void testMaxQueueSizePerKey() {
+        final AtomicReference<String> key = new AtomicReference<>("a");
+        final FairBlockingQueue<String> queue = new FairBlockingQueue<>(key::get, Map.of(), 2);
+        assertTrue(queue.offer("a0"));
+        assertTrue(queue.offer("a1"));
+        assertFalse(queue.offer("a2"));
+        // forced tasks are queued regardless
+        queue.put("a3");
+        key.set("b");
+        assertTrue(queue.offer("b0"));
+
+        final List<ThreadPoolStats.KeyStats> stats = queue.stats();
+        assertThat(stats.size(), equalTo(2));
+        assertThat(stats.get(0).getKey(), equalTo("a"));
+        assertThat(stats.get(0).getQueue(), equalTo(3));
+        assertThat(stats.get(0).getRejected(), equalTo(1L));
+        assertThat(stats.get(1).getKey(), equalTo("b"));
+        assertThat(stats.get(1).getQueue(), equalTo(1));
+        assertThat(stats.get(1).getRejected(), equalTo(0L));
+    }
+
+    public void testSubmissionKey() {
+        final FairBlockingQueue<Runnable> queue = new FairBlockingQueue<>(() -> null, Map.of(), -1);
+        final Runnable task = () -> {};
+        FairBlockingQueue.execute(queue::offer, "index", task);
+        queue.offer(task);
+
+        final List<ThreadPoolStats.KeyStats> stats = queue.stats();
+        assertThat(stats.size(), equalTo(2));
+        assertThat(stats.get(0).getKey(), equalTo(FairBlockingQueue.DEFAULT_KEY));
+        assertThat(stats.get(1).getKey(), equalTo("index"));
+    }
+
+    public void testCompletedTasks() throws InterruptedException {
+        final FairBlockingQueue<String> queue = new FairBlockingQueue<>(() -> "a", Map.of(), -1);
+        queue.offer("a0");
+        queue.offer("a1");
+        queue.take();
+        queue.onTaskExecuted(randomLongBetween(-1, 1000));
+        // a task that did not go through the queue is not counted
+        queue.onTaskExecuted(randomLongBetween(-1, 1000));
+
+        final List<ThreadPoolStats.KeyStats> stats = queue.stats();
+        assertThat(stats.size(), equalTo(1));
+        assertThat(stats.get(0).getCompleted(), equalTo(1L));
+        assertThat(stats.get(0).getQueue(), equalTo(1));
+    }
+}
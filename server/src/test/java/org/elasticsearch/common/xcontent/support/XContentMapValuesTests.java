@@ -69,6 +69,16 @@ public class XContentMapValuesTests extends AbstractFilteringTestCase {
         assertEquals("Filtered map must be equal to the expected map",
                 toMap(expected, xContentType, humanReadable),
                 XContentMapValues.filter(toMap(actual, xContentType, humanReadable), sourceIncludes, sourceExcludes));
+
+        ToXContentObject toXContent = (builder, params) -> actual.apply(builder);
+        BytesReference bytes = toXContent(toXContent, xContentType, humanReadable);
+        XContentBuilder filtered = XContentBuilder.builder(xContentType.xContent());
+        try (XContentParser parser = createParser(xContentType.xContent(), bytes)) {
+            XContentMapValues.filterToXContent(sourceIncludes, sourceExcludes).accept(parser, filtered);
+        }
+        assertEquals("Filtered source must be equal to the expected map",
+                toMap(expected, xContentType, humanReadable),
+                convertToMap(BytesReference.bytes(filtered), true, xContentType).v2());
     }
 
     @SuppressWarnings({"unchecked"})
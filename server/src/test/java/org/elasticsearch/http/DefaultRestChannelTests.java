@@ -24,6 +24,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.PagedBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -32,10 +33,14 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -59,6 +64,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
@@ -212,6 +219,30 @@ public class DefaultRestChannelTests extends ESTestCase {
         assertEquals(resp.contentType(), headers.get(DefaultRestChannel.CONTENT_TYPE).get(0));
     }
 
+    public void testChunkedResponse() throws IOException {
+        final TestRequest httpRequest = new TestRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/");
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays,
+            HttpHandlingSettings.fromSettings(Settings.EMPTY), threadPool.getThreadContext(), null);
+
+        final int numValues = randomIntBetween(0, 10);
+        final ChunkedToXContent chunkedToXContent = () -> Iterators.concat(
+            Collections.<ToXContent>singletonList((builder, params) -> builder.startObject().startArray("values")).iterator(),
+            IntStream.range(0, numValues).<ToXContent>mapToObj(i -> (builder, params) -> builder.value(i)).iterator(),
+            Collections.<ToXContent>singletonList((builder, params) -> builder.endArray().endObject()).iterator());
+        channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, ChunkedRestResponseBody.fromXContent(chunkedToXContent,
+            ToXContent.EMPTY_PARAMS, channel)));
+
+        // the test request doesn't support chunked responses, so the whole body is serialized at once
+        ArgumentCaptor<TestResponse> responseCaptor = ArgumentCaptor.forClass(TestResponse.class);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), any());
+        TestResponse httpResponse = responseCaptor.getValue();
+        String expected = IntStream.range(0, numValues).mapToObj(Integer::toString).collect(Collectors.joining(",", "{\"values\":[", "]}"));
+        assertEquals(expected, httpResponse.content().utf8ToString());
+        assertEquals(Integer.toString(expected.length()), httpResponse.headers.get(DefaultRestChannel.CONTENT_LENGTH).get(0));
+        assertEquals("application/json; charset=UTF-8", httpResponse.headers.get(DefaultRestChannel.CONTENT_TYPE).get(0));
+    }
+
     public void testCookiesSet() {
         Settings settings = Settings.builder().put(HttpTransportSettings.SETTING_HTTP_RESET_COOKIES.getKey(), true).build();
         final TestRequest httpRequest = new TestRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/");
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.search.stats;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class QueryShapeStatsServiceTests extends ESTestCase {
+
+    public void testDisabledByDefault() {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        QueryShapeStatsService service = new QueryShapeStatsService(Settings.EMPTY, clusterSettings);
+        assertFalse(service.isEnabled());
+        assertThat(service.shape(new SearchSourceBuilder()), nullValue());
+
+        clusterSettings.applySettings(Settings.builder().put(QueryShapeStatsService.QUERY_SHAPES_ENABLED_SETTING.getKey(), true).build());
+        assertTrue(service.isEnabled());
+        assertThat(service.shape(new SearchSourceBuilder()), equalTo(QueryShapes.shape(new SearchSourceBuilder())));
+    }
+
+    public void testStats() {
+        Settings settings = Settings.builder()
+            .put(QueryShapeStatsService.QUERY_SHAPES_ENABLED_SETTING.getKey(), true)
+            .put(QueryShapeStatsService.QUERY_SHAPES_MAX_SHAPES_SETTING.getKey(), 2)
+            .build();
+        QueryShapeStatsService service = new QueryShapeStatsService(settings,
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        String termShape = service.shape(new SearchSourceBuilder().query(QueryBuilders.termQuery("user", "kimchy")));
+        String matchShape = service.shape(new SearchSourceBuilder().query(QueryBuilders.matchQuery("message", "elasticsearch")));
+        String rangeShape = service.shape(new SearchSourceBuilder().query(QueryBuilders.rangeQuery("date").gte("now-1d")));
+
+        service.onQueryPhase(termShape, TimeUnit.MILLISECONDS.toNanos(3), 100);
+        service.onQueryPhase(termShape, TimeUnit.MILLISECONDS.toNanos(30), 200);
+        service.onQueryPhase(matchShape, TimeUnit.SECONDS.toNanos(20), -1);
+        // the limit of shapes is reached
+        service.onQueryPhase(rangeShape, TimeUnit.MILLISECONDS.toNanos(1), 50);
+
+        QueryShapeStats stats = service.stats();
+        assertThat(stats.getCount(), equalTo(4L));
+        assertThat(stats.getOtherCount(), equalTo(1L));
+        assertThat(stats.getTimeInNanos(), equalTo(TimeUnit.MILLISECONDS.toNanos(20034)));
+        assertThat(stats.getCpuTimeInNanos(), equalTo(350L));
+        assertThat(stats.getShapes().size(), equalTo(2));
+
+        // sorted by total time
+        QueryShapeStats.Shape matchStats = stats.getShapes().get(0);
+        assertThat(matchStats.getShape(), equalTo(matchShape));
+        assertThat(matchStats.getFingerprint(), equalTo(QueryShapes.fingerprint(matchShape)));
+        assertThat(matchStats.getCount(), equalTo(1L));
+        assertThat(matchStats.getCpuTimeInNanos(), equalTo(0L));
+        assertThat(matchStats.getLatencyHistogram()[QueryShapeStats.LATENCY_BUCKETS_IN_MILLIS.length], equalTo(1L));
+
+        QueryShapeStats.Shape termStats = stats.getShapes().get(1);
+        assertThat(termStats.getShape(), equalTo(termShape));
+        assertThat(termStats.getCount(), equalTo(2L));
+        assertThat(termStats.getTimeInNanos(), equalTo(TimeUnit.MILLISECONDS.toNanos(33)));
+        assertThat(termStats.getCpuTimeInNanos(), equalTo(300L));
+        long[] histogram = termStats.getLatencyHistogram();
+        // 3ms is in the [2, 5) bucket and 30ms in the [20, 50) bucket
+        assertThat(histogram[2], equalTo(1L));
+        assertThat(histogram[5], equalTo(1L));
+        assertThat(histogram[0] + histogram[1] + histogram[3] + histogram[4], equalTo(0L));
+    }
+}
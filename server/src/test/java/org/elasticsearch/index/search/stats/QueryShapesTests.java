@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.search.stats;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+public class QueryShapesTests extends ESTestCase {
+
+    public void testLiteralsAreStripped() {
+        String shape = QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.termQuery("user", "kimchy")).size(10));
+        assertThat(shape, not(containsString("kimchy")));
+        assertThat(shape, not(containsString("10")));
+        assertThat(shape, containsString("\"user\""));
+        assertThat(shape, equalTo(QueryShapes.shape(
+            new SearchSourceBuilder().query(QueryBuilders.termQuery("user", randomAlphaOfLength(5))).size(randomIntBetween(0, 100)))));
+    }
+
+    public void testFieldNamesAreKept() {
+        String shape = QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.termQuery("user", "kimchy")));
+        assertThat(shape, not(equalTo(QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.termQuery("tag", "kimchy"))))));
+        assertThat(shape, not(equalTo(QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.matchQuery("user", "kimchy"))))));
+
+        String existsShape = QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.existsQuery("user")));
+        assertThat(existsShape, containsString("\"field\":\"user\""));
+    }
+
+    public void testArraysAreCollapsed() {
+        String shape = QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.termsQuery("tag", "a", "b", "c")));
+        assertThat(shape, equalTo(QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.termsQuery("tag", "d")))));
+
+        String boolShape = QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+            .filter(QueryBuilders.termQuery("tag", "a"))
+            .filter(QueryBuilders.termQuery("tag", "b"))));
+        assertThat(boolShape, equalTo(QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+            .filter(QueryBuilders.termQuery("tag", "c"))))));
+        assertThat(boolShape, not(equalTo(QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.boolQuery()
+            .filter(QueryBuilders.termQuery("tag", "c"))
+            .filter(QueryBuilders.rangeQuery("date").gte("now-1d")))))));
+    }
+
+    public void testAggregationsAreKept() {
+        SearchSourceBuilder source = new SearchSourceBuilder().size(0)
+            .query(QueryBuilders.rangeQuery("date").gte("2020-01-01"))
+            .aggregation(AggregationBuilders.terms("by_tag").field("tag").size(5)
+                .subAggregation(AggregationBuilders.max("max_price").field("price")));
+        String shape = QueryShapes.shape(source);
+        assertThat(shape, containsString("\"by_tag\""));
+        assertThat(shape, containsString("\"field\":\"tag\""));
+        assertThat(shape, containsString("\"max_price\""));
+        assertThat(shape, containsString("\"field\":\"price\""));
+        assertThat(shape, not(containsString("2020")));
+
+        SearchSourceBuilder otherSource = new SearchSourceBuilder().size(0)
+            .query(QueryBuilders.rangeQuery("date").gte("2019-06-01"))
+            .aggregation(AggregationBuilders.terms("by_tag").field("tag").size(50)
+                .subAggregation(AggregationBuilders.max("max_price").field("price")));
+        assertThat(QueryShapes.shape(otherSource), equalTo(shape));
+    }
+
+    public void testNoSource() {
+        assertThat(QueryShapes.shape(null), equalTo("{}"));
+    }
+
+    public void testFingerprint() {
+        String shape = QueryShapes.shape(new SearchSourceBuilder().query(QueryBuilders.termQuery("user", "kimchy")));
+        String fingerprint = QueryShapes.fingerprint(shape);
+        assertThat(fingerprint.length(), equalTo(16));
+        assertThat(QueryShapes.fingerprint(shape), equalTo(fingerprint));
+        assertThat(QueryShapes.fingerprint("{}"), not(equalTo(fingerprint)));
+    }
+}
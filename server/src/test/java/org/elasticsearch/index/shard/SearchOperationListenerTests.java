@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.index.shard;
 
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.TestSearchContext;
@@ -291,4 +292,46 @@ public class SearchOperationListenerTests extends ESTestCase {
         assertEquals(2, freeScrollContext.get());
         assertEquals(2, validateSearchContext.get());
     }
+
+    public void testReaderContextListenersAreExecuted() {
+        AtomicInteger newReaderContext = new AtomicInteger();
+        AtomicInteger validateReaderContext = new AtomicInteger();
+        SearchOperationListener listener = new SearchOperationListener() {
+            @Override
+            public void onNewReaderContext(ReaderContext readerContext) {
+                newReaderContext.incrementAndGet();
+            }
+
+            @Override
+            public void validateReaderContext(ReaderContext readerContext, TransportRequest request) {
+                assertNotNull(request);
+                validateReaderContext.incrementAndGet();
+            }
+        };
+        SearchOperationListener throwingListener = (SearchOperationListener) Proxy.newProxyInstance(
+            SearchOperationListener.class.getClassLoader(),
+            new Class[]{SearchOperationListener.class},
+            (a,b,c) -> { throw new RuntimeException();});
+        int throwingListeners = randomIntBetween(0, 2);
+        final List<SearchOperationListener> listeners = new ArrayList<>(Arrays.asList(listener, listener));
+        for (int i = 0; i < throwingListeners; i++) {
+            listeners.add(throwingListener);
+        }
+        Collections.shuffle(listeners, random());
+        SearchOperationListener.CompositeListener compositeListener = new SearchOperationListener.CompositeListener(listeners, logger);
+
+        compositeListener.onNewReaderContext(null);
+        assertEquals(2, newReaderContext.get());
+        assertEquals(0, validateReaderContext.get());
+
+        if (throwingListeners == 0) {
+            compositeListener.validateReaderContext(null, Empty.INSTANCE);
+        } else {
+            RuntimeException expected =
+                expectThrows(RuntimeException.class, () -> compositeListener.validateReaderContext(null, Empty.INSTANCE));
+            assertEquals(throwingListeners - 1, expected.getSuppressed().length);
+        }
+        assertEquals(2, newReaderContext.get());
+        assertEquals(2, validateReaderContext.get());
+    }
 }
@@ -34,6 +34,9 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
@@ -137,4 +140,31 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertTrue(nodeStats.containsKey("node1"));
         assertFalse(nodeStats.containsKey("node2"));
     }
+
+    public void testResponseTimePercentile() {
+        List<Integer> responseTimes = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            responseTimes.add(i);
+        }
+        Collections.shuffle(responseTimes, random());
+        for (int i = 0; i < 99; i++) {
+            collector.addNodeStatistics(randomFrom("node1", "node2"), 1, responseTimes.get(i), 10);
+        }
+        // not enough responses yet
+        assertThat(collector.getResponseTimePercentile(95), equalTo(-1L));
+        for (int i = 99; i < responseTimes.size(); i++) {
+            collector.addNodeStatistics(randomFrom("node1", "node2"), 1, responseTimes.get(i), 10);
+        }
+        assertThat(collector.getResponseTimePercentile(0), equalTo(1L));
+        assertThat(collector.getResponseTimePercentile(50), equalTo(500L));
+        assertThat(collector.getResponseTimePercentile(95), equalTo(950L));
+        assertThat(collector.getResponseTimePercentile(100), equalTo(1000L));
+
+        // only the most recent response times are taken into account
+        for (int i = 0; i < 1024; i++) {
+            collector.addNodeStatistics("node1", 1, 5000, 10);
+        }
+        assertThat(collector.getResponseTimePercentile(0), equalTo(5000L));
+        assertThat(collector.getResponseTimePercentile(100), equalTo(5000L));
+    }
 }
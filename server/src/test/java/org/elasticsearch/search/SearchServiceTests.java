@@ -25,10 +25,16 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
@@ -72,6 +78,7 @@ import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
@@ -241,6 +248,129 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertEquals(0, service.getActiveContexts());
     }
 
+    public void testPointInTime() {
+        createIndex("index", Settings.builder().put("index.number_of_shards", 1).build());
+        client().prepareIndex("index").setId("1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+
+        String pointInTimeId = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("index").keepAlive(TimeValue.timeValueMinutes(1))).actionGet().getPointInTimeId();
+        assertEquals(1, service.getActiveReaders());
+        assertEquals(0, service.getActiveContexts());
+
+        client().prepareIndex("index").setId("2").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        assertHitCount(client().prepareSearch("index").get(), 2);
+        // the point in time still sees the reader that was opened before the second document was indexed
+        for (int i = 0; i < 3; i++) {
+            SearchResponse searchResponse = client().prepareSearch()
+                .setSource(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId, null)))
+                .get();
+            assertHitCount(searchResponse, 1);
+            assertEquals(1, service.getActiveReaders());
+        }
+
+        ClearScrollResponse closeResponse =
+            client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pointInTimeId)).actionGet();
+        assertTrue(closeResponse.isSucceeded());
+        assertEquals(1, closeResponse.getNumFreed());
+        assertEquals(0, service.getActiveReaders());
+
+        SearchPhaseExecutionException e = expectThrows(SearchPhaseExecutionException.class, () -> client().prepareSearch()
+            .setSource(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId, null)))
+            .get());
+        assertNotNull(ExceptionsHelper.unwrap(e.shardFailures()[0].getCause(), SearchContextMissingException.class));
+    }
+
+    public void testPointInTimeSpansRefreshes() {
+        createIndex("index", Settings.builder().put("index.number_of_shards", randomIntBetween(1, 3)).build());
+        final int numDocs = randomIntBetween(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("index").setId(Integer.toString(i)).setSource("value", i).get();
+        }
+        client().admin().indices().prepareRefresh("index").get();
+
+        String pointInTimeId = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("index").keepAlive(TimeValue.timeValueMinutes(1))).actionGet().getPointInTimeId();
+        try {
+            // documents are updated, deleted and added, and the segments that the point in time pinned are merged away
+            for (int i = 0; i < numDocs; i++) {
+                if (randomBoolean()) {
+                    client().prepareIndex("index").setId(Integer.toString(i)).setSource("value", -1).get();
+                } else if (randomBoolean()) {
+                    client().prepareDelete("index", Integer.toString(i)).get();
+                }
+            }
+            client().prepareIndex("index").setId(Integer.toString(numDocs)).setSource("value", numDocs).get();
+            client().admin().indices().prepareRefresh("index").get();
+            client().admin().indices().prepareForceMerge("index").setMaxNumSegments(1).get();
+
+            // pages of the point in time see the documents as they were when it was opened
+            final int pageSize = randomIntBetween(1, 10);
+            Object[] searchAfter = null;
+            int expected = 0;
+            while (true) {
+                SearchSourceBuilder source = new SearchSourceBuilder()
+                    .pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId, TimeValue.timeValueMinutes(1)))
+                    .sort("value")
+                    .size(pageSize);
+                if (searchAfter != null) {
+                    source.searchAfter(searchAfter);
+                }
+                SearchResponse searchResponse = client().prepareSearch().setSource(source).get();
+                assertHitCount(searchResponse, numDocs);
+                if (searchResponse.getHits().getHits().length == 0) {
+                    break;
+                }
+                for (SearchHit hit : searchResponse.getHits().getHits()) {
+                    assertEquals(Integer.toString(expected), hit.getId());
+                    assertEquals(expected, hit.getSourceAsMap().get("value"));
+                    expected++;
+                }
+                searchAfter = searchResponse.getHits().getHits()[searchResponse.getHits().getHits().length - 1].getSortValues();
+            }
+            assertEquals(numDocs, expected);
+        } finally {
+            client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pointInTimeId)).actionGet();
+        }
+    }
+
+    public void testPointInTimeWithFilteredAlias() {
+        createIndex("index", Settings.builder().put("index.number_of_shards", 1).build());
+        assertAcked(client().admin().indices().prepareAliases().addAlias("index", "filtered", new TermQueryBuilder("field", "value1")));
+        client().prepareIndex("index").setId("1").setSource("field", "value1").get();
+        client().prepareIndex("index").setId("2").setSource("field", "value2").setRefreshPolicy(IMMEDIATE).get();
+
+        String pointInTimeId = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("filtered").keepAlive(TimeValue.timeValueMinutes(1))).actionGet().getPointInTimeId();
+        try {
+            // the filter of the alias that the point in time was opened on applies to the searches that use it
+            SearchResponse searchResponse = client().prepareSearch()
+                .setSource(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId, null)))
+                .get();
+            assertHitCount(searchResponse, 1);
+            assertEquals("1", searchResponse.getHits().getAt(0).getId());
+        } finally {
+            client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pointInTimeId)).actionGet();
+        }
+    }
+
+    public void testPointInTimeKeepAliveLimit() {
+        createIndex("index");
+        client().admin().cluster().prepareUpdateSettings()
+            .setPersistentSettings(Settings.builder().put(SearchService.MAX_KEEPALIVE_SETTING.getKey(), "1m")).get();
+        try {
+            Exception e = expectThrows(Exception.class, () -> client().execute(OpenPointInTimeAction.INSTANCE,
+                new OpenPointInTimeRequest("index").keepAlive(TimeValue.timeValueHours(1))).actionGet());
+            Throwable cause = ExceptionsHelper.unwrap(e, IllegalArgumentException.class);
+            assertNotNull(cause);
+            assertThat(cause.getMessage(), startsWith("Keep alive for point in time (1h) is too large"));
+            assertEquals(0, getInstanceFromNode(SearchService.class).getActiveReaders());
+        } finally {
+            client().admin().cluster().prepareUpdateSettings()
+                .setPersistentSettings(Settings.builder().putNull(SearchService.MAX_KEEPALIVE_SETTING.getKey())).get();
+        }
+    }
+
     public void testCloseSearchContextOnRewriteException() {
         // if refresh happens while checking the exception, the subsequent reference count might not match, so we switch it off
         createIndex("index", Settings.builder().put("index.refresh_interval", -1).build());
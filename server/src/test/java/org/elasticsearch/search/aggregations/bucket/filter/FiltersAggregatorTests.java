@@ -24,8 +24,10 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -206,4 +208,94 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
             directory.close();
         }
     }
+
+    public void testWithQueryAndDeletedDocs() throws Exception {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        int numDocs = randomIntBetween(100, 200);
+        int maxTerm = randomIntBetween(2, 10);
+        int[] expectedBucketCount = new int[maxTerm];
+        int expectedTotal = 0;
+        Document document = new Document();
+        for (int i = 0; i < numDocs; i++) {
+            if (frequently()) {
+                indexWriter.commit();
+            }
+            int value = randomInt(maxTerm - 1);
+            boolean matches = randomBoolean();
+            boolean deleted = randomBoolean();
+            if (matches && deleted == false) {
+                expectedBucketCount[value] += 1;
+                expectedTotal++;
+            }
+            document.add(new Field("field", Integer.toString(value), fieldType));
+            document.add(new Field("query", matches ? "yes" : "no", fieldType));
+            document.add(new Field("id", deleted ? "deleted" : Integer.toString(i), fieldType));
+            indexWriter.addDocument(document);
+            document.clear();
+        }
+        indexWriter.deleteDocuments(new Term("id", "deleted"));
+        indexWriter.close();
+
+        IndexReader indexReader = DirectoryReader.open(directory);
+        IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+        try {
+            QueryBuilder[] filters = new QueryBuilder[maxTerm];
+            for (int i = 0; i < filters.length; i++) {
+                filters[i] = QueryBuilders.termQuery("field", Integer.toString(i));
+            }
+            FiltersAggregationBuilder builder = new FiltersAggregationBuilder("test", filters);
+            builder.otherBucket(true);
+            builder.otherBucketKey("other");
+            InternalFilters response = searchAndReduce(indexSearcher, new TermQuery(new Term("query", "yes")), builder, fieldType);
+            for (InternalFilters.InternalBucket bucket : response.getBuckets()) {
+                if ("other".equals(bucket.getKey())) {
+                    assertEquals(0, bucket.getDocCount());
+                } else {
+                    assertEquals(expectedBucketCount[Integer.parseInt(bucket.getKey())], bucket.getDocCount());
+                    expectedTotal -= bucket.getDocCount();
+                }
+            }
+            assertEquals(0, expectedTotal);
+        } finally {
+            indexReader.close();
+            directory.close();
+        }
+    }
+
+    public void testConcurrentSlicesOfOneSegment() throws Exception {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        int numDocs = randomIntBetween(100, 200);
+        int maxTerm = randomIntBetween(2, 10);
+        int[] expectedBucketCount = new int[maxTerm];
+        Document document = new Document();
+        for (int i = 0; i < numDocs; i++) {
+            int value = randomInt(maxTerm - 1);
+            expectedBucketCount[value] += 1;
+            document.add(new Field("field", Integer.toString(value), fieldType));
+            indexWriter.addDocument(document);
+            document.clear();
+        }
+        // a single segment that the slices split
+        indexWriter.forceMerge(1);
+        indexWriter.close();
+
+        IndexReader indexReader = DirectoryReader.open(directory);
+        try {
+            QueryBuilder[] filters = new QueryBuilder[maxTerm];
+            for (int i = 0; i < filters.length; i++) {
+                filters[i] = QueryBuilders.termQuery("field", Integer.toString(i));
+            }
+            FiltersAggregationBuilder builder = new FiltersAggregationBuilder("test", filters);
+            InternalFilters response = searchConcurrently(indexReader, 10, new MatchAllDocsQuery(), builder, fieldType);
+            assertEquals(maxTerm, response.getBuckets().size());
+            for (InternalFilters.InternalBucket bucket : response.getBuckets()) {
+                assertEquals(expectedBucketCount[Integer.parseInt(bucket.getKey())], bucket.getDocCount());
+            }
+        } finally {
+            indexReader.close();
+            directory.close();
+        }
+    }
 }
@@ -20,11 +20,14 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
@@ -39,10 +42,13 @@ import org.elasticsearch.search.aggregations.MultiBucketConsumerService.TooManyB
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -152,6 +158,96 @@ public class DateHistogramAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testCountFromPoints() throws IOException {
+        final long hour = 60 * 60 * 1000L;
+        final long start = asLong("2017-02-01T00:00:00.000Z");
+        final long end = start + randomIntBetween(1, 48) * hour;
+        final boolean rangeQuery = randomBoolean();
+        final long queryFrom = rangeQuery ? randomLongBetween(start, end) : Long.MIN_VALUE;
+        final long queryTo = rangeQuery ? randomLongBetween(queryFrom, end) : Long.MAX_VALUE;
+        final Query query = rangeQuery ? LongPoint.newRangeQuery(DATE_FIELD, queryFrom, queryTo) : new MatchAllDocsQuery();
+        final Map<Long, Long> expectedCounts = new HashMap<>();
+
+        try (Directory directory = newDirectory()) {
+            DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.Builder("_name").fieldType();
+            fieldType.setHasDocValues(true);
+            fieldType.setName(DATE_FIELD);
+
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                Document document = new Document();
+                int numDocs = randomIntBetween(1, 500);
+                for (int i = 0; i < numDocs; i++) {
+                    if (frequently()) {
+                        indexWriter.commit();
+                    }
+                    long instant = randomLongBetween(start, end);
+                    boolean deleted = rarely();
+                    if (deleted == false && instant >= queryFrom && instant <= queryTo) {
+                        expectedCounts.merge(instant - instant % hour, 1L, Long::sum);
+                    }
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, instant));
+                    document.add(new LongPoint(DATE_FIELD, instant));
+                    document.add(new StringField("id", deleted ? "deleted" : Integer.toString(i), Field.Store.NO));
+                    indexWriter.addDocument(document);
+                    document.clear();
+                }
+                indexWriter.deleteDocuments(new Term("id", "deleted"));
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                DateHistogramAggregationBuilder aggregationBuilder = new DateHistogramAggregationBuilder("_name")
+                    .fixedInterval(DateHistogramInterval.hours(1)).field(DATE_FIELD).minDocCount(1L);
+                InternalDateHistogram histogram = searchAndReduce(indexSearcher, query, aggregationBuilder, fieldType);
+                assertEquals(expectedCounts.size(), histogram.getBuckets().size());
+                for (InternalDateHistogram.Bucket bucket : histogram.getBuckets()) {
+                    long key = ((ZonedDateTime) bucket.getKey()).toInstant().toEpochMilli();
+                    assertEquals(expectedCounts.get(key).longValue(), bucket.getDocCount());
+                }
+            }
+        }
+    }
+
+    public void testCountFromPointsOfSegmentSplitBetweenConcurrentSlices() throws IOException {
+        final long hour = 60 * 60 * 1000L;
+        final long start = asLong("2017-02-01T00:00:00.000Z");
+        final long end = start + randomIntBetween(1, 48) * hour;
+        final Map<Long, Long> expectedCounts = new HashMap<>();
+
+        try (Directory directory = newDirectory()) {
+            DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.Builder("_name").fieldType();
+            fieldType.setHasDocValues(true);
+            fieldType.setName(DATE_FIELD);
+
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                Document document = new Document();
+                int numDocs = randomIntBetween(100, 500);
+                for (int i = 0; i < numDocs; i++) {
+                    long instant = randomLongBetween(start, end);
+                    expectedCounts.merge(instant - instant % hour, 1L, Long::sum);
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, instant));
+                    document.add(new LongPoint(DATE_FIELD, instant));
+                    indexWriter.addDocument(document);
+                    document.clear();
+                }
+                // a single segment that the slices split
+                indexWriter.forceMerge(1);
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                DateHistogramAggregationBuilder aggregationBuilder = new DateHistogramAggregationBuilder("_name")
+                    .fixedInterval(DateHistogramInterval.hours(1)).field(DATE_FIELD).minDocCount(1L);
+                InternalDateHistogram histogram = searchConcurrently(indexReader, 10, new MatchAllDocsQuery(), aggregationBuilder,
+                    fieldType);
+                assertEquals(expectedCounts.size(), histogram.getBuckets().size());
+                for (InternalDateHistogram.Bucket bucket : histogram.getBuckets()) {
+                    long key = ((ZonedDateTime) bucket.getKey()).toInstant().toEpochMilli();
+                    assertEquals(expectedCounts.get(key).longValue(), bucket.getDocCount());
+                }
+            }
+        }
+    }
+
     public void testNoDocsDeprecatedInterval() throws IOException {
         Query query = new MatchNoDocsQuery();
         List<String> dates = Collections.emptyList();
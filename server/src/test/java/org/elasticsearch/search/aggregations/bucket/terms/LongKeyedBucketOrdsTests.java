@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class LongKeyedBucketOrdsTests extends ESTestCase {
+
+    private final BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+
+    public void testCollectsFromSingleBucket() {
+        try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, true)) {
+            assertThat(ords.add(0, 10), equalTo(0L));
+            assertThat(ords.add(0, 20), equalTo(1L));
+            assertThat(ords.add(0, 10), equalTo(-1L));
+            assertThat(ords.find(0, 20), equalTo(1L));
+            assertThat(ords.find(0, 30), equalTo(-1L));
+            assertThat(ords.bucketsInOrd(0), equalTo(2L));
+            assertThat(ords.size(), equalTo(2L));
+
+            LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = ords.ordsEnum(0);
+            assertTrue(ordsEnum.next());
+            assertThat(ordsEnum.ord(), equalTo(0L));
+            assertThat(ordsEnum.value(), equalTo(10L));
+            assertTrue(ordsEnum.next());
+            assertThat(ordsEnum.ord(), equalTo(1L));
+            assertThat(ordsEnum.value(), equalTo(20L));
+            assertFalse(ordsEnum.next());
+        }
+    }
+
+    public void testCollectsFromManyBuckets() {
+        try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, false)) {
+            final int owningBuckets = randomIntBetween(1, 20);
+            final Map<Long, Set<Long>> expected = new HashMap<>();
+            final Map<Long, Long> ordToValue = new HashMap<>();
+            final Map<Long, Long> ordToOwningBucket = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                final long owningBucketOrd = randomIntBetween(0, owningBuckets - 1);
+                final long value = randomIntBetween(0, 100);
+                final long ord = ords.add(owningBucketOrd, value);
+                if (expected.computeIfAbsent(owningBucketOrd, k -> new HashSet<>()).add(value)) {
+                    assertThat(ord, equalTo((long) ordToValue.size()));
+                    ordToValue.put(ord, value);
+                    ordToOwningBucket.put(ord, owningBucketOrd);
+                } else {
+                    assertThat(ordToValue.get(-1 - ord), equalTo(value));
+                    assertThat(ordToOwningBucket.get(-1 - ord), equalTo(owningBucketOrd));
+                }
+            }
+            assertThat(ords.size(), equalTo((long) ordToValue.size()));
+
+            for (long owningBucketOrd = 0; owningBucketOrd < owningBuckets; owningBucketOrd++) {
+                final Set<Long> values = expected.getOrDefault(owningBucketOrd, Set.of());
+                assertThat(ords.bucketsInOrd(owningBucketOrd), equalTo((long) values.size()));
+                final Set<Long> seen = new HashSet<>();
+                long lastOrd = -1;
+                LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = ords.ordsEnum(owningBucketOrd);
+                while (ordsEnum.next()) {
+                    assertThat(ordsEnum.ord(), greaterThan(lastOrd));
+                    lastOrd = ordsEnum.ord();
+                    assertThat(ordToOwningBucket.get(ordsEnum.ord()), equalTo(owningBucketOrd));
+                    assertThat(ordToValue.get(ordsEnum.ord()), equalTo(ordsEnum.value()));
+                    assertThat(ords.find(owningBucketOrd, ordsEnum.value()), equalTo(ordsEnum.ord()));
+                    assertTrue(seen.add(ordsEnum.value()));
+                }
+                assertThat(seen, equalTo(values));
+            }
+            // owning bucket ordinals that nothing was added under, past the last one that was
+            assertThat(ords.bucketsInOrd(owningBuckets), equalTo(0L));
+            assertFalse(ords.ordsEnum(owningBuckets).next());
+        }
+    }
+}
@@ -29,9 +29,16 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -64,6 +71,7 @@ import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -77,6 +85,7 @@ import org.elasticsearch.search.aggregations.bucket.global.InternalGlobal;
 import org.elasticsearch.search.aggregations.bucket.nested.InternalNested;
 import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.InternalTopHits;
+import org.elasticsearch.search.aggregations.metrics.Max;
 import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.BucketScriptPipelineAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
@@ -215,6 +224,280 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testCountFromPostings() throws Exception {
+        try (Directory directory = newDirectory()) {
+            // no random flushes or merges, so that the segments are the committed ones and keep their deleted documents
+            IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                final Map<String, Long> expected = new HashMap<>();
+                final int numDocs = randomIntBetween(2, 200);
+                final int numLiveDocs = randomIntBetween(1, 10);
+                for (int i = 0; i < numDocs + numLiveDocs; i++) {
+                    if (i == numDocs || (i > 1 && rarely())) {
+                        indexWriter.commit();
+                    }
+                    // the first segment has a deleted document and a live one, the last one has no deleted document
+                    final boolean deleted = i < numDocs && (i == 0 || (i > 1 && randomBoolean() && randomBoolean()));
+                    Document document = new Document();
+                    document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+                    final int numValues = randomIntBetween(0, 3);
+                    final List<String> values = new ArrayList<>();
+                    for (int j = 0; j < numValues; j++) {
+                        final String value = Integer.toString(randomIntBetween(0, 20));
+                        if (values.contains(value) == false) {
+                            values.add(value);
+                            document.add(new StringField("string", value, Field.Store.NO));
+                            document.add(new SortedSetDocValuesField("string", new BytesRef(value)));
+                            if (deleted == false) {
+                                expected.merge(value, 1L, Long::sum);
+                            }
+                        }
+                    }
+                    indexWriter.addDocument(document);
+                    if (deleted) {
+                        indexWriter.deleteDocuments(new Term("id", Integer.toString(i)));
+                    }
+                }
+                try (IndexReader indexReader = maybeWrapReaderEs(DirectoryReader.open(indexWriter))) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                        .executionHint(TermsAggregatorFactory.ExecutionMode.GLOBAL_ORDINALS.toString())
+                        .field("string")
+                        .size(100);
+                    MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                    fieldType.setName("string");
+                    fieldType.setHasDocValues(true);
+                    fieldType.setIndexOptions(IndexOptions.DOCS);
+
+                    InternalTerms<?, ?> result = search(indexSearcher, new MatchAllDocsQuery(), aggregationBuilder, fieldType);
+                    final Map<String, Long> actual = new HashMap<>();
+                    for (Terms.Bucket bucket : result.getBuckets()) {
+                        actual.put(bucket.getKeyAsString(), bucket.getDocCount());
+                    }
+                    assertEquals(expected, actual);
+
+                    // the segments without deleted documents are counted from the postings and not collected
+                    Aggregator aggregator = createAggregator(new MatchAllDocsQuery(), aggregationBuilder, indexSearcher,
+                        createIndexSettings(), fieldType);
+                    aggregator.preCollection();
+                    boolean sawDeletions = false;
+                    boolean sawNoDeletions = false;
+                    for (LeafReaderContext ctx : indexSearcher.getIndexReader().leaves()) {
+                        if (ctx.reader().hasDeletions()) {
+                            sawDeletions = true;
+                            assertNotNull(aggregator.getLeafCollector(ctx));
+                        } else {
+                            sawNoDeletions = true;
+                            expectThrows(CollectionTerminatedException.class, () -> aggregator.getLeafCollector(ctx));
+                        }
+                    }
+                    assertTrue(sawDeletions);
+                    assertTrue(sawNoDeletions);
+                }
+            }
+        }
+    }
+
+    public void testCountFromPostingsOfSegmentSplitBetweenConcurrentSlices() throws Exception {
+        testCountFromPostingsOfSegmentSplitBetweenConcurrentSlices(TermsAggregatorFactory.ExecutionMode.GLOBAL_ORDINALS);
+    }
+
+    public void testCountFromPostingsOfSegmentSplitBetweenConcurrentSlicesBySegmentOrdinals() throws Exception {
+        testCountFromPostingsOfSegmentSplitBetweenConcurrentSlices(TermsAggregatorFactory.ExecutionMode.SEGMENT_ORDINALS);
+    }
+
+    private void testCountFromPostingsOfSegmentSplitBetweenConcurrentSlices(TermsAggregatorFactory.ExecutionMode executionMode)
+            throws Exception {
+        try (Directory directory = newDirectory()) {
+            final Map<String, Long> expected = new HashMap<>();
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numDocs = randomIntBetween(100, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    final String value = Integer.toString(randomIntBetween(0, 20));
+                    document.add(new StringField("string", value, Field.Store.NO));
+                    document.add(new SortedSetDocValuesField("string", new BytesRef(value)));
+                    expected.merge(value, 1L, Long::sum);
+                    indexWriter.addDocument(document);
+                }
+                // a single segment that the slices split
+                indexWriter.forceMerge(1);
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                    .executionHint(executionMode.toString())
+                    .field("string")
+                    .size(100);
+                MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                fieldType.setName("string");
+                fieldType.setHasDocValues(true);
+                fieldType.setIndexOptions(IndexOptions.DOCS);
+
+                InternalTerms<?, ?> result = searchConcurrently(indexReader, 10, new MatchAllDocsQuery(), aggregationBuilder, fieldType);
+                final Map<String, Long> actual = new HashMap<>();
+                for (Terms.Bucket bucket : result.getBuckets()) {
+                    actual.put(bucket.getKeyAsString(), bucket.getDocCount());
+                }
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Terms with sub-aggregations under a parent bucket aggregation pick their collect mode like at the top level, and
+     * are collected by one aggregator per parent bucket if they defer the collection of their sub-aggregations.
+     */
+    public void testSubAggregationsCollectModeUnderParent() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                for (int i = 0; i < 10; i++) {
+                    Document document = new Document();
+                    document.add(new SortedNumericDocValuesField("parent", i % 2));
+                    document.add(new SortedNumericDocValuesField("child", i));
+                    document.add(new SortedSetDocValuesField("string", new BytesRef(Integer.toString(i))));
+                    indexWriter.addDocument(document);
+                }
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    MappedFieldType parentFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                    parentFieldType.setName("parent");
+                    MappedFieldType childFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                    childFieldType.setName("child");
+                    MappedFieldType stringFieldType = new KeywordFieldMapper.KeywordFieldType();
+                    stringFieldType.setName("string");
+                    stringFieldType.setHasDocValues(true);
+
+                    for (String field : new String[] { "child", "string" }) {
+                        // the size of the terms doesn't cover the cardinality of the field, the sub-aggregations are deferred
+                        ValueType valueType = field.equals("child") ? ValueType.LONG : ValueType.STRING;
+                        TermsAggregationBuilder child = new TermsAggregationBuilder("child", valueType).field(field)
+                            .subAggregation(AggregationBuilders.max("max").field("child"));
+                        TermsAggregationBuilder parent = new TermsAggregationBuilder("parent", ValueType.LONG).field("parent")
+                            .subAggregation(child);
+                        Aggregator aggregator = createAggregator(parent, indexSearcher, parentFieldType, childFieldType, stringFieldType);
+                        assertThat(aggregator.subAggregator("child"), instanceOf(AggregatorFactory.MultiBucketAggregatorWrapper.class));
+
+                        // the sub-aggregations are collected with their terms
+                        child.collectMode(Aggregator.SubAggCollectionMode.DEPTH_FIRST);
+                        aggregator = createAggregator(parent, indexSearcher, parentFieldType, childFieldType, stringFieldType);
+                        assertThat(aggregator.subAggregator("child"), instanceOf(TermsAggregator.class));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Terms under a parent that defer the collection of their sub-aggregations are created lazily for each owning bucket,
+     * from the threads that collect the slices of the shard.
+     */
+    public void testSubAggregationsUnderParentWithConcurrentSlices() throws Exception {
+        try (Directory directory = newDirectory()) {
+            final Map<String, Map<String, Long>> expectedCounts = new HashMap<>();
+            final Map<String, Map<String, Long>> expectedMax = new HashMap<>();
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numDocs = randomIntBetween(100, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    final long parentValue = randomIntBetween(0, 5);
+                    final long childValue = randomIntBetween(0, 10);
+                    final long value = randomIntBetween(0, 1000);
+                    document.add(new SortedNumericDocValuesField("parent", parentValue));
+                    document.add(new SortedNumericDocValuesField("child", childValue));
+                    document.add(new SortedNumericDocValuesField("value", value));
+                    expectedCounts.computeIfAbsent(Long.toString(parentValue), k -> new HashMap<>())
+                        .merge(Long.toString(childValue), 1L, Long::sum);
+                    expectedMax.computeIfAbsent(Long.toString(parentValue), k -> new HashMap<>())
+                        .merge(Long.toString(childValue), value, Math::max);
+                    indexWriter.addDocument(document);
+                }
+                // a single segment that the slices split
+                indexWriter.forceMerge(1);
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                MappedFieldType parentFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                parentFieldType.setName("parent");
+                MappedFieldType childFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                childFieldType.setName("child");
+                MappedFieldType valueFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                valueFieldType.setName("value");
+                TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("parent", ValueType.LONG).field("parent")
+                    .size(100)
+                    .subAggregation(new TermsAggregationBuilder("child", ValueType.LONG).field("child")
+                        .size(100)
+                        .subAggregation(AggregationBuilders.max("max").field("value")));
+
+                InternalTerms<?, ?> result = searchConcurrently(indexReader, 10, new MatchAllDocsQuery(), aggregationBuilder,
+                    parentFieldType, childFieldType, valueFieldType);
+                final Map<String, Map<String, Long>> actualCounts = new HashMap<>();
+                final Map<String, Map<String, Long>> actualMax = new HashMap<>();
+                for (Terms.Bucket parentBucket : result.getBuckets()) {
+                    Terms child = parentBucket.getAggregations().get("child");
+                    for (Terms.Bucket childBucket : child.getBuckets()) {
+                        Max max = childBucket.getAggregations().get("max");
+                        actualCounts.computeIfAbsent(parentBucket.getKeyAsString(), k -> new HashMap<>())
+                            .put(childBucket.getKeyAsString(), childBucket.getDocCount());
+                        actualMax.computeIfAbsent(parentBucket.getKeyAsString(), k -> new HashMap<>())
+                            .put(childBucket.getKeyAsString(), (long) max.getValue());
+                    }
+                }
+                assertEquals(expectedCounts, actualCounts);
+                assertEquals(expectedMax, actualMax);
+            }
+        }
+    }
+
+    public void testSegmentOrdinalsExecutionHint() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final Map<String, Long> expected = new HashMap<>();
+                final int numDocs = randomIntBetween(1, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    final int numValues = randomIntBetween(0, 3);
+                    final List<String> values = new ArrayList<>();
+                    for (int j = 0; j < numValues; j++) {
+                        final String value = Integer.toString(randomIntBetween(0, 50));
+                        if (values.contains(value) == false) {
+                            values.add(value);
+                            document.add(new SortedSetDocValuesField("string", new BytesRef(value)));
+                            if (value.startsWith("1")) {
+                                expected.merge(value, 1L, Long::sum);
+                            }
+                        }
+                    }
+                    indexWriter.addDocument(document);
+                    if (rarely()) {
+                        indexWriter.commit();
+                    }
+                }
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                        .executionHint(TermsAggregatorFactory.ExecutionMode.SEGMENT_ORDINALS.toString())
+                        .includeExclude(new IncludeExclude("1.*", null))
+                        .field("string")
+                        .size(100);
+                    MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                    fieldType.setName("string");
+                    fieldType.setHasDocValues(true);
+
+                    TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                    assertThat(aggregator, instanceOf(SegmentOrdinalsStringTermsAggregator.class));
+                    aggregator.preCollection();
+                    indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                    aggregator.postCollection();
+                    Terms result = (Terms) aggregator.buildAggregation(0L);
+                    final Map<String, Long> actual = new HashMap<>();
+                    for (Terms.Bucket bucket : result.getBuckets()) {
+                        actual.put(bucket.getKeyAsString(), bucket.getDocCount());
+                    }
+                    assertEquals(expected, actual);
+                }
+            }
+        }
+    }
+
     public void testStringIncludeExclude() throws Exception {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
@@ -0,0 +1,68 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.builder;
+
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.test.AbstractSerializingTestCase;
+
+import java.io.IOException;
+
+public class PointInTimeBuilderTests extends AbstractSerializingTestCase<PointInTimeBuilder> {
+
+    @Override
+    protected PointInTimeBuilder doParseInstance(XContentParser parser) throws IOException {
+        return PointInTimeBuilder.fromXContent(parser);
+    }
+
+    @Override
+    protected Writeable.Reader<PointInTimeBuilder> instanceReader() {
+        return PointInTimeBuilder::new;
+    }
+
+    @Override
+    protected PointInTimeBuilder createTestInstance() {
+        return new PointInTimeBuilder(randomAlphaOfLengthBetween(1, 100), randomKeepAlive());
+    }
+
+    @Override
+    protected PointInTimeBuilder mutateInstance(PointInTimeBuilder instance) {
+        if (randomBoolean()) {
+            return new PointInTimeBuilder(instance.getId() + randomAlphaOfLength(1), instance.getKeepAlive());
+        }
+        return new PointInTimeBuilder(instance.getId(), randomValueOtherThan(instance.getKeepAlive(), this::randomKeepAlive));
+    }
+
+    @Override
+    protected boolean supportsUnknownFields() {
+        return false;
+    }
+
+    private TimeValue randomKeepAlive() {
+        return randomBoolean() ? null : TimeValue.timeValueSeconds(randomIntBetween(1, 3600));
+    }
+
+    public void testEmptyId() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> new PointInTimeBuilder(randomBoolean() ? null : "", null));
+        assertEquals("point in time id must not be null or empty", e.getMessage());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.elasticsearch.action.support.WriteRequest.RefreshPolicy.IMMEDIATE;
+
+public class FetchPhaseTests extends ESSingleNodeTestCase {
+
+    /**
+     * The hits are loaded in doc id order, check that they are put back in the order of the query phase, whether the
+     * documents of a segment are adjacent and loaded with the sequential reader or scattered.
+     */
+    public void testHitsAreReturnedInTheOrderOfTheQueryPhase() {
+        createIndex("index", Settings.builder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).build());
+        final int numDocs = randomIntBetween(20, 200);
+        BulkRequestBuilder bulkRequest = client().prepareBulk().setRefreshPolicy(IMMEDIATE);
+        for (int i = 0; i < numDocs; i++) {
+            bulkRequest.add(client().prepareIndex("index").setId(Integer.toString(i)).setSource("rank", i, "value", "value_" + i));
+        }
+        assertFalse(bulkRequest.get().hasFailures());
+        if (randomBoolean()) {
+            client().admin().indices().prepareForceMerge("index").setMaxNumSegments(1).get();
+            client().admin().indices().prepareRefresh("index").get();
+        }
+
+        // all the documents, adjacent in doc id order but returned in reverse order
+        SearchResponse response = client().prepareSearch("index").addSort("rank", SortOrder.DESC).setSize(numDocs).get();
+        assertEquals(numDocs, response.getHits().getHits().length);
+        for (int i = 0; i < numDocs; i++) {
+            assertHit(response.getHits().getAt(i), numDocs - 1 - i);
+        }
+
+        // scattered documents, in any order
+        final List<Integer> ranks = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            if (randomBoolean()) {
+                ranks.add(i);
+            }
+        }
+        final boolean ascending = randomBoolean();
+        final List<Integer> sortedRanks = new ArrayList<>(ranks);
+        if (ascending == false) {
+            Collections.reverse(sortedRanks);
+        }
+        response = client().prepareSearch("index")
+            .setQuery(QueryBuilders.termsQuery("rank", ranks))
+            .addSort("rank", ascending ? SortOrder.ASC : SortOrder.DESC)
+            .setSize(numDocs)
+            .get();
+        assertEquals(sortedRanks.size(), response.getHits().getHits().length);
+        for (int i = 0; i < sortedRanks.size(); i++) {
+            assertHit(response.getHits().getAt(i), sortedRanks.get(i));
+        }
+    }
+
+    private static void assertHit(SearchHit hit, int rank) {
+        assertEquals(Integer.toString(rank), hit.getId());
+        assertEquals("value_" + rank, hit.getSourceAsMap().get("value"));
+    }
+}
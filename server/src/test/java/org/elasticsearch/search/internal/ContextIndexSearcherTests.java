@@ -23,6 +23,7 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
@@ -73,11 +74,16 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -253,6 +259,81 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testComputeSlices() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(1, 10);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 100);
+            for (int j = 0; j < numDocs; j++) {
+                w.addDocument(new Document());
+            }
+            w.flush();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        int maxSlices = randomIntBetween(1, 8);
+        int minDocsPerSlice = randomIntBetween(1, 200);
+        List<List<ContextIndexSearcher.LeafPartition>> slices =
+            ContextIndexSearcher.computeSlices(reader.leaves(), maxSlices, minDocsPerSlice);
+        assertThat(slices.size(), lessThanOrEqualTo(Math.max(1, Math.min(maxSlices, reader.maxDoc() / minDocsPerSlice))));
+        // the slices hold all the documents in order, without gaps nor overlaps
+        int expectedDoc = 0;
+        for (List<ContextIndexSearcher.LeafPartition> slice : slices) {
+            assertFalse(slice.isEmpty());
+            for (ContextIndexSearcher.LeafPartition partition : slice) {
+                assertEquals(expectedDoc, partition.leaf.docBase + partition.minDoc);
+                assertThat(partition.maxDoc, greaterThan(partition.minDoc));
+                assertThat(partition.maxDoc, lessThanOrEqualTo(partition.leaf.reader().maxDoc()));
+                expectedDoc = partition.leaf.docBase + partition.maxDoc;
+            }
+        }
+        assertEquals(reader.maxDoc(), expectedDoc);
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testConcurrentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numDocs = randomIntBetween(500, 2000);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new TextField("body", randomFrom("foo", "foo bar", "bar baz", "foo foo bar"), Field.Store.NO));
+            doc.add(new StringField("delete", rarely() ? "yes" : "no", Field.Store.NO));
+            w.addDocument(doc);
+            if (rarely()) {
+                w.flush();
+            }
+        }
+        w.deleteDocuments(new Term("delete", "yes"));
+        DirectoryReader reader = DirectoryReader.open(w);
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(2, 4));
+        try {
+            ContextIndexSearcher sequential = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+            ContextIndexSearcher concurrent = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), executor) {
+                @Override
+                protected int minDocsPerSlice() {
+                    return 100;
+                }
+            };
+            assertTrue(concurrent.hasConcurrentSlices());
+            Query query = new TermQuery(new Term("body", randomFrom("foo", "bar", "baz")));
+            assertEquals(sequential.count(query), concurrent.count(query));
+            TopDocs expected = sequential.search(query, 10);
+            TopDocs actual = concurrent.search(query, 10);
+            assertEquals(expected.totalHits, actual.totalHits);
+            assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+            }
+        } finally {
+            terminate(executor);
+            IOUtils.close(reader, w, dir);
+        }
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -0,0 +1,62 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.TestSearchContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SearchContextTests extends ESTestCase {
+
+    /**
+     * Aggregators that are created lazily while the slices of a shard are collected concurrently schedule the release
+     * of their resources from several threads at the same time.
+     */
+    public void testAddReleasableConcurrently() throws Exception {
+        SearchContext context = new TestSearchContext((QueryShardContext) null);
+        final int numThreads = randomIntBetween(2, 8);
+        final int releasablesPerThread = randomIntBetween(100, 1000);
+        final AtomicInteger released = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                for (int j = 0; j < releasablesPerThread; j++) {
+                    context.addReleasable(released::incrementAndGet, randomFrom(SearchContext.Lifetime.values()));
+                }
+            });
+            threads[i].start();
+        }
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        context.clearReleasables(SearchContext.Lifetime.CONTEXT);
+        assertEquals(numThreads * releasablesPerThread, released.get());
+    }
+}
@@ -85,11 +85,13 @@ import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.elasticsearch.search.query.QueryPhase.indexFieldHasDuplicateData;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
@@ -703,6 +705,129 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testNumericSortOptimizationWithSearchAfter() throws Exception {
+        final String fieldName = "long-field";
+        try (Directory dir = newDirectory()) {
+            indexLongValues(dir, fieldName);
+            try (IndexReader reader = DirectoryReader.open(dir)) {
+                final SortField sortField = new SortField(fieldName, SortField.Type.LONG, randomBoolean());
+                sortField.setMissingValue(sortField.getReverse() ? Long.MIN_VALUE : Long.MAX_VALUE);
+
+                // the search after value of the second page is the sort value of the last hit of the first page
+                TestSearchContext searchContext = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+                searchContext.sort(new SortAndFormats(new Sort(sortField), new DocValueFormat[]{DocValueFormat.RAW}));
+                searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+                searchContext.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+                searchContext.setSize(10);
+                QueryPhase.executeInternal(searchContext);
+                FieldDoc lastHit = (FieldDoc) searchContext.queryResult().topDocs().topDocs.scoreDocs[9];
+
+                assertNumericSortOptimizationWithSearchAfter(reader, sortField, lastHit.fields, 10);
+            }
+        }
+    }
+
+    /**
+     * The search after value comes from the hits of all the shards, so it can be outside of the range of the values of
+     * this shard. The documents that sort after it must not be skipped.
+     */
+    public void testNumericSortOptimizationWithSearchAfterOutsideOfTheShardRange() throws Exception {
+        final String fieldName = "long-field";
+        try (Directory dir = newDirectory()) {
+            final long maxValue = indexLongValues(dir, fieldName);
+            try (IndexReader reader = DirectoryReader.open(dir)) {
+                final SortField sortField = new SortField(fieldName, SortField.Type.LONG, randomBoolean());
+                sortField.setMissingValue(sortField.getReverse() ? Long.MIN_VALUE : Long.MAX_VALUE);
+
+                // before all the values of the shard, the page has the first hits of the shard
+                long searchAfterValue = sortField.getReverse() ? maxValue + randomLongBetween(1, 1000000) : -randomLongBetween(1, 1000000);
+                assertNumericSortOptimizationWithSearchAfter(reader, sortField, new Object[] { searchAfterValue }, 10);
+
+                // after all the values of the shard, the page is empty
+                searchAfterValue = sortField.getReverse() ? -randomLongBetween(1, 1000000) : maxValue + randomLongBetween(1, 1000000);
+                assertNumericSortOptimizationWithSearchAfter(reader, sortField, new Object[] { searchAfterValue }, 0);
+            }
+        }
+    }
+
+    /**
+     * Indexes documents with distinct values in random order in two segments, and returns the max value.
+     */
+    private static long indexLongValues(Directory dir, String fieldName) throws IOException {
+        final int numDocs = 7000;
+        List<Long> values = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            values.add(i * 1000L);
+        }
+        Collections.shuffle(values, random());
+        try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null))) {
+            for (int i = 0; i < numDocs; ++i) {
+                Document doc = new Document();
+                doc.add(new LongPoint(fieldName, values.get(i)));
+                doc.add(new NumericDocValuesField(fieldName, values.get(i)));
+                writer.addDocument(doc);
+                if (i % 3500 == 0) writer.commit();
+            }
+        }
+        return (numDocs - 1) * 1000L;
+    }
+
+    /**
+     * Checks that searching after the provided sort values returns the same hits with the optimized numeric sort as without.
+     */
+    private void assertNumericSortOptimizationWithSearchAfter(IndexReader reader, SortField sortField, Object[] searchAfterFields,
+                                                              int expectedHits) throws IOException {
+        MapperService mapperService = mock(MapperService.class);
+        when(mapperService.fieldType(sortField.getField()))
+            .thenReturn(new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG));
+        final SortAndFormats sortAndFormats = new SortAndFormats(new Sort(sortField), new DocValueFormat[]{DocValueFormat.RAW});
+        final FieldDoc searchAfter = new FieldDoc(Integer.MAX_VALUE, Float.NaN, searchAfterFields);
+
+        // the page without the optimization
+        TestSearchContext searchContext = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+        searchContext.sort(sortAndFormats);
+        searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        searchContext.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        searchContext.setSize(10);
+        searchContext.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+        searchContext.searchAfter(searchAfter);
+        QueryPhase.executeInternal(searchContext);
+        final TopDocs expected = searchContext.queryResult().topDocs().topDocs;
+
+        // the optimized page
+        final AtomicBoolean optimized = new AtomicBoolean();
+        ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy()) {
+
+            @Override
+            public void search(List<LeafReaderContext> leaves, Weight weight, CollectorManager manager,
+                    QuerySearchResult result, DocValueFormat[] formats, TotalHits totalHits) throws IOException {
+                optimized.set(true);
+                super.search(leaves, weight, manager, result, formats, totalHits);
+            }
+        };
+        TestSearchContext optimizedContext = spy(new TestSearchContext(null, indexShard, searcher));
+        when(optimizedContext.mapperService()).thenReturn(mapperService);
+        optimizedContext.sort(sortAndFormats);
+        optimizedContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        optimizedContext.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        optimizedContext.setSize(10);
+        optimizedContext.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+        optimizedContext.searchAfter(searchAfter);
+        QueryPhase.executeInternal(optimizedContext);
+        final TopDocs actual = optimizedContext.queryResult().topDocs().topDocs;
+
+        assertTrue(optimized.get());
+        assertSame(searchAfter, optimizedContext.searchAfter());
+        assertEquals(expectedHits, expected.scoreDocs.length);
+        assertEquals(expected.totalHits, actual.totalHits);
+        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+            assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) actual.scoreDocs[i]).fields);
+        }
+    }
+
     @AwaitsFix(bugUrl = "https://github.com/elastic/elasticsearch/issues/49703")
     public void testIndexHasDuplicateData() throws IOException {
         int docsCount = 7000;
@@ -834,6 +959,64 @@ public class QueryPhaseTests extends IndexShardTestCase {
 
     }
 
+    public void testConcurrentCollection() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        final int numDocs = scaledRandomIntBetween(500, 1000);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            doc.add(new TextField("title", randomFrom("foo", "foo bar", "foo bar baz"), Store.NO));
+            doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 100)));
+            w.addDocument(doc);
+        }
+        final IndexReader reader = w.getReader();
+        w.close();
+
+        final Query query = new TermQuery(new Term("title", "bar"));
+        final SortAndFormats sort = randomBoolean() ? null :
+            new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT)), new DocValueFormat[] { DocValueFormat.RAW });
+        final int size = randomFrom(0, 10, 100);
+        final int trackTotalHitsUpTo = randomFrom(SearchContext.TRACK_TOTAL_HITS_ACCURATE, SearchContext.TRACK_TOTAL_HITS_DISABLED, 50);
+        final TopDocs[] results = new TopDocs[2];
+        for (int i = 0; i < results.length; i++) {
+            TestSearchContext context = new TestSearchContext(null, indexShard,
+                i == 0 ? newContextSearcher(reader) : newConcurrentContextSearcher(reader));
+            context.parsedQuery(new ParsedQuery(query));
+            context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+            context.setSize(size);
+            context.sort(sort);
+            context.trackTotalHitsUpTo(trackTotalHitsUpTo);
+            QueryPhase.executeInternal(context);
+            results[i] = context.queryResult().topDocs().topDocs;
+        }
+        final TopDocs sequential = results[0];
+        final TopDocs concurrent = results[1];
+        if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+            assertEquals(sequential.totalHits, concurrent.totalHits);
+        } else if (sequential.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+            assertEquals(sequential.totalHits.value, concurrent.totalHits.value);
+        }
+        assertEquals(sequential.scoreDocs.length, concurrent.scoreDocs.length);
+        for (int i = 0; i < sequential.scoreDocs.length; i++) {
+            assertEquals(sequential.scoreDocs[i].doc, concurrent.scoreDocs[i].doc);
+            assertEquals(sequential.scoreDocs[i].score, concurrent.scoreDocs[i].score, 0f);
+        }
+        reader.close();
+        dir.close();
+    }
+
+    private ContextIndexSearcher newConcurrentContextSearcher(IndexReader reader) {
+        return new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(), IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(), indexShard.getThreadPool().executor(ThreadPool.Names.SEARCH_WORKER)) {
+
+            @Override
+            protected int minDocsPerSlice() {
+                return 50;
+            }
+        };
+    }
+
     private static ContextIndexSearcher newContextSearcher(IndexReader reader) {
         return new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
             IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
@@ -20,6 +20,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -33,7 +34,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithoutCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, false);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, null);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -61,7 +62,8 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        Compressor compressor = randomFrom(Compression.Scheme.values()).compressor();
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressor);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -69,9 +71,9 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
         BytesReference bytesRef = stream.materializeBytes();
         stream.close();
 
-        assertTrue(CompressorFactory.COMPRESSOR.isCompressed(bytesRef));
+        assertTrue(compressor.isCompressed(bytesRef));
 
-        StreamInput streamInput = CompressorFactory.COMPRESSOR.streamInput(bytesRef.streamInput());
+        StreamInput streamInput = compressor.streamInput(bytesRef.streamInput());
         byte[] actualBytes = new byte[expectedBytes.length];
         streamInput.readBytes(actualBytes, 0, expectedBytes.length);
 
@@ -88,7 +90,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testCompressionWithCallingMaterializeFails() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, CompressorFactory.COMPRESSOR);
 
         byte[] expectedBytes = randomBytes(between(1, 30));
         stream.write(expectedBytes);
@@ -45,11 +45,11 @@ public class InboundMessageTests extends ESTestCase {
         String action = randomAlphaOfLength(10);
         long requestId = randomLong();
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? null : randomFrom(Compression.Scheme.values());
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Request request = new OutboundMessage.Request(threadContext, message, version, action, requestId,
-            isHandshake, compress);
+            isHandshake, compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -68,7 +68,8 @@ public class InboundMessageTests extends ESTestCase {
         inboundMessage.getStoredContext().restore();
         assertEquals("header_value", threadContext.getHeader("header"));
         assertEquals(isHandshake, inboundMessage.isHandshake());
-        assertEquals(compress, inboundMessage.isCompress());
+        assertEquals(compressionScheme != null, inboundMessage.isCompress());
+        assertEquals(compressionScheme == null ? null : compressionScheme.forVersion(version), inboundMessage.getCompressionScheme());
         assertEquals(version, inboundMessage.getVersion());
         assertEquals(action, inboundMessage.getActionName());
         assertTrue(inboundMessage.isRequest());
@@ -82,11 +83,11 @@ public class InboundMessageTests extends ESTestCase {
         Message message = new Message(value);
         long requestId = randomLong();
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? null : randomFrom(Compression.Scheme.values());
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Response request = new OutboundMessage.Response(threadContext, message, version, requestId, isHandshake,
-            compress);
+            compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -105,7 +106,8 @@ public class InboundMessageTests extends ESTestCase {
         inboundMessage.getStoredContext().restore();
         assertEquals("header_value", threadContext.getHeader("header"));
         assertEquals(isHandshake, inboundMessage.isHandshake());
-        assertEquals(compress, inboundMessage.isCompress());
+        assertEquals(compressionScheme != null, inboundMessage.isCompress());
+        assertEquals(compressionScheme == null ? null : compressionScheme.forVersion(version), inboundMessage.getCompressionScheme());
         assertEquals(version, inboundMessage.getVersion());
         assertTrue(inboundMessage.isResponse());
         assertFalse(inboundMessage.isRequest());
@@ -117,11 +119,11 @@ public class InboundMessageTests extends ESTestCase {
         RemoteTransportException exception = new RemoteTransportException("error", new IOException());
         long requestId = randomLong();
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? null : randomFrom(Compression.Scheme.values());
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Response request = new OutboundMessage.Response(threadContext, exception, version, requestId,
-            isHandshake, compress);
+            isHandshake, compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -140,7 +142,8 @@ public class InboundMessageTests extends ESTestCase {
         inboundMessage.getStoredContext().restore();
         assertEquals("header_value", threadContext.getHeader("header"));
         assertEquals(isHandshake, inboundMessage.isHandshake());
-        assertEquals(compress, inboundMessage.isCompress());
+        assertEquals(compressionScheme != null, inboundMessage.isCompress());
+        assertEquals(compressionScheme == null ? null : compressionScheme.forVersion(version), inboundMessage.getCompressionScheme());
         assertEquals(version, inboundMessage.getVersion());
         assertTrue(inboundMessage.isResponse());
         assertFalse(inboundMessage.isRequest());
@@ -179,7 +182,7 @@ public class InboundMessageTests extends ESTestCase {
 
     public void testThrowOnNotCompressed() throws Exception {
         OutboundMessage.Response request = new OutboundMessage.Response(
-            threadContext, new Message(randomAlphaOfLength(10)), Version.CURRENT, randomLong(), false, false);
+            threadContext, new Message(randomAlphaOfLength(10)), Version.CURRENT, randomLong(), false, null);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -187,12 +190,13 @@ public class InboundMessageTests extends ESTestCase {
         final byte[] serialized = BytesReference.toBytes(reference);
         final int statusPosition = TcpHeader.headerSize(Version.CURRENT) - TcpHeader.VERSION_ID_SIZE - TcpHeader.VARIABLE_HEADER_SIZE - 1;
         // force status byte to signal compressed on the otherwise uncompressed message
-        serialized[statusPosition] = TransportStatus.setCompress(serialized[statusPosition]);
+        final Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.values());
+        serialized[statusPosition] = TransportStatus.setCompress(serialized[statusPosition], compressionScheme);
         reference = new BytesArray(serialized);
         InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, registry, threadContext);
         BytesReference sliced = reference.slice(6, reference.length() - 6);
         final IllegalStateException iste = expectThrows(IllegalStateException.class, () -> reader.deserialize(sliced));
-        assertThat(iste.getMessage(), Matchers.equalTo("stream marked as compressed, but is missing deflate header"));
+        assertThat(iste.getMessage(), Matchers.equalTo("stream marked as compressed, but is missing " + compressionScheme + " header"));
     }
 
     private void testVersionIncompatibility(Version version, Version currentVersion, boolean isHandshake) throws IOException {
@@ -200,9 +204,9 @@ public class InboundMessageTests extends ESTestCase {
         Message message = new Message(value);
         String action = randomAlphaOfLength(10);
         long requestId = randomLong();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? null : randomFrom(Compression.Scheme.values());
         OutboundMessage.Request request = new OutboundMessage.Request(threadContext, message, version, action, requestId,
-            isHandshake, compress);
+            isHandshake, compressionScheme);
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
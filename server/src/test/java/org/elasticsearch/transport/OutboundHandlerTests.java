@@ -101,7 +101,7 @@ public class OutboundHandlerTests extends ESTestCase {
         String action = "handshake";
         long requestId = randomLongBetween(0, 300);
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? null : randomFrom(Compression.Scheme.values());
         String value = "message";
         threadContext.putHeader("header", "header_value");
         Request request = new Request(value);
@@ -120,7 +120,7 @@ public class OutboundHandlerTests extends ESTestCase {
                 requestRef.set(request);
             }
         });
-        handler.sendRequest(node, channel, requestId, action, request, options, version, compress, isHandshake);
+        handler.sendRequest(node, channel, requestId, action, request, options, version, compressionScheme, isHandshake);
 
         BytesReference reference = channel.getMessageCaptor().get();
         ActionListener<Void> sendListener  = channel.getListenerCaptor().get();
@@ -145,8 +145,9 @@ public class OutboundHandlerTests extends ESTestCase {
             } else {
                 assertFalse(inboundMessage.isHandshake());
             }
-            if (compress) {
+            if (compressionScheme != null) {
                 assertTrue(inboundMessage.isCompress());
+                assertEquals(compressionScheme.forVersion(version), inboundMessage.getCompressionScheme());
             } else {
                 assertFalse(inboundMessage.isCompress());
             }
@@ -170,7 +171,7 @@ public class OutboundHandlerTests extends ESTestCase {
         String action = "handshake";
         long requestId = randomLongBetween(0, 300);
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomBoolean() ? null : randomFrom(Compression.Scheme.values());
         String value = "message";
         threadContext.putHeader("header", "header_value");
         Response response = new Response(value);
@@ -186,7 +187,7 @@ public class OutboundHandlerTests extends ESTestCase {
                 responseRef.set(response);
             }
         });
-        handler.sendResponse(version, channel, requestId, action, response, compress, isHandshake);
+        handler.sendResponse(version, channel, requestId, action, response, compressionScheme, isHandshake);
 
         BytesReference reference = channel.getMessageCaptor().get();
         ActionListener<Void> sendListener  = channel.getListenerCaptor().get();
@@ -210,8 +211,9 @@ public class OutboundHandlerTests extends ESTestCase {
             } else {
                 assertFalse(inboundMessage.isHandshake());
             }
-            if (compress) {
+            if (compressionScheme != null) {
                 assertTrue(inboundMessage.isCompress());
+                assertEquals(compressionScheme.forVersion(version), inboundMessage.getCompressionScheme());
             } else {
                 assertFalse(inboundMessage.isCompress());
             }
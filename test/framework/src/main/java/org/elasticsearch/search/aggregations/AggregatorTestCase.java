@@ -26,6 +26,7 @@ import org.apache.lucene.index.IndexReaderContext;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.AssertingIndexSearcher;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCache;
@@ -81,11 +82,14 @@ import org.junit.After;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -104,7 +108,7 @@ import static org.mockito.Mockito.when;
  */
 public abstract class AggregatorTestCase extends ESTestCase {
     private static final String NESTEDFIELD_PREFIX = "nested_";
-    private List<Releasable> releasables = new ArrayList<>();
+    private List<Releasable> releasables = Collections.synchronizedList(new ArrayList<>());
     private static final String TYPE_NAME = "type";
 
     /**
@@ -189,8 +193,9 @@ public abstract class AggregatorTestCase extends ESTestCase {
                 return false;
             }
         };
-        ContextIndexSearcher contextIndexSearcher = new ContextIndexSearcher(indexSearcher.getIndexReader(),
-            indexSearcher.getSimilarity(), queryCache, queryCachingPolicy);
+        // a context searcher is used as is, so that tests can search concurrently
+        ContextIndexSearcher contextIndexSearcher = indexSearcher instanceof ContextIndexSearcher ? (ContextIndexSearcher) indexSearcher
+            : new ContextIndexSearcher(indexSearcher.getIndexReader(), indexSearcher.getSimilarity(), queryCache, queryCachingPolicy);
 
         SearchContext searchContext = mock(SearchContext.class);
         when(searchContext.numberOfShards()).thenReturn(1);
@@ -344,6 +349,60 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return internalAgg;
     }
 
+    /**
+     * Searches the provided reader like the query phase does when it collects the slices of a shard concurrently, with
+     * an aggregator per slice, and returns the partial reduction of the results of the slices. The slices hold ranges of
+     * about <code>minDocsPerSlice</code> documents, so that a large segment is split between several slices.
+     */
+    protected <A extends InternalAggregation> A searchConcurrently(IndexReader reader,
+                                                                   int minDocsPerSlice,
+                                                                   Query query,
+                                                                   AggregationBuilder builder,
+                                                                   MappedFieldType... fieldTypes) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(2, 4));
+        try {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), executor) {
+                @Override
+                protected int minDocsPerSlice() {
+                    return minDocsPerSlice;
+                }
+            };
+            assertTrue(searcher.hasConcurrentSlices());
+            List<Aggregator> aggregators = new ArrayList<>();
+            searcher.search(query, new CollectorManager<Collector, Void>() {
+                @Override
+                public Collector newCollector() throws IOException {
+                    MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(DEFAULT_MAX_BUCKETS,
+                        new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST));
+                    Aggregator aggregator = createAggregator(query, builder, searcher, bucketConsumer, fieldTypes);
+                    aggregator.preCollection();
+                    aggregators.add(aggregator);
+                    return aggregator;
+                }
+
+                @Override
+                public Void reduce(Collection<Collector> collectors) {
+                    return null;
+                }
+            });
+            List<InternalAggregation> aggs = new ArrayList<>(aggregators.size());
+            for (Aggregator aggregator : aggregators) {
+                aggregator.postCollection();
+                aggs.add(aggregator.buildAggregation(0L));
+            }
+            MultiBucketConsumer reduceBucketConsumer = new MultiBucketConsumer(DEFAULT_MAX_BUCKETS,
+                new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST));
+            InternalAggregation.ReduceContext context = new InternalAggregation.ReduceContext(aggregators.get(0).context().bigArrays(),
+                getMockScriptService(), reduceBucketConsumer, false);
+            @SuppressWarnings("unchecked")
+            A internalAgg = (A) aggs.get(0).reduce(aggs, context);
+            return internalAgg;
+        } finally {
+            terminate(executor);
+        }
+    }
+
     protected <A extends InternalAggregation, C extends Aggregator> A searchAndReduce(IndexSearcher searcher,
                                                                                       Query query,
                                                                                       AggregationBuilder builder,
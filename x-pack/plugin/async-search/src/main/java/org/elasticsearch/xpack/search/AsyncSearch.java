@@ -0,0 +1,102 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.IndexScopedSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.plugins.ActionPlugin;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestHandler;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.xpack.core.search.action.DeleteAsyncSearchAction;
+import org.elasticsearch.xpack.core.search.action.GetAsyncSearchAction;
+import org.elasticsearch.xpack.core.search.action.SubmitAsyncSearchAction;
+import org.elasticsearch.xpack.core.security.authc.Authentication;
+import org.elasticsearch.xpack.core.security.authc.AuthenticationField;
+import org.elasticsearch.xpack.core.security.authc.support.AuthenticationContextSerializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public final class AsyncSearch extends Plugin implements ActionPlugin {
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return List.of(
+            new ActionHandler<>(SubmitAsyncSearchAction.INSTANCE, TransportSubmitAsyncSearchAction.class),
+            new ActionHandler<>(GetAsyncSearchAction.INSTANCE, TransportGetAsyncSearchAction.class),
+            new ActionHandler<>(DeleteAsyncSearchAction.INSTANCE, TransportDeleteAsyncSearchAction.class)
+        );
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(Settings settings, RestController restController, ClusterSettings clusterSettings,
+                                             IndexScopedSettings indexScopedSettings, SettingsFilter settingsFilter,
+                                             IndexNameExpressionResolver indexNameExpressionResolver,
+                                             Supplier<DiscoveryNodes> nodesInCluster) {
+        return List.of(
+            new RestSubmitAsyncSearchAction(),
+            new RestGetAsyncSearchAction(),
+            new RestDeleteAsyncSearchAction()
+        );
+    }
+
+    /**
+     * Returns the {@link AsyncSearchTask} registered in the provided task manager for the provided
+     * {@link AsyncSearchId}, or <code>null</code> if the task is not found, if the uuid doesn't match
+     * or if the authenticated user in the provided {@link ThreadContext} didn't submit the search.
+     */
+    static AsyncSearchTask getTask(TaskManager taskManager, AsyncSearchId searchId, ThreadContext threadContext) throws IOException {
+        Task task = taskManager.getTask(searchId.getTaskId().getId());
+        if (task instanceof AsyncSearchTask == false) {
+            return null;
+        }
+        AsyncSearchTask searchTask = (AsyncSearchTask) task;
+        if (searchTask.getSearchId().equals(searchId) == false) {
+            // the task id was reused after a restart of the node
+            return null;
+        }
+        if (isSameUser(searchTask.getOriginHeaders(), threadContext.getHeaders()) == false) {
+            // the response is hidden to users that didn't submit the search
+            return null;
+        }
+        return searchTask;
+    }
+
+    /**
+     * Returns <code>true</code> if the user authenticated in the current headers is the one
+     * that is authenticated in the origin headers, or if security is not enabled.
+     */
+    static boolean isSameUser(Map<String, String> originHeaders, Map<String, String> currentHeaders) throws IOException {
+        final String originAuth = originHeaders.get(AuthenticationField.AUTHENTICATION_KEY);
+        if (originAuth == null) {
+            // security was not enabled when the search was submitted
+            return true;
+        }
+        final String currentAuth = currentHeaders.get(AuthenticationField.AUTHENTICATION_KEY);
+        if (currentAuth == null) {
+            return false;
+        }
+        final Authentication original = AuthenticationContextSerializer.decode(originAuth);
+        final Authentication current = AuthenticationContextSerializer.decode(currentAuth);
+        // this is a best effort check since we cannot guarantee principal uniqueness
+        // and realm names can change between nodes.
+        final boolean samePrincipal = original.getUser().principal().equals(current.getUser().principal());
+        final boolean sameRealmType = original.getSourceRealm().getType().equals(current.getSourceRealm().getType());
+        return samePrincipal && sameRealmType;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * A class that contains all information related to a submitted async search.
+ */
+class AsyncSearchId {
+    private final String uuid;
+    private final TaskId taskId;
+    private final String encoded;
+
+    AsyncSearchId(String uuid, TaskId taskId) {
+        this.uuid = uuid;
+        this.taskId = taskId;
+        this.encoded = encode(uuid, taskId);
+    }
+
+    /**
+     * The random id that was generated for this search. It is used to detect that the
+     * task id was not reused after a restart of the node that runs the search.
+     */
+    String getUUID() {
+        return uuid;
+    }
+
+    /**
+     * The {@link TaskId} of the async search in the task manager.
+     */
+    TaskId getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * Gets the encoded string that represents this search.
+     */
+    String getEncoded() {
+        return encoded;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AsyncSearchId searchId = (AsyncSearchId) o;
+        return uuid.equals(searchId.uuid) &&
+            taskId.equals(searchId.taskId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uuid, taskId);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + uuid + "][" + taskId + "]";
+    }
+
+    /**
+     * Encode the information needed to retrieve an async search response
+     * in a base64 encoded string.
+     */
+    static String encode(String uuid, TaskId taskId) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeString(uuid);
+            out.writeString(taskId.toString());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Decode a base64 encoded string into an {@link AsyncSearchId} that can be used
+     * to retrieve the response of an async search.
+     */
+    static AsyncSearchId decode(String id) {
+        final ByteBuffer byteBuffer;
+        try {
+            byteBuffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(id));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("invalid id: [" + id + "]", e);
+        }
+        try (StreamInput in = new ByteBufferStreamInput(byteBuffer)) {
+            final AsyncSearchId searchId = new AsyncSearchId(in.readString(), new TaskId(in.readString()));
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("invalid id: [" + id + "]");
+            }
+            return searchId;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid id: [" + id + "]", e);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksAction;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.action.search.SearchProgressActionListener;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponse.Clusters;
+import org.elasticsearch.action.search.SearchShard;
+import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xpack.core.search.action.AsyncSearchResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Task that tracks the progress of a currently running {@link org.elasticsearch.action.search.SearchRequest}.
+ * The task stays registered in the {@link TaskManager} after the completion of the search so that the
+ * response can be retrieved until the task expires or is deleted explicitly.
+ */
+final class AsyncSearchTask extends SearchTask {
+    private static final Logger logger = LogManager.getLogger(AsyncSearchTask.class);
+
+    private final AsyncSearchId searchId;
+    private final Map<String, String> originHeaders;
+    private final Client client;
+    private final ThreadPool threadPool;
+    private final TaskManager taskManager;
+    private final Supplier<ReduceContext> reduceContextSupplier;
+    private final Listener progressListener;
+
+    private volatile long expirationTimeMillis;
+    private volatile MutableSearchResponse searchResponse;
+
+    private final Map<Long, Consumer<AsyncSearchResponse>> completionListeners = new HashMap<>();
+    private long completionId;
+    private boolean hasCompleted;
+    private Scheduler.ScheduledCancellable expirationCheck;
+    private final AtomicBoolean isRemoved = new AtomicBoolean();
+
+    /**
+     * Creates an instance of {@link AsyncSearchTask}.
+     *
+     * @param id The id of the task.
+     * @param type The type of the task.
+     * @param action The action name.
+     * @param parentTaskId The parent task id.
+     * @param taskHeaders The filtered request headers for the task.
+     * @param originHeaders The security headers of the user that submitted the async search.
+     * @param searchId The {@link AsyncSearchId} of the task.
+     * @param keepAlive The initial expiration time of the async search.
+     * @param client The client to cancel the search when it is deleted or expires.
+     * @param threadPool The threadPool to schedule the expiration and the wait for completion timeouts.
+     * @param taskManager The task manager that registered this task.
+     * @param reduceContextSupplier A supplier to create final reduce contexts.
+     */
+    AsyncSearchTask(long id,
+                    String type,
+                    String action,
+                    TaskId parentTaskId,
+                    Map<String, String> taskHeaders,
+                    Map<String, String> originHeaders,
+                    AsyncSearchId searchId,
+                    TimeValue keepAlive,
+                    Client client,
+                    ThreadPool threadPool,
+                    TaskManager taskManager,
+                    Supplier<ReduceContext> reduceContextSupplier) {
+        super(id, type, action, "async_search", parentTaskId, taskHeaders);
+        this.searchId = searchId;
+        this.originHeaders = originHeaders;
+        this.client = client;
+        this.threadPool = threadPool;
+        this.taskManager = taskManager;
+        this.reduceContextSupplier = reduceContextSupplier;
+        this.expirationTimeMillis = getStartTime() + keepAlive.getMillis();
+        this.progressListener = new Listener();
+        setProgressListener(progressListener);
+    }
+
+    /**
+     * Returns the {@link AsyncSearchId} of the task
+     */
+    AsyncSearchId getSearchId() {
+        return searchId;
+    }
+
+    /**
+     * Returns the security headers of the user that submitted the async search.
+     */
+    Map<String, String> getOriginHeaders() {
+        return originHeaders;
+    }
+
+    @Override
+    public SearchProgressActionListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Returns the expiration time of the async search in milliseconds since epoch.
+     */
+    long getExpirationTime() {
+        return expirationTimeMillis;
+    }
+
+    /**
+     * Extends the expiration time of the async search to <code>now + keepAlive</code>.
+     */
+    void extendExpirationTime(TimeValue keepAlive) {
+        expirationTimeMillis = threadPool.absoluteTimeInMillis() + keepAlive.getMillis();
+    }
+
+    /**
+     * Schedules the removal of this task when it expires. The expiration is re-checked
+     * when the delay elapses since the expiration time can be extended in the meantime.
+     */
+    synchronized void scheduleExpiration() {
+        if (isRemoved.get()) {
+            return;
+        }
+        final long delay = Math.max(0L, expirationTimeMillis - threadPool.absoluteTimeInMillis());
+        expirationCheck = threadPool.schedule(() -> {
+            if (threadPool.absoluteTimeInMillis() >= expirationTimeMillis) {
+                remove("async search expired", () -> {});
+            } else {
+                scheduleExpiration();
+            }
+        }, TimeValue.timeValueMillis(delay), ThreadPool.Names.GENERIC);
+    }
+
+    /**
+     * Cancels the search if it is still running and unregisters this task from the task manager.
+     * The provided runnable is executed once the task is removed.
+     */
+    void remove(String reason, Runnable onRemoved) {
+        if (isRemoved.compareAndSet(false, true) == false) {
+            onRemoved.run();
+            return;
+        }
+        synchronized (this) {
+            if (expirationCheck != null) {
+                expirationCheck.cancel();
+            }
+        }
+        if (isRunning() == false) {
+            taskManager.unregister(this);
+            onRemoved.run();
+            return;
+        }
+        CancelTasksRequest req = new CancelTasksRequest()
+            .setTaskId(new TaskId(searchId.getTaskId().getNodeId(), getId()))
+            .setReason(reason);
+        client.execute(CancelTasksAction.INSTANCE, req, ActionListener.wrap(() -> {
+            taskManager.unregister(this);
+            onRemoved.run();
+        }));
+    }
+
+    /**
+     * Returns <code>true</code> if the search is still running.
+     */
+    synchronized boolean isRunning() {
+        return hasCompleted == false;
+    }
+
+    /**
+     * Registers a listener that is executed with the response of the search when it completes or when
+     * the provided <code>waitForCompletion</code> timeout elapses, whichever comes first.
+     */
+    void addCompletionListener(Consumer<AsyncSearchResponse> listener, TimeValue waitForCompletion) {
+        final boolean executeImmediately;
+        synchronized (this) {
+            if (hasCompleted || waitForCompletion.getMillis() <= 0) {
+                executeImmediately = true;
+            } else {
+                executeImmediately = false;
+                final long id = completionId++;
+                completionListeners.put(id, listener);
+                threadPool.schedule(() -> {
+                    final Consumer<AsyncSearchResponse> timedOut;
+                    synchronized (this) {
+                        timedOut = completionListeners.remove(id);
+                    }
+                    if (timedOut != null) {
+                        timedOut.accept(getResponse());
+                    }
+                }, waitForCompletion, ThreadPool.Names.GENERIC);
+            }
+        }
+        if (executeImmediately) {
+            listener.accept(getResponse());
+        }
+    }
+
+    private void executeCompletionListeners() {
+        final List<Consumer<AsyncSearchResponse>> listeners;
+        synchronized (this) {
+            if (hasCompleted) {
+                return;
+            }
+            hasCompleted = true;
+            listeners = new ArrayList<>(completionListeners.values());
+            completionListeners.clear();
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        final AsyncSearchResponse response = getResponse();
+        for (Consumer<AsyncSearchResponse> listener : listeners) {
+            try {
+                listener.accept(response);
+            } catch (Exception e) {
+                logger.error(() -> new ParameterizedMessage("failed to notify completion listener of async search [{}]",
+                    searchId.getEncoded()), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the current {@link AsyncSearchResponse}.
+     */
+    AsyncSearchResponse getResponse() {
+        final MutableSearchResponse mutableSearchResponse = this.searchResponse;
+        if (mutableSearchResponse == null) {
+            // the search has not started yet
+            return new AsyncSearchResponse(searchId.getEncoded(), 0, null, null, true, true, getStartTime(), expirationTimeMillis);
+        }
+        return mutableSearchResponse.toAsyncSearchResponse(this, expirationTimeMillis);
+    }
+
+    private class Listener extends SearchProgressActionListener {
+        private volatile List<SearchShard> shards;
+
+        @Override
+        public void onListShards(List<SearchShard> shards, boolean fetchPhase) {
+            this.shards = shards;
+            searchResponse = new MutableSearchResponse(shards.size(), 0, Clusters.EMPTY, reduceContextSupplier);
+        }
+
+        @Override
+        public void onQueryFailure(int shardIndex, Exception exc) {
+            addShardFailure(shardIndex, exc);
+        }
+
+        @Override
+        public void onFetchFailure(int shardIndex, Exception exc) {
+            addShardFailure(shardIndex, exc);
+        }
+
+        private void addShardFailure(int shardIndex, Exception exc) {
+            final SearchShard shard = shards.get(shardIndex);
+            searchResponse.addShardFailure(shardIndex, new ShardSearchFailure(exc,
+                new SearchShardTarget(null, shard.getShardId(), shard.getClusterAlias(), OriginalIndices.NONE)));
+        }
+
+        @Override
+        public void onPartialReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs, int reducePhase) {
+            searchResponse.updatePartialResponse(shards.size(), totalHits, aggs, reducePhase);
+        }
+
+        @Override
+        public void onReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs) {
+            searchResponse.updateFinalReduce(shards.size(), totalHits, aggs);
+        }
+
+        @Override
+        public void onResponse(SearchResponse response) {
+            if (searchResponse == null) {
+                // the progress of the search was not reported (e.g. cross cluster search that minimizes round-trips)
+                searchResponse = new MutableSearchResponse(response.getTotalShards(), response.getSkippedShards(),
+                    response.getClusters(), reduceContextSupplier);
+            }
+            searchResponse.updateFinalResponse(response);
+            executeCompletionListeners();
+        }
+
+        @Override
+        public void onFailure(Exception exc) {
+            if (searchResponse == null) {
+                // the search failed before the list of shards was resolved
+                searchResponse = new MutableSearchResponse(-1, 0, Clusters.EMPTY, reduceContextSupplier);
+            }
+            searchResponse.updateWithFailure(exc);
+            executeCompletionListeners();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponse.Clusters;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.xpack.core.search.action.AsyncSearchResponse;
+
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * A mutable search response that allows to update and create partial response synchronously.
+ * Synchronized methods ensure that updates of the content are blocked if another thread is
+ * creating an async response concurrently. This limits the number of final reduction that can
+ * run concurrently to 1 and ensures that we pause the search progress when an {@link AsyncSearchResponse} is built.
+ */
+class MutableSearchResponse {
+    private final int totalShards;
+    private final int skippedShards;
+    private final Clusters clusters;
+    private final AtomicArray<ShardSearchFailure> shardFailures;
+    private final Supplier<ReduceContext> reduceContextSupplier;
+
+    private int version;
+    private boolean isPartial;
+    private boolean frozen;
+    private int successfulShards;
+    private TotalHits totalHits;
+    private InternalAggregations aggregations;
+    private boolean isFinalReduce;
+    private int reducePhase;
+    private SearchResponse finalResponse;
+    private ElasticsearchException failure;
+
+    // the partial aggregations reduced for the current version
+    private InternalAggregations reducedAggregations;
+    private int reducedAggregationsVersion = -1;
+
+    /**
+     * Creates a new mutable search response.
+     *
+     * @param totalShards The number of shards that participate in the request, or -1 to indicate a failure.
+     * @param skippedShards The number of skipped shards.
+     * @param clusters The remote clusters statistics.
+     * @param reduceContextSupplier A supplier to run final reduce on partial aggregations.
+     */
+    MutableSearchResponse(int totalShards, int skippedShards, Clusters clusters, Supplier<ReduceContext> reduceContextSupplier) {
+        this.totalShards = totalShards;
+        this.skippedShards = skippedShards;
+        this.clusters = clusters;
+        this.reduceContextSupplier = reduceContextSupplier;
+        this.version = 0;
+        this.shardFailures = totalShards == -1 ? null : new AtomicArray<>(totalShards);
+        this.isPartial = true;
+        this.totalHits = new TotalHits(0L, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+    }
+
+    /**
+     * Updates the response with the partial {@link InternalAggregations} and the number of shards that
+     * participated in the reduce. Partial results that are older than the last reduce are ignored.
+     */
+    synchronized void updatePartialResponse(int successfulShards, TotalHits totalHits, InternalAggregations aggregations,
+                                            int reducePhase) {
+        if (frozen || isFinalReduce || reducePhase < this.reducePhase) {
+            // the search is over or this reduce is stale
+            return;
+        }
+        ++ version;
+        this.successfulShards = successfulShards;
+        this.totalHits = totalHits;
+        this.aggregations = aggregations;
+        this.reducePhase = reducePhase;
+    }
+
+    /**
+     * Updates the response with the result of the final reduce. The aggregations are already
+     * reduced so they don't need to be reduced again when the response is built.
+     */
+    synchronized void updateFinalReduce(int successfulShards, TotalHits totalHits, InternalAggregations aggregations) {
+        if (frozen) {
+            return;
+        }
+        ++ version;
+        this.successfulShards = successfulShards;
+        this.totalHits = totalHits;
+        this.aggregations = aggregations;
+        this.isFinalReduce = true;
+    }
+
+    /**
+     * Updates the response with the final {@link SearchResponse} once the
+     * search is complete.
+     */
+    synchronized void updateFinalResponse(SearchResponse response) {
+        failIfFrozen();
+        ++ version;
+        this.isPartial = false;
+        this.finalResponse = response;
+        this.frozen = true;
+    }
+
+    /**
+     * Updates the response with a fatal failure. This method preserves the partial response
+     * received from previous updates
+     */
+    synchronized void updateWithFailure(Exception exc) {
+        failIfFrozen();
+        ++ version;
+        this.isPartial = true;
+        this.failure = wrapException(exc);
+        this.frozen = true;
+    }
+
+    /**
+     * Adds a shard failure concurrently (non-blocking).
+     */
+    void addShardFailure(int shardIndex, ShardSearchFailure failure) {
+        shardFailures.set(shardIndex, failure);
+    }
+
+    /**
+     * Creates an {@link AsyncSearchResponse} based on the current state of the mutable response.
+     * The final reduce of the aggregations is executed if needed (partial response).
+     */
+    synchronized AsyncSearchResponse toAsyncSearchResponse(AsyncSearchTask task, long expirationTime) {
+        final SearchResponse resp;
+        if (totalShards == -1) {
+            // the search failed before the list of shards was known
+            resp = null;
+        } else if (finalResponse != null) {
+            resp = finalResponse;
+        } else {
+            InternalSearchResponse internal = new InternalSearchResponse(
+                new SearchHits(SearchHits.EMPTY, totalHits, Float.NaN), reduceAggregations(), null, null, false, false, reducePhase);
+            long tookInMillis = Math.max(0L, System.currentTimeMillis() - task.getStartTime());
+            resp = new SearchResponse(internal, null, totalShards, successfulShards, skippedShards,
+                tookInMillis, buildShardFailures(), clusters);
+        }
+        return new AsyncSearchResponse(task.getSearchId().getEncoded(), version, resp, failure, isPartial,
+            frozen == false, task.getStartTime(), expirationTime);
+    }
+
+    private InternalAggregations reduceAggregations() {
+        if (aggregations == null || isFinalReduce) {
+            return aggregations;
+        }
+        if (reducedAggregationsVersion != version) {
+            reducedAggregations = InternalAggregations.topLevelReduce(Collections.singletonList(aggregations),
+                reduceContextSupplier.get());
+            reducedAggregationsVersion = version;
+        }
+        return reducedAggregations;
+    }
+
+    private void failIfFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("invalid update received after the completion of the request");
+        }
+    }
+
+    private ShardSearchFailure[] buildShardFailures() {
+        if (shardFailures == null) {
+            return ShardSearchFailure.EMPTY_ARRAY;
+        }
+        return shardFailures.asList().toArray(ShardSearchFailure.EMPTY_ARRAY);
+    }
+
+    private static ElasticsearchException wrapException(Exception exc) {
+        final Throwable cause = ExceptionsHelper.unwrapCause(exc);
+        return cause instanceof ElasticsearchException ? (ElasticsearchException) cause : new ElasticsearchException(cause);
+    }
+}
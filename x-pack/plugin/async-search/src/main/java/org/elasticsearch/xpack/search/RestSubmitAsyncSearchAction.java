@@ -0,0 +1,60 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestStatusToXContentListener;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.xpack.core.search.action.SubmitAsyncSearchAction;
+import org.elasticsearch.xpack.core.search.action.SubmitAsyncSearchRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+import static org.elasticsearch.rest.action.search.RestSearchAction.parseSearchRequest;
+
+public final class RestSubmitAsyncSearchAction extends BaseRestHandler {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+            new Route(POST, "/_async_search"),
+            new Route(POST, "/{index}/_async_search"));
+    }
+
+    @Override
+    public String getName() {
+        return "async_search_submit_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        SubmitAsyncSearchRequest submit = new SubmitAsyncSearchRequest();
+        IntConsumer setSize = size -> submit.getSearchRequest().source().size(size);
+        request.withContentOrSourceParamParserOrNull(parser ->
+            parseSearchRequest(submit.getSearchRequest(), request, parser, setSize));
+        if (submit.getSearchRequest().source() == null) {
+            submit.getSearchRequest().source(new SearchSourceBuilder());
+        }
+        // the progress of remote clusters can only be tracked if they don't reduce their results
+        submit.getSearchRequest().setCcsMinimizeRoundtrips(request.paramAsBoolean("ccs_minimize_roundtrips", false));
+        if (request.hasParam("wait_for_completion_timeout")) {
+            submit.setWaitForCompletion(request.paramAsTime("wait_for_completion_timeout", submit.getWaitForCompletion()));
+        }
+        if (request.hasParam("keep_alive")) {
+            submit.setKeepAlive(request.paramAsTime("keep_alive", submit.getKeepAlive()));
+        }
+        if (request.hasParam("keep_on_completion")) {
+            submit.setKeepOnCompletion(request.paramAsBoolean("keep_on_completion", submit.isKeepOnCompletion()));
+        }
+        // the search is not cancelled when the http channel is closed since the response can be retrieved later
+        return channel -> client.execute(SubmitAsyncSearchAction.INSTANCE, submit, new RestStatusToXContentListener<>(channel));
+    }
+}
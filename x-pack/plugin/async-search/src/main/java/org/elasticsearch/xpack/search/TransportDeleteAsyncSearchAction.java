@@ -0,0 +1,61 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xpack.core.search.action.DeleteAsyncSearchAction;
+
+public class TransportDeleteAsyncSearchAction extends HandledTransportAction<DeleteAsyncSearchAction.Request, AcknowledgedResponse> {
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+
+    @Inject
+    public TransportDeleteAsyncSearchAction(TransportService transportService,
+                                            ActionFilters actionFilters,
+                                            ClusterService clusterService,
+                                         ThreadPool threadPool) {
+        super(DeleteAsyncSearchAction.NAME, transportService, actionFilters, DeleteAsyncSearchAction.Request::new);
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+    }
+
+    @Override
+    protected void doExecute(Task task, DeleteAsyncSearchAction.Request request, ActionListener<AcknowledgedResponse> listener) {
+        try {
+            AsyncSearchId searchId = AsyncSearchId.decode(request.getId());
+            DiscoveryNode node = clusterService.state().nodes().get(searchId.getTaskId().getNodeId());
+            if (clusterService.localNode().getId().equals(searchId.getTaskId().getNodeId())) {
+                AsyncSearchTask searchTask = AsyncSearch.getTask(taskManager, searchId, threadPool.getThreadContext());
+                if (searchTask == null) {
+                    listener.onFailure(new ResourceNotFoundException(request.getId()));
+                } else {
+                    searchTask.remove("async search [" + request.getId() + "] deleted",
+                        () -> listener.onResponse(new AcknowledgedResponse(true)));
+                }
+            } else if (node == null) {
+                listener.onFailure(new ResourceNotFoundException(request.getId()));
+            } else {
+                transportService.sendRequest(node, DeleteAsyncSearchAction.NAME, request,
+                    new ActionListenerResponseHandler<>(listener, AcknowledgedResponse::new, ThreadPool.Names.SAME));
+            }
+        } catch (Exception exc) {
+            listener.onFailure(exc);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.TransportSearchAction;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.OriginSettingClient;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xpack.core.ClientHelper;
+import org.elasticsearch.xpack.core.search.action.AsyncSearchResponse;
+import org.elasticsearch.xpack.core.search.action.SubmitAsyncSearchAction;
+import org.elasticsearch.xpack.core.search.action.SubmitAsyncSearchRequest;
+
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.action.admin.cluster.node.tasks.get.GetTaskAction.TASKS_ORIGIN;
+
+public class TransportSubmitAsyncSearchAction extends HandledTransportAction<SubmitAsyncSearchRequest, AsyncSearchResponse> {
+    private final ClusterService clusterService;
+    private final Client client;
+    private final ThreadPool threadPool;
+    private final Supplier<ReduceContext> reduceContextSupplier;
+    private final TransportSearchAction searchAction;
+
+    @Inject
+    public TransportSubmitAsyncSearchAction(ClusterService clusterService,
+                                            TransportService transportService,
+                                            ActionFilters actionFilters,
+                                            NodeClient nodeClient,
+                                            ThreadPool threadPool,
+                                            SearchService searchService,
+                                            TransportSearchAction searchAction) {
+        super(SubmitAsyncSearchAction.NAME, transportService, actionFilters, SubmitAsyncSearchRequest::new);
+        this.clusterService = clusterService;
+        this.client = new OriginSettingClient(nodeClient, TASKS_ORIGIN);
+        this.threadPool = threadPool;
+        this.reduceContextSupplier = () -> searchService.createReduceContext(true);
+        this.searchAction = searchAction;
+    }
+
+    @Override
+    protected void doExecute(Task task, SubmitAsyncSearchRequest request, ActionListener<AsyncSearchResponse> submitListener) {
+        // the security headers of the submitter are checked when the response is retrieved or deleted
+        final Map<String, String> originHeaders = threadPool.getThreadContext().getHeaders().entrySet().stream()
+            .filter(e -> ClientHelper.SECURITY_HEADER_FILTERS.contains(e.getKey()))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        final SearchRequest searchRequest = createSearchRequest(request, originHeaders, clusterService.localNode().getId());
+        final AsyncSearchTask searchTask =
+            (AsyncSearchTask) taskManager.register("transport", SearchAction.INSTANCE.name(), searchRequest);
+        searchTask.scheduleExpiration();
+        searchAction.execute(searchTask, searchRequest, searchTask.getProgressListener());
+        searchTask.addCompletionListener(response -> {
+            if (response.isRunning() || request.isKeepOnCompletion()) {
+                submitListener.onResponse(response);
+            } else {
+                // the search completed before the wait for completion timeout, the response is returned
+                // directly and there is no need to keep it
+                searchTask.remove("async search completed", () -> submitListener.onResponse(
+                    new AsyncSearchResponse(null, response.getVersion(), response.getSearchResponse(), response.getFailure(),
+                        response.isPartial(), false, response.getStartTime(), response.getExpirationTime())));
+            }
+        }, request.getWaitForCompletion());
+    }
+
+    private SearchRequest createSearchRequest(SubmitAsyncSearchRequest request, Map<String, String> originHeaders, String nodeId) {
+        final String uuid = UUIDs.randomBase64UUID();
+        return new SearchRequest(request.getSearchRequest()) {
+            @Override
+            public AsyncSearchTask createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> taskHeaders) {
+                AsyncSearchId searchId = new AsyncSearchId(uuid, new TaskId(nodeId, id));
+                return new AsyncSearchTask(id, type, action, parentTaskId, taskHeaders, originHeaders, searchId,
+                    request.getKeepAlive(), client, threadPool, taskManager, reduceContextSupplier);
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESTestCase;
+
+public class AsyncSearchIdTests extends ESTestCase {
+    public void testEncode() {
+        for (int i = 0; i < 10; i++) {
+            AsyncSearchId instance = new AsyncSearchId(UUIDs.randomBase64UUID(),
+                new TaskId(randomAlphaOfLengthBetween(5, 20), randomNonNegativeLong()));
+            String encoded = AsyncSearchId.encode(instance.getUUID(), instance.getTaskId());
+            assertEquals(encoded, instance.getEncoded());
+            AsyncSearchId same = AsyncSearchId.decode(encoded);
+            assertEquals(same, instance);
+            assertEquals(same.getEncoded(), instance.getEncoded());
+        }
+    }
+
+    public void testDecodeInvalid() {
+        IllegalArgumentException exc = expectThrows(IllegalArgumentException.class, () -> AsyncSearchId.decode("invalid4343id"));
+        assertEquals("invalid id: [invalid$$id]", exc.getMessage());
+
+        String encoded = AsyncSearchId.encode(UUIDs.randomBase64UUID(), new TaskId("node", 42));
+        exc = expectThrows(IllegalArgumentException.class, () -> AsyncSearchId.decode(encoded + "AAAA"));
+        assertEquals("invalid id: [" + encoded + "AAAA]", exc.getMessage());
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.action.search.SearchProgressActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchShard;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.client.NoOpClient;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xpack.core.search.action.AsyncSearchResponse;
+import org.elasticsearch.xpack.core.security.authc.Authentication;
+import org.elasticsearch.xpack.core.security.authc.AuthenticationField;
+import org.elasticsearch.xpack.core.security.user.User;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncSearchTaskTests extends ESTestCase {
+    private ThreadPool threadPool;
+    private TaskManager taskManager;
+    private NoOpClient client;
+    private final List<CancelTasksRequest> cancelRequests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setupTaskManager() {
+        threadPool = new TestThreadPool(getTestName());
+        taskManager = new TaskManager(Settings.EMPTY, threadPool, Collections.emptySet());
+        client = new NoOpClient(threadPool) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse>
+            void doExecute(ActionType<Response> action, Request request, ActionListener<Response> listener) {
+                cancelRequests.add((CancelTasksRequest) request);
+                listener.onResponse(null);
+            }
+        };
+    }
+
+    @After
+    public void shutdownThreadPool() {
+        client.close();
+    }
+
+    private AsyncSearchTask createTask(TimeValue keepAlive, Map<String, String> originHeaders) {
+        final String uuid = UUIDs.randomBase64UUID();
+        SearchRequest request = new SearchRequest() {
+            @Override
+            public AsyncSearchTask createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+                AsyncSearchId searchId = new AsyncSearchId(uuid, new TaskId("node", id));
+                return new AsyncSearchTask(id, type, action, parentTaskId, headers, originHeaders, searchId, keepAlive,
+                    client, threadPool, taskManager, () -> null);
+            }
+        };
+        return (AsyncSearchTask) taskManager.register("transport", "indices:data/read/search", request);
+    }
+
+    private static List<SearchShard> createShards(int numShards) {
+        List<SearchShard> shards = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            SearchShard shard = mock(SearchShard.class);
+            when(shard.getShardId()).thenReturn(new ShardId("index", "uuid", i));
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private static SearchResponse createSearchResponse(int totalShards, int successfulShards) {
+        return new SearchResponse(InternalSearchResponse.empty(), null, totalShards, successfulShards, 0, 1L,
+            ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    private static TotalHits totalHits(long value) {
+        return new TotalHits(value, TotalHits.Relation.EQUAL_TO);
+    }
+
+    public void testProgress() {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        SearchProgressActionListener listener = task.getProgressListener();
+        List<SearchShard> shards = createShards(3);
+
+        AsyncSearchResponse response = task.getResponse();
+        assertTrue(response.isRunning());
+        assertTrue(response.isPartial());
+        assertNull(response.getSearchResponse());
+
+        listener.onListShards(shards, false);
+        listener.onPartialReduce(shards.subList(0, 2), totalHits(5), null, 2);
+        response = task.getResponse();
+        assertThat(response.getVersion(), equalTo(1));
+        assertThat(response.getSearchResponse().getTotalShards(), equalTo(3));
+        assertThat(response.getSearchResponse().getSuccessfulShards(), equalTo(2));
+        assertThat(response.getSearchResponse().getHits().getTotalHits().value, equalTo(5L));
+
+        // stale partial reduce are ignored
+        listener.onPartialReduce(shards.subList(0, 1), totalHits(2), null, 1);
+        response = task.getResponse();
+        assertThat(response.getVersion(), equalTo(1));
+        assertThat(response.getSearchResponse().getHits().getTotalHits().value, equalTo(5L));
+
+        listener.onQueryFailure(2, new IllegalStateException("boom"));
+        response = task.getResponse();
+        assertThat(response.getSearchResponse().getShardFailures().length, equalTo(1));
+        assertThat(response.getSearchResponse().getShardFailures()[0].shardId(), equalTo(2));
+
+        listener.onReduce(shards.subList(0, 2), totalHits(7), null);
+        response = task.getResponse();
+        assertThat(response.getVersion(), equalTo(2));
+        assertThat(response.getSearchResponse().getHits().getTotalHits().value, equalTo(7L));
+        assertTrue(response.isRunning());
+
+        // partial reduce are ignored after the final reduce
+        listener.onPartialReduce(shards, totalHits(9), null, 3);
+        assertThat(task.getResponse().getVersion(), equalTo(2));
+
+        SearchResponse searchResponse = createSearchResponse(3, 2);
+        listener.onResponse(searchResponse);
+        response = task.getResponse();
+        assertThat(response.getVersion(), equalTo(3));
+        assertFalse(response.isRunning());
+        assertFalse(response.isPartial());
+        assertSame(searchResponse, response.getSearchResponse());
+        assertFalse(task.isRunning());
+    }
+
+    public void testFailureBeforeListShards() {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        task.getProgressListener().onFailure(new IllegalArgumentException("invalid"));
+        AsyncSearchResponse response = task.getResponse();
+        assertFalse(response.isRunning());
+        assertTrue(response.isPartial());
+        assertNull(response.getSearchResponse());
+        assertThat(response.getFailure().getCause().getMessage(), equalTo("invalid"));
+    }
+
+    public void testUpdateAfterCompletion() {
+        MutableSearchResponse response = new MutableSearchResponse(1, 0, SearchResponse.Clusters.EMPTY, () -> null);
+        response.updatePartialResponse(1, totalHits(3), null, 1);
+        response.updateFinalResponse(createSearchResponse(1, 1));
+        // late progress is ignored but a second final response is a bug
+        response.updatePartialResponse(1, totalHits(5), null, 2);
+        response.updateFinalReduce(1, totalHits(5), null);
+        expectThrows(IllegalStateException.class, () -> response.updateFinalResponse(createSearchResponse(1, 1)));
+        expectThrows(IllegalStateException.class, () -> response.updateWithFailure(new IllegalStateException("boom")));
+    }
+
+    public void testWaitForCompletion() throws InterruptedException {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        List<SearchShard> shards = createShards(2);
+        task.getProgressListener().onListShards(shards, false);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<AsyncSearchResponse> ref = new AtomicReference<>();
+        task.addCompletionListener(resp -> {
+            ref.set(resp);
+            latch.countDown();
+        }, TimeValue.timeValueMinutes(1));
+        assertFalse(latch.await(10, TimeUnit.MILLISECONDS));
+
+        task.getProgressListener().onResponse(createSearchResponse(2, 2));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertFalse(ref.get().isRunning());
+        assertFalse(ref.get().isPartial());
+
+        // listeners added after the completion are executed immediately
+        AtomicReference<AsyncSearchResponse> completed = new AtomicReference<>();
+        task.addCompletionListener(completed::set, TimeValue.timeValueMinutes(1));
+        assertNotNull(completed.get());
+        assertFalse(completed.get().isRunning());
+    }
+
+    public void testWaitForCompletionTimeout() throws InterruptedException {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        task.getProgressListener().onListShards(createShards(2), false);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<AsyncSearchResponse> ref = new AtomicReference<>();
+        task.addCompletionListener(resp -> {
+            ref.set(resp);
+            latch.countDown();
+        }, TimeValue.timeValueMillis(randomIntBetween(1, 10)));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(ref.get().isRunning());
+        assertTrue(ref.get().isPartial());
+
+        // the timed out listener is not executed again on completion
+        task.getProgressListener().onResponse(createSearchResponse(2, 2));
+        assertTrue(ref.get().isRunning());
+    }
+
+    public void testDeleteRunningSearch() {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        CountDownLatch removed = new CountDownLatch(1);
+        task.remove("async search deleted", removed::countDown);
+        assertThat(removed.getCount(), equalTo(0L));
+        assertThat(cancelRequests.size(), equalTo(1));
+        assertThat(cancelRequests.get(0).getTaskId(), equalTo(new TaskId("node", task.getId())));
+        assertThat(cancelRequests.get(0).getReason(), equalTo("async search deleted"));
+        assertNull(taskManager.getTask(task.getId()));
+
+        // deleting twice is a noop
+        CountDownLatch removedAgain = new CountDownLatch(1);
+        task.remove("async search deleted", removedAgain::countDown);
+        assertThat(removedAgain.getCount(), equalTo(0L));
+        assertThat(cancelRequests.size(), equalTo(1));
+    }
+
+    public void testDeleteCompletedSearch() {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        task.getProgressListener().onListShards(createShards(1), false);
+        task.getProgressListener().onResponse(createSearchResponse(1, 1));
+        CountDownLatch removed = new CountDownLatch(1);
+        task.remove("async search deleted", removed::countDown);
+        assertThat(removed.getCount(), equalTo(0L));
+        assertTrue(cancelRequests.isEmpty());
+        assertNull(taskManager.getTask(task.getId()));
+    }
+
+    public void testExpiration() throws Exception {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMillis(randomIntBetween(1, 10)), Collections.emptyMap());
+        task.scheduleExpiration();
+        assertBusy(() -> assertNull(taskManager.getTask(task.getId())));
+        assertThat(cancelRequests.size(), equalTo(1));
+        assertThat(cancelRequests.get(0).getReason(), equalTo("async search expired"));
+    }
+
+    public void testExtendExpiration() throws Exception {
+        AsyncSearchTask task = createTask(TimeValue.timeValueMillis(50), Collections.emptyMap());
+        task.scheduleExpiration();
+        task.extendExpirationTime(TimeValue.timeValueMinutes(10));
+        assertThat(task.getResponse().getExpirationTime(), equalTo(task.getExpirationTime()));
+        // the expiration is re-checked when the initial delay elapses and the task is kept
+        CountDownLatch latch = new CountDownLatch(1);
+        threadPool.schedule(latch::countDown, TimeValue.timeValueMillis(200), ThreadPool.Names.GENERIC);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertSame(task, taskManager.getTask(task.getId()));
+        assertTrue(cancelRequests.isEmpty());
+    }
+
+    public void testGetTaskChecksUser() throws IOException {
+        ThreadContext threadContext = threadPool.getThreadContext();
+        Map<String, String> originHeaders =
+            Collections.singletonMap(AuthenticationField.AUTHENTICATION_KEY, encodeAuthentication("foo", "file", "node1"));
+        AsyncSearchTask task = createTask(TimeValue.timeValueMinutes(1), originHeaders);
+
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            assertNull(AsyncSearch.getTask(taskManager, task.getSearchId(), threadContext));
+        }
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.putHeader(AuthenticationField.AUTHENTICATION_KEY, encodeAuthentication("foo", "file", "node2"));
+            assertSame(task, AsyncSearch.getTask(taskManager, task.getSearchId(), threadContext));
+        }
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.putHeader(AuthenticationField.AUTHENTICATION_KEY, encodeAuthentication("bar", "file", "node1"));
+            assertNull(AsyncSearch.getTask(taskManager, task.getSearchId(), threadContext));
+        }
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            threadContext.putHeader(AuthenticationField.AUTHENTICATION_KEY, encodeAuthentication("foo", "native", "node1"));
+            assertNull(AsyncSearch.getTask(taskManager, task.getSearchId(), threadContext));
+        }
+
+        // searches submitted without security can be retrieved by anyone
+        AsyncSearchTask noSecurityTask = createTask(TimeValue.timeValueMinutes(1), Collections.emptyMap());
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            assertSame(noSecurityTask, AsyncSearch.getTask(taskManager, noSecurityTask.getSearchId(), threadContext));
+        }
+    }
+
+    private static String encodeAuthentication(String principal, String realmType, String nodeName) throws IOException {
+        return new Authentication(new User(principal), new Authentication.RealmRef("realm", realmType, nodeName), null).encode();
+    }
+}
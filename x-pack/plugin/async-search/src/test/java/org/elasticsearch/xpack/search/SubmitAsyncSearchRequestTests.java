@@ -0,0 +1,81 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.test.AbstractWireSerializingTestCase;
+import org.elasticsearch.xpack.core.search.action.SubmitAsyncSearchRequest;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class SubmitAsyncSearchRequestTests extends AbstractWireSerializingTestCase<SubmitAsyncSearchRequest> {
+    @Override
+    protected Writeable.Reader<SubmitAsyncSearchRequest> instanceReader() {
+        return SubmitAsyncSearchRequest::new;
+    }
+
+    @Override
+    protected NamedWriteableRegistry getNamedWriteableRegistry() {
+        SearchModule searchModule = new SearchModule(Settings.EMPTY, Collections.emptyList());
+        return new NamedWriteableRegistry(searchModule.getNamedWriteables());
+    }
+
+    @Override
+    protected SubmitAsyncSearchRequest createTestInstance() {
+        final SubmitAsyncSearchRequest searchRequest;
+        if (randomBoolean()) {
+            searchRequest = new SubmitAsyncSearchRequest(generateRandomStringArray(10, 10, false, false));
+        } else {
+            searchRequest = new SubmitAsyncSearchRequest();
+        }
+        if (randomBoolean()) {
+            searchRequest.setWaitForCompletion(TimeValue.parseTimeValue(randomPositiveTimeValue(), "wait_for_completion"));
+        }
+        searchRequest.setKeepOnCompletion(randomBoolean());
+        if (randomBoolean()) {
+            searchRequest.setKeepAlive(TimeValue.timeValueSeconds(randomIntBetween(1, 10000)));
+        }
+        if (randomBoolean()) {
+            searchRequest.getSearchRequest().source().size(randomIntBetween(0, 100));
+        }
+        return searchRequest;
+    }
+
+    public void testValidateKeepAlive() {
+        SubmitAsyncSearchRequest req = new SubmitAsyncSearchRequest();
+        req.setKeepAlive(TimeValue.timeValueMillis(randomIntBetween(1, 999)));
+        ActionRequestValidationException exc = req.validate();
+        assertNotNull(exc);
+        assertEquals(1, exc.validationErrors().size());
+        assertThat(exc.validationErrors().get(0), containsString("[keep_alive]"));
+    }
+
+    public void testValidateSuggestOnly() {
+        SubmitAsyncSearchRequest req = new SubmitAsyncSearchRequest();
+        req.getSearchRequest().source(new SearchSourceBuilder().suggest(new SuggestBuilder()));
+        ActionRequestValidationException exc = req.validate();
+        assertNotNull(exc);
+        assertEquals(1, exc.validationErrors().size());
+        assertThat(exc.validationErrors().get(0), containsString("suggest"));
+    }
+
+    public void testDefaults() {
+        SubmitAsyncSearchRequest req = new SubmitAsyncSearchRequest();
+        assertEquals(SubmitAsyncSearchRequest.DEFAULT_BATCHED_REDUCE_SIZE, req.getSearchRequest().getBatchedReduceSize());
+        assertFalse(req.getSearchRequest().isCcsMinimizeRoundtrips());
+        assertFalse(req.isKeepOnCompletion());
+        assertNull(req.validate());
+    }
+}
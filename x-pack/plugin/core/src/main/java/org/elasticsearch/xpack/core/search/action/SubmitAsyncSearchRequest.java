@@ -0,0 +1,152 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.core.search.action;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * A request to track asynchronously the progress of a search against one or more indices.
+ *
+ * @see AsyncSearchResponse
+ */
+public class SubmitAsyncSearchRequest extends ActionRequest {
+    public static final TimeValue DEFAULT_WAIT_FOR_COMPLETION = TimeValue.timeValueSeconds(1);
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueDays(1);
+    public static final int DEFAULT_BATCHED_REDUCE_SIZE = 5;
+
+    private TimeValue waitForCompletion = DEFAULT_WAIT_FOR_COMPLETION;
+    private TimeValue keepAlive = DEFAULT_KEEP_ALIVE;
+    private boolean keepOnCompletion = false;
+
+    private final SearchRequest request;
+
+    /**
+     * Creates a new request
+     */
+    public SubmitAsyncSearchRequest(String... indices) {
+        this(new SearchSourceBuilder(), indices);
+    }
+
+    /**
+     * Creates a new request
+     */
+    public SubmitAsyncSearchRequest(SearchSourceBuilder source, String... indices) {
+        this.request = new SearchRequest(indices, source);
+        // partial reduces are needed to report progress on aggregations
+        request.setBatchedReduceSize(DEFAULT_BATCHED_REDUCE_SIZE);
+        // the progress of remote clusters can only be tracked if they don't reduce their results
+        request.setCcsMinimizeRoundtrips(false);
+        request.setPreFilterShardSize(1);
+    }
+
+    public SubmitAsyncSearchRequest(StreamInput in) throws IOException {
+        super(in);
+        this.request = new SearchRequest(in);
+        this.waitForCompletion = in.readTimeValue();
+        this.keepAlive = in.readTimeValue();
+        this.keepOnCompletion = in.readBoolean();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        request.writeTo(out);
+        out.writeTimeValue(waitForCompletion);
+        out.writeTimeValue(keepAlive);
+        out.writeBoolean(keepOnCompletion);
+    }
+
+    /**
+     * Returns the underlying {@link SearchRequest}.
+     */
+    public SearchRequest getSearchRequest() {
+        return request;
+    }
+
+    /**
+     * Sets the minimum time that the request should wait before returning a partial result (defaults to 1 second).
+     */
+    public SubmitAsyncSearchRequest setWaitForCompletion(TimeValue waitForCompletion) {
+        this.waitForCompletion = Objects.requireNonNull(waitForCompletion, "wait_for_completion_timeout cannot be null");
+        return this;
+    }
+
+    public TimeValue getWaitForCompletion() {
+        return waitForCompletion;
+    }
+
+    /**
+     * Sets the amount of time after which the result will expire (defaults to 1 day).
+     */
+    public SubmitAsyncSearchRequest setKeepAlive(TimeValue keepAlive) {
+        this.keepAlive = Objects.requireNonNull(keepAlive, "keep_alive cannot be null");
+        return this;
+    }
+
+    public TimeValue getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Should the resource be kept on completion or failure (defaults to false).
+     */
+    public SubmitAsyncSearchRequest setKeepOnCompletion(boolean value) {
+        this.keepOnCompletion = value;
+        return this;
+    }
+
+    public boolean isKeepOnCompletion() {
+        return keepOnCompletion;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = request.validate();
+        if (request.scroll() != null) {
+            validationException = addValidationError("[scroll] queries are not supported", validationException);
+        }
+        if (request.isSuggestOnly()) {
+            validationException = addValidationError("suggest-only queries are not supported", validationException);
+        }
+        if (keepAlive.getSeconds() < 1) {
+            validationException = addValidationError("[keep_alive] must be greater than 1 second, got:" + keepAlive.toString(),
+                validationException);
+        }
+        return validationException;
+    }
+
+    @Override
+    public String getDescription() {
+        return "waitForCompletion[" + waitForCompletion + "], keepOnCompletion[" + keepOnCompletion + "], keepAlive[" + keepAlive + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SubmitAsyncSearchRequest request1 = (SubmitAsyncSearchRequest) o;
+        return keepOnCompletion == request1.keepOnCompletion &&
+            waitForCompletion.equals(request1.waitForCompletion) &&
+            keepAlive.equals(request1.keepAlive) &&
+            request.equals(request1.request);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(waitForCompletion, keepAlive, keepOnCompletion, request);
+    }
+}
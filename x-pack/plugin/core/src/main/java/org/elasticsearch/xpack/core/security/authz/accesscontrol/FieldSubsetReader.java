@@ -5,6 +5,7 @@
  */
 package org.elasticsearch.xpack.core.security.authz.accesscontrol;
 
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FieldInfo;
@@ -29,6 +30,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
+import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -48,7 +50,7 @@ import java.util.Map;
  * of fields from the underlying wrapped reader.
  */
 // based on lucene/test-framework's FieldFilterLeafReader.
-public final class FieldSubsetReader extends FilterLeafReader {
+public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
 
     /**
      * Wraps a provided DirectoryReader, exposing a subset of fields.
@@ -227,51 +229,103 @@ public final class FieldSubsetReader extends FilterLeafReader {
 
     @Override
     public void document(final int docID, final StoredFieldVisitor visitor) throws IOException {
-        super.document(docID, new StoredFieldVisitor() {
-            @Override
-            public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
-                if (SourceFieldMapper.NAME.equals(fieldInfo.name)) {
-                    // for _source, parse, filter out the fields we care about, and serialize back downstream
-                    BytesReference bytes = new BytesArray(value);
-                    Tuple<XContentType, Map<String, Object>> result = XContentHelper.convertToMap(bytes, true);
-                    Map<String, Object> transformedSource = filter(result.v2(), filter, 0);
-                    XContentBuilder xContentBuilder = XContentBuilder.builder(result.v1().xContent()).map(transformedSource);
-                    visitor.binaryField(fieldInfo, BytesReference.toBytes(BytesReference.bytes(xContentBuilder)));
-                } else {
-                    visitor.binaryField(fieldInfo, value);
-                }
-            }
+        super.document(docID, new FieldSubsetStoredFieldVisitor(visitor));
+    }
 
-            @Override
-            public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
-                visitor.stringField(fieldInfo, value);
-            }
+    @Override
+    protected StoredFieldsReader doGetSequentialStoredFieldsReader(StoredFieldsReader reader) {
+        return new FieldSubsetStoredFieldsReader(reader);
+    }
 
-            @Override
-            public void intField(FieldInfo fieldInfo, int value) throws IOException {
-                visitor.intField(fieldInfo, value);
-            }
+    /**
+     * A {@link StoredFieldVisitor} that only visits the fields of the subset and filters the _source.
+     */
+    private class FieldSubsetStoredFieldVisitor extends StoredFieldVisitor {
+        private final StoredFieldVisitor visitor;
 
-            @Override
-            public void longField(FieldInfo fieldInfo, long value) throws IOException {
-                visitor.longField(fieldInfo, value);
-            }
+        FieldSubsetStoredFieldVisitor(StoredFieldVisitor visitor) {
+            this.visitor = visitor;
+        }
 
-            @Override
-            public void floatField(FieldInfo fieldInfo, float value) throws IOException {
-                visitor.floatField(fieldInfo, value);
+        @Override
+        public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
+            if (SourceFieldMapper.NAME.equals(fieldInfo.name)) {
+                // for _source, parse, filter out the fields we care about, and serialize back downstream
+                BytesReference bytes = new BytesArray(value);
+                Tuple<XContentType, Map<String, Object>> result = XContentHelper.convertToMap(bytes, true);
+                Map<String, Object> transformedSource = filter(result.v2(), filter, 0);
+                XContentBuilder xContentBuilder = XContentBuilder.builder(result.v1().xContent()).map(transformedSource);
+                visitor.binaryField(fieldInfo, BytesReference.toBytes(BytesReference.bytes(xContentBuilder)));
+            } else {
+                visitor.binaryField(fieldInfo, value);
             }
+        }
 
-            @Override
-            public void doubleField(FieldInfo fieldInfo, double value) throws IOException {
-                visitor.doubleField(fieldInfo, value);
-            }
+        @Override
+        public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
+            visitor.stringField(fieldInfo, value);
+        }
 
-            @Override
-            public Status needsField(FieldInfo fieldInfo) throws IOException {
-                return hasField(fieldInfo.name) ? visitor.needsField(fieldInfo) : Status.NO;
-            }
-        });
+        @Override
+        public void intField(FieldInfo fieldInfo, int value) throws IOException {
+            visitor.intField(fieldInfo, value);
+        }
+
+        @Override
+        public void longField(FieldInfo fieldInfo, long value) throws IOException {
+            visitor.longField(fieldInfo, value);
+        }
+
+        @Override
+        public void floatField(FieldInfo fieldInfo, float value) throws IOException {
+            visitor.floatField(fieldInfo, value);
+        }
+
+        @Override
+        public void doubleField(FieldInfo fieldInfo, double value) throws IOException {
+            visitor.doubleField(fieldInfo, value);
+        }
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) throws IOException {
+            return hasField(fieldInfo.name) ? visitor.needsField(fieldInfo) : Status.NO;
+        }
+    }
+
+    /**
+     * A {@link StoredFieldsReader} that exposes only the subset of fields, like {@link #document(int, StoredFieldVisitor)}.
+     */
+    private class FieldSubsetStoredFieldsReader extends StoredFieldsReader {
+        private final StoredFieldsReader in;
+
+        FieldSubsetStoredFieldsReader(StoredFieldsReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public void visitDocument(int docID, StoredFieldVisitor visitor) throws IOException {
+            in.visitDocument(docID, new FieldSubsetStoredFieldVisitor(visitor));
+        }
+
+        @Override
+        public StoredFieldsReader clone() {
+            return new FieldSubsetStoredFieldsReader(in.clone());
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            in.checkIntegrity();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return in.ramBytesUsed();
+        }
     }
 
     @Override
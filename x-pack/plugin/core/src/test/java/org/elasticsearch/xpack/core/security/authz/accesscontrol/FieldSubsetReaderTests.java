@@ -6,8 +6,10 @@
 package org.elasticsearch.xpack.core.security.authz.accesscontrol;
 
 import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.IntPoint;
@@ -53,6 +55,7 @@ import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -202,6 +205,42 @@ public class FieldSubsetReaderTests extends ESTestCase {
         IOUtils.close(ir, iw, dir);
     }
 
+    /**
+     * test filtering two stored fields with the sequential stored fields reader
+     */
+    public void testSequentialStoredFields() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+
+        // add documents with 2 fields
+        for (int i = 0; i < 3; i++) {
+            Document doc = new Document();
+            doc.add(new StoredField("fieldA", "testA" + i));
+            doc.add(new StoredField("fieldB", "testB" + i));
+            iw.addDocument(doc);
+        }
+        iw.forceMerge(1);
+
+        // open reader
+        DirectoryReader ir = FieldSubsetReader.wrap(DirectoryReader.open(iw), new CharacterRunAutomaton(Automata.makeString("fieldA")));
+
+        // see only one field
+        LeafReader leafReader = ir.leaves().get(0).reader();
+        assertTrue(SequentialStoredFieldsLeafReader.canUseSequentialStoredFieldsReader(leafReader));
+        StoredFieldsReader storedFieldsReader = ((SequentialStoredFieldsLeafReader) leafReader).getSequentialStoredFieldsReader();
+        for (int i = 0; i < 3; i++) {
+            DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor();
+            storedFieldsReader.visitDocument(i, visitor);
+            Document d2 = visitor.getDocument();
+            assertEquals(1, d2.getFields().size());
+            assertEquals("testA" + i, d2.get("fieldA"));
+        }
+
+        TestUtil.checkReader(ir);
+        IOUtils.close(ir, iw, dir);
+    }
+
     /**
      * test filtering two stored fields (binary)
      */
@@ -21,6 +21,8 @@ import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
 import org.elasticsearch.xpack.enrich.action.EnrichCoordinatorProxyAction;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -39,6 +41,7 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
     protected AbstractEnrichProcessor(
         String tag,
         Client client,
+        EnrichCache enrichCache,
         String policyName,
         TemplateScript.Factory field,
         TemplateScript.Factory targetField,
@@ -47,7 +50,17 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         String matchField,
         int maxMatches
     ) {
-        this(tag, createSearchRunner(client), policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        this(
+            tag,
+            createSearchRunner(client, enrichCache),
+            policyName,
+            field,
+            targetField,
+            ignoreMissing,
+            overrideEnabled,
+            matchField,
+            maxMatches
+        );
     }
 
     protected AbstractEnrichProcessor(
@@ -116,12 +129,12 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
                 String targetField = ingestDocument.renderTemplate(this.targetField);
                 if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
                     if (maxMatches == 1) {
-                        Map<String, Object> firstDocument = searchHits[0].getSourceAsMap();
+                        Map<String, Object> firstDocument = getSourceAsMap(searchHits[0]);
                         ingestDocument.setFieldValue(targetField, firstDocument);
                     } else {
                         List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
                         for (SearchHit searchHit : searchHits) {
-                            Map<String, Object> enrichDocument = searchHit.getSourceAsMap();
+                            Map<String, Object> enrichDocument = getSourceAsMap(searchHit);
                             enrichDocuments.add(enrichDocument);
                         }
                         ingestDocument.setFieldValue(targetField, enrichDocuments);
@@ -174,13 +187,55 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         return maxMatches;
     }
 
-    private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(Client client) {
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getSourceAsMap(SearchHit searchHit) {
+        // the search response may be cached and shared with other documents, so the document gets its own copy of the source
+        return (Map<String, Object>) deepCopy(searchHit.getSourceAsMap());
+    }
+
+    private static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<?, ?> mapValue = (Map<?, ?>) value;
+            Map<Object, Object> copy = new LinkedHashMap<>(mapValue.size());
+            for (Map.Entry<?, ?> entry : mapValue.entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return copy;
+        } else if (value instanceof List) {
+            List<?> listValue = (List<?>) value;
+            List<Object> copy = new ArrayList<>(listValue.size());
+            for (Object itemValue : listValue) {
+                copy.add(deepCopy(itemValue));
+            }
+            return copy;
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            return Arrays.copyOf(bytes, bytes.length);
+        } else {
+            // all other values that are parsed from the source are immutable
+            return value;
+        }
+    }
+
+    private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(
+        Client client,
+        EnrichCache enrichCache
+    ) {
         return (req, handler) -> {
-            client.execute(
-                EnrichCoordinatorProxyAction.INSTANCE,
-                req,
-                ActionListener.wrap(resp -> { handler.accept(resp, null); }, e -> { handler.accept(null, e); })
-            );
+            EnrichCache.CacheKey cacheKey = enrichCache.resolveKey(req);
+            if (cacheKey != null) {
+                SearchResponse cachedResponse = enrichCache.get(cacheKey);
+                if (cachedResponse != null) {
+                    handler.accept(cachedResponse, null);
+                    return;
+                }
+            }
+            client.execute(EnrichCoordinatorProxyAction.INSTANCE, req, ActionListener.wrap(resp -> {
+                if (cacheKey != null) {
+                    enrichCache.put(cacheKey, resp);
+                }
+                handler.accept(resp, null);
+            }, e -> { handler.accept(null, e); }));
         };
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.AliasOrIndex;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A node level cache of the search responses of enrich lookups. The enrich processors of a pipeline usually look up the
+ * same keys over and over again, so caching the responses avoids sending most of the lookups to the enrich indices.
+ *
+ * Entries are keyed by the concrete enrich index that the policy alias points to and the search source of the lookup.
+ * Enrich indices are never modified after the policy alias has been moved to them, so a cached response stays valid
+ * for as long as the alias points to the same enrich index. When a policy execution moves the alias to a new enrich
+ * index, the entries of the previous enrich index are invalidated.
+ */
+public class EnrichCache {
+
+    private final Cache<CacheKey, SearchResponse> cache;
+    // policy alias -> enrich index that the cached entries of that alias were resolved against
+    private final Map<String, String> cachedEnrichIndices = new ConcurrentHashMap<>();
+    private volatile MetaData metaData;
+
+    EnrichCache(long maxSize) {
+        this.cache = CacheBuilder.<CacheKey, SearchResponse>builder().setMaximumWeight(maxSize).build();
+    }
+
+    /**
+     * Returns the cache key of the specified enrich lookup, or <code>null</code> if the lookup can't be cached because
+     * the policy alias doesn't resolve to a single enrich index.
+     */
+    CacheKey resolveKey(SearchRequest searchRequest) {
+        if (searchRequest.indices().length != 1) {
+            return null;
+        }
+        String alias = searchRequest.indices()[0];
+        String enrichIndex = getEnrichIndexName(metaData, alias);
+        if (enrichIndex == null) {
+            return null;
+        }
+        return new CacheKey(alias, enrichIndex, searchRequest.source());
+    }
+
+    SearchResponse get(CacheKey cacheKey) {
+        return cache.get(cacheKey);
+    }
+
+    void put(CacheKey cacheKey, SearchResponse searchResponse) {
+        cachedEnrichIndices.put(cacheKey.alias, cacheKey.enrichIndex);
+        cache.put(cacheKey, searchResponse);
+    }
+
+    void setMetaData(MetaData metaData) {
+        this.metaData = metaData;
+        for (Map.Entry<String, String> entry : cachedEnrichIndices.entrySet()) {
+            String currentEnrichIndex = getEnrichIndexName(metaData, entry.getKey());
+            if (entry.getValue().equals(currentEnrichIndex) == false) {
+                // the policy has been executed again or removed, the cached lookups are stale:
+                cachedEnrichIndices.remove(entry.getKey(), entry.getValue());
+                invalidate(entry.getValue());
+            }
+        }
+    }
+
+    private void invalidate(String enrichIndex) {
+        for (Iterator<CacheKey> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().enrichIndex.equals(enrichIndex)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public EnrichStatsAction.Response.CacheStats getStats(String localNodeId) {
+        Cache.CacheStats cacheStats = cache.stats();
+        return new EnrichStatsAction.Response.CacheStats(
+            localNodeId,
+            cache.count(),
+            cacheStats.getHits(),
+            cacheStats.getMisses(),
+            cacheStats.getEvictions()
+        );
+    }
+
+    private static String getEnrichIndexName(MetaData metaData, String alias) {
+        if (metaData == null) {
+            return null;
+        }
+        AliasOrIndex aliasOrIndex = metaData.getAliasAndIndexLookup().get(alias);
+        if (aliasOrIndex == null || aliasOrIndex.isAlias() == false || aliasOrIndex.getIndices().size() != 1) {
+            return null;
+        }
+        return aliasOrIndex.getIndices().get(0).getIndex().getName();
+    }
+
+    static final class CacheKey {
+
+        final String alias;
+        final String enrichIndex;
+        final SearchSourceBuilder searchSourceBuilder;
+
+        CacheKey(String alias, String enrichIndex, SearchSourceBuilder searchSourceBuilder) {
+            this.alias = alias;
+            this.enrichIndex = enrichIndex;
+            this.searchSourceBuilder = searchSourceBuilder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return enrichIndex.equals(cacheKey.enrichIndex) && Objects.equals(searchSourceBuilder, cacheKey.searchSourceBuilder);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enrichIndex, searchSourceBuilder);
+        }
+    }
+}
@@ -26,12 +26,14 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
     static final String TYPE = "enrich";
     private final Client client;
     private final ScriptService scriptService;
+    private final EnrichCache enrichCache;
 
     volatile MetaData metaData;
 
-    EnrichProcessorFactory(Client client, ScriptService scriptService) {
+    EnrichProcessorFactory(Client client, ScriptService scriptService, EnrichCache enrichCache) {
         this.client = client;
         this.scriptService = scriptService;
+        this.enrichCache = enrichCache;
     }
 
     @Override
@@ -67,6 +69,7 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
                 return new MatchProcessor(
                     tag,
                     client,
+                    enrichCache,
                     policyName,
                     field,
                     targetField,
@@ -81,6 +84,7 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
                 return new GeoMatchProcessor(
                     tag,
                     client,
+                    enrichCache,
                     policyName,
                     field,
                     targetField,
@@ -98,6 +102,7 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
     @Override
     public void accept(ClusterState state) {
         metaData = state.getMetaData();
+        enrichCache.setMetaData(metaData);
     }
 
 }
@@ -29,6 +29,7 @@ public final class GeoMatchProcessor extends AbstractEnrichProcessor {
     GeoMatchProcessor(
         String tag,
         Client client,
+        EnrichCache enrichCache,
         String policyName,
         TemplateScript.Factory field,
         TemplateScript.Factory targetField,
@@ -38,7 +39,7 @@ public final class GeoMatchProcessor extends AbstractEnrichProcessor {
         int maxMatches,
         ShapeRelation shapeRelation
     ) {
-        super(tag, client, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        super(tag, client, enrichCache, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
         this.shapeRelation = shapeRelation;
     }
 
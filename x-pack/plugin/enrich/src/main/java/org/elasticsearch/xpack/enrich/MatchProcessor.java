@@ -21,6 +21,7 @@ public final class MatchProcessor extends AbstractEnrichProcessor {
     MatchProcessor(
         String tag,
         Client client,
+        EnrichCache enrichCache,
         String policyName,
         TemplateScript.Factory field,
         TemplateScript.Factory targetField,
@@ -29,7 +30,7 @@ public final class MatchProcessor extends AbstractEnrichProcessor {
         String matchField,
         int maxMatches
     ) {
-        super(tag, client, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        super(tag, client, enrichCache, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
     }
 
     /** used in tests **/
@@ -5,6 +5,7 @@
  */
 package org.elasticsearch.xpack.enrich.action;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
@@ -24,7 +25,9 @@ import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CacheStats;
 import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CoordinatorStats;
+import org.elasticsearch.xpack.enrich.EnrichCache;
 
 import java.io.IOException;
 import java.util.List;
@@ -88,31 +91,49 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
     public static class NodeResponse extends BaseNodeResponse {
 
         private final CoordinatorStats coordinatorStats;
+        private final CacheStats cacheStats;
 
-        NodeResponse(DiscoveryNode node, CoordinatorStats coordinatorStats) {
+        NodeResponse(DiscoveryNode node, CoordinatorStats coordinatorStats, CacheStats cacheStats) {
             super(node);
             this.coordinatorStats = coordinatorStats;
+            this.cacheStats = cacheStats;
         }
 
         NodeResponse(StreamInput in) throws IOException {
             super(in);
             this.coordinatorStats = new CoordinatorStats(in);
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                this.cacheStats = new CacheStats(in);
+            } else {
+                this.cacheStats = null;
+            }
         }
 
         public CoordinatorStats getCoordinatorStats() {
             return coordinatorStats;
         }
 
+        /**
+         * Returns the enrich cache stats of the node, or <code>null</code> if the node is on a version that has no enrich cache.
+         */
+        public CacheStats getCacheStats() {
+            return cacheStats;
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             super.writeTo(out);
             coordinatorStats.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                cacheStats.writeTo(out);
+            }
         }
     }
 
     public static class TransportAction extends TransportNodesAction<Request, Response, NodeRequest, NodeResponse> {
 
         private final EnrichCoordinatorProxyAction.Coordinator coordinator;
+        private final EnrichCache enrichCache;
 
         @Inject
         public TransportAction(
@@ -120,7 +141,8 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
             ClusterService clusterService,
             TransportService transportService,
             ActionFilters actionFilters,
-            EnrichCoordinatorProxyAction.Coordinator coordinator
+            EnrichCoordinatorProxyAction.Coordinator coordinator,
+            EnrichCache enrichCache
         ) {
             super(
                 NAME,
@@ -134,6 +156,7 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
                 NodeResponse.class
             );
             this.coordinator = coordinator;
+            this.enrichCache = enrichCache;
         }
 
         @Override
@@ -160,7 +183,7 @@ public class EnrichCoordinatorStatsAction extends ActionType<EnrichCoordinatorSt
         @Override
         protected NodeResponse nodeOperation(NodeRequest request, Task task) {
             DiscoveryNode node = clusterService.localNode();
-            return new NodeResponse(node, coordinator.getStats(node.getId()));
+            return new NodeResponse(node, coordinator.getStats(node.getId()), enrichCache.getStats(node.getId()));
         }
     }
 
@@ -241,6 +241,66 @@ public class BasicEnrichTests extends ESSingleNodeTestCase {
         }
     }
 
+    public void testEnrichCache() {
+        String policyName = "my-policy";
+        IndexRequest sourceRequest = new IndexRequest(SOURCE_INDEX_NAME);
+        sourceRequest.id("1");
+        sourceRequest.source("key", "key", "value", "val1");
+        client().index(sourceRequest).actionGet();
+        client().admin().indices().refresh(new RefreshRequest(SOURCE_INDEX_NAME)).actionGet();
+
+        EnrichPolicy enrichPolicy = new EnrichPolicy(EnrichPolicy.MATCH_TYPE, null, List.of(SOURCE_INDEX_NAME), "key", List.of("value"));
+        PutEnrichPolicyAction.Request request = new PutEnrichPolicyAction.Request(policyName, enrichPolicy);
+        client().execute(PutEnrichPolicyAction.INSTANCE, request).actionGet();
+        client().execute(ExecuteEnrichPolicyAction.INSTANCE, new ExecuteEnrichPolicyAction.Request(policyName)).actionGet();
+
+        String pipelineName = "my-pipeline";
+        String pipelineBody = "{\"processors\": [{\"enrich\": {\"policy_name\":\""
+            + policyName
+            + "\", \"field\": \"key\", \"target_field\": \"target\"}}]}";
+        PutPipelineRequest putPipelineRequest = new PutPipelineRequest(pipelineName, new BytesArray(pipelineBody), XContentType.JSON);
+        client().admin().cluster().putPipeline(putPipelineRequest).actionGet();
+
+        // the first lookup of the key is a cache miss, the following lookups are served from the cache:
+        int numDocs = randomIntBetween(2, 8);
+        for (int i = 0; i < numDocs; i++) {
+            indexAndAssertEnrichedValue(pipelineName, Integer.toString(i), "val1");
+        }
+        EnrichStatsAction.Response statsResponse = client().execute(EnrichStatsAction.INSTANCE, new EnrichStatsAction.Request())
+            .actionGet();
+        assertThat(statsResponse.getCacheStats().size(), equalTo(1));
+        String localNodeId = getInstanceFromNode(ClusterService.class).localNode().getId();
+        assertThat(statsResponse.getCacheStats().get(0).getNodeId(), equalTo(localNodeId));
+        assertThat(statsResponse.getCacheStats().get(0).getCount(), equalTo(1L));
+        assertThat(statsResponse.getCacheStats().get(0).getMisses(), equalTo(1L));
+        assertThat(statsResponse.getCacheStats().get(0).getHits(), equalTo((long) numDocs - 1));
+        assertThat(statsResponse.getCoordinatorStats().get(0).getExecutedSearchesTotal(), equalTo(1L));
+
+        // executing the policy again moves the alias to a new enrich index, which invalidates the cached lookups:
+        sourceRequest.source("key", "key", "value", "val2");
+        client().index(sourceRequest).actionGet();
+        client().admin().indices().refresh(new RefreshRequest(SOURCE_INDEX_NAME)).actionGet();
+        client().execute(ExecuteEnrichPolicyAction.INSTANCE, new ExecuteEnrichPolicyAction.Request(policyName)).actionGet();
+        indexAndAssertEnrichedValue(pipelineName, Integer.toString(numDocs), "val2");
+
+        statsResponse = client().execute(EnrichStatsAction.INSTANCE, new EnrichStatsAction.Request()).actionGet();
+        assertThat(statsResponse.getCacheStats().get(0).getCount(), equalTo(1L));
+        assertThat(statsResponse.getCacheStats().get(0).getMisses(), equalTo(2L));
+        assertThat(statsResponse.getCacheStats().get(0).getHits(), equalTo((long) numDocs - 1));
+        assertThat(statsResponse.getCoordinatorStats().get(0).getExecutedSearchesTotal(), equalTo(2L));
+    }
+
+    private void indexAndAssertEnrichedValue(String pipelineName, String id, String expectedValue) {
+        IndexRequest indexRequest = new IndexRequest("my-index");
+        indexRequest.id(id);
+        indexRequest.setPipeline(pipelineName);
+        indexRequest.source(Map.of("key", "key"));
+        client().index(indexRequest).actionGet();
+
+        GetResponse getResponse = client().get(new GetRequest("my-index", id)).actionGet();
+        assertThat(getResponse.getSourceAsMap().get("target"), equalTo(Map.of("key", "key", "value", expectedValue)));
+    }
+
     public void testAsyncTaskExecute() throws Exception {
         String policyName = "async-policy";
         String sourceIndexName = "async-policy-source";
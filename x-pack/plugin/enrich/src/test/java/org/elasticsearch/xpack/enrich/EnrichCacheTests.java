@@ -0,0 +1,120 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CacheStats;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class EnrichCacheTests extends ESTestCase {
+
+    public void testCaching() {
+        EnrichCache enrichCache = new EnrichCache(3);
+        enrichCache.setMetaData(createMetaData("policy1", "1", "policy2", "1"));
+
+        EnrichCache.CacheKey key1 = enrichCache.resolveKey(searchRequest("policy1", "1"));
+        EnrichCache.CacheKey key2 = enrichCache.resolveKey(searchRequest("policy1", "2"));
+        EnrichCache.CacheKey key3 = enrichCache.resolveKey(searchRequest("policy2", "1"));
+        EnrichCache.CacheKey key4 = enrichCache.resolveKey(searchRequest("policy2", "2"));
+        assertThat(key1, equalTo(enrichCache.resolveKey(searchRequest("policy1", "1"))));
+        assertThat(key1, not(equalTo(key2)));
+        assertThat(key1, not(equalTo(key3)));
+
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        enrichCache.put(key1, searchResponse);
+        enrichCache.put(key2, searchResponse);
+        enrichCache.put(key3, searchResponse);
+        assertThat(enrichCache.get(key1), sameInstance(searchResponse));
+        assertThat(enrichCache.get(key2), sameInstance(searchResponse));
+        assertThat(enrichCache.get(key3), sameInstance(searchResponse));
+        assertThat(enrichCache.get(key4), nullValue());
+        assertCacheStats(enrichCache.getStats("_id"), 3, 3, 1, 0);
+
+        enrichCache.put(key4, searchResponse);
+        assertCacheStats(enrichCache.getStats("_id"), 3, 3, 1, 1);
+    }
+
+    public void testInvalidationWhenAliasMoves() {
+        EnrichCache enrichCache = new EnrichCache(16);
+        enrichCache.setMetaData(createMetaData("policy1", "1", "policy2", "1"));
+
+        EnrichCache.CacheKey key1 = enrichCache.resolveKey(searchRequest("policy1", "1"));
+        EnrichCache.CacheKey key2 = enrichCache.resolveKey(searchRequest("policy2", "1"));
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        enrichCache.put(key1, searchResponse);
+        enrichCache.put(key2, searchResponse);
+
+        // an unrelated cluster state update keeps the cached entries:
+        enrichCache.setMetaData(createMetaData("policy1", "1", "policy2", "1"));
+        assertThat(enrichCache.get(key1), sameInstance(searchResponse));
+        assertThat(enrichCache.get(key2), sameInstance(searchResponse));
+
+        // policy1 has been executed again, only the entries of its previous enrich index are invalidated:
+        enrichCache.setMetaData(createMetaData("policy1", "2", "policy2", "1"));
+        assertThat(enrichCache.get(key1), nullValue());
+        assertThat(enrichCache.get(key2), sameInstance(searchResponse));
+        EnrichCache.CacheKey newKey1 = enrichCache.resolveKey(searchRequest("policy1", "1"));
+        assertThat(newKey1, not(equalTo(key1)));
+        assertThat(enrichCache.get(newKey1), nullValue());
+        assertCacheStats(enrichCache.getStats("_id"), 1, 3, 2, 0);
+    }
+
+    public void testUnresolvableAlias() {
+        EnrichCache enrichCache = new EnrichCache(16);
+        assertThat(enrichCache.resolveKey(searchRequest("policy1", "1")), nullValue());
+        enrichCache.setMetaData(createMetaData("policy1", "1", "policy2", "1"));
+        assertThat(enrichCache.resolveKey(searchRequest("policy1", "1")), notNullValue());
+        assertThat(enrichCache.resolveKey(searchRequest("policy3", "1")), nullValue());
+    }
+
+    private static void assertCacheStats(CacheStats cacheStats, long count, long hits, long misses, long evictions) {
+        assertThat(cacheStats.getNodeId(), equalTo("_id"));
+        assertThat(cacheStats.getCount(), equalTo(count));
+        assertThat(cacheStats.getHits(), equalTo(hits));
+        assertThat(cacheStats.getMisses(), equalTo(misses));
+        assertThat(cacheStats.getEvictions(), equalTo(evictions));
+    }
+
+    private static SearchRequest searchRequest(String policyName, String lookupValue) {
+        SearchRequest searchRequest = new SearchRequest(EnrichPolicy.getBaseName(policyName));
+        searchRequest.source(new SearchSourceBuilder().query(QueryBuilders.termQuery("key", lookupValue)));
+        return searchRequest;
+    }
+
+    private static MetaData createMetaData(String policy1, String generation1, String policy2, String generation2) {
+        return MetaData.builder()
+            .put(createEnrichIndex(policy1, generation1))
+            .put(createEnrichIndex(policy2, generation2))
+            .build();
+    }
+
+    private static IndexMetaData.Builder createEnrichIndex(String policyName, String generation) {
+        Settings settings = Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build();
+        return IndexMetaData.builder(EnrichPolicy.getBaseName(policyName) + "-" + generation)
+            .settings(settings)
+            .putAlias(AliasMetaData.builder(EnrichPolicy.getBaseName(policyName)).build());
+    }
+}
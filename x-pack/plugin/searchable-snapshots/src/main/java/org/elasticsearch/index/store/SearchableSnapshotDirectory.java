@@ -0,0 +1,180 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.BaseDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.SingleInstanceLockFactory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.elasticsearch.repositories.blobstore.BlobStoreRepository.VIRTUAL_DATA_BLOB_PREFIX;
+
+/**
+ * Implementation of {@link Directory} that exposes files from a snapshot as a Lucene directory. Because snapshot are immutable this
+ * implementation does not allow modification of the directory files and only supports {@link #listAll()}, {@link #fileLength(String)} and
+ * {@link #openInput(String, IOContext)} methods.
+ *
+ * To create a {@link SearchableSnapshotDirectory} both the list of the snapshot files and a {@link BlobContainer} to read these files must
+ * be provided. The definition of the snapshot files are provided using a {@link BlobStoreIndexShardSnapshot} object which contains the name
+ * of the snapshot and all the files it contains along with their metadata. Because there is no one-to-one relationship between the original
+ * shard files and what it stored in the snapshot the {@link BlobStoreIndexShardSnapshot} is used to map a physical file name as expected by
+ * Lucene with the one (or the ones) corresponding blob(s) in the snapshot.
+ */
+public class SearchableSnapshotDirectory extends BaseDirectory {
+
+    private final BlobStoreIndexShardSnapshot snapshot;
+    private final BlobContainer blobContainer;
+
+    public SearchableSnapshotDirectory(final BlobStoreIndexShardSnapshot snapshot, final BlobContainer blobContainer) {
+        super(new SingleInstanceLockFactory());
+        this.snapshot = Objects.requireNonNull(snapshot);
+        this.blobContainer = Objects.requireNonNull(blobContainer);
+    }
+
+    private FileInfo fileInfo(final String name) throws FileNotFoundException {
+        return snapshot.indexFiles().stream()
+            .filter(fileInfo -> fileInfo.physicalName().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new FileNotFoundException(name));
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        ensureOpen();
+        return snapshot.indexFiles().stream()
+            .map(FileInfo::physicalName)
+            .sorted(String::compareTo)
+            .toArray(String[]::new);
+    }
+
+    @Override
+    public long fileLength(final String name) throws IOException {
+        ensureOpen();
+        return fileInfo(name).length();
+    }
+
+    @Override
+    public Set<String> getPendingDeletions() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public IndexInput openInput(final String name, final IOContext context) throws IOException {
+        ensureOpen();
+        final FileInfo fileInfo = fileInfo(name);
+        if (fileInfo.name().startsWith(VIRTUAL_DATA_BLOB_PREFIX)) {
+            // the content of the file is stored in the snapshot metadata
+            final BytesRef content = fileInfo.metadata().hash();
+            return new ByteArrayIndexInput("ByteArrayIndexInput(" + name + ')', content.bytes, content.offset, content.length);
+        }
+        return new SearchableSnapshotIndexInput(blobContainer, fileInfo, context);
+    }
+
+    /**
+     * Opens an {@link InputStream} that reads {@code length} bytes of the given file starting at {@code position} directly from
+     * the blob(s) of the snapshot. This is more efficient than reading through an {@link IndexInput} when large ranges of a file
+     * must be read at once, for example to populate a cache.
+     */
+    public InputStream openInputStream(final String name, final long position, final long length) throws IOException {
+        ensureOpen();
+        final FileInfo fileInfo = fileInfo(name);
+        if (position < 0L || length < 0L || position + length > fileInfo.length()) {
+            throw new IllegalArgumentException("range [" + position + "-" + (position + length) + "] out of bounds for file [" + name
+                + "] of length [" + fileInfo.length() + "]");
+        }
+        if (fileInfo.name().startsWith(VIRTUAL_DATA_BLOB_PREFIX)) {
+            final BytesRef content = fileInfo.metadata().hash();
+            return new ByteArrayInputStream(content.bytes, Math.toIntExact(content.offset + position), Math.toIntExact(length));
+        }
+        // all parts but the last one have the same size
+        final long partSize = fileInfo.partBytes(0);
+        final List<InputStream> streams = new ArrayList<>();
+        boolean success = false;
+        try {
+            long pos = position;
+            long remaining = length;
+            while (remaining > 0L) {
+                final int part = Math.toIntExact(pos / partSize);
+                final long positionInPart = pos % partSize;
+                final long read = Math.min(remaining, fileInfo.partBytes(part) - positionInPart);
+                streams.add(blobContainer.readBlob(fileInfo.partName(part), positionInPart, read));
+                pos += read;
+                remaining -= read;
+            }
+            final InputStream stream = streams.size() == 1 ? streams.get(0) : new SequenceInputStream(Collections.enumeration(streams));
+            success = true;
+            return stream;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(streams);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        isOpen = false;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "@" + snapshot.snapshot() + " lockFactory=" + lockFactory;
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void deleteFile(String name) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void sync(Collection<String> names) {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void syncMetaData() {
+        throw unsupportedException();
+    }
+
+    @Override
+    public void rename(String source, String dest) {
+        throw unsupportedException();
+    }
+
+    private static UnsupportedOperationException unsupportedException() {
+        return new UnsupportedOperationException("Searchable snapshot directory does not support this operation");
+    }
+}
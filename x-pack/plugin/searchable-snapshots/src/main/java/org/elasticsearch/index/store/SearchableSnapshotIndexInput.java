@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * A {@link SearchableSnapshotIndexInput} instance corresponds to a single file from a Lucene directory that has been snapshotted. Because
+ * large Lucene file might be split into multiple parts during the snapshot, {@link SearchableSnapshotIndexInput} requires a
+ * {@link FileInfo} object at creation time. This object is used to retrieve the file name and length of the original Lucene file, as well
+ * as all the parts (stored as "blobs" in the repository) that composed the file in the snapshot.
+ *
+ * For example, the following {@link FileInfo}:
+ *  [name: __4vdpz_HFQ8CuKjCERX0o2A, numberOfParts: 2, partSize: 997b, partBytes: 997, metadata: name [_0_Asserting_0.pos], length [1413]
+ *
+ * Indicates that the Lucene file "_0_Asserting_0.pos" has a total length of 1413 and is snapshotted into 2 parts:
+ * - __4vdpz_HFQ8CuKjCERX0o2A.part0 of size 997b
+ * - __4vdpz_HFQ8CuKjCERX0o2A.part1 of size 416b
+ *
+ * {@link SearchableSnapshotIndexInput} maintains a global position that indicates the current position in the Lucene file where the
+ * next read will occur. In the case of a Lucene file snapshotted into multiple parts, this position is used to identify which part must
+ * be read at which position (see {@link #readInternal(byte[], int, int)}. This position is also passed over to cloned and sliced input
+ * along with the {@link FileInfo} so that they can also track their reading position.
+ */
+public class SearchableSnapshotIndexInput extends BufferedIndexInput {
+
+    private final BlobContainer blobContainer;
+    private final FileInfo fileInfo;
+    private final long offset;
+    private final long length;
+
+    private volatile boolean closed;
+
+    SearchableSnapshotIndexInput(final BlobContainer blobContainer, final FileInfo fileInfo, final IOContext context) {
+        this("SearchableSnapshotIndexInput(" + fileInfo.physicalName() + ")", blobContainer, fileInfo, context, 0L, fileInfo.length());
+    }
+
+    private SearchableSnapshotIndexInput(final String resourceDesc, final BlobContainer blobContainer, final FileInfo fileInfo,
+                                         final IOContext context, final long offset, final long length) {
+        super(resourceDesc, context);
+        this.blobContainer = Objects.requireNonNull(blobContainer);
+        this.fileInfo = Objects.requireNonNull(fileInfo);
+        this.offset = offset;
+        this.length = length;
+        this.closed = false;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException(toString() + " is closed");
+        }
+    }
+
+    @Override
+    protected void readInternal(byte[] b, int offset, int length) throws IOException {
+        ensureOpen();
+        // the current position of the input, relative to the start of the (possibly sliced) file
+        final long position = getFilePointer();
+        if (position + length > this.length) {
+            throw new EOFException("Reading past end of file [position=" + position + ", length=" + length + "] for " + toString());
+        }
+        readFromBlobs(this.offset + position, b, offset, length);
+    }
+
+    /**
+     * Reads {@code length} bytes starting at the given {@code position} of the original file from the blob(s) of the snapshot
+     * that contain them.
+     */
+    private void readFromBlobs(long position, byte[] b, int offset, int length) throws IOException {
+        // all parts but the last one have the same size
+        final long partSize = fileInfo.partBytes(0);
+        int remaining = length;
+        while (remaining > 0) {
+            final int part = Math.toIntExact(position / partSize);
+            final long positionInPart = position % partSize;
+            final int read = Math.toIntExact(Math.min(remaining, fileInfo.partBytes(part) - positionInPart));
+            try (InputStream inputStream = blobContainer.readBlob(fileInfo.partName(part), positionInPart, read)) {
+                final int bytesRead = Streams.readFully(inputStream, b, offset, read);
+                if (bytesRead < read) {
+                    throw new EOFException("Read past end of blob [" + fileInfo.partName(part) + "] at position [" + positionInPart
+                        + "] for " + toString());
+                }
+            }
+            position += read;
+            offset += read;
+            remaining -= read;
+        }
+    }
+
+    @Override
+    protected void seekInternal(long pos) throws IOException {
+        if (pos > length) {
+            throw new EOFException("Reading past end of file [position=" + pos + ", length=" + length + "] for " + toString());
+        } else if (pos < 0L) {
+            throw new IOException("Seeking to negative position [" + pos + "] for " + toString());
+        }
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+        if ((offset >= 0L) && (length >= 0L) && (offset + length <= length())) {
+            final SearchableSnapshotIndexInput slice =
+                new SearchableSnapshotIndexInput(sliceDescription, blobContainer, fileInfo, IOContext.READ, this.offset + offset, length);
+            slice.seek(0L);
+            return slice;
+        } else {
+            throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: offset=" + offset
+                + ",length=" + length + ",fileLength=" + length() + ": " + this);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchableSnapshotIndexInput{" +
+            "resourceDesc=" + super.toString() +
+            ", fileInfo=" + fileInfo +
+            ", offset=" + offset +
+            ", length=" + length +
+            '}';
+    }
+}
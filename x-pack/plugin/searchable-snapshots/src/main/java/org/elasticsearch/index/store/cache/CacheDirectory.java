@@ -0,0 +1,205 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store.cache;
+
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SearchableSnapshotDirectory;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link CacheDirectory} uses a {@link CacheService} to cache the files of a searchable snapshot directory on the local disk. Files
+ * are fetched from the wrapped directory by ranges of {@link CacheService#getRangeSize()} bytes, only when they are read for the first
+ * time, and all subsequent reads are served by the local cache files of the ranges as long as they are not evicted. Ranges that are
+ * larger than the cache are read directly from the wrapped directory.
+ */
+public class CacheDirectory extends FilterDirectory {
+
+    private final SearchableSnapshotDirectory snapshotDirectory;
+    private final CacheService cacheService;
+    private final SnapshotId snapshotId;
+    private final IndexId indexId;
+    private final ShardId shardId;
+    private final Path cacheDir;
+
+    public CacheDirectory(SearchableSnapshotDirectory in, CacheService cacheService, Path cacheDir,
+                          SnapshotId snapshotId, IndexId indexId, ShardId shardId) throws IOException {
+        super(in);
+        this.snapshotDirectory = in;
+        this.cacheService = Objects.requireNonNull(cacheService);
+        this.cacheDir = Objects.requireNonNull(cacheDir);
+        this.snapshotId = Objects.requireNonNull(snapshotId);
+        this.indexId = Objects.requireNonNull(indexId);
+        this.shardId = Objects.requireNonNull(shardId);
+        // files that are left over from a previous use of the shard (e.g. node restart) are not tracked by the cache anymore
+        IOUtils.rm(cacheDir);
+        Files.createDirectories(cacheDir);
+    }
+
+    private CacheKey createCacheKey(String fileName, long rangeStart) {
+        return new CacheKey(snapshotId, indexId, shardId, fileName, rangeStart);
+    }
+
+    @Override
+    public IndexInput openInput(final String name, final IOContext context) throws IOException {
+        ensureOpen();
+        return new CacheBufferedIndexInput(name, fileLength(name), context);
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        // Ideally we could let the cache evict/remove cached files by itself after the
+        // directory has been closed.
+        cacheService.removeFromCache(cacheKey -> cacheKey.belongsTo(snapshotId, indexId, shardId));
+    }
+
+    /**
+     * Acquires the {@link CacheFile} of the given range of a file, creating it if needed. The returned file is referenced and must be
+     * released with {@link CacheFile#decRef()} once the read is done.
+     */
+    private CacheFile acquireCacheFile(final String fileName, final long rangeStart, final long rangeLength) throws IOException {
+        while (true) {
+            final AtomicReference<CacheFile> created = new AtomicReference<>();
+            final CacheFile cacheFile;
+            try {
+                cacheFile = cacheService.get(createCacheKey(fileName, rangeStart), key -> {
+                    final CacheFile newCacheFile = new CacheFile(key.toString(), rangeStart, rangeLength,
+                        cacheDir.resolve(UUIDs.randomBase64UUID()));
+                    // the reference of the reader is acquired before the file is visible in the cache so that it can't be
+                    // deleted by an eviction before it is read at least once
+                    newCacheFile.incRef();
+                    created.set(newCacheFile);
+                    return newCacheFile;
+                });
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to get cache file for [" + fileName + "]", e);
+            }
+            if (cacheFile == created.get() || cacheFile.tryIncRef()) {
+                return cacheFile;
+            }
+            // the cache file was evicted concurrently, try again with a new one
+        }
+    }
+
+    private class CacheBufferedIndexInput extends BufferedIndexInput {
+
+        private final String fileName;
+        private final long fileLength;
+        private final long offset;
+        private final long length;
+
+        CacheBufferedIndexInput(String fileName, long fileLength, IOContext ioContext) {
+            this("CachedBufferedIndexInput(" + fileName + ")", fileName, fileLength, ioContext, 0L, fileLength);
+        }
+
+        private CacheBufferedIndexInput(String resourceDesc, String fileName, long fileLength, IOContext ioContext,
+                                        long offset, long length) {
+            super(resourceDesc, ioContext);
+            this.fileName = fileName;
+            this.fileLength = fileLength;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        protected void readInternal(final byte[] buffer, final int offset, final int length) throws IOException {
+            final long position = getFilePointer();
+            if (position + length > this.length) {
+                throw new EOFException("Reading past end of file [position=" + position + ", length=" + length + "] for " + toString());
+            }
+            long pos = this.offset + position;
+            int off = offset;
+            int remaining = length;
+            final int rangeSize = cacheService.getRangeSize();
+            while (remaining > 0) {
+                final long rangeStart = (pos / rangeSize) * rangeSize;
+                final long rangeLength = Math.min(fileLength, rangeStart + rangeSize) - rangeStart;
+                final int read;
+                if (cacheService.canCache(rangeLength)) {
+                    final CacheFile cacheFile = acquireCacheFile(fileName, rangeStart, rangeLength);
+                    try {
+                        read = cacheFile.read(pos, buffer, off, remaining,
+                            (start, len) -> snapshotDirectory.openInputStream(fileName, start, len));
+                    } finally {
+                        cacheFile.decRef();
+                    }
+                } else {
+                    read = readDirectly(pos, buffer, off, Math.toIntExact(Math.min(remaining, rangeStart + rangeLength - pos)));
+                }
+                pos += read;
+                off += read;
+                remaining -= read;
+            }
+        }
+
+        private int readDirectly(final long position, final byte[] buffer, final int offset, final int length) throws IOException {
+            try (InputStream input = snapshotDirectory.openInputStream(fileName, position, length)) {
+                final int read = Streams.readFully(input, buffer, offset, length);
+                if (read != length) {
+                    throw new EOFException("Read past end of file [position=" + position + ", length=" + length + "] for " + toString());
+                }
+                return read;
+            }
+        }
+
+        @Override
+        protected void seekInternal(long pos) throws IOException {
+            if (pos > length) {
+                throw new EOFException("Reading past end of file [position=" + pos + ", length=" + length + "] for " + toString());
+            } else if (pos < 0L) {
+                throw new IOException("Seeking to negative position [" + pos + "] for " + toString());
+            }
+        }
+
+        @Override
+        public IndexInput slice(String sliceDescription, long offset, long length) {
+            if ((offset >= 0L) && (length >= 0L) && (offset + length <= length())) {
+                return new CacheBufferedIndexInput(sliceDescription, fileName, fileLength, IOContext.READ, this.offset + offset, length);
+            } else {
+                throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: offset=" + offset
+                    + ",length=" + length + ",fileLength=" + length() + ": " + this);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return "CacheBufferedIndexInput{" +
+                "fileName='" + fileName + '\'' +
+                ", fileLength=" + fileLength +
+                ", offset=" + offset +
+                ", length=" + length +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store.cache;
+
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.CheckedBiFunction;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A file on disk that caches a range of a file from a snapshot. The range is fetched from the snapshot on first access and is then
+ * served from the local disk. Concurrent readers of the missing range wait for the first reader to fetch it instead of fetching it
+ * again.
+ *
+ * A {@link CacheFile} is reference counted: the cache holds a reference until the file is evicted and each read holds a reference
+ * for its duration. The file on disk is deleted once it is evicted and all the reads that use it are completed.
+ */
+public class CacheFile extends AbstractRefCounted {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final String description;
+    private final long rangeStart;
+    private final long length;
+    private final Path file;
+    private final FileChannel channel;
+
+    // the fetch of the range, either completed or in progress, or null if no reader fetched it yet
+    private final AtomicReference<PlainActionFuture<Void>> fetch = new AtomicReference<>();
+
+    CacheFile(String description, long rangeStart, long length, Path file) throws IOException {
+        super(description);
+        this.description = description;
+        this.rangeStart = rangeStart;
+        this.length = length;
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Returns the length of the cached range, which is the number of bytes the file occupies on disk once the range is fetched.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Removes the reference held by the cache. The file is deleted as soon as no read is using it.
+     */
+    public void markAsEvicted() {
+        decRef();
+    }
+
+    @Override
+    protected void closeInternal() {
+        try {
+            IOUtils.close(channel, () -> Files.deleteIfExists(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to delete cache file [" + file + "]", e);
+        }
+    }
+
+    /**
+     * Reads up to {@code len} bytes of the file starting at {@code position}, which must be within the cached range. The read stops
+     * at the end of the range so the number of bytes read can be less than {@code len}. The range is fetched first with the provided
+     * {@code rangeSource} (that returns an {@link InputStream} for a given position and length) if it is not cached yet.
+     *
+     * @return the number of bytes read
+     */
+    int read(long position, byte[] b, int off, int len,
+             CheckedBiFunction<Long, Long, InputStream, IOException> rangeSource) throws IOException {
+        assert refCount() > 0 : "cache file [" + description + "] must be referenced when read";
+        assert position >= rangeStart && position < rangeStart + length : "position [" + position + "] is out of the range of " + this;
+        final long rangeEnd = rangeStart + length;
+        ensureRangeAvailable(rangeEnd, rangeSource);
+
+        final int read = Math.toIntExact(Math.min(len, rangeEnd - position));
+        Channels.readFromFileChannelWithEofException(channel, position - rangeStart, b, off, read);
+        return read;
+    }
+
+    private void ensureRangeAvailable(long rangeEnd, CheckedBiFunction<Long, Long, InputStream, IOException> rangeSource)
+        throws IOException {
+        PlainActionFuture<Void> future = fetch.get();
+        if (future == null) {
+            final PlainActionFuture<Void> newFuture = PlainActionFuture.newFuture();
+            if (fetch.compareAndSet(null, newFuture)) {
+                try {
+                    fetchRange(rangeEnd, rangeSource);
+                    newFuture.onResponse(null);
+                } catch (Exception e) {
+                    // let another reader try to fetch the range again
+                    fetch.compareAndSet(newFuture, null);
+                    newFuture.onFailure(e);
+                    throw e;
+                }
+                return;
+            }
+            future = fetch.get();
+            if (future == null) {
+                // the concurrent fetch failed in the meantime
+                ensureRangeAvailable(rangeEnd, rangeSource);
+                return;
+            }
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for range [" + rangeStart + "-" + rangeEnd + "] of ["
+                + description + "]");
+        } catch (ExecutionException e) {
+            throw new IOException("failed to fetch range [" + rangeStart + "-" + rangeEnd + "] of [" + description + "]", e.getCause());
+        }
+    }
+
+    private void fetchRange(long rangeEnd, CheckedBiFunction<Long, Long, InputStream, IOException> rangeSource) throws IOException {
+        final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+        long position = rangeStart;
+        try (InputStream input = rangeSource.apply(rangeStart, rangeEnd - rangeStart)) {
+            while (position < rangeEnd) {
+                final int read = input.read(copyBuffer, 0, Math.toIntExact(Math.min(copyBuffer.length, rangeEnd - position)));
+                if (read == -1) {
+                    throw new IOException("unexpected end of stream at position [" + position + "] when fetching range ["
+                        + rangeStart + "-" + rangeEnd + "] of [" + description + "]");
+                }
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(copyBuffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position - rangeStart);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheFile{" +
+            "description='" + description + '\'' +
+            ", file=" + file +
+            ", rangeStart=" + rangeStart +
+            ", length=" + length +
+            ", refCount=" + refCount() +
+            '}';
+    }
+}
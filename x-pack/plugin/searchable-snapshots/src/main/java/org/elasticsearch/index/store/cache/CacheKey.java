@@ -0,0 +1,91 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store.cache;
+
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+
+import java.util.Objects;
+
+/**
+ * Identifies a range of a file of a snapshotted shard in the searchable snapshots cache.
+ */
+public class CacheKey {
+
+    private final SnapshotId snapshotId;
+    private final IndexId indexId;
+    private final ShardId shardId;
+    private final String fileName;
+    private final long rangeStart;
+
+    CacheKey(SnapshotId snapshotId, IndexId indexId, ShardId shardId, String fileName, long rangeStart) {
+        this.snapshotId = Objects.requireNonNull(snapshotId);
+        this.indexId = Objects.requireNonNull(indexId);
+        this.shardId = Objects.requireNonNull(shardId);
+        this.fileName = Objects.requireNonNull(fileName);
+        this.rangeStart = rangeStart;
+    }
+
+    SnapshotId getSnapshotId() {
+        return snapshotId;
+    }
+
+    IndexId getIndexId() {
+        return indexId;
+    }
+
+    ShardId getShardId() {
+        return shardId;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    long getRangeStart() {
+        return rangeStart;
+    }
+
+    /**
+     * Returns {@code true} if this key refers to a file of the given shard snapshot.
+     */
+    public boolean belongsTo(SnapshotId snapshotId, IndexId indexId, ShardId shardId) {
+        return this.snapshotId.equals(snapshotId) && this.indexId.equals(indexId) && this.shardId.equals(shardId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final CacheKey cacheKey = (CacheKey) o;
+        return Objects.equals(snapshotId, cacheKey.snapshotId)
+            && Objects.equals(indexId, cacheKey.indexId)
+            && Objects.equals(shardId, cacheKey.shardId)
+            && Objects.equals(fileName, cacheKey.fileName)
+            && rangeStart == cacheKey.rangeStart;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(snapshotId, indexId, shardId, fileName, rangeStart);
+    }
+
+    @Override
+    public String toString() {
+        return "[" +
+            "snapshotId=" + snapshotId +
+            ", indexId=" + indexId +
+            ", shardId=" + shardId +
+            ", fileName='" + fileName + '\'' +
+            ", rangeStart=" + rangeStart +
+            ']';
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.action;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreClusterStateListener;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotRequest;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.RestoreService;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.snapshots.SnapshotMissingException;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xpack.core.searchablesnapshots.MountSearchableSnapshotAction;
+import org.elasticsearch.xpack.core.searchablesnapshots.MountSearchableSnapshotRequest;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+
+import static org.elasticsearch.snapshots.SearchableSnapshotsSettings.SEARCHABLE_SNAPSHOT_STORE_TYPE;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_ID_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_REPOSITORY_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_SNAPSHOT_ID_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_SNAPSHOT_NAME_SETTING;
+
+/**
+ * Action that mounts a snapshot as a searchable snapshot, by converting the mount request into a restore request with specific settings
+ * using the settings built by {@code buildIndexSettings}.
+ *
+ * This action doesn't technically need to run on the master node, but it needs to get metadata from the repository and we only expect
+ * the repository to be accessible from data and master-eligible nodes so we can't run it everywhere. Given that we already have a way
+ * to run actions on the master and that we have to do the restore via the master, it's simplest to use {@link TransportMasterNodeAction}.
+ */
+public class TransportMountSearchableSnapshotAction
+    extends TransportMasterNodeAction<MountSearchableSnapshotRequest, RestoreSnapshotResponse> {
+
+    private final RepositoriesService repositoriesService;
+    private final RestoreService restoreService;
+
+    @Inject
+    public TransportMountSearchableSnapshotAction(TransportService transportService, ClusterService clusterService,
+                                                  ThreadPool threadPool, RepositoriesService repositoriesService,
+                                                  ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver,
+                                                  RestoreService restoreService) {
+        super(MountSearchableSnapshotAction.NAME, transportService, clusterService, threadPool, actionFilters,
+            MountSearchableSnapshotRequest::new, indexNameExpressionResolver);
+        this.repositoriesService = repositoriesService;
+        this.restoreService = restoreService;
+    }
+
+    @Override
+    protected String executor() {
+        // Avoid SNAPSHOT since snapshot threads may all be busy with long-running tasks which would block this action from responding
+        // with an error. Avoid SAME since getting the repository metadata may block on IO.
+        return ThreadPool.Names.GENERIC;
+    }
+
+    @Override
+    protected RestoreSnapshotResponse read(StreamInput in) throws IOException {
+        return new RestoreSnapshotResponse(in);
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(MountSearchableSnapshotRequest request, ClusterState state) {
+        // The restore action checks the cluster blocks.
+        return null;
+    }
+
+    /**
+     * Return the index settings required to make a snapshot searchable
+     */
+    private static Settings buildIndexSettings(String repoName, SnapshotId snapshotId, IndexId indexId) {
+        return Settings.builder()
+            .put(SNAPSHOT_REPOSITORY_SETTING.getKey(), repoName)
+            .put(SNAPSHOT_SNAPSHOT_NAME_SETTING.getKey(), snapshotId.getName())
+            .put(SNAPSHOT_SNAPSHOT_ID_SETTING.getKey(), snapshotId.getUUID())
+            .put(SNAPSHOT_INDEX_ID_SETTING.getKey(), indexId.getId())
+            .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), SEARCHABLE_SNAPSHOT_STORE_TYPE)
+            .put(IndexMetaData.SETTING_BLOCKS_WRITE, true)
+            // replicas would need to copy the files of the primary which can't be written to a searchable snapshot directory
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexMetaData.SETTING_AUTO_EXPAND_REPLICAS, false)
+            .build();
+    }
+
+    @Override
+    protected void masterOperation(Task task, final MountSearchableSnapshotRequest request, final ClusterState state,
+                                   final ActionListener<RestoreSnapshotResponse> listener) {
+        final String repoName = request.repositoryName();
+        final String snapName = request.snapshotName();
+        final String indexName = request.snapshotIndexName();
+
+        // Retrieve IndexId and SnapshotId instances, which are then used to create a new restore
+        // request, which is then sent on to the actual snapshot restore mechanism
+        final Repository repository = repositoriesService.repository(repoName);
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IllegalArgumentException("repository [" + repoName + "] does not support searchable snapshots");
+        }
+        repository.getRepositoryData(ActionListener.wrap(repositoryData -> {
+            final SnapshotId snapshotId = findSnapshotId(repoName, snapName, repositoryData);
+            final IndexId indexId = repositoryData.getIndices().get(indexName);
+            if (indexId == null) {
+                throw new IndexNotFoundException("index [" + indexName + "] not found in repository [" + repoName + "]", indexName);
+            }
+
+            final RestoreSnapshotRequest restoreRequest = new RestoreSnapshotRequest(repoName, snapName)
+                // Restore the single index specified
+                .indices(indexName)
+                // Always rename it to the desired mounted index name
+                .renamePattern(".+")
+                .renameReplacement(Matcher.quoteReplacement(request.mountedIndexName()))
+                // Pass through index settings, adding the index-level settings required to use searchable snapshots
+                .indexSettings(Settings.builder()
+                    .put(request.indexSettings())
+                    .put(buildIndexSettings(repoName, snapshotId, indexId))
+                    .build())
+                // Pass through ignored index settings
+                .ignoreIndexSettings(request.ignoreIndexSettings())
+                // Don't include global state
+                .includeGlobalState(false)
+                // Don't include aliases
+                .includeAliases(false)
+                // Pass through the wait-for-completion flag
+                .waitForCompletion(request.waitForCompletion())
+                // Pass through the master-node timeout
+                .masterNodeTimeout(request.masterNodeTimeout());
+
+            restoreService.restoreSnapshot(restoreRequest, ActionListener.delegateFailure(listener,
+                (delegatedListener, restoreCompletionResponse) -> {
+                    if (restoreCompletionResponse.getRestoreInfo() == null && restoreRequest.waitForCompletion()) {
+                        RestoreClusterStateListener.createAndRegisterListener(clusterService, restoreCompletionResponse,
+                            delegatedListener);
+                    } else {
+                        delegatedListener.onResponse(new RestoreSnapshotResponse(restoreCompletionResponse.getRestoreInfo()));
+                    }
+                }));
+        }, listener::onFailure));
+    }
+
+    private static SnapshotId findSnapshotId(String repoName, String snapName, RepositoryData repositoryData) {
+        final Optional<SnapshotId> snapshotId = repositoryData.getSnapshotIds().stream()
+            .filter(s -> snapName.equals(s.getName()))
+            .findFirst();
+        return snapshotId.orElseThrow(() -> new SnapshotMissingException(repoName, snapName));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.CacheLoader;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.component.Lifecycle;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.store.cache.CacheFile;
+import org.elasticsearch.index.store.cache.CacheKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * {@link CacheService} maintains a cache entry for each range of the files read from searchable snapshot directories (see
+ * {@link org.elasticsearch.index.store.cache.CacheDirectory}). The total weight of the cache, which is the sum of the lengths of
+ * the cached ranges, is bounded by {@link #SNAPSHOT_CACHE_SIZE_SETTING}. Least recently used ranges are evicted (and deleted from
+ * disk once they are not read anymore) when the cache is full, so that the cache keeps the parts of large files that are read.
+ */
+public class CacheService extends AbstractLifecycleComponent {
+
+    public static final Setting<ByteSizeValue> SNAPSHOT_CACHE_SIZE_SETTING = Setting.byteSizeSetting("searchable_snapshots.cache.size",
+        new ByteSizeValue(1, ByteSizeUnit.GB),                  // default
+        new ByteSizeValue(0, ByteSizeUnit.BYTES),               // min
+        new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES),  // max
+        Setting.Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> SNAPSHOT_CACHE_RANGE_SIZE_SETTING =
+        Setting.byteSizeSetting("searchable_snapshots.cache.range_size",
+            new ByteSizeValue(32, ByteSizeUnit.MB),                 // default
+            new ByteSizeValue(4, ByteSizeUnit.KB),                  // min
+            new ByteSizeValue(Integer.MAX_VALUE, ByteSizeUnit.BYTES), // max
+            Setting.Property.NodeScope);
+
+    private final Cache<CacheKey, CacheFile> cache;
+    private final long cacheSize;
+    private final int rangeSize;
+
+    public CacheService(final Settings settings) {
+        this.cacheSize = SNAPSHOT_CACHE_SIZE_SETTING.get(settings).getBytes();
+        this.cache = CacheBuilder.<CacheKey, CacheFile>builder()
+            .setMaximumWeight(cacheSize)
+            .weigher((key, entry) -> entry.getLength())
+            // the file is deleted once all the reads that use it are completed
+            .removalListener(notification -> notification.getValue().markAsEvicted())
+            .build();
+        this.rangeSize = Math.toIntExact(SNAPSHOT_CACHE_RANGE_SIZE_SETTING.get(settings).getBytes());
+    }
+
+    @Override
+    protected void doStart() {
+        // files left by a previous run are deleted when the cache directories of the shards are created
+    }
+
+    @Override
+    protected void doStop() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    /**
+     * Returns the size of the ranges that are fetched from the snapshot and cached on disk.
+     */
+    public int getRangeSize() {
+        return rangeSize;
+    }
+
+    /**
+     * Returns {@code true} if a range of the given length fits in the cache. Ranges that don't fit would be evicted as soon as they
+     * are fetched and should be read directly from the snapshot instead.
+     */
+    public boolean canCache(final long rangeLength) {
+        return rangeLength <= cacheSize;
+    }
+
+    /**
+     * Returns the {@link CacheFile} associated with the given key, creating it with the provided loader if needed.
+     */
+    public CacheFile get(final CacheKey cacheKey, final CacheLoader<CacheKey, CacheFile> loader) throws Exception {
+        ensureStarted();
+        try {
+            return cache.computeIfAbsent(cacheKey, loader);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Invalidates the cache entries whose key matches the given predicate, for example when a shard is closed.
+     */
+    public void removeFromCache(final Predicate<CacheKey> predicate) {
+        final List<CacheKey> keys = new ArrayList<>();
+        for (CacheKey cacheKey : cache.keys()) {
+            if (predicate.test(cacheKey)) {
+                keys.add(cacheKey);
+            }
+        }
+        keys.forEach(cache::invalidate);
+        cache.refresh();
+    }
+
+    private void ensureStarted() {
+        if (lifecycleState() != Lifecycle.State.STARTED) {
+            throw new IllegalStateException("Failed to read data from cache: cache service is not started [" + lifecycleState() + "]");
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.store.cache.CacheDirectory;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SearchableSnapshotDirectoryTests extends ESTestCase {
+
+    public void testListAll() throws Exception {
+        testDirectories((original, snapshot) -> {
+            final String[] files = original.listAll();
+            assertThat(snapshot.listAll(), arrayContaining(files));
+            for (String file : files) {
+                assertThat(snapshot.fileLength(file), equalTo(original.fileLength(file)));
+            }
+            expectThrows(FileNotFoundException.class, () -> snapshot.fileLength("missing"));
+        });
+    }
+
+    public void testReadFiles() throws Exception {
+        testDirectories((original, snapshot) -> {
+            for (String file : original.listAll()) {
+                try (IndexInput expected = original.openInput(file, IOContext.READ);
+                     IndexInput actual = snapshot.openInput(file, IOContext.READ)) {
+                    assertThat(actual.length(), equalTo(expected.length()));
+                    final byte[] expectedBytes = new byte[Math.toIntExact(expected.length())];
+                    expected.readBytes(expectedBytes, 0, expectedBytes.length);
+
+                    // random seeks and reads
+                    for (int i = 0; i < 10; i++) {
+                        final int position = randomIntBetween(0, expectedBytes.length);
+                        final int length = randomIntBetween(0, expectedBytes.length - position);
+                        final byte[] actualBytes = new byte[length];
+                        actual.seek(position);
+                        actual.readBytes(actualBytes, 0, length);
+                        assertArrayEquals(subArray(expectedBytes, position, length), actualBytes);
+                    }
+
+                    // slices
+                    final int sliceOffset = randomIntBetween(0, expectedBytes.length);
+                    final int sliceLength = randomIntBetween(0, expectedBytes.length - sliceOffset);
+                    try (IndexInput slice = actual.slice("slice", sliceOffset, sliceLength)) {
+                        final byte[] sliceBytes = new byte[sliceLength];
+                        slice.readBytes(sliceBytes, 0, sliceLength);
+                        assertArrayEquals(subArray(expectedBytes, sliceOffset, sliceLength), sliceBytes);
+                    }
+
+                    // checksums are verified as on a regular directory
+                    assertThat(CodecUtil.retrieveChecksum(actual), equalTo(CodecUtil.retrieveChecksum(expected)));
+                }
+            }
+        });
+    }
+
+    public void testSearch() throws Exception {
+        testDirectories((original, snapshot) -> {
+            try (DirectoryReader expectedReader = DirectoryReader.open(original);
+                 DirectoryReader actualReader = DirectoryReader.open(snapshot)) {
+                assertThat(actualReader.numDocs(), equalTo(expectedReader.numDocs()));
+                assertThat(actualReader.maxDoc(), equalTo(expectedReader.maxDoc()));
+                final IndexSearcher expectedSearcher = new IndexSearcher(expectedReader);
+                final IndexSearcher actualSearcher = new IndexSearcher(actualReader);
+                for (int i = 0; i < 10; i++) {
+                    final TermQuery query = new TermQuery(new Term("group", Integer.toString(randomIntBetween(0, 9))));
+                    assertThat(actualSearcher.count(query), equalTo(expectedSearcher.count(query)));
+                }
+            }
+        });
+    }
+
+    public void testUnsupportedOperations() throws Exception {
+        testDirectories((original, snapshot) -> {
+            expectThrows(UnsupportedOperationException.class, () -> snapshot.createOutput("file", IOContext.DEFAULT));
+            expectThrows(UnsupportedOperationException.class, () -> snapshot.deleteFile(original.listAll()[0]));
+            expectThrows(UnsupportedOperationException.class, () -> snapshot.rename(original.listAll()[0], "other"));
+            expectThrows(UnsupportedOperationException.class, () -> snapshot.sync(List.of(original.listAll())));
+        });
+    }
+
+    /**
+     * A file larger than the cache is cached by ranges, so that the parts of the file that are read again are not fetched again.
+     */
+    public void testRepeatedReadsOfFileLargerThanCache() throws Exception {
+        final int rangeSize = 4 * 1024;
+        final byte[] content = randomByteArrayOfLength(randomIntBetween(16, 64) * rangeSize + randomIntBetween(0, rangeSize - 1));
+        final String fileName = "_0.cfs";
+        final Path repositoryPath = createTempDir();
+        try (FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, repositoryPath, false)) {
+            final BlobContainer blobContainer = blobStore.blobContainer(new BlobPath().add("indices").add("0"));
+            final FileInfo fileInfo = new FileInfo("__" + UUIDs.randomBase64UUID(),
+                new StoreFileMetaData(fileName, content.length, "_checksum", Version.LATEST), null);
+            blobContainer.writeBlob(fileInfo.partName(0), new ByteArrayInputStream(content), content.length, true);
+
+            final AtomicInteger fetches = new AtomicInteger();
+            final BlobStoreIndexShardSnapshot snapshot = new BlobStoreIndexShardSnapshot("_snapshot", 0L, List.of(fileInfo), 0L, 0L, 0, 0L);
+            final SearchableSnapshotDirectory snapshotDirectory = new SearchableSnapshotDirectory(snapshot, blobContainer) {
+                @Override
+                public InputStream openInputStream(String name, long position, long length) throws IOException {
+                    fetches.incrementAndGet();
+                    return super.openInputStream(name, position, length);
+                }
+            };
+            // the cache holds a few ranges only
+            final Settings settings = Settings.builder()
+                .put(CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING.getKey(), new ByteSizeValue(rangeSize, ByteSizeUnit.BYTES))
+                .put(CacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(4 * rangeSize, ByteSizeUnit.BYTES))
+                .build();
+            try (CacheService cacheService = new CacheService(settings)) {
+                cacheService.start();
+                try (Directory directory = new CacheDirectory(snapshotDirectory, cacheService, createTempDir(),
+                    new SnapshotId("_snapshot", UUIDs.randomBase64UUID()), new IndexId("_index", UUIDs.randomBase64UUID()),
+                    new ShardId("_index", UUIDs.randomBase64UUID(), 0))) {
+                    // the header is in the first range and the footer spans one or two ranges at the end of the file
+                    final int headerLength = randomIntBetween(1, rangeSize);
+                    final int footerLength = randomIntBetween(1, rangeSize);
+                    final int footerRanges = (content.length - 1) / rangeSize - (content.length - footerLength) / rangeSize + 1;
+                    for (int i = 0; i < 10; i++) {
+                        try (IndexInput input = directory.openInput(fileName, IOContext.READ)) {
+                            final byte[] header = new byte[headerLength];
+                            input.readBytes(header, 0, headerLength);
+                            assertArrayEquals(subArray(content, 0, headerLength), header);
+
+                            final byte[] footer = new byte[footerLength];
+                            input.seek(content.length - footerLength);
+                            input.readBytes(footer, 0, footerLength);
+                            assertArrayEquals(subArray(content, content.length - footerLength, footerLength), footer);
+                        }
+                        assertThat(fetches.get(), equalTo(1 + footerRanges));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a Lucene index, snapshots its files in a {@link FsBlobStore} and executes the given consumer with both the original
+     * directory and a {@link SearchableSnapshotDirectory} (possibly wrapped in a {@link CacheDirectory}) of the snapshotted files.
+     */
+    private void testDirectories(final CheckedBiConsumer<Directory, Directory, Exception> consumer) throws Exception {
+        final Path indexPath = createTempDir();
+        try (Directory original = newFSDirectory(indexPath)) {
+            final IndexWriterConfig indexWriterConfig = newIndexWriterConfig();
+            try (IndexWriter writer = new IndexWriter(original, indexWriterConfig)) {
+                final int nbDocs = scaledRandomIntBetween(1, 1_000);
+                for (int i = 0; i < nbDocs; i++) {
+                    final Document document = new Document();
+                    document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                    document.add(new StringField("group", Integer.toString(i % 10), Field.Store.NO));
+                    document.add(new TextField("text", randomRealisticUnicodeOfCodepointLengthBetween(1, 100), Field.Store.YES));
+                    writer.addDocument(document);
+                    if (rarely()) {
+                        writer.commit();
+                    }
+                }
+                writer.commit();
+            }
+            // the lock file is not part of the snapshot
+            original.deleteFile(IndexWriter.WRITE_LOCK_NAME);
+
+            final Path repositoryPath = createTempDir();
+            try (FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, repositoryPath, false)) {
+                final BlobContainer blobContainer = blobStore.blobContainer(new BlobPath().add("indices").add("0"));
+                final ByteSizeValue partSize = randomBoolean() ? null : new ByteSizeValue(randomIntBetween(1, 4096), ByteSizeUnit.BYTES);
+
+                final List<FileInfo> files = new ArrayList<>();
+                for (String fileName : original.listAll()) {
+                    final long length = original.fileLength(fileName);
+                    final String checksum;
+                    try (IndexInput input = original.openInput(fileName, IOContext.READONCE)) {
+                        checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+                    }
+                    final FileInfo fileInfo = new FileInfo("__" + UUIDs.randomBase64UUID(),
+                        new StoreFileMetaData(fileName, length, checksum, Version.LATEST), partSize);
+                    for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                        try (IndexInput input = original.openInput(fileName, IOContext.READONCE)) {
+                            input.seek(part * fileInfo.partBytes(0));
+                            try (InputStream stream = new InputStreamIndexInput(input, fileInfo.partBytes(part))) {
+                                blobContainer.writeBlob(fileInfo.partName(part), stream, fileInfo.partBytes(part), true);
+                            }
+                        }
+                    }
+                    files.add(fileInfo);
+                }
+
+                final BlobStoreIndexShardSnapshot snapshot = new BlobStoreIndexShardSnapshot("_snapshot", 0L, files, 0L, 0L, 0, 0L);
+                final SearchableSnapshotDirectory snapshotDirectory = new SearchableSnapshotDirectory(snapshot, blobContainer);
+                if (randomBoolean()) {
+                    try (Directory directory = snapshotDirectory) {
+                        consumer.accept(original, directory);
+                    }
+                } else {
+                    final Settings settings = Settings.builder()
+                        .put(CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING.getKey(),
+                            new ByteSizeValue(randomIntBetween(4, 64), ByteSizeUnit.KB))
+                        .put(CacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), randomFrom("0b", "1kb", "1mb", "1gb"))
+                        .build();
+                    try (CacheService cacheService = new CacheService(settings)) {
+                        cacheService.start();
+                        try (Directory directory = new CacheDirectory(snapshotDirectory, cacheService, createTempDir(),
+                            new SnapshotId("_snapshot", UUIDs.randomBase64UUID()), new IndexId("_index", UUIDs.randomBase64UUID()),
+                            new ShardId("_index", UUIDs.randomBase64UUID(), 0))) {
+                            consumer.accept(original, directory);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte[] subArray(byte[] bytes, int offset, int length) {
+        final byte[] sub = new byte[length];
+        System.arraycopy(bytes, offset, sub, 0, length);
+        return sub;
+    }
+}
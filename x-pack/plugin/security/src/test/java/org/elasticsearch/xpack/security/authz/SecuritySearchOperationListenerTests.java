@@ -5,14 +5,19 @@
  */
 package org.elasticsearch.xpack.security.authz;
 
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.util.concurrent.ThreadContext.StoredContext;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.license.XPackLicenseState;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.test.ESTestCase;
@@ -170,6 +175,46 @@ public class SecuritySearchOperationListenerTests extends ESTestCase {
         }
     }
 
+    public void testValidateReaderContext() throws Exception {
+        XPackLicenseState licenseState = mock(XPackLicenseState.class);
+        when(licenseState.isAuthAllowed()).thenReturn(true);
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        final SecurityContext securityContext = new SecurityContext(Settings.EMPTY, threadContext);
+        AuditTrailService auditTrailService = mock(AuditTrailService.class);
+        final Engine.Searcher searcher = new Engine.Searcher("test", new MultiReader(), IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), () -> {});
+        final ReaderContext readerContext = new ReaderContext(randomNonNegativeLong(), mock(IndexShard.class), searcher, 60_000L,
+            () -> 0L);
+
+        SecuritySearchOperationListener listener = new SecuritySearchOperationListener(securityContext, licenseState, auditTrailService);
+        try (StoredContext ignore = threadContext.newStoredContext(false)) {
+            Authentication authentication = new Authentication(new User("test", "role"), new RealmRef("realm", "file", "node"), null);
+            authentication.writeToContext(threadContext);
+            listener.onNewReaderContext(readerContext);
+            assertEquals(authentication, readerContext.getFromContext(AuthenticationField.AUTHENTICATION_KEY));
+            listener.validateReaderContext(readerContext, Empty.INSTANCE);
+            verify(licenseState, times(2)).isAuthAllowed();
+            verifyZeroInteractions(auditTrailService);
+        }
+
+        // another user can neither search nor close the point in time
+        try (StoredContext ignore = threadContext.newStoredContext(false)) {
+            Authentication authentication = new Authentication(new User("other", "role"), new RealmRef("realm", "file", "node"), null);
+            authentication.writeToContext(threadContext);
+            threadContext.putTransient(ORIGINATING_ACTION_KEY, "action");
+            threadContext.putTransient(AUTHORIZATION_INFO_KEY,
+                (AuthorizationInfo) () -> Collections.singletonMap(PRINCIPAL_ROLES_FIELD_NAME, authentication.getUser().roles()));
+            final TransportRequest request = Empty.INSTANCE;
+            SearchContextMissingException expected =
+                expectThrows(SearchContextMissingException.class, () -> listener.validateReaderContext(readerContext, request));
+            assertEquals(readerContext.id(), expected.id());
+            verify(licenseState, times(3)).isAuthAllowed();
+            verify(auditTrailService).accessDenied(eq(null), eq(authentication), eq("action"), eq(request),
+                authzInfoRoles(authentication.getUser().roles()));
+        }
+        readerContext.close();
+    }
+
     public void testEnsuredAuthenticatedUserIsSame() {
         Authentication original = new Authentication(new User("test", "role"), new RealmRef("realm", "file", "node"), null);
         Authentication current =
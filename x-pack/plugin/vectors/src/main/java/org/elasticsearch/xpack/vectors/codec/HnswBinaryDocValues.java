@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.CheckedSupplier;
+
+import java.io.IOException;
+
+/**
+ * {@link BinaryDocValues} of a dense vector field that also give access to the {@link HnswGraph} of the
+ * segment in order to search for the nearest neighbours of a vector without visiting all documents.
+ */
+public final class HnswBinaryDocValues extends BinaryDocValues {
+
+    private final BinaryDocValues in;
+    private final int dims;
+    private final CheckedSupplier<HnswGraph, IOException> graphSupplier;
+
+    HnswBinaryDocValues(BinaryDocValues in, int dims, CheckedSupplier<HnswGraph, IOException> graphSupplier) {
+        this.in = in;
+        this.dims = dims;
+        this.graphSupplier = graphSupplier;
+    }
+
+    /**
+     * Returns the <code>k</code> documents whose vector is the most similar to the query vector, sorted by decreasing
+     * similarity. The search collects <code>numCandidates</code> nodes of the graph before keeping the top
+     * <code>k</code>, higher values give more accurate results but are slower. Documents that are not accepted by
+     * <code>acceptDocs</code>, if not null, are not returned.
+     */
+    public TopDocs search(float[] queryVector, int k, int numCandidates, Bits acceptDocs) throws IOException {
+        if (queryVector.length != dims) {
+            throw new IllegalArgumentException("the query vector has [" + queryVector.length
+                + "] dimensions but the indexed vectors have [" + dims + "] dimensions");
+        }
+        final HnswGraph graph = graphSupplier.get();
+        final NeighborQueue results = graph.search(queryVector, Math.max(k, numCandidates), acceptDocs);
+        while (results.size() > k) {
+            results.pop();
+        }
+        final ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            final float score = results.topScore();
+            final int node = results.pop();
+            scoreDocs[i] = new ScoreDoc(graph.nodeToDoc(node), score);
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO), scoreDocs);
+    }
+
+    @Override
+    public BytesRef binaryValue() throws IOException {
+        return in.binaryValue();
+    }
+
+    @Override
+    public boolean advanceExact(int target) throws IOException {
+        return in.advanceExact(target);
+    }
+
+    @Override
+    public int docID() {
+        return in.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+        return in.nextDoc();
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+        return in.advance(target);
+    }
+
+    @Override
+    public long cost() {
+        return in.cost();
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the doc values with the delegate consumer and the {@link HnswGraph} of each binary field in two
+ * additional files. The meta file records, for each field, the parameters of the graph and the offsets of
+ * its sections in the data file:
+ * <ul>
+ *     <li>the vectors, in node order, as <code>dims</code> floats each</li>
+ *     <li>the document of each node as an int</li>
+ *     <li>the neighbours of each node on level 0 in fixed-size slots of <code>1 + 2*m</code> ints</li>
+ *     <li>the upper levels, as vints, which are small enough to be loaded on heap</li>
+ * </ul>
+ * Merges go through {@link #addBinaryField} so the graph of a merged segment is rebuilt from its vectors.
+ */
+final class HnswDocValuesConsumer extends DocValuesConsumer {
+
+    private final DocValuesConsumer delegate;
+    private final VectorSimilarity similarity;
+    private final int dims;
+    private final int m;
+    private final int efConstruction;
+    private IndexOutput meta;
+    private IndexOutput data;
+
+    HnswDocValuesConsumer(DocValuesConsumer delegate, SegmentWriteState state, VectorSimilarity similarity,
+                          int dims, int m, int efConstruction) throws IOException {
+        this.delegate = delegate;
+        this.similarity = similarity;
+        this.dims = dims;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        boolean success = false;
+        try {
+            final String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+                HnswDocValuesFormat.DATA_EXTENSION);
+            data = state.directory.createOutput(dataName, state.context);
+            CodecUtil.writeIndexHeader(data, HnswDocValuesFormat.DATA_CODEC, HnswDocValuesFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(), state.segmentSuffix);
+            final String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+                HnswDocValuesFormat.META_EXTENSION);
+            meta = state.directory.createOutput(metaName, state.context);
+            CodecUtil.writeIndexHeader(meta, HnswDocValuesFormat.META_CODEC, HnswDocValuesFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(), state.segmentSuffix);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(this);
+            }
+        }
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+
+        final List<float[]> vectors = new ArrayList<>();
+        int[] nodeToDoc = new int[16];
+        final BinaryDocValues values = valuesProducer.getBinary(field);
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            nodeToDoc = ArrayUtil.grow(nodeToDoc, vectors.size() + 1);
+            nodeToDoc[vectors.size()] = doc;
+            vectors.add(decodeVector(field, values.binaryValue()));
+        }
+        writeGraph(field, vectors, Arrays.copyOf(nodeToDoc, vectors.size()));
+    }
+
+    private float[] decodeVector(FieldInfo field, BytesRef bytes) {
+        if (bytes.length < dims * Float.BYTES) {
+            throw new IllegalArgumentException("field [" + field.name + "] has a vector of [" + bytes.length
+                + "] bytes, expected at least [" + dims * Float.BYTES + "] bytes for [" + dims + "] dimensions");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length);
+        final float[] vector = new float[dims];
+        for (int dim = 0; dim < dims; dim++) {
+            vector[dim] = buffer.getFloat();
+        }
+        return vector;
+    }
+
+    private void writeGraph(FieldInfo field, List<float[]> vectors, int[] nodeToDoc) throws IOException {
+        meta.writeInt(field.number);
+        meta.writeVInt(similarity.ordinal());
+        meta.writeVInt(dims);
+        meta.writeVInt(m);
+        meta.writeVInt(vectors.size());
+        if (vectors.isEmpty()) {
+            return;
+        }
+
+        final HnswGraphBuilder.OnHeapHnswGraph graph = new HnswGraphBuilder(similarity, m, efConstruction).build(vectors, nodeToDoc);
+        meta.writeVInt(graph.numLevels());
+        meta.writeVInt(graph.entryNode());
+
+        final long vectorsOffset = data.getFilePointer();
+        for (float[] vector : vectors) {
+            for (float value : vector) {
+                data.writeInt(Float.floatToIntBits(value));
+            }
+        }
+
+        final long docsOffset = data.getFilePointer();
+        for (int doc : nodeToDoc) {
+            data.writeInt(doc);
+        }
+
+        final long level0Offset = data.getFilePointer();
+        final int[] buffer = new int[graph.maxConnections()];
+        for (int node = 0; node < graph.size(); node++) {
+            final int numNeighbors = graph.neighbors(0, node, buffer);
+            data.writeInt(numNeighbors);
+            for (int i = 0; i < buffer.length; i++) {
+                data.writeInt(i < numNeighbors ? buffer[i] : -1);
+            }
+        }
+
+        final long upperLevelsOffset = data.getFilePointer();
+        for (int level = 1; level < graph.numLevels(); level++) {
+            final List<Integer> nodes = new ArrayList<>();
+            graph.nodesOnLevel(level).forEach(nodes::add);
+            nodes.sort(Integer::compare);
+            data.writeVInt(nodes.size());
+            for (int node : nodes) {
+                final int numNeighbors = graph.neighbors(level, node, buffer);
+                data.writeVInt(node);
+                data.writeVInt(numNeighbors);
+                for (int i = 0; i < numNeighbors; i++) {
+                    data.writeVInt(buffer[i]);
+                }
+            }
+        }
+
+        meta.writeLong(vectorsOffset);
+        meta.writeLong(docsOffset);
+        meta.writeLong(level0Offset);
+        meta.writeLong(upperLevelsOffset);
+        meta.writeLong(data.getFilePointer() - upperLevelsOffset);
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (meta != null) {
+                meta.writeInt(-1); // write EOF marker
+                CodecUtil.writeFooter(meta);
+            }
+            if (data != null) {
+                CodecUtil.writeFooter(data);
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(data, meta, delegate);
+            } else {
+                IOUtils.closeWhileHandlingException(data, meta, delegate);
+            }
+            meta = data = null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A {@link DocValuesFormat} for dense vectors that writes the binary doc values with the default format and
+ * builds an {@link HnswGraph} of the vectors of each field. The graph is built when a segment is flushed and
+ * rebuilt from the merged vectors when segments are merged. Searches can access the graph through
+ * {@link HnswBinaryDocValues}.
+ *
+ * The parameters of the graph are recorded in the segment so the instance that is loaded through SPI, with the
+ * no-arg constructor, can read any segment but cannot write new ones.
+ */
+public final class HnswDocValuesFormat extends DocValuesFormat {
+
+    public static final String NAME = "HnswDocValues";
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    static final String META_CODEC = "HnswDocValuesMeta";
+    static final String DATA_CODEC = "HnswDocValuesData";
+    static final String META_EXTENSION = "hnswm";
+    static final String DATA_EXTENSION = "hnswd";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private final DocValuesFormat delegate = new Lucene80DocValuesFormat();
+    private final VectorSimilarity similarity;
+    private final int dims;
+    private final int m;
+    private final int efConstruction;
+
+    /**
+     * Used by SPI to read segments.
+     */
+    public HnswDocValuesFormat() {
+        this(null, 0, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    public HnswDocValuesFormat(VectorSimilarity similarity, int dims, int m, int efConstruction) {
+        super(NAME);
+        this.similarity = similarity;
+        this.dims = dims;
+        this.m = m;
+        this.efConstruction = efConstruction;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        if (similarity == null) {
+            throw new UnsupportedOperationException("this instance of [" + NAME + "] can only be used to read segments");
+        }
+        return new HnswDocValuesConsumer(delegate.fieldsConsumer(state), state, similarity, dims, m, efConstruction);
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new HnswDocValuesProducer(delegate.fieldsProducer(state), state);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HnswDocValuesFormat that = (HnswDocValuesFormat) o;
+        return dims == that.dims &&
+            m == that.m &&
+            efConstruction == that.efConstruction &&
+            similarity == that.similarity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(similarity, dims, m, efConstruction);
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "(similarity=" + similarity + ", dims=" + dims + ", m=" + m + ", ef_construction=" + efConstruction + ")";
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the doc values with the delegate producer and exposes the {@link HnswGraph} of binary fields through
+ * {@link HnswBinaryDocValues}. The vectors and level 0 of the graph are read from the data file when searching,
+ * only the upper levels are loaded on heap.
+ */
+final class HnswDocValuesProducer extends DocValuesProducer {
+
+    private final DocValuesProducer delegate;
+    private final Map<String, FieldEntry> fields = new HashMap<>();
+    private final IndexInput data;
+
+    HnswDocValuesProducer(DocValuesProducer delegate, SegmentReadState state) throws IOException {
+        this.delegate = delegate;
+        boolean success = false;
+        try {
+            final String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+                HnswDocValuesFormat.META_EXTENSION);
+            int version = -1;
+            try (ChecksumIndexInput meta = state.directory.openChecksumInput(metaName, state.context)) {
+                Throwable priorE = null;
+                try {
+                    version = CodecUtil.checkIndexHeader(meta, HnswDocValuesFormat.META_CODEC, HnswDocValuesFormat.VERSION_START,
+                        HnswDocValuesFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                    readFields(meta, state.fieldInfos);
+                } catch (Throwable exception) {
+                    priorE = exception;
+                } finally {
+                    CodecUtil.checkFooter(meta, priorE);
+                }
+            }
+
+            final String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+                HnswDocValuesFormat.DATA_EXTENSION);
+            data = state.directory.openInput(dataName, state.context);
+            final int dataVersion = CodecUtil.checkIndexHeader(data, HnswDocValuesFormat.DATA_CODEC, HnswDocValuesFormat.VERSION_START,
+                HnswDocValuesFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            if (version != dataVersion) {
+                throw new CorruptIndexException("Format versions mismatch: meta=" + version + ", data=" + dataVersion, data);
+            }
+            // NOTE: data file is too costly to verify checksum against all the bytes on open,
+            // but for now we at least verify proper structure of the checksum footer: which looks
+            // for FOOTER_MAGIC + algorithmID. This is cheap and can detect some forms of corruption
+            // such as file truncation.
+            CodecUtil.retrieveChecksum(data);
+            for (FieldEntry entry : fields.values()) {
+                readUpperLevels(entry);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(this);
+            }
+        }
+    }
+
+    private void readFields(IndexInput meta, FieldInfos infos) throws IOException {
+        for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+            final FieldInfo info = infos.fieldInfo(fieldNumber);
+            if (info == null) {
+                throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+            }
+            final FieldEntry entry = new FieldEntry();
+            final int similarity = meta.readVInt();
+            if (similarity >= VectorSimilarity.values().length) {
+                throw new CorruptIndexException("Invalid similarity: " + similarity, meta);
+            }
+            entry.similarity = VectorSimilarity.values()[similarity];
+            entry.dims = meta.readVInt();
+            entry.maxConnections = 2 * meta.readVInt();
+            entry.size = meta.readVInt();
+            if (entry.size > 0) {
+                entry.numLevels = meta.readVInt();
+                entry.entryNode = meta.readVInt();
+                entry.vectorsOffset = meta.readLong();
+                entry.docsOffset = meta.readLong();
+                entry.level0Offset = meta.readLong();
+                entry.upperLevelsOffset = meta.readLong();
+                entry.upperLevelsLength = meta.readLong();
+            }
+            fields.put(info.name, entry);
+        }
+    }
+
+    private void readUpperLevels(FieldEntry entry) throws IOException {
+        entry.upperLevelNodes = new int[Math.max(0, entry.numLevels - 1)][];
+        entry.upperLevelNeighbors = new int[entry.upperLevelNodes.length][][];
+        if (entry.upperLevelNodes.length == 0) {
+            return;
+        }
+        final IndexInput in = data.slice("upper_levels", entry.upperLevelsOffset, entry.upperLevelsLength);
+        for (int level = 0; level < entry.upperLevelNodes.length; level++) {
+            final int numNodes = in.readVInt();
+            final int[] nodes = new int[numNodes];
+            final int[][] neighbors = new int[numNodes][];
+            for (int i = 0; i < numNodes; i++) {
+                nodes[i] = in.readVInt();
+                neighbors[i] = new int[in.readVInt()];
+                for (int j = 0; j < neighbors[i].length; j++) {
+                    neighbors[i][j] = in.readVInt();
+                }
+            }
+            entry.upperLevelNodes[level] = nodes;
+            entry.upperLevelNeighbors[level] = neighbors;
+        }
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        return delegate.getNumeric(field);
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        final BinaryDocValues values = delegate.getBinary(field);
+        final FieldEntry entry = fields.get(field.name);
+        if (entry == null || entry.size == 0) {
+            return values;
+        }
+        return new HnswBinaryDocValues(values, entry.dims, () -> new OffHeapHnswGraph(entry, data));
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        return delegate.getSortedNumeric(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        delegate.checkIntegrity();
+        CodecUtil.checksumEntireFile(data);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = delegate.ramBytesUsed();
+        for (FieldEntry entry : fields.values()) {
+            ramBytesUsed += RamUsageEstimator.shallowSizeOf(entry.upperLevelNodes);
+            for (int level = 0; level < entry.upperLevelNodes.length; level++) {
+                ramBytesUsed += RamUsageEstimator.sizeOf(entry.upperLevelNodes[level]);
+                for (int[] neighbors : entry.upperLevelNeighbors[level]) {
+                    ramBytesUsed += RamUsageEstimator.sizeOf(neighbors);
+                }
+            }
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(data, delegate);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(fields=" + fields.size() + ",delegate=" + delegate + ")";
+    }
+
+    private static final class FieldEntry {
+        VectorSimilarity similarity;
+        int dims;
+        int maxConnections;
+        int size;
+        int numLevels;
+        int entryNode;
+        long vectorsOffset;
+        long docsOffset;
+        long level0Offset;
+        long upperLevelsOffset;
+        long upperLevelsLength;
+        int[][] upperLevelNodes;
+        int[][][] upperLevelNeighbors;
+    }
+
+    /**
+     * A graph that reads the vectors and level 0 from the data file. Each instance uses its own slices of the
+     * data file so that concurrent searches don't share any state.
+     */
+    private static final class OffHeapHnswGraph extends HnswGraph {
+        private final FieldEntry entry;
+        private final RandomAccessInput vectors;
+        private final RandomAccessInput docs;
+        private final RandomAccessInput level0;
+        private final float[] vector;
+
+        OffHeapHnswGraph(FieldEntry entry, IndexInput data) throws IOException {
+            super(entry.similarity);
+            this.entry = entry;
+            this.vectors = data.randomAccessSlice(entry.vectorsOffset, (long) entry.size * entry.dims * Integer.BYTES);
+            this.docs = data.randomAccessSlice(entry.docsOffset, (long) entry.size * Integer.BYTES);
+            this.level0 = data.randomAccessSlice(entry.level0Offset, (long) entry.size * (1 + entry.maxConnections) * Integer.BYTES);
+            this.vector = new float[entry.dims];
+        }
+
+        @Override
+        int size() {
+            return entry.size;
+        }
+
+        @Override
+        int numLevels() {
+            return entry.numLevels;
+        }
+
+        @Override
+        int entryNode() {
+            return entry.entryNode;
+        }
+
+        @Override
+        int neighbors(int level, int node, int[] buffer) throws IOException {
+            if (level == 0) {
+                final long offset = (long) node * (1 + entry.maxConnections) * Integer.BYTES;
+                final int numNeighbors = level0.readInt(offset);
+                for (int i = 0; i < numNeighbors; i++) {
+                    buffer[i] = level0.readInt(offset + (long) (i + 1) * Integer.BYTES);
+                }
+                return numNeighbors;
+            }
+            final int index = Arrays.binarySearch(entry.upperLevelNodes[level - 1], node);
+            assert index >= 0 : "node [" + node + "] is not on level [" + level + "]";
+            final int[] neighbors = entry.upperLevelNeighbors[level - 1][index];
+            System.arraycopy(neighbors, 0, buffer, 0, neighbors.length);
+            return neighbors.length;
+        }
+
+        @Override
+        float[] vector(int node) throws IOException {
+            final long offset = (long) node * entry.dims * Integer.BYTES;
+            for (int dim = 0; dim < vector.length; dim++) {
+                vector[dim] = Float.intBitsToFloat(vectors.readInt(offset + (long) dim * Integer.BYTES));
+            }
+            return vector;
+        }
+
+        @Override
+        int nodeToDoc(int node) throws IOException {
+            return docs.readInt((long) node * Integer.BYTES);
+        }
+
+        @Override
+        int maxConnections() {
+            return entry.maxConnections;
+        }
+    }
+}
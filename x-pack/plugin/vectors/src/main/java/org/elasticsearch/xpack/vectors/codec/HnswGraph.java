@@ -0,0 +1,132 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+
+import java.io.IOException;
+
+/**
+ * A Hierarchical Navigable Small World graph over the vectors of a segment. Nodes are identified by their
+ * ordinal, in doc id order, and every level of the graph links each node to its most similar neighbours.
+ * Level 0 contains all the nodes and each upper level contains a random subset of the level below.
+ * A search goes greedily down the upper levels to find a good entry point and then runs a best-first
+ * search on level 0.
+ *
+ * This class is not thread-safe, implementations may reuse buffers between calls.
+ */
+abstract class HnswGraph {
+
+    protected final VectorSimilarity similarity;
+
+    HnswGraph(VectorSimilarity similarity) {
+        this.similarity = similarity;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     */
+    abstract int size();
+
+    /**
+     * Returns the number of levels in the graph.
+     */
+    abstract int numLevels();
+
+    /**
+     * Returns the node that is used as an entry point on the top level.
+     */
+    abstract int entryNode();
+
+    /**
+     * Copies the neighbours of the node on the provided level in <code>buffer</code> and returns their number.
+     */
+    abstract int neighbors(int level, int node, int[] buffer) throws IOException;
+
+    /**
+     * Returns the vector of the node. The returned array may be reused by the next call.
+     */
+    abstract float[] vector(int node) throws IOException;
+
+    /**
+     * Returns the document that contains the vector of the node.
+     */
+    abstract int nodeToDoc(int node) throws IOException;
+
+    /**
+     * Returns the maximum number of neighbours that a node can have.
+     */
+    abstract int maxConnections();
+
+    /**
+     * Returns at most <code>numCandidates</code> nodes that are the most similar to the query vector.
+     * Only the nodes whose document is accepted by <code>acceptDocs</code> are returned but the other
+     * nodes are still traversed.
+     */
+    NeighborQueue search(float[] query, int numCandidates, Bits acceptDocs) throws IOException {
+        final int[] buffer = new int[maxConnections()];
+        int entryNode = entryNode();
+        float entryScore = similarity.compare(query, vector(entryNode));
+        for (int level = numLevels() - 1; level > 0; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                final int numNeighbors = neighbors(level, entryNode, buffer);
+                for (int i = 0; i < numNeighbors; i++) {
+                    final float score = similarity.compare(query, vector(buffer[i]));
+                    if (score > entryScore) {
+                        entryNode = buffer[i];
+                        entryScore = score;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return searchLevel(query, entryNode, entryScore, numCandidates, 0, acceptDocs, buffer);
+    }
+
+    /**
+     * Runs a best-first search on a single level of the graph starting from the entry node and returns
+     * at most <code>ef</code> accepted nodes, the top of the returned queue is the least similar node.
+     */
+    NeighborQueue searchLevel(float[] query, int entryNode, float entryScore, int ef, int level,
+                              Bits acceptDocs, int[] buffer) throws IOException {
+        final SparseFixedBitSet visited = new SparseFixedBitSet(size());
+        final NeighborQueue candidates = new NeighborQueue(ef, true);
+        final NeighborQueue results = new NeighborQueue(ef, false);
+        visited.set(entryNode);
+        candidates.add(entryNode, entryScore);
+        if (acceptDocs == null || acceptDocs.get(nodeToDoc(entryNode))) {
+            results.add(entryNode, entryScore);
+        }
+        while (candidates.size() > 0) {
+            if (results.size() >= ef && candidates.topScore() < results.topScore()) {
+                // the remaining candidates cannot improve the results
+                break;
+            }
+            final int candidate = candidates.pop();
+            final int numNeighbors = neighbors(level, candidate, buffer);
+            for (int i = 0; i < numNeighbors; i++) {
+                final int neighbor = buffer[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                final float score = similarity.compare(query, vector(neighbor));
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.add(neighbor, score);
+                    if (acceptDocs == null || acceptDocs.get(nodeToDoc(neighbor))) {
+                        results.insertWithOverflow(neighbor, score, ef);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+}
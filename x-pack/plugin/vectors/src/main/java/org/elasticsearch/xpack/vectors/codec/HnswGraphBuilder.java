@@ -0,0 +1,220 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds an {@link HnswGraph} on heap by inserting the vectors one after the other. The level of each node
+ * is drawn from an exponentially decaying distribution so that each level contains about <code>1/m</code>
+ * of the nodes of the level below. Nodes keep at most <code>m</code> neighbours on the upper levels and
+ * <code>2*m</code> on level 0, the least similar neighbour is dropped when a new link exceeds this limit.
+ */
+final class HnswGraphBuilder {
+
+    // a fixed seed so that the same vectors always produce the same graph
+    private static final long SEED = 42L;
+
+    private final VectorSimilarity similarity;
+    private final int maxConnections;
+    private final int maxConnectionsOnLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(SEED);
+
+    HnswGraphBuilder(VectorSimilarity similarity, int m, int efConstruction) {
+        if (m <= 1) {
+            throw new IllegalArgumentException("[m] must be greater than 1, got [" + m + "]");
+        }
+        if (efConstruction <= 0) {
+            throw new IllegalArgumentException("[ef_construction] must be greater than 0, got [" + efConstruction + "]");
+        }
+        this.similarity = similarity;
+        this.maxConnections = m;
+        this.maxConnectionsOnLevel0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    OnHeapHnswGraph build(List<float[]> vectors, int[] nodeToDoc) throws IOException {
+        final OnHeapHnswGraph graph = new OnHeapHnswGraph(similarity, vectors, nodeToDoc, maxConnectionsOnLevel0);
+        final int[] buffer = new int[maxConnectionsOnLevel0];
+        for (int node = 0; node < vectors.size(); node++) {
+            insert(graph, node, buffer);
+        }
+        return graph;
+    }
+
+    private void insert(OnHeapHnswGraph graph, int node, int[] buffer) throws IOException {
+        final int nodeLevel = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        graph.addNode(node, nodeLevel, maxConnections);
+        if (node == 0) {
+            graph.entryNode = node;
+            graph.numLevels = nodeLevel + 1;
+            return;
+        }
+        final float[] vector = graph.vector(node);
+        int entryNode = graph.entryNode;
+        float entryScore = similarity.compare(vector, graph.vector(entryNode));
+        for (int level = graph.numLevels - 1; level > nodeLevel; level--) {
+            final NeighborQueue closest = graph.searchLevel(vector, entryNode, entryScore, 1, level, null, buffer);
+            entryScore = closest.topScore();
+            entryNode = closest.topNode();
+        }
+        for (int level = Math.min(nodeLevel, graph.numLevels - 1); level >= 0; level--) {
+            final NeighborQueue candidates = graph.searchLevel(vector, entryNode, entryScore, efConstruction, level, null, buffer);
+            final int maxConn = level == 0 ? maxConnectionsOnLevel0 : maxConnections;
+            while (candidates.size() > maxConn) {
+                candidates.pop();
+            }
+            // the last popped candidate is the most similar, it becomes the entry point of the next level
+            while (candidates.size() > 0) {
+                entryScore = candidates.topScore();
+                entryNode = candidates.pop();
+                graph.connect(level, node, entryNode, entryScore, maxConn);
+            }
+        }
+        if (nodeLevel >= graph.numLevels) {
+            graph.entryNode = node;
+            graph.numLevels = nodeLevel + 1;
+        }
+    }
+
+    /**
+     * The neighbours of a node along with their scores.
+     */
+    static final class Neighbors {
+        int[] nodes;
+        float[] scores;
+        int size;
+
+        Neighbors(int initialSize) {
+            nodes = new int[initialSize];
+            scores = new float[initialSize];
+        }
+
+        void add(int node, float score) {
+            if (size == nodes.length) {
+                nodes = ArrayUtil.grow(nodes, size + 1);
+                scores = ArrayUtil.growExact(scores, nodes.length);
+            }
+            nodes[size] = node;
+            scores[size] = score;
+            size++;
+        }
+
+        void removeLeastSimilar() {
+            int min = 0;
+            for (int i = 1; i < size; i++) {
+                if (scores[i] < scores[min]) {
+                    min = i;
+                }
+            }
+            size--;
+            nodes[min] = nodes[size];
+            scores[min] = scores[size];
+        }
+    }
+
+    /**
+     * A graph that is held on heap while it is built.
+     */
+    static final class OnHeapHnswGraph extends HnswGraph {
+        private final List<float[]> vectors;
+        private final int[] nodeToDoc;
+        private final int maxConnectionsOnLevel0;
+        private final Neighbors[] level0;
+        // the upper levels only contain a fraction of the nodes
+        private final List<Map<Integer, Neighbors>> upperLevels = new ArrayList<>();
+        int entryNode;
+        int numLevels;
+
+        OnHeapHnswGraph(VectorSimilarity similarity, List<float[]> vectors, int[] nodeToDoc, int maxConnectionsOnLevel0) {
+            super(similarity);
+            this.vectors = vectors;
+            this.nodeToDoc = nodeToDoc;
+            this.maxConnectionsOnLevel0 = maxConnectionsOnLevel0;
+            this.level0 = new Neighbors[vectors.size()];
+        }
+
+        void addNode(int node, int nodeLevel, int maxConnections) {
+            level0[node] = new Neighbors(maxConnectionsOnLevel0 + 1);
+            for (int level = 1; level <= nodeLevel; level++) {
+                while (upperLevels.size() < level) {
+                    upperLevels.add(new HashMap<>());
+                }
+                upperLevels.get(level - 1).put(node, new Neighbors(maxConnections + 1));
+            }
+        }
+
+        void connect(int level, int node, int neighbor, float score, int maxConn) {
+            getNeighbors(level, node).add(neighbor, score);
+            final Neighbors reverse = getNeighbors(level, neighbor);
+            reverse.add(node, score);
+            if (reverse.size > maxConn) {
+                reverse.removeLeastSimilar();
+            }
+        }
+
+        Neighbors getNeighbors(int level, int node) {
+            return level == 0 ? level0[node] : upperLevels.get(level - 1).get(node);
+        }
+
+        /**
+         * Returns the nodes of an upper level, in no particular order.
+         */
+        Iterable<Integer> nodesOnLevel(int level) {
+            assert level > 0;
+            return upperLevels.get(level - 1).keySet();
+        }
+
+        @Override
+        int size() {
+            return vectors.size();
+        }
+
+        @Override
+        int numLevels() {
+            return numLevels;
+        }
+
+        @Override
+        int entryNode() {
+            return entryNode;
+        }
+
+        @Override
+        int neighbors(int level, int node, int[] buffer) {
+            final Neighbors neighbors = getNeighbors(level, node);
+            System.arraycopy(neighbors.nodes, 0, buffer, 0, neighbors.size);
+            return neighbors.size;
+        }
+
+        @Override
+        float[] vector(int node) {
+            return vectors.get(node);
+        }
+
+        @Override
+        int nodeToDoc(int node) {
+            return nodeToDoc[node];
+        }
+
+        @Override
+        int maxConnections() {
+            return maxConnectionsOnLevel0;
+        }
+    }
+}
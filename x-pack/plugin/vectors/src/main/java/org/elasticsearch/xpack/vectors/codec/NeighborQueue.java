@@ -0,0 +1,115 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A binary heap of graph nodes ordered by their score. The node and its score are packed in a single long
+ * so that the heap doesn't need to allocate an object per entry. The top of the heap is the node with the
+ * lowest score, or the node with the highest score if the queue is created with <code>maxHeap</code> set.
+ */
+final class NeighborQueue {
+
+    private final boolean maxHeap;
+    private long[] heap;
+    private int size;
+
+    NeighborQueue(int initialSize, boolean maxHeap) {
+        this.maxHeap = maxHeap;
+        this.heap = new long[Math.max(1, initialSize)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(int node, float score) {
+        if (size == heap.length) {
+            heap = ArrayUtil.grow(heap, size + 1);
+        }
+        heap[size] = encode(node, score);
+        upHeap(size++);
+    }
+
+    /**
+     * Adds the node if the queue holds less than <code>maxSize</code> nodes or if its score is higher
+     * than the score of the top of the queue, which is then evicted. Only meaningful for min heaps.
+     */
+    void insertWithOverflow(int node, float score, int maxSize) {
+        assert maxHeap == false;
+        if (size < maxSize) {
+            add(node, score);
+        } else if (score > topScore()) {
+            heap[0] = encode(node, score);
+            downHeap(0);
+        }
+    }
+
+    int topNode() {
+        return (int) decode(heap[0]);
+    }
+
+    float topScore() {
+        return NumericUtils.sortableIntToFloat((int) (decode(heap[0]) >> 32));
+    }
+
+    /**
+     * Removes the top of the queue and returns its node.
+     */
+    int pop() {
+        assert size > 0;
+        final int node = topNode();
+        heap[0] = heap[--size];
+        if (size > 0) {
+            downHeap(0);
+        }
+        return node;
+    }
+
+    private long encode(int node, float score) {
+        final long value = ((long) NumericUtils.floatToSortableInt(score)) << 32 | (node & 0xFFFFFFFFL);
+        return maxHeap ? -value : value;
+    }
+
+    private long decode(long value) {
+        return maxHeap ? -value : value;
+    }
+
+    private void upHeap(int i) {
+        final long value = heap[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private void downHeap(int i) {
+        final long value = heap[i];
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+}
@@ -7,6 +7,7 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
@@ -27,13 +28,16 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.ParseContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
 import org.elasticsearch.xpack.vectors.query.VectorDVIndexFieldData;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
 
@@ -60,6 +64,10 @@ public class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMap
 
     public static class Builder extends FieldMapper.Builder<Builder, DenseVectorFieldMapper> {
         private int dims = 0;
+        private boolean indexed = false;
+        private VectorSimilarity similarity;
+        private int m = HnswDocValuesFormat.DEFAULT_M;
+        private int efConstruction = HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION;
 
         public Builder(String name) {
             super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
@@ -75,10 +83,34 @@ public class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMap
             return this;
         }
 
+        public Builder index(boolean indexed) {
+            this.indexed = indexed;
+            return this;
+        }
+
+        public Builder similarity(VectorSimilarity similarity) {
+            this.similarity = similarity;
+            return this;
+        }
+
+        public Builder indexOptions(int m, int efConstruction) {
+            if (m < 2) {
+                throw new MapperParsingException("[m] must be greater than 1 for field [" + name + "], got [" + m + "]");
+            }
+            if (efConstruction < 1) {
+                throw new MapperParsingException("[ef_construction] must be greater than 0 for field [" + name
+                    + "], got [" + efConstruction + "]");
+            }
+            this.m = m;
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
         @Override
         protected void setupFieldType(BuilderContext context) {
             super.setupFieldType(context);
             fieldType().setDims(dims);
+            fieldType().setVectorIndex(indexed, similarity, m, efConstruction);
         }
 
         @Override
@@ -104,24 +136,69 @@ public class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMap
                 throw new MapperParsingException("The [dims] property must be specified for field [" + name + "].");
             }
             int dims = XContentMapValues.nodeIntegerValue(dimsField);
-            return builder.dims(dims);
+            builder.dims(dims);
+
+            Object indexField = node.remove("index");
+            Object similarityField = node.remove("similarity");
+            Object indexOptionsField = node.remove("index_options");
+            boolean indexed = indexField != null && XContentMapValues.nodeBooleanValue(indexField, name + ".index");
+            if (indexed == false) {
+                if (similarityField != null || indexOptionsField != null) {
+                    throw new MapperParsingException("The [similarity] and [index_options] properties of field [" + name
+                        + "] can only be set when [index] is true.");
+                }
+                return builder;
+            }
+            if (parserContext.indexVersionCreated().before(Version.V_8_0_0)) {
+                throw new MapperParsingException("Indexing the vectors of field [" + name
+                    + "] is not supported for indices created before version [" + Version.V_8_0_0 + "].");
+            }
+            if (similarityField == null) {
+                throw new MapperParsingException("The [similarity] property must be specified for field [" + name
+                    + "] when [index] is true.");
+            }
+            try {
+                builder.index(true).similarity(VectorSimilarity.fromString(similarityField.toString()));
+            } catch (IllegalArgumentException e) {
+                throw new MapperParsingException("Failed to parse [similarity] of field [" + name + "]", e);
+            }
+            if (indexOptionsField != null) {
+                Map<String, Object> indexOptions = new HashMap<>(XContentMapValues.nodeMapValue(indexOptionsField, "index_options"));
+                int m = XContentMapValues.nodeIntegerValue(indexOptions.remove("m"), HnswDocValuesFormat.DEFAULT_M);
+                int efConstruction = XContentMapValues.nodeIntegerValue(indexOptions.remove("ef_construction"),
+                    HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION);
+                if (indexOptions.isEmpty() == false) {
+                    throw new MapperParsingException("Unknown [index_options] " + indexOptions.keySet() + " for field [" + name + "]");
+                }
+                builder.indexOptions(m, efConstruction);
+            }
+            return builder;
         }
     }
 
     public static final class DenseVectorFieldType extends MappedFieldType {
         private int dims;
+        private boolean indexed;
+        private VectorSimilarity similarity;
+        private int m = HnswDocValuesFormat.DEFAULT_M;
+        private int efConstruction = HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION;
 
         public DenseVectorFieldType() {}
 
         protected DenseVectorFieldType(DenseVectorFieldType ref) {
             super(ref);
+            this.dims = ref.dims;
+            this.indexed = ref.indexed;
+            this.similarity = ref.similarity;
+            this.m = ref.m;
+            this.efConstruction = ref.efConstruction;
         }
 
         public DenseVectorFieldType clone() {
             return new DenseVectorFieldType(this);
         }
 
-        int dims() {
+        public int dims() {
             return dims;
         }
 
@@ -129,6 +206,80 @@ public class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMap
             this.dims = dims;
         }
 
+        void setVectorIndex(boolean indexed, VectorSimilarity similarity, int m, int efConstruction) {
+            checkIfFrozen();
+            this.indexed = indexed;
+            this.similarity = similarity;
+            this.m = m;
+            this.efConstruction = efConstruction;
+        }
+
+        /**
+         * Returns <code>true</code> if the vectors are indexed in a graph for nearest neighbour search.
+         */
+        public boolean isVectorIndexed() {
+            return indexed;
+        }
+
+        /**
+         * Returns the similarity used to compare indexed vectors, or <code>null</code> if the vectors are not indexed.
+         */
+        public VectorSimilarity vectorSimilarity() {
+            return similarity;
+        }
+
+        int m() {
+            return m;
+        }
+
+        int efConstruction() {
+            return efConstruction;
+        }
+
+        @Override
+        public DocValuesFormat docValuesFormat() {
+            if (indexed == false) {
+                return null;
+            }
+            return new HnswDocValuesFormat(similarity, dims, m, efConstruction);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            if (super.equals(o) == false) return false;
+            DenseVectorFieldType that = (DenseVectorFieldType) o;
+            return dims == that.dims &&
+                indexed == that.indexed &&
+                similarity == that.similarity &&
+                m == that.m &&
+                efConstruction == that.efConstruction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(super.hashCode(), dims, indexed, similarity, m, efConstruction);
+        }
+
+        @Override
+        public void checkCompatibility(MappedFieldType fieldType, List<String> conflicts) {
+            super.checkCompatibility(fieldType, conflicts);
+            DenseVectorFieldType other = (DenseVectorFieldType) fieldType;
+            if (dims != other.dims) {
+                conflicts.add("mapper [" + name() + "] has different [dims] values");
+            }
+            if (indexed != other.indexed) {
+                conflicts.add("mapper [" + name() + "] has different [index] values");
+            }
+            if (similarity != other.similarity) {
+                conflicts.add("mapper [" + name() + "] has different [similarity] values");
+            }
+            if (m != other.m || efConstruction != other.efConstruction) {
+                conflicts.add("mapper [" + name() + "] has different [index_options] values");
+            }
+        }
+
         @Override
         public String typeName() {
             return CONTENT_TYPE;
@@ -220,8 +371,22 @@ public class DenseVectorFieldMapper extends FieldMapper implements ArrayValueMap
 
     @Override
     protected void doXContentBody(XContentBuilder builder, boolean includeDefaults, Params params) throws IOException {
-        super.doXContentBody(builder, includeDefaults, params);
+        // the parent implementation is not called since [index] and [similarity] have a different meaning for vectors
+        builder.field("type", contentType());
         builder.field("dims", fieldType().dims());
+        if (includeDefaults || fieldType().isVectorIndexed()) {
+            builder.field("index", fieldType().isVectorIndexed());
+        }
+        if (fieldType().isVectorIndexed()) {
+            builder.field("similarity", fieldType().vectorSimilarity().toString());
+            if (includeDefaults || fieldType().m() != HnswDocValuesFormat.DEFAULT_M
+                    || fieldType().efConstruction() != HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION) {
+                builder.startObject("index_options");
+                builder.field("m", fieldType().m());
+                builder.field("ef_construction", fieldType().efConstruction());
+                builder.endObject();
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,78 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.mapper;
+
+import java.util.Locale;
+
+/**
+ * The similarity functions that can be used to compare the vectors of an indexed <code>dense_vector</code> field.
+ * Each function returns a positive score that is higher for vectors that are more similar.
+ */
+public enum VectorSimilarity {
+    L2_NORM {
+        @Override
+        public float compare(float[] v1, float[] v2) {
+            float squareSum = 0;
+            for (int i = 0; i < v1.length; i++) {
+                final float diff = v1[i] - v2[i];
+                squareSum += diff * diff;
+            }
+            return 1 / (1 + squareSum);
+        }
+    },
+    DOT_PRODUCT {
+        @Override
+        public float compare(float[] v1, float[] v2) {
+            // the dot product of unit vectors is in [-1, 1], negative scores are not allowed
+            return Math.max((1 + dotProduct(v1, v2)) / 2, 0);
+        }
+    },
+    COSINE {
+        @Override
+        public float compare(float[] v1, float[] v2) {
+            float dotProduct = 0;
+            float norm1 = 0;
+            float norm2 = 0;
+            for (int i = 0; i < v1.length; i++) {
+                dotProduct += v1[i] * v2[i];
+                norm1 += v1[i] * v1[i];
+                norm2 += v2[i] * v2[i];
+            }
+            if (norm1 == 0 || norm2 == 0) {
+                return 0;
+            }
+            return (1 + dotProduct / (float) Math.sqrt((double) norm1 * norm2)) / 2;
+        }
+    };
+
+    /**
+     * Returns the similarity of the two vectors, they must have the same number of dimensions.
+     */
+    public abstract float compare(float[] v1, float[] v2);
+
+    private static float dotProduct(float[] v1, float[] v2) {
+        float dotProduct = 0;
+        for (int i = 0; i < v1.length; i++) {
+            dotProduct += v1[i] * v2[i];
+        }
+        return dotProduct;
+    }
+
+    public static VectorSimilarity fromString(String value) {
+        for (VectorSimilarity similarity : values()) {
+            if (similarity.toString().equals(value)) {
+                return similarity;
+            }
+        }
+        throw new IllegalArgumentException("unknown vector similarity [" + value + "], must be one of [l2_norm, dot_product, cosine]");
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
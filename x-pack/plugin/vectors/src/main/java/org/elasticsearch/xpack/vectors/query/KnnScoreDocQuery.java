@@ -0,0 +1,188 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * The result of the rewrite of a {@link KnnVectorQuery}: matches a fixed set of documents of the reader that was used
+ * to rewrite the query, with the score that they got during the nearest neighbour search.
+ */
+final class KnnScoreDocQuery extends Query {
+
+    private final int[] docs;
+    private final float[] scores;
+    // the query can only be executed against the reader that was used to find the documents
+    private final Object readerIdentity;
+
+    KnnScoreDocQuery(ScoreDoc[] scoreDocs, IndexReader reader) {
+        final ScoreDoc[] sorted = scoreDocs.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+        this.docs = new int[sorted.length];
+        this.scores = new float[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            docs[i] = sorted[i].doc;
+            scores[i] = sorted[i].score;
+        }
+        this.readerIdentity = reader.getContext();
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        if (searcher.getIndexReader().getContext() != readerIdentity) {
+            throw new IllegalStateException("[" + getClass().getSimpleName()
+                + "] must be executed against the reader that was used to rewrite the query");
+        }
+        return new Weight(this) {
+            @Override
+            public void extractTerms(Set<Term> terms) {
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) {
+                final int index = Arrays.binarySearch(docs, context.docBase + doc);
+                if (index < 0) {
+                    return Explanation.noMatch("not in the nearest neighbours");
+                }
+                return Explanation.match(scores[index] * boost, "within the nearest neighbours, vector similarity [" + scores[index]
+                    + "] times boost [" + boost + "]");
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) {
+                final int lower = lowerBound(context.docBase);
+                final int upper = lowerBound(context.docBase + context.reader().maxDoc());
+                if (lower == upper) {
+                    return null;
+                }
+                return new ScoreDocScorer(this, context.docBase, lower, upper, boost);
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the index of the first document that is greater than or equal to <code>doc</code>.
+     */
+    private int lowerBound(int doc) {
+        final int index = Arrays.binarySearch(docs, doc);
+        return index >= 0 ? index : -1 - index;
+    }
+
+    private final class ScoreDocScorer extends Scorer {
+        private final int docBase;
+        private final int lower;
+        private final int upper;
+        private final float boost;
+        private int index;
+
+        ScoreDocScorer(Weight weight, int docBase, int lower, int upper, float boost) {
+            super(weight);
+            this.docBase = docBase;
+            this.lower = lower;
+            this.upper = upper;
+            this.boost = boost;
+            this.index = lower - 1;
+        }
+
+        @Override
+        public int docID() {
+            if (index < lower) {
+                return -1;
+            }
+            return index >= upper ? DocIdSetIterator.NO_MORE_DOCS : docs[index] - docBase;
+        }
+
+        @Override
+        public float score() {
+            return scores[index] * boost;
+        }
+
+        @Override
+        public float getMaxScore(int upTo) {
+            float maxScore = 0;
+            for (int i = Math.max(lower, index); i < upper && docs[i] - docBase <= upTo; i++) {
+                maxScore = Math.max(maxScore, scores[i] * boost);
+            }
+            return maxScore;
+        }
+
+        @Override
+        public DocIdSetIterator iterator() {
+            return new DocIdSetIterator() {
+                @Override
+                public int docID() {
+                    return ScoreDocScorer.this.docID();
+                }
+
+                @Override
+                public int nextDoc() {
+                    if (index < upper) {
+                        index++;
+                    }
+                    return docID();
+                }
+
+                @Override
+                public int advance(int target) throws IOException {
+                    return slowAdvance(target);
+                }
+
+                @Override
+                public long cost() {
+                    return upper - lower;
+                }
+            };
+        }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+        return getClass().getSimpleName() + Arrays.toString(docs);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (sameClassAs(o) == false) {
+            return false;
+        }
+        KnnScoreDocQuery other = (KnnScoreDocQuery) o;
+        return readerIdentity == other.readerIdentity &&
+            Arrays.equals(docs, other.docs) &&
+            Arrays.equals(scores, other.scores);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * classHash() + 31 * Arrays.hashCode(docs) + Arrays.hashCode(scores);
+    }
+}
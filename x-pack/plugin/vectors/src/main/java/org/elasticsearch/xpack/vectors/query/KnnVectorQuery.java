@@ -0,0 +1,203 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.xpack.vectors.codec.HnswBinaryDocValues;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A query that matches the <code>k</code> documents whose vector is the most similar to a query vector. Segments that
+ * have an HNSW graph for the field are searched approximately, the other segments are searched exhaustively. The
+ * query is rewritten into a query on the top documents of the reader, scored by their similarity.
+ */
+public class KnnVectorQuery extends Query {
+
+    private static final TopDocs NO_RESULTS = new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+
+    private final String field;
+    private final float[] queryVector;
+    private final VectorSimilarity similarity;
+    private final int k;
+    private final int numCandidates;
+    private final Query filter;
+
+    /**
+     * @param field the dense vector field to search
+     * @param queryVector the vector to find the nearest neighbours of
+     * @param similarity the similarity function used to compare vectors
+     * @param k the number of documents to return
+     * @param numCandidates the number of candidates to collect per segment before keeping the top <code>k</code>
+     * @param filter restricts the documents that can be returned, if not null
+     */
+    public KnnVectorQuery(String field, float[] queryVector, VectorSimilarity similarity, int k, int numCandidates,
+                          @Nullable Query filter) {
+        this.field = Objects.requireNonNull(field);
+        this.queryVector = Objects.requireNonNull(queryVector);
+        this.similarity = Objects.requireNonNull(similarity);
+        this.k = k;
+        this.numCandidates = numCandidates;
+        this.filter = filter;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        final Weight filterWeight;
+        if (filter != null) {
+            final IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setQueryCache(null);
+            filterWeight = searcher.createWeight(searcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        } else {
+            filterWeight = null;
+        }
+        final TopDocs[] perLeafResults = new TopDocs[reader.leaves().size()];
+        for (LeafReaderContext context : reader.leaves()) {
+            final TopDocs results = searchLeaf(context, filterWeight);
+            for (ScoreDoc scoreDoc : results.scoreDocs) {
+                scoreDoc.doc += context.docBase;
+            }
+            perLeafResults[context.ord] = results;
+        }
+        return new KnnScoreDocQuery(TopDocs.merge(k, perLeafResults).scoreDocs, reader);
+    }
+
+    private TopDocs searchLeaf(LeafReaderContext context, Weight filterWeight) throws IOException {
+        final BinaryDocValues values = context.reader().getBinaryDocValues(field);
+        if (values == null) {
+            return NO_RESULTS;
+        }
+        final Bits liveDocs = context.reader().getLiveDocs();
+        final Bits acceptDocs;
+        if (filterWeight != null) {
+            final Scorer scorer = filterWeight.scorer(context);
+            if (scorer == null) {
+                return NO_RESULTS;
+            }
+            final FixedBitSet bits = new FixedBitSet(context.reader().maxDoc());
+            final DocIdSetIterator iterator = scorer.iterator();
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                if (liveDocs == null || liveDocs.get(doc)) {
+                    bits.set(doc);
+                }
+            }
+            acceptDocs = bits;
+        } else {
+            acceptDocs = liveDocs;
+        }
+        if (values instanceof HnswBinaryDocValues) {
+            return ((HnswBinaryDocValues) values).search(queryVector, k, numCandidates, acceptDocs);
+        }
+        return exactSearch(values, acceptDocs);
+    }
+
+    /**
+     * Compares the query vector with the vector of every document, used for segments that don't have a graph.
+     */
+    private TopDocs exactSearch(BinaryDocValues values, Bits acceptDocs) throws IOException {
+        final PriorityQueue<ScoreDoc> queue = new PriorityQueue<ScoreDoc>(k) {
+            @Override
+            protected boolean lessThan(ScoreDoc a, ScoreDoc b) {
+                return a.score < b.score || (a.score == b.score && a.doc > b.doc);
+            }
+        };
+        final float[] vector = new float[queryVector.length];
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (acceptDocs != null && acceptDocs.get(doc) == false) {
+                continue;
+            }
+            final BytesRef bytes = values.binaryValue();
+            if (bytes.length < vector.length * Float.BYTES) {
+                throw new IllegalArgumentException("the query vector has [" + queryVector.length
+                    + "] dimensions but the indexed vectors of field [" + field + "] have less dimensions");
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length);
+            for (int dim = 0; dim < vector.length; dim++) {
+                vector[dim] = buffer.getFloat();
+            }
+            queue.insertWithOverflow(new ScoreDoc(doc, similarity.compare(queryVector, vector)));
+        }
+        final ScoreDoc[] scoreDocs = new ScoreDoc[queue.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            scoreDocs[i] = queue.pop();
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public float[] getQueryVector() {
+        return queryVector;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getNumCandidates() {
+        return numCandidates;
+    }
+
+    public Query getFilter() {
+        return filter;
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        return getClass().getSimpleName() + "[" + this.field + "]" + Arrays.toString(queryVector) + "[" + k + "]"
+            + (filter == null ? "" : "[" + filter + "]");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (sameClassAs(o) == false) {
+            return false;
+        }
+        KnnVectorQuery other = (KnnVectorQuery) o;
+        return field.equals(other.field) &&
+            Arrays.equals(queryVector, other.queryVector) &&
+            similarity == other.similarity &&
+            k == other.k &&
+            numCandidates == other.numCandidates &&
+            Objects.equals(filter, other.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, Arrays.hashCode(queryVector), similarity, k, numCandidates, filter);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.DenseVectorFieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+
+/**
+ * A query that finds the <code>k</code> nearest neighbours of a vector in a <code>dense_vector</code> field
+ * that is indexed for nearest neighbour search.
+ */
+public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBuilder> {
+    public static final String NAME = "knn";
+    public static final int DEFAULT_K = 10;
+    public static final int DEFAULT_NUM_CANDIDATES = 100;
+    public static final int MAX_NUM_CANDIDATES = 10_000;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
+    private static final ParseField K_FIELD = new ParseField("k");
+    private static final ParseField NUM_CANDIDATES_FIELD = new ParseField("num_candidates");
+    private static final ParseField FILTER_FIELD = new ParseField("filter");
+
+    private final String fieldName;
+    private final float[] queryVector;
+    private int k = DEFAULT_K;
+    private int numCandidates = DEFAULT_NUM_CANDIDATES;
+    private QueryBuilder filter;
+
+    public KnnVectorQueryBuilder(String fieldName, float[] queryVector) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a field");
+        }
+        if (queryVector == null || queryVector.length == 0) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a query vector");
+        }
+        this.fieldName = fieldName;
+        this.queryVector = queryVector;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public KnnVectorQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        fieldName = in.readString();
+        queryVector = in.readFloatArray();
+        k = in.readVInt();
+        numCandidates = in.readVInt();
+        filter = in.readOptionalNamedWriteable(QueryBuilder.class);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeFloatArray(queryVector);
+        out.writeVInt(k);
+        out.writeVInt(numCandidates);
+        out.writeOptionalNamedWriteable(filter);
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public float[] queryVector() {
+        return queryVector;
+    }
+
+    /**
+     * Sets the number of nearest neighbours to return, defaults to {@value #DEFAULT_K}.
+     */
+    public KnnVectorQueryBuilder k(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("[" + K_FIELD.getPreferredName() + "] must be greater than 0, got [" + k + "]");
+        }
+        this.k = k;
+        return this;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /**
+     * Sets the number of candidates that are collected on each segment before keeping the top <code>k</code>,
+     * defaults to {@value #DEFAULT_NUM_CANDIDATES}. More candidates give more accurate results but make the
+     * search slower. The search always collects at least <code>k</code> candidates.
+     */
+    public KnnVectorQueryBuilder numCandidates(int numCandidates) {
+        if (numCandidates < 1 || numCandidates > MAX_NUM_CANDIDATES) {
+            throw new IllegalArgumentException("[" + NUM_CANDIDATES_FIELD.getPreferredName() + "] must be in the range [1, "
+                + MAX_NUM_CANDIDATES + "], got [" + numCandidates + "]");
+        }
+        this.numCandidates = numCandidates;
+        return this;
+    }
+
+    public int numCandidates() {
+        return numCandidates;
+    }
+
+    /**
+     * Sets a query that restricts the documents that can be returned.
+     */
+    public KnnVectorQueryBuilder filter(QueryBuilder filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public QueryBuilder filter() {
+        return filter;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.array(QUERY_VECTOR_FIELD.getPreferredName(), queryVector);
+        builder.field(K_FIELD.getPreferredName(), k);
+        builder.field(NUM_CANDIDATES_FIELD.getPreferredName(), numCandidates);
+        if (filter != null) {
+            builder.field(FILTER_FIELD.getPreferredName());
+            filter.toXContent(builder, params);
+        }
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    private static final ConstructingObjectParser<KnnVectorQueryBuilder, Void> PARSER = new ConstructingObjectParser<>(NAME,
+        args -> {
+            @SuppressWarnings("unchecked")
+            List<Float> vector = (List<Float>) args[1];
+            float[] queryVector = new float[vector.size()];
+            for (int i = 0; i < queryVector.length; i++) {
+                queryVector[i] = vector.get(i);
+            }
+            return new KnnVectorQueryBuilder((String) args[0], queryVector);
+        });
+
+    static {
+        PARSER.declareString(constructorArg(), FIELD_FIELD);
+        PARSER.declareFloatArray(constructorArg(), QUERY_VECTOR_FIELD);
+        PARSER.declareInt(KnnVectorQueryBuilder::k, K_FIELD);
+        PARSER.declareInt(KnnVectorQueryBuilder::numCandidates, NUM_CANDIDATES_FIELD);
+        PARSER.declareObject(KnnVectorQueryBuilder::filter, (p, c) -> parseInnerQueryBuilder(p), FILTER_FIELD);
+        declareStandardFields(PARSER);
+    }
+
+    public static KnnVectorQueryBuilder fromXContent(XContentParser parser) {
+        try {
+            return PARSER.apply(parser, null);
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected QueryBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
+        if (filter != null) {
+            QueryBuilder rewrittenFilter = filter.rewrite(queryRewriteContext);
+            if (rewrittenFilter != filter) {
+                return new KnnVectorQueryBuilder(fieldName, queryVector)
+                    .k(k)
+                    .numCandidates(numCandidates)
+                    .filter(rewrittenFilter)
+                    .boost(boost)
+                    .queryName(queryName);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected Query doToQuery(QueryShardContext context) throws IOException {
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        if (fieldType == null) {
+            return new MatchNoDocsQuery("unmapped field [" + fieldName + "]");
+        }
+        if (fieldType instanceof DenseVectorFieldType == false) {
+            throw new QueryShardException(context, "[" + NAME + "] queries are only supported on [dense_vector] fields, field ["
+                + fieldName + "] is of type [" + fieldType.typeName() + "]");
+        }
+        DenseVectorFieldType vectorFieldType = (DenseVectorFieldType) fieldType;
+        if (vectorFieldType.isVectorIndexed() == false) {
+            throw new QueryShardException(context, "[" + NAME + "] queries require field [" + fieldName
+                + "] to be indexed, set [index] to true in its mapping");
+        }
+        if (queryVector.length != vectorFieldType.dims()) {
+            throw new QueryShardException(context, "the query vector has [" + queryVector.length + "] dimensions but field ["
+                + fieldName + "] has [" + vectorFieldType.dims() + "] dimensions");
+        }
+        Query filterQuery = filter == null ? null : filter.toQuery(context);
+        return new KnnVectorQuery(vectorFieldType.name(), queryVector, vectorFieldType.vectorSimilarity(), k,
+            Math.max(k, numCandidates), filterQuery);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, Arrays.hashCode(queryVector), k, numCandidates, filter);
+    }
+
+    @Override
+    protected boolean doEquals(KnnVectorQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName) &&
+            Arrays.equals(queryVector, other.queryVector) &&
+            k == other.k &&
+            numCandidates == other.numCandidates &&
+            Objects.equals(filter, other.filter);
+    }
+}
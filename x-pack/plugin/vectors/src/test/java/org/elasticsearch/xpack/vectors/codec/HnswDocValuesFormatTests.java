@@ -0,0 +1,184 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene84.Lucene84Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.mapper.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class HnswDocValuesFormatTests extends ESTestCase {
+
+    private static final String FIELD = "vector";
+    // the same vectors written with the default format, used to compute the exact nearest neighbours
+    private static final String EXACT_FIELD = "exact_vector";
+
+    public void testSearchFindsNearestNeighbours() throws IOException {
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.L2_NORM, VectorSimilarity.COSINE);
+        final int dims = randomIntBetween(4, 16);
+        final int numDocs = randomIntBetween(500, 2000);
+        final float[][] vectors = new float[numDocs][];
+        for (int i = 0; i < numDocs; i++) {
+            vectors[i] = randomVector(dims);
+        }
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, newWriterConfig(similarity, dims))) {
+                for (int i = 0; i < numDocs; i++) {
+                    writer.addDocument(document(i, vectors[i]));
+                    if (rarely()) {
+                        writer.flush();
+                    }
+                }
+                for (int i = 0; i < numDocs; i += 7) {
+                    writer.deleteDocuments(new Term("id", Integer.toString(i)));
+                }
+                writer.commit();
+                assertRecall(directory, similarity, dims);
+
+                writer.forceMerge(1);
+                writer.commit();
+                try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                    assertThat(reader.leaves().size(), equalTo(1));
+                    BinaryDocValues values = reader.leaves().get(0).reader().getBinaryDocValues(FIELD);
+                    assertThat("merged segments must have a graph", values, instanceOf(HnswBinaryDocValues.class));
+                }
+                assertRecall(directory, similarity, dims);
+            }
+        }
+    }
+
+    public void testSearchWithAcceptDocs() throws IOException {
+        final int dims = 4;
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, newWriterConfig(VectorSimilarity.L2_NORM, dims))) {
+                for (int i = 0; i < 200; i++) {
+                    writer.addDocument(document(i, randomVector(dims)));
+                }
+                writer.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                LeafReaderContext context = reader.leaves().get(0);
+                HnswBinaryDocValues values = (HnswBinaryDocValues) context.reader().getBinaryDocValues(FIELD);
+                Bits evenDocs = new Bits() {
+                    @Override
+                    public boolean get(int index) {
+                        return index % 2 == 0;
+                    }
+
+                    @Override
+                    public int length() {
+                        return context.reader().maxDoc();
+                    }
+                };
+                TopDocs topDocs = values.search(randomVector(dims), 10, 50, evenDocs);
+                assertThat(topDocs.scoreDocs.length, equalTo(10));
+                for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                    assertThat(topDocs.scoreDocs[i].doc % 2, equalTo(0));
+                    if (i > 0) {
+                        assertThat(topDocs.scoreDocs[i - 1].score, greaterThanOrEqualTo(topDocs.scoreDocs[i].score));
+                    }
+                }
+                expectThrows(IllegalArgumentException.class, () -> values.search(randomVector(dims + 1), 10, 50, null));
+            }
+        }
+    }
+
+    public void testFormatIsLoadedThroughSPI() {
+        assertThat(DocValuesFormat.forName(HnswDocValuesFormat.NAME), instanceOf(HnswDocValuesFormat.class));
+    }
+
+    private void assertRecall(Directory directory, VectorSimilarity similarity, int dims) throws IOException {
+        final int k = 10;
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            int found = 0;
+            int expected = 0;
+            for (int i = 0; i < 20; i++) {
+                float[] queryVector = randomVector(dims);
+                TopDocs approximate = searcher.search(new KnnVectorQuery(FIELD, queryVector, similarity, k, 100, null), k);
+                TopDocs exact = searcher.search(new KnnVectorQuery(EXACT_FIELD, queryVector, similarity, k, 100, null), k);
+                assertThat(approximate.scoreDocs.length, equalTo(exact.scoreDocs.length));
+                Set<Integer> exactDocs = new HashSet<>();
+                for (ScoreDoc scoreDoc : exact.scoreDocs) {
+                    exactDocs.add(scoreDoc.doc);
+                }
+                for (ScoreDoc scoreDoc : approximate.scoreDocs) {
+                    if (exactDocs.contains(scoreDoc.doc)) {
+                        found++;
+                    }
+                }
+                expected += exact.scoreDocs.length;
+                // a filter is applied before selecting the top k
+                TopDocs filtered = searcher.search(new KnnVectorQuery(FIELD, queryVector, similarity, k, 100,
+                    new TermQuery(new Term("even", "true"))), k);
+                for (ScoreDoc scoreDoc : filtered.scoreDocs) {
+                    assertThat(Integer.parseInt(searcher.doc(scoreDoc.doc).get("id")) % 2, equalTo(0));
+                }
+            }
+            assertThat("recall is too low: " + found + "/" + expected, (double) found / expected, greaterThanOrEqualTo(0.9));
+        }
+    }
+
+    private static IndexWriterConfig newWriterConfig(VectorSimilarity similarity, int dims) {
+        final DocValuesFormat format = new HnswDocValuesFormat(similarity, dims, randomIntBetween(4, 16), randomIntBetween(50, 100));
+        return new IndexWriterConfig().setCodec(new Lucene84Codec() {
+            @Override
+            public DocValuesFormat getDocValuesFormatForField(String field) {
+                return FIELD.equals(field) ? format : super.getDocValuesFormatForField(field);
+            }
+        });
+    }
+
+    private static Document document(int id, float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        for (float value : vector) {
+            buffer.putFloat(value);
+        }
+        BytesRef bytes = new BytesRef(buffer.array());
+        Document document = new Document();
+        document.add(new StringField("id", Integer.toString(id), Field.Store.YES));
+        document.add(new StringField("even", Boolean.toString(id % 2 == 0), Field.Store.NO));
+        document.add(new BinaryDocValuesField(FIELD, bytes));
+        document.add(new BinaryDocValuesField(EXACT_FIELD, bytes));
+        return document;
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
@@ -28,6 +28,7 @@ import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.elasticsearch.xpack.core.LocalStateCompositeXPackPlugin;
 import org.elasticsearch.xpack.vectors.Vectors;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -187,4 +188,78 @@ public class DenseVectorFieldMapperTests extends ESSingleNodeTestCase {
             new SourceToParse("test-index", "2", invalidDoc2, XContentType.JSON)));
         assertThat(e2.getCause().getMessage(), containsString("has number of dimensions [2] less than defined in the mapping [3]"));
     }
+
+    public void testIndexedVectors() throws Exception {
+        IndexService indexService = createIndex("test-index");
+        DocumentMapperParser parser = indexService.mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("_doc")
+            .startObject("properties")
+            .startObject("my-dense-vector").field("type", "dense_vector").field("dims", 3)
+                .field("index", true).field("similarity", "l2_norm")
+                .startObject("index_options").field("m", 8).field("ef_construction", 50).endObject()
+            .endObject()
+            .endObject()
+            .endObject()
+            .endObject());
+        DocumentMapper mapper = parser.parse("_doc", new CompressedXContent(mapping));
+        assertEquals(mapping, mapper.mappingSource().toString());
+
+        DenseVectorFieldMapper.DenseVectorFieldType fieldType =
+            ((DenseVectorFieldMapper) mapper.mappers().getMapper("my-dense-vector")).fieldType();
+        assertTrue(fieldType.isVectorIndexed());
+        assertEquals(VectorSimilarity.L2_NORM, fieldType.vectorSimilarity());
+        assertEquals(new HnswDocValuesFormat(VectorSimilarity.L2_NORM, 3, 8, 50), fieldType.docValuesFormat());
+    }
+
+    public void testIndexedVectorsRequireSimilarity() throws Exception {
+        IndexService indexService = createIndex("test-index");
+        DocumentMapperParser parser = indexService.mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("_doc")
+            .startObject("properties")
+            .startObject("my-dense-vector").field("type", "dense_vector").field("dims", 3).field("index", true)
+            .endObject()
+            .endObject()
+            .endObject()
+            .endObject());
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> parser.parse("_doc", new CompressedXContent(mapping)));
+        assertThat(e.getMessage(), containsString("The [similarity] property must be specified for field [my-dense-vector]"));
+    }
+
+    public void testSimilarityRequiresIndexedVectors() throws Exception {
+        IndexService indexService = createIndex("test-index");
+        DocumentMapperParser parser = indexService.mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("_doc")
+            .startObject("properties")
+            .startObject("my-dense-vector").field("type", "dense_vector").field("dims", 3).field("similarity", "cosine")
+            .endObject()
+            .endObject()
+            .endObject()
+            .endObject());
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> parser.parse("_doc", new CompressedXContent(mapping)));
+        assertThat(e.getMessage(), containsString("can only be set when [index] is true"));
+    }
+
+    public void testIndexedVectorsBefore_V_8_0_0() throws Exception {
+        IndexService indexService = createIndex("test-index7_4",
+            Settings.builder().put(IndexMetaData.SETTING_INDEX_VERSION_CREATED.getKey(), Version.V_7_4_0).build());
+        DocumentMapperParser parser = indexService.mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("_doc")
+            .startObject("properties")
+            .startObject("my-dense-vector").field("type", "dense_vector").field("dims", 3)
+                .field("index", true).field("similarity", "cosine")
+            .endObject()
+            .endObject()
+            .endObject()
+            .endObject());
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> parser.parse("_doc", new CompressedXContent(mapping)));
+        assertThat(e.getMessage(), containsString("is not supported for indices created before version [8.0.0]"));
+    }
 }
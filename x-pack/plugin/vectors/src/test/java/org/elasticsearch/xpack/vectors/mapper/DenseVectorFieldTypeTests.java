@@ -9,6 +9,7 @@ package org.elasticsearch.xpack.vectors.mapper;
 
 import org.elasticsearch.index.mapper.FieldTypeTestCase;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.junit.Before;
 
 public class DenseVectorFieldTypeTests extends FieldTypeTestCase {
 
@@ -16,4 +17,37 @@ public class DenseVectorFieldTypeTests extends FieldTypeTestCase {
     protected MappedFieldType createDefaultFieldType() {
         return new DenseVectorFieldMapper.DenseVectorFieldType();
     }
+
+    @Before
+    public void setupProperties() {
+        addModifier(new Modifier("dims", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                ((DenseVectorFieldMapper.DenseVectorFieldType) ft).setDims(3);
+            }
+        });
+        addModifier(new Modifier("index", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                ((DenseVectorFieldMapper.DenseVectorFieldType) ft).setVectorIndex(true, VectorSimilarity.COSINE, 16, 100);
+            }
+        });
+        addModifier(new Modifier("similarity", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                ((DenseVectorFieldMapper.DenseVectorFieldType) ft).setVectorIndex(true, VectorSimilarity.L2_NORM, 16, 100);
+            }
+
+            @Override
+            public void normalizeOther(MappedFieldType other) {
+                ((DenseVectorFieldMapper.DenseVectorFieldType) other).setVectorIndex(true, VectorSimilarity.COSINE, 16, 100);
+            }
+        });
+        addModifier(new Modifier("index_options", false) {
+            @Override
+            public void modify(MappedFieldType ft) {
+                ((DenseVectorFieldMapper.DenseVectorFieldType) ft).setVectorIndex(false, null, 8, 50);
+            }
+        });
+    }
 }
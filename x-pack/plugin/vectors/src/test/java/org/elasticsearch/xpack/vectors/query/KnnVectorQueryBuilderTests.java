@@ -0,0 +1,150 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.AbstractQueryTestCase;
+import org.elasticsearch.xpack.vectors.Vectors;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQueryBuilder> {
+
+    private static final String VECTOR_FIELD_NAME = "mapped_vector";
+    private static final String UNINDEXED_VECTOR_FIELD_NAME = "mapped_unindexed_vector";
+    private static final int DIMS = 4;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return Collections.singleton(Vectors.class);
+    }
+
+    @Override
+    protected Settings createTestIndexSettings() {
+        // indexed vectors require indices created on or after 8.0
+        return Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .build();
+    }
+
+    @Override
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        mapperService.merge("_doc", new CompressedXContent(Strings.toString(PutMappingRequest.simpleMapping(
+            VECTOR_FIELD_NAME, "type=dense_vector,dims=" + DIMS + ",index=true,similarity=cosine",
+            UNINDEXED_VECTOR_FIELD_NAME, "type=dense_vector,dims=" + DIMS))), MapperService.MergeReason.MAPPING_UPDATE);
+    }
+
+    @Override
+    protected KnnVectorQueryBuilder doCreateTestQueryBuilder() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(VECTOR_FIELD_NAME, randomVector(DIMS));
+        if (randomBoolean()) {
+            builder.k(randomIntBetween(1, 100));
+        }
+        if (randomBoolean()) {
+            builder.numCandidates(randomIntBetween(1, 1000));
+        }
+        if (randomBoolean()) {
+            builder.filter(QueryBuilders.termQuery(STRING_FIELD_NAME, randomAlphaOfLengthBetween(1, 10)));
+        }
+        return builder;
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(KnnVectorQueryBuilder queryBuilder, Query query, QueryShardContext context) throws IOException {
+        assertThat(query, instanceOf(KnnVectorQuery.class));
+        KnnVectorQuery knnQuery = (KnnVectorQuery) query;
+        assertEquals(VECTOR_FIELD_NAME, knnQuery.getField());
+        assertArrayEquals(queryBuilder.queryVector(), knnQuery.getQueryVector(), 0f);
+        assertEquals(queryBuilder.k(), knnQuery.getK());
+        assertEquals(Math.max(queryBuilder.k(), queryBuilder.numCandidates()), knnQuery.getNumCandidates());
+        if (queryBuilder.filter() == null) {
+            assertNull(knnQuery.getFilter());
+        } else {
+            assertEquals(queryBuilder.filter().toQuery(context), knnQuery.getFilter());
+        }
+    }
+
+    private static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat();
+        }
+        return vector;
+    }
+
+    public void testIllegalArguments() {
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(null, randomVector(DIMS)));
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(VECTOR_FIELD_NAME, new float[0]));
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(VECTOR_FIELD_NAME, randomVector(DIMS));
+        expectThrows(IllegalArgumentException.class, () -> builder.k(0));
+        expectThrows(IllegalArgumentException.class, () -> builder.numCandidates(0));
+        expectThrows(IllegalArgumentException.class, () -> builder.numCandidates(KnnVectorQueryBuilder.MAX_NUM_CANDIDATES + 1));
+    }
+
+    public void testWrongDimensions() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(VECTOR_FIELD_NAME, randomVector(DIMS + 1));
+        QueryShardException e = expectThrows(QueryShardException.class, () -> builder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("the query vector has [" + (DIMS + 1) + "] dimensions"));
+    }
+
+    public void testUnindexedField() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(UNINDEXED_VECTOR_FIELD_NAME, randomVector(DIMS));
+        QueryShardException e = expectThrows(QueryShardException.class, () -> builder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("to be indexed"));
+    }
+
+    public void testNonVectorField() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(STRING_FIELD_NAME, randomVector(DIMS));
+        QueryShardException e = expectThrows(QueryShardException.class, () -> builder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("only supported on [dense_vector] fields"));
+    }
+
+    public void testUnmappedField() throws IOException {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder("unmapped", randomVector(DIMS));
+        assertThat(builder.toQuery(createShardContext()), instanceOf(MatchNoDocsQuery.class));
+    }
+
+    public void testFromJson() throws IOException {
+        String json = "{\n" +
+            "  \"knn\" : {\n" +
+            "    \"field\" : \"" + VECTOR_FIELD_NAME + "\",\n" +
+            "    \"query_vector\" : [\n" +
+            "      0.5,\n" +
+            "      -1.0,\n" +
+            "      2.0,\n" +
+            "      0.0\n" +
+            "    ],\n" +
+            "    \"k\" : 5,\n" +
+            "    \"num_candidates\" : 50,\n" +
+            "    \"boost\" : 1.0\n" +
+            "  }\n" +
+            "}";
+        KnnVectorQueryBuilder parsed = (KnnVectorQueryBuilder) parseQuery(json);
+        checkGeneratedJson(json, parsed);
+        assertArrayEquals(new float[] { 0.5f, -1f, 2f, 0f }, parsed.queryVector(), 0f);
+        assertThat(parsed.k(), equalTo(5));
+        assertThat(parsed.numCandidates(), equalTo(50));
+    }
+}
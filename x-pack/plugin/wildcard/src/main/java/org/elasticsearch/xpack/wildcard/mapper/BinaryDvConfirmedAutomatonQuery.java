@@ -0,0 +1,142 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.wildcard.mapper;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A query that uses an approximation query to find candidate documents and confirms the matches by running an automaton
+ * against the values that are stored in the binary doc values of a <code>wildcard</code> field.
+ */
+public class BinaryDvConfirmedAutomatonQuery extends Query {
+
+    private final Query approxQuery;
+    private final String field;
+    private final String matchPattern;
+    private final ByteRunAutomaton byteRunAutomaton;
+
+    public BinaryDvConfirmedAutomatonQuery(Query approximation, String field, String matchPattern, ByteRunAutomaton automaton) {
+        this.approxQuery = approximation;
+        this.field = field;
+        this.matchPattern = matchPattern;
+        this.byteRunAutomaton = automaton;
+    }
+
+    public Query getApproximationQuery() {
+        return approxQuery;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        Query approxRewrite = approxQuery.rewrite(reader);
+        if (approxRewrite != approxQuery) {
+            return new BinaryDvConfirmedAutomatonQuery(approxRewrite, field, matchPattern, byteRunAutomaton);
+        }
+        return this;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        final Weight approxWeight = approxQuery.createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, boost);
+
+        return new ConstantScoreWeight(this, boost) {
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                Scorer approxScorer = approxWeight.scorer(context);
+                if (approxScorer == null) {
+                    // no candidate documents in this segment
+                    return null;
+                }
+                final ByteArrayDataInput input = new ByteArrayDataInput();
+                final BinaryDocValues values = DocValues.getBinary(context.reader(), field);
+                final DocIdSetIterator approxDisi = approxScorer.iterator();
+                TwoPhaseIterator twoPhase = new TwoPhaseIterator(approxDisi) {
+                    @Override
+                    public boolean matches() throws IOException {
+                        if (values.advanceExact(approxDisi.docID()) == false) {
+                            return false;
+                        }
+                        BytesRef bytes = values.binaryValue();
+                        input.reset(bytes.bytes, bytes.offset, bytes.length);
+                        // the doc values hold all the values of the document, see BinaryFieldMapper.CustomBinaryDocValuesField
+                        int count = input.readVInt();
+                        for (int i = 0; i < count; i++) {
+                            int length = input.readVInt();
+                            int position = input.getPosition();
+                            if (byteRunAutomaton.run(bytes.bytes, position, length)) {
+                                return true;
+                            }
+                            input.setPosition(position + length);
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public float matchCost() {
+                        // a rough estimate of the cost of reading the doc values and running the automaton
+                        return 1000f;
+                    }
+                };
+                return new ConstantScoreScorer(this, score(), scoreMode, twoPhase);
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return DocValues.isCacheable(ctx, field) && approxWeight.isCacheable(ctx);
+            }
+        };
+    }
+
+    @Override
+    public String toString(String field) {
+        return this.field + ":" + matchPattern;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        BinaryDvConfirmedAutomatonQuery other = (BinaryDvConfirmedAutomatonQuery) obj;
+        return Objects.equals(field, other.field) &&
+            Objects.equals(matchPattern, other.matchPattern) &&
+            Objects.equals(approxQuery, other.approxQuery) &&
+            Objects.equals(byteRunAutomaton, other.byteRunAutomaton);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, matchPattern, approxQuery, byteRunAutomaton);
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.wildcard.mapper;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.mapper.BinaryFieldMapper.CustomBinaryDocValuesField;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.mapper.ParseContext;
+import org.elasticsearch.index.mapper.TypeParsers;
+import org.elasticsearch.index.query.QueryShardContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A {@link FieldMapper} for strings that are searched with leading wildcards or regular expressions, such as log lines or
+ * command lines. The n-grams of each value are indexed to find candidate documents and the values are stored in binary doc
+ * values to verify the candidates, so that wildcard and regexp queries don't need to visit the whole terms dictionary.
+ */
+public class WildcardFieldMapper extends FieldMapper {
+
+    public static final String CONTENT_TYPE = "wildcard";
+    // marks the start and the end of each value so that the n-grams of anchored patterns include the anchors
+    static final char TOKEN_START_OR_END_CHAR = 0;
+    static final int NGRAM_SIZE = 3;
+    // the approximation only needs to be selective, intersecting more n-grams costs more than it saves
+    static final int MAX_CLAUSES_IN_APPROXIMATION_QUERY = 10;
+
+    public static class Defaults {
+        public static final MappedFieldType FIELD_TYPE = new WildcardFieldType();
+
+        static {
+            FIELD_TYPE.setTokenized(false);
+            FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+            FIELD_TYPE.setHasDocValues(true);
+            FIELD_TYPE.setOmitNorms(true);
+            FIELD_TYPE.freeze();
+        }
+
+        public static final int IGNORE_ABOVE = Integer.MAX_VALUE;
+    }
+
+    public static class Builder extends FieldMapper.Builder<Builder, WildcardFieldMapper> {
+        protected int ignoreAbove = Defaults.IGNORE_ABOVE;
+
+        public Builder(String name) {
+            super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
+            builder = this;
+        }
+
+        @Override
+        public WildcardFieldType fieldType() {
+            return (WildcardFieldType) super.fieldType();
+        }
+
+        public Builder ignoreAbove(int ignoreAbove) {
+            if (ignoreAbove < 0) {
+                throw new IllegalArgumentException("[ignore_above] must be positive, got " + ignoreAbove);
+            }
+            this.ignoreAbove = ignoreAbove;
+            return this;
+        }
+
+        @Override
+        public WildcardFieldMapper build(BuilderContext context) {
+            setupFieldType(context);
+            return new WildcardFieldMapper(
+                    name, fieldType, defaultFieldType, ignoreAbove,
+                    context.indexSettings(), multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    public static class TypeParser implements Mapper.TypeParser {
+        @Override
+        public Mapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext)
+                throws MapperParsingException {
+            WildcardFieldMapper.Builder builder = new WildcardFieldMapper.Builder(name);
+            // the common field parameters such as [index] or [doc_values] are not supported, both are required
+            TypeParsers.parseMeta(builder, name, node);
+            for (Iterator<Map.Entry<String, Object>> iterator = node.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<String, Object> entry = iterator.next();
+                String propName = entry.getKey();
+                Object propNode = entry.getValue();
+                if (propName.equals("null_value")) {
+                    if (propNode == null) {
+                        throw new MapperParsingException("Property [null_value] cannot be null.");
+                    }
+                    builder.nullValue(propNode.toString());
+                    iterator.remove();
+                } else if (propName.equals("ignore_above")) {
+                    builder.ignoreAbove(XContentMapValues.nodeIntegerValue(propNode, -1));
+                    iterator.remove();
+                } else if (TypeParsers.parseMultiField(builder, name, parserContext, propName, propNode)) {
+                    iterator.remove();
+                } else if (propName.equals("copy_to")) {
+                    if (parserContext.isWithinMultiField()) {
+                        throw new MapperParsingException("copy_to in multi fields is not allowed. Found the copy_to in field [" + name
+                            + "] which is within a multi field.");
+                    }
+                    TypeParsers.parseCopyFields(propNode, builder);
+                    iterator.remove();
+                }
+            }
+            return builder;
+        }
+    }
+
+    public static final class WildcardFieldType extends MappedFieldType {
+
+        public WildcardFieldType() {
+        }
+
+        protected WildcardFieldType(WildcardFieldType ref) {
+            super(ref);
+        }
+
+        @Override
+        public WildcardFieldType clone() {
+            return new WildcardFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public Query existsQuery(QueryShardContext context) {
+            return new DocValuesFieldExistsQuery(name());
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            String string = BytesRefs.toString(value);
+            Query approximation = approximation(List.of(TOKEN_START_OR_END_CHAR + string + TOKEN_START_OR_END_CHAR));
+            ByteRunAutomaton automaton = new ByteRunAutomaton(Automata.makeString(string));
+            return new BinaryDvConfirmedAutomatonQuery(approximation, name(), string, automaton);
+        }
+
+        @Override
+        public Query prefixQuery(String value, MultiTermQuery.RewriteMethod method, QueryShardContext context) {
+            Query approximation = approximation(List.of(TOKEN_START_OR_END_CHAR + value));
+            Automaton automaton = Operations.concatenate(Automata.makeString(value), Automata.makeAnyString());
+            return new BinaryDvConfirmedAutomatonQuery(approximation, name(), value + "*", new ByteRunAutomaton(automaton));
+        }
+
+        @Override
+        public Query wildcardQuery(String value, MultiTermQuery.RewriteMethod method, QueryShardContext context) {
+            Query approximation = approximation(wildcardLiterals(value));
+            Automaton automaton = WildcardQuery.toAutomaton(new Term(name(), value));
+            return new BinaryDvConfirmedAutomatonQuery(approximation, name(), value, new ByteRunAutomaton(automaton));
+        }
+
+        @Override
+        public Query regexpQuery(String value, int flags, int maxDeterminizedStates, MultiTermQuery.RewriteMethod method,
+                                 QueryShardContext context) {
+            Query approximation = approximation(regexpLiterals(value));
+            Automaton automaton = new RegExp(value, flags).toAutomaton(maxDeterminizedStates);
+            ByteRunAutomaton byteRunAutomaton = new ByteRunAutomaton(automaton, false, maxDeterminizedStates);
+            return new BinaryDvConfirmedAutomatonQuery(approximation, name(), "/" + value + "/", byteRunAutomaton);
+        }
+
+        /**
+         * Builds a query that matches all documents that contain the n-grams of the given literals, or all documents that
+         * have a value if the literals are too short to have n-grams.
+         */
+        private Query approximation(List<String> literals) {
+            Set<String> ngrams = new LinkedHashSet<>();
+            for (String literal : literals) {
+                addQueryNgrams(literal, ngrams);
+            }
+            if (ngrams.isEmpty()) {
+                return new DocValuesFieldExistsQuery(name());
+            }
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            int clauses = 0;
+            for (String ngram : ngrams) {
+                if (clauses++ == MAX_CLAUSES_IN_APPROXIMATION_QUERY) {
+                    break;
+                }
+                builder.add(new TermQuery(new Term(name(), ngram)), Occur.FILTER);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Returns the n-grams that are indexed for the given value.
+     */
+    public static Set<String> indexNgrams(String value) {
+        String string = TOKEN_START_OR_END_CHAR + value + TOKEN_START_OR_END_CHAR;
+        Set<String> ngrams = new LinkedHashSet<>();
+        int numNgrams = string.codePointCount(0, string.length()) - NGRAM_SIZE + 1;
+        for (int i = 0, start = 0; i < numNgrams; i++, start = string.offsetByCodePoints(start, 1)) {
+            ngrams.add(string.substring(start, string.offsetByCodePoints(start, NGRAM_SIZE)));
+        }
+        return ngrams;
+    }
+
+    /**
+     * Adds the n-grams that a value must contain to contain the given literal. Values have all the n-grams of the literal,
+     * but the n-grams overlap so it's enough to add every third n-gram, plus the last one.
+     */
+    static void addQueryNgrams(String literal, Set<String> ngrams) {
+        int numCodePoints = literal.codePointCount(0, literal.length());
+        if (numCodePoints < NGRAM_SIZE) {
+            return;
+        }
+        for (int i = 0; i < numCodePoints; i += NGRAM_SIZE) {
+            int startCodePoint = Math.min(i, numCodePoints - NGRAM_SIZE);
+            int start = literal.offsetByCodePoints(0, startCodePoint);
+            int end = literal.offsetByCodePoints(start, NGRAM_SIZE);
+            ngrams.add(literal.substring(start, end));
+        }
+    }
+
+    /**
+     * Returns the literal parts of a wildcard pattern, marked with the start and end character when they are anchored.
+     */
+    static List<String> wildcardLiterals(String pattern) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean anchoredStart = true;
+        for (int i = 0; i < pattern.length();) {
+            int c = pattern.codePointAt(i);
+            int length = Character.charCount(c);
+            if (c == WildcardQuery.WILDCARD_ESCAPE && i + length < pattern.length()) {
+                int next = pattern.codePointAt(i + length);
+                current.appendCodePoint(next);
+                i += length + Character.charCount(next);
+            } else if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR) {
+                addLiteral(literals, current, anchoredStart, false);
+                current = new StringBuilder();
+                anchoredStart = false;
+                i += length;
+            } else {
+                current.appendCodePoint(c);
+                i += length;
+            }
+        }
+        addLiteral(literals, current, anchoredStart, true);
+        return literals;
+    }
+
+    /**
+     * Returns literal parts that all the values that match the regular expression contain, marked with the start and end
+     * character when they are anchored. The extraction is conservative: it only uses sequences of required characters and
+     * gives up on operators that can make a sequence optional, like alternations.
+     */
+    static List<String> regexpLiterals(String pattern) {
+        List<String> literals = new ArrayList<>();
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("|~&@#<>".indexOf(pattern.charAt(i)) >= 0) {
+                return literals;
+            }
+        }
+        StringBuilder current = new StringBuilder();
+        boolean anchoredStart = true;
+        int i = 0;
+        while (i < pattern.length()) {
+            int c = pattern.codePointAt(i);
+            String literal;
+            if (c == '\\' && i + 1 < pattern.length()) {
+                int next = pattern.codePointAt(i + 1);
+                literal = new String(Character.toChars(next));
+                i += 1 + Character.charCount(next);
+            } else if (c == '"') {
+                int end = pattern.indexOf('"', i + 1);
+                if (end < 0) {
+                    return new ArrayList<>();
+                }
+                literal = pattern.substring(i + 1, end);
+                i = end + 1;
+            } else if (c == '(' || c == '[' || c == '.' || c == '{' || c == '*' || c == '+' || c == '?') {
+                // a group, a character class, any character or a repetition of the previous group ends the literal
+                addLiteral(literals, current, anchoredStart, false);
+                current = new StringBuilder();
+                anchoredStart = false;
+                i = skipOperator(pattern, i);
+                continue;
+            } else {
+                literal = new String(Character.toChars(c));
+                i += Character.charCount(c);
+            }
+            char quantifier = i < pattern.length() ? pattern.charAt(i) : 0;
+            if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+                // the literal is optional (or might be repeated a number of times that isn't worth handling)
+                addLiteral(literals, current, anchoredStart, false);
+                current = new StringBuilder();
+                anchoredStart = false;
+                i = skipOperator(pattern, i);
+            } else if (quantifier == '+') {
+                // the literal is required, but the characters that follow might not be next to it
+                current.append(literal);
+                addLiteral(literals, current, anchoredStart, false);
+                current = new StringBuilder();
+                anchoredStart = false;
+                i++;
+            } else {
+                current.append(literal);
+            }
+        }
+        addLiteral(literals, current, anchoredStart, true);
+        return literals;
+    }
+
+    /**
+     * Returns the position that follows the group, character class or operator that starts at the given position.
+     */
+    private static int skipOperator(String pattern, int start) {
+        char c = pattern.charAt(start);
+        char close;
+        if (c == '(') {
+            close = ')';
+        } else if (c == '[') {
+            close = ']';
+        } else if (c == '{') {
+            close = '}';
+        } else {
+            return start + 1;
+        }
+        int depth = 0;
+        for (int i = start; i < pattern.length(); i++) {
+            char current = pattern.charAt(i);
+            if (current == '\\') {
+                i++;
+            } else if (current == c) {
+                depth++;
+            } else if (current == close && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return pattern.length();
+    }
+
+    private static void addLiteral(List<String> literals, StringBuilder literal, boolean anchoredStart, boolean anchoredEnd) {
+        if (literal.length() == 0) {
+            return;
+        }
+        if (anchoredStart) {
+            literal.insert(0, TOKEN_START_OR_END_CHAR);
+        }
+        if (anchoredEnd) {
+            literal.append(TOKEN_START_OR_END_CHAR);
+        }
+        literals.add(literal.toString());
+    }
+
+    private int ignoreAbove;
+
+    private WildcardFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                int ignoreAbove, Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+        this.ignoreAbove = ignoreAbove;
+    }
+
+    /** Values that have more chars than the return value of this method will
+     *  be skipped at parsing time. */
+    // pkg-private for testing
+    int ignoreAbove() {
+        return ignoreAbove;
+    }
+
+    @Override
+    protected WildcardFieldMapper clone() {
+        return (WildcardFieldMapper) super.clone();
+    }
+
+    @Override
+    public WildcardFieldType fieldType() {
+        return (WildcardFieldType) super.fieldType();
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        String value;
+        if (context.externalValueSet()) {
+            value = context.externalValue().toString();
+        } else {
+            XContentParser parser = context.parser();
+            if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
+                value = fieldType().nullValueAsString();
+            } else {
+                value = parser.textOrNull();
+            }
+        }
+
+        if (value == null || value.length() > ignoreAbove) {
+            return;
+        }
+
+        for (String ngram : indexNgrams(value)) {
+            fields.add(new Field(fieldType().name(), ngram, fieldType()));
+        }
+
+        // all the values of the document are kept in a single binary doc value
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        CustomBinaryDocValuesField field = (CustomBinaryDocValuesField) context.doc().getByKey(fieldType().name());
+        if (field == null) {
+            field = new CustomBinaryDocValuesField(fieldType().name(), bytes);
+            context.doc().addWithKey(fieldType().name(), field);
+        } else {
+            field.add(bytes);
+        }
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    protected void doMerge(Mapper mergeWith) {
+        super.doMerge(mergeWith);
+        this.ignoreAbove = ((WildcardFieldMapper) mergeWith).ignoreAbove;
+    }
+
+    @Override
+    protected void doXContentBody(XContentBuilder builder, boolean includeDefaults, Params params) throws IOException {
+        // the parent implementation is not called since the common field parameters are not supported
+        builder.field("type", contentType());
+        if (includeDefaults || fieldType().nullValue() != null) {
+            builder.field("null_value", fieldType().nullValue());
+        }
+        if (includeDefaults || ignoreAbove != Defaults.IGNORE_ABOVE) {
+            builder.field("ignore_above", ignoreAbove);
+        }
+        multiFields.toXContent(builder, params);
+        copyTo.toXContent(builder, params);
+        if (includeDefaults || fieldType().meta().isEmpty() == false) {
+            builder.field("meta", new TreeMap<>(fieldType().meta()));
+        }
+    }
+}
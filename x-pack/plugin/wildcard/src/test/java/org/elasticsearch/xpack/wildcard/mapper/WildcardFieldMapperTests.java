@@ -0,0 +1,203 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.wildcard.mapper;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.DocumentMapperParser;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.xpack.core.LocalStateCompositeXPackPlugin;
+import org.elasticsearch.xpack.wildcard.Wildcard;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class WildcardFieldMapperTests extends ESSingleNodeTestCase {
+
+    private static final char MARKER = WildcardFieldMapper.TOKEN_START_OR_END_CHAR;
+
+    private IndexService indexService;
+    private DocumentMapperParser parser;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return pluginList(Wildcard.class, LocalStateCompositeXPackPlugin.class);
+    }
+
+    @Before
+    public void setup() {
+        indexService = createIndex("test");
+        parser = indexService.mapperService().documentMapperParser();
+    }
+
+    public void testDefaults() throws Exception {
+        DocumentMapper mapper = createMapper("{\"type\":\"wildcard\"}");
+
+        ParsedDocument doc = mapper.parse(new SourceToParse("test", "1", source("field", "abcd"), XContentType.JSON));
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        // 4 n-grams and the binary doc values
+        assertEquals(5, fields.length);
+        int ngrams = 0;
+        for (IndexableField field : fields) {
+            if (field.fieldType().indexOptions() != IndexOptions.NONE) {
+                assertEquals(IndexOptions.DOCS, field.fieldType().indexOptions());
+                assertFalse(field.fieldType().stored());
+                assertTrue(field.fieldType().omitNorms());
+                ngrams++;
+            }
+        }
+        assertEquals(4, ngrams);
+        assertThat(WildcardFieldMapper.indexNgrams("abcd"),
+            containsInAnyOrder(MARKER + "ab", "abc", "bcd", "cd" + MARKER));
+    }
+
+    public void testMultipleValues() throws Exception {
+        DocumentMapper mapper = createMapper("{\"type\":\"wildcard\"}");
+
+        BytesReference source = BytesReference.bytes(XContentFactory.jsonBuilder()
+            .startObject()
+                .array("field", "foo", "bar")
+            .endObject());
+        ParsedDocument doc = mapper.parse(new SourceToParse("test", "1", source, XContentType.JSON));
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        // 3 n-grams per value and a single binary doc value that holds both values
+        assertEquals(7, fields.length);
+    }
+
+    public void testIgnoreAbove() throws Exception {
+        DocumentMapper mapper = createMapper("{\"type\":\"wildcard\",\"ignore_above\":5}");
+
+        ParsedDocument doc = mapper.parse(new SourceToParse("test", "1", source("field", "elk"), XContentType.JSON));
+        assertThat(doc.rootDoc().getFields("field").length, equalTo(4));
+
+        doc = mapper.parse(new SourceToParse("test", "1", source("field", "elasticsearch"), XContentType.JSON));
+        assertEquals(0, doc.rootDoc().getFields("field").length);
+    }
+
+    public void testNullValue() throws Exception {
+        DocumentMapper mapper = createMapper("{\"type\":\"wildcard\"}");
+        ParsedDocument doc = mapper.parse(new SourceToParse("test", "1", source("field", null), XContentType.JSON));
+        assertEquals(0, doc.rootDoc().getFields("field").length);
+
+        mapper = createMapper("{\"type\":\"wildcard\",\"null_value\":\"uri\"}");
+        doc = mapper.parse(new SourceToParse("test", "1", source("field", null), XContentType.JSON));
+        assertThat(doc.rootDoc().getFields("field").length, equalTo(4));
+    }
+
+    public void testSerialization() throws Exception {
+        String fieldMapping = "{\"type\":\"wildcard\",\"null_value\":\"uri\",\"ignore_above\":256,\"meta\":{\"unit\":\"cmd\"}}";
+        DocumentMapper mapper = createMapper(fieldMapping);
+        assertThat(mapper.mappingSource().toString(), containsString("\"field\":" + fieldMapping));
+    }
+
+    public void testUnsupportedParameters() {
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> createMapper("{\"type\":\"wildcard\",\"doc_values\":false}"));
+        assertThat(e.getMessage(), containsString("doc_values"));
+    }
+
+    public void testWildcardLiterals() {
+        assertThat(WildcardFieldMapper.wildcardLiterals("foo*bar"), equalTo(List.of(MARKER + "foo", "bar" + MARKER)));
+        assertThat(WildcardFieldMapper.wildcardLiterals("*foo?bar*"), equalTo(List.of("foo", "bar")));
+        assertThat(WildcardFieldMapper.wildcardLiterals("*a\\*b*"), equalTo(List.of("a*b")));
+    }
+
+    public void testRegexpLiterals() {
+        assertThat(WildcardFieldMapper.regexpLiterals("foo.*bar"), equalTo(List.of(MARKER + "foo", "bar" + MARKER)));
+        assertThat(WildcardFieldMapper.regexpLiterals(".*fooo?bar.*"), equalTo(List.of("foo", "bar")));
+        assertThat(WildcardFieldMapper.regexpLiterals(".*[0-9]{3}xyz+"), equalTo(List.of("xyz")));
+        assertThat(WildcardFieldMapper.regexpLiterals(".*\"a.b\"c(de)+"), equalTo(List.of("a.bc")));
+        // alternations can make any part of the pattern optional
+        assertThat(WildcardFieldMapper.regexpLiterals("foo|bar"), equalTo(List.of()));
+    }
+
+    public void testSearch() throws Exception {
+        DocumentMapper mapper = createMapper("{\"type\":\"wildcard\"}");
+        MappedFieldType fieldType = ((FieldMapper) mapper.mappers().getMapper("field")).fieldType();
+
+        String[] values = new String[] {
+            "/usr/bin/java -Xmx1g -jar app.jar",
+            "/bin/bash -c ls -la /tmp",
+            "C:\\Windows\\System32\\cmd.exe /c whoami",
+            "python3 -m http.server 8080",
+            "curl http://example.com/install.sh | sh",
+            "ab",
+            "",
+        };
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+                for (String value : values) {
+                    ParsedDocument doc = mapper.parse(new SourceToParse("test", "1", source("field", value), XContentType.JSON));
+                    doc.rootDoc().add(new StringField("keyword", value, Field.Store.NO));
+                    writer.addDocument(doc.rootDoc());
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (String pattern : new String[] { "*", "*java*", "/bin/*", "*whoami", "*http*sh", "?b", "a?", "*8?80", "ab*" }) {
+                    assertSameHits(searcher, fieldType.wildcardQuery(pattern, null, null),
+                        new WildcardQuery(new Term("keyword", pattern)));
+                }
+                for (String pattern : new String[] { ".*", ".*java.*", "/bin/.*", ".*who(am)?i", ".*[0-9]{4}", "ab+", "a.", "" }) {
+                    assertSameHits(searcher, fieldType.regexpQuery(pattern, RegExp.ALL, 10000, null, null),
+                        new RegexpQuery(new Term("keyword", pattern)));
+                }
+                assertSameHits(searcher, fieldType.termQuery("ab", null), new WildcardQuery(new Term("keyword", "ab")));
+                assertSameHits(searcher, fieldType.prefixQuery("/usr", null, null),
+                    new WildcardQuery(new Term("keyword", "/usr*")));
+            }
+        }
+    }
+
+    private static void assertSameHits(IndexSearcher searcher, Query query, Query expected) throws IOException {
+        assertThat(query.toString(), searcher.count(query), equalTo(searcher.count(expected)));
+    }
+
+    private DocumentMapper createMapper(String fieldMapping) throws IOException {
+        String mapping = "{\"type\":{\"properties\":{\"field\":" + fieldMapping + "}}}";
+        return parser.parse("type", new CompressedXContent(mapping));
+    }
+
+    private static BytesReference source(String field, String value) throws IOException {
+        return BytesReference.bytes(XContentFactory.jsonBuilder()
+            .startObject()
+                .field(field, value)
+            .endObject());
+    }
+}